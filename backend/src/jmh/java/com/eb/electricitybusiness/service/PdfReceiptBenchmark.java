@@ -0,0 +1,101 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.model.Borne;
+import com.eb.electricitybusiness.model.Reservation;
+import com.eb.electricitybusiness.model.Utilisateur;
+import com.eb.electricitybusiness.service.impl.PdfReceiptServiceImpl;
+import com.eb.electricitybusiness.service.impl.ReceiptStorageServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Débit de rendu des reçus PDF (reçus par seconde).
+ * Lancer avec : mvn -Pbenchmark test-compile exec:exec -Djmh.includes=PdfReceiptBenchmark
+ * Pour comparer avant / après, exécuter le même benchmark sur les deux révisions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfReceiptBenchmark {
+
+    private PdfReceiptServiceImpl pdfReceiptService;
+    private Reservation reservation;
+    private ByteArrayOutputStream buffer;
+    private Path storage;
+
+    @Setup
+    public void setUp() throws IOException {
+        storage = Files.createTempDirectory("receipts-bench");
+        pdfReceiptService = new PdfReceiptServiceImpl(new ReceiptStorageServiceImpl(storage.toString()));
+        buffer = new ByteArrayOutputStream(16 * 1024);
+
+        Utilisateur client = new Utilisateur();
+        client.setNom("Martin");
+        client.setPrenom("Claire");
+        client.setEmail("claire.martin@example.com");
+        client.setPseudo("cmartin");
+
+        Borne borne = new Borne();
+        borne.setNom("Borne Gare de Lyon");
+        borne.setNumero("B-0042");
+        borne.setLocalisation("Paris 12e");
+        borne.setPuissance(22);
+
+        reservation = new Reservation();
+        reservation.setNumeroReservation(4242L);
+        reservation.setDateDebut(LocalDateTime.of(2030, 1, 15, 8, 0));
+        reservation.setDateFin(LocalDateTime.of(2030, 1, 15, 9, 30));
+        reservation.setPrixALaMinute(new BigDecimal("0.2500"));
+        reservation.setTotalPrice(new BigDecimal("22.50"));
+        reservation.setEtat(Reservation.EtatReservation.CONFIRMEE);
+        reservation.setUtilisateur(client);
+        reservation.setBorne(borne);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(storage)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Rendu seul, en mémoire
+     */
+    @Benchmark
+    public int render() throws Exception {
+        buffer.reset();
+        pdfReceiptService.render(reservation, buffer);
+        return buffer.size();
+    }
+
+    /**
+     * Chemin complet : rendu puis écriture atomique du fichier (remplacé à chaque appel)
+     */
+    @Benchmark
+    public String generateReceipt() throws IOException {
+        return pdfReceiptService.generateReceipt(reservation);
+    }
+}
@@ -0,0 +1,90 @@
+package com.eb.electricitybusiness.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Exécuteurs des traitements en arrière-plan
+ */
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Génération des déclinaisons des photos : peu de threads car le décodage
+     * d'une image est coûteux en mémoire ; au-delà de la file d'attente les
+     * tâches sont refusées et l'original reste servi
+     */
+    @Bean(name = "photoVariantExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor photoVariantExecutor(
+            @Value("${app.upload.variants.threads:2}") int threads,
+            @Value("${app.upload.variants.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("photo-variant-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Génération des reçus PDF hors de la transaction d'acceptation ; une tâche
+     * refusée reste en attente en base et sera reprise par la relance périodique
+     */
+    @Bean(name = "receiptExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor receiptExecutor(
+            @Value("${app.receipts.async.threads:2}") int threads,
+            @Value("${app.receipts.async.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("receipt-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Rendu des relevés mensuels des propriétaires : pool borné, et le thread
+     * qui soumet rend lui-même un relevé quand la file est pleine, pour qu'aucun
+     * relevé ne soit perdu
+     */
+    @Bean(name = "statementExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor statementExecutor(
+            @Value("${app.statements.threads:2}") int threads,
+            @Value("${app.statements.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("statement-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Application des statistiques du tableau de bord après le commit des
+     * réservations : un seul thread, pour que les mises à jour des mêmes lignes
+     * ne se bloquent pas entre elles ; file pleine, le thread appelant applique
+     * lui-même ses deltas depuis afterCommit, dans une nouvelle transaction
+     * (REQUIRES_NEW) car la transaction validée lui est encore liée
+     */
+    @Bean(name = "dashboardStatsExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor dashboardStatsExecutor(
+            @Value("${app.dashboard.stats.queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("dashboard-stats-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+}
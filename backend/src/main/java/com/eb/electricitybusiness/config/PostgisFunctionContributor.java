@@ -0,0 +1,26 @@
+package com.eb.electricitybusiness.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Fonctions PostGIS utilisables depuis les requêtes Criteria (Specification).
+ * Enregistré par META-INF/services/org.hibernate.boot.model.FunctionContributor.
+ */
+public class PostgisFunctionContributor implements FunctionContributor {
+
+    /**
+     * Distance KNN (opérateur <->) entre deux géographies, en mètres. Utilisée
+     * dans ORDER BY sous la forme geography(geom) <-> point, elle est servie par
+     * l'index GiST idx_borne_geog au lieu de trier toutes les lignes.
+     */
+    public static final String KNN_DISTANCE = "knn_distance";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(KNN_DISTANCE, "(?1 <-> ?2)",
+                functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                        .resolve(StandardBasicTypes.DOUBLE));
+    }
+}
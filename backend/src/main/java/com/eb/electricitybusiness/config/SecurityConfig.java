@@ -58,6 +58,7 @@ public class SecurityConfig {
                     .requestMatchers(new AntPathRequestMatcher("/auth/**")).permitAll()
                     .requestMatchers(new AntPathRequestMatcher("/bornes/public/**")).permitAll()
                     .requestMatchers(new AntPathRequestMatcher("/bornes/proches")).permitAll()
+                    .requestMatchers(new AntPathRequestMatcher("/bornes/clusters")).permitAll()
                     .requestMatchers(new AntPathRequestMatcher("/utilisateurs/pseudo/{pseudo}", HttpMethod.GET.name())).permitAll()
                     .requestMatchers(new AntPathRequestMatcher("/actuator/**")).permitAll()
                     .requestMatchers(new AntPathRequestMatcher("/error")).permitAll()
@@ -2,15 +2,22 @@ package com.eb.electricitybusiness.controller;
 
 import com.eb.electricitybusiness.dto.ApiResponse;
 import com.eb.electricitybusiness.dto.BorneDto;
+import com.eb.electricitybusiness.dto.BorneSearchCriteria;
+import com.eb.electricitybusiness.dto.BorneSummary;
+import com.eb.electricitybusiness.dto.CursorPageDto;
+import com.eb.electricitybusiness.model.Borne;
 import com.eb.electricitybusiness.service.BorneService;
+import com.eb.electricitybusiness.service.DisponibiliteService;
 
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -21,6 +28,9 @@ public class BorneController {
         @Autowired
         private BorneService borneService;
 
+        @Autowired
+        private DisponibiliteService disponibiliteService;
+
         @PostMapping
         public ResponseEntity<ApiResponse<?>> creerBorne(@Valid @RequestBody BorneDto borneDto) {
                 BorneDto nouvelleBorne = borneService.create(borneDto);
@@ -32,12 +42,33 @@ public class BorneController {
         public ResponseEntity<ApiResponse<?>> getBornesProches(
                         @RequestParam Double latitude,
                         @RequestParam Double longitude,
-                        @RequestParam Double distance) {
+                        @RequestParam(required = false) Double distance,
+                        @RequestParam(required = false) Integer limit) {
+                // Mode KNN : les "limit" bornes les plus proches, triées et avec leur distance
+                if (limit != null) {
+                        List<BorneDto> bornes = borneService.getPlusProches(latitude, longitude, limit, distance);
+                        return new ResponseEntity<>(ApiResponse.success(bornes), HttpStatus.OK);
+                }
+                if (distance == null) {
+                        throw new IllegalArgumentException("Le paramètre distance ou limit est obligatoire");
+                }
                 List<BorneDto> bornes = borneService.getProches(latitude, longitude, distance);
                 return new ResponseEntity<>(ApiResponse.success(bornes),
                                 HttpStatus.OK);
         }
 
+        /**
+         * Regroupements de bornes pour la carte : la taille de la réponse dépend
+         * du nombre de mailles visibles, pas du nombre de bornes
+         */
+        @GetMapping("/clusters")
+        public ResponseEntity<ApiResponse<?>> getClusters(
+                        @RequestParam String bbox,
+                        @RequestParam(required = false) Integer zoom) {
+                return new ResponseEntity<>(ApiResponse.success(borneService.getClusters(bbox, zoom)),
+                                HttpStatus.OK);
+        }
+
         @GetMapping("/{id}")
         public ResponseEntity<ApiResponse<?>> getBorneById(@PathVariable Long id) {
                 return new ResponseEntity<>(ApiResponse.success(borneService.getBorneDtoById(id)),
@@ -45,11 +76,31 @@ public class BorneController {
         }
 
         @GetMapping
-        public ResponseEntity<ApiResponse<?>> getAllBornes() {
+        public ResponseEntity<ApiResponse<?>> getAllBornes(
+                        @RequestParam(required = false) String sort,
+                        @RequestParam(required = false) String direction,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(required = false) Integer size) {
+                if (isPaginated(cursor, size)) {
+                        return pageResponse(BorneSearchCriteria.empty(), sort, direction, cursor, size);
+                }
                 return new ResponseEntity<>(ApiResponse.success(borneService.getAllBornesDto()),
                                 HttpStatus.OK);
         }
 
+        /**
+         * Calendrier des créneaux libres et occupés, par plages consécutives.
+         * granularity est la durée d'un créneau en minutes (30 par défaut)
+         */
+        @GetMapping("/{id}/disponibilites")
+        public ResponseEntity<ApiResponse<?>> getDisponibilites(@PathVariable Long id,
+                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                        @RequestParam(required = false) Integer granularity) {
+                return new ResponseEntity<>(ApiResponse.success(
+                                disponibiliteService.getDisponibilites(id, from, to, granularity)), HttpStatus.OK);
+        }
+
         @PutMapping("/{id}")
         public ResponseEntity<ApiResponse<?>> updateBorne(@PathVariable Long id,
                         @Valid @RequestBody BorneDto borneDto) {
@@ -67,14 +118,14 @@ public class BorneController {
 
         @GetMapping("/lieu/{idLieu}")
         public ResponseEntity<ApiResponse<?>> getBornesByLieu(@PathVariable Long idLieu) {
-                List<BorneDto> bornes = borneService.getByLieu(idLieu);
+                List<BorneSummary> bornes = borneService.getByLieu(idLieu);
                 return new ResponseEntity<>(ApiResponse.success(bornes),
                                 HttpStatus.OK);
         }
 
         @GetMapping("/disponible/{disponible}")
         public ResponseEntity<ApiResponse<?>> getBornesByDisponibilite(@PathVariable Boolean disponible) {
-                List<BorneDto> bornes = borneService.getByDisponibilite(disponible);
+                List<BorneSummary> bornes = borneService.getByDisponibilite(disponible);
                 return new ResponseEntity<>(ApiResponse.success(bornes),
                                 HttpStatus.OK);
         }
@@ -88,24 +139,61 @@ public class BorneController {
                         @RequestParam(required = false) java.math.BigDecimal prixMax,
                         @RequestParam(required = false) Integer puissanceMin,
                         @RequestParam(required = false) String etat,
-                        @RequestParam(required = false) Boolean disponible) {
+                        @RequestParam(required = false) Boolean disponible,
+                        @RequestParam(required = false) String sort,
+                        @RequestParam(required = false) String direction,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(required = false) Integer size) {
                 // Si aucun filtre n'est fourni, retourner toutes les bornes disponibles
                 if (latitude == null && longitude == null && prixMin == null &&
                                 prixMax == null && puissanceMin == null && etat == null && disponible == null) {
-                        List<BorneDto> bornes = borneService.getByDisponibilite(true);
+                        if (isPaginated(cursor, size)) {
+                                return pageResponse(BorneSearchCriteria.ofEtat(Borne.Etat.DISPONIBLE.name()),
+                                                sort, direction, cursor, size);
+                        }
+                        List<BorneSummary> bornes = borneService.getByDisponibilite(true);
                         return new ResponseEntity<>(ApiResponse.success(bornes), HttpStatus.OK);
                 }
 
                 // Sinon utiliser la recherche avancée
+                if (isPaginated(cursor, size)) {
+                        return pageResponse(new BorneSearchCriteria(latitude, longitude, distance, prixMin, prixMax,
+                                        puissanceMin, etat, disponible), sort, direction, cursor, size);
+                }
                 List<BorneDto> bornes = borneService.searchAdvanced(
                                 latitude, longitude, distance, prixMin, prixMax, puissanceMin, etat, disponible);
                 return new ResponseEntity<>(ApiResponse.success(bornes),
                                 HttpStatus.OK);
         }
 
+        /**
+         * Bornes libres sur tout le créneau [from, to] autour d'un point,
+         * triées par distance (défaut) ou par prix
+         */
+        @GetMapping("/libres")
+        public ResponseEntity<ApiResponse<?>> getBornesLibres(
+                        @RequestParam Double latitude,
+                        @RequestParam Double longitude,
+                        @RequestParam(required = false) Double distance,
+                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                        @RequestParam(required = false) String sort,
+                        @RequestParam(required = false) Integer limit) {
+                return new ResponseEntity<>(ApiResponse.success(
+                                borneService.searchLibres(latitude, longitude, distance, from, to, sort, limit)),
+                                HttpStatus.OK);
+        }
+
         @GetMapping("/etat/{etat}")
-        public ResponseEntity<ApiResponse<?>> getBornesByEtat(@PathVariable String etat) {
-                List<BorneDto> bornes = borneService.getByEtat(etat);
+        public ResponseEntity<ApiResponse<?>> getBornesByEtat(@PathVariable String etat,
+                        @RequestParam(required = false) String sort,
+                        @RequestParam(required = false) String direction,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(required = false) Integer size) {
+                if (isPaginated(cursor, size)) {
+                        return pageResponse(BorneSearchCriteria.ofEtat(etat), sort, direction, cursor, size);
+                }
+                List<BorneSummary> bornes = borneService.getByEtat(etat);
                 return new ResponseEntity<>(ApiResponse.success(bornes),
                                 HttpStatus.OK);
         }
@@ -149,7 +237,15 @@ public class BorneController {
                         @RequestParam(required = false) java.math.BigDecimal prixMax,
                         @RequestParam(required = false) Integer puissanceMin,
                         @RequestParam(required = false) String etat,
-                        @RequestParam(required = false) Boolean disponible) {
+                        @RequestParam(required = false) Boolean disponible,
+                        @RequestParam(required = false) String sort,
+                        @RequestParam(required = false) String direction,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(required = false) Integer size) {
+                if (isPaginated(cursor, size)) {
+                        return pageResponse(new BorneSearchCriteria(latitude, longitude, distance, prixMin, prixMax,
+                                        puissanceMin, etat, disponible), sort, direction, cursor, size);
+                }
                 List<BorneDto> bornes = borneService.searchAdvanced(
                                 latitude, longitude, distance, prixMin, prixMax, puissanceMin, etat, disponible);
                 return new ResponseEntity<>(ApiResponse.success(bornes),
@@ -173,4 +269,16 @@ public class BorneController {
                 return new ResponseEntity<>(ApiResponse.success("Photo supprimée avec succès"),
                                 HttpStatus.OK);
         }
+
+        // La pagination par curseur est activée dès qu'une taille de page ou un
+        // curseur est fourni ; sinon la liste complète est renvoyée comme avant
+        private boolean isPaginated(String cursor, Integer size) {
+                return size != null || cursor != null;
+        }
+
+        private ResponseEntity<ApiResponse<?>> pageResponse(BorneSearchCriteria criteria, String sort,
+                        String direction, String cursor, Integer size) {
+                CursorPageDto<BorneSummary> page = borneService.searchPage(criteria, sort, direction, cursor, size);
+                return new ResponseEntity<>(ApiResponse.success(page), HttpStatus.OK);
+        }
 }
@@ -2,13 +2,27 @@ package com.eb.electricitybusiness.controller;
 
 import com.eb.electricitybusiness.dto.ApiResponse;
 import com.eb.electricitybusiness.dto.DashboardStatsDto;
+import com.eb.electricitybusiness.dto.OwnerSeriesDto;
 import com.eb.electricitybusiness.service.DashboardService;
+import com.eb.electricitybusiness.service.OwnerAnalyticsService;
+import com.eb.electricitybusiness.service.OwnerStatementService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
 @RestController
 @RequestMapping("/dashboard")
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -17,9 +31,14 @@ public class DashboardController {
     private static final Logger logger = LoggerFactory.getLogger(DashboardController.class);
 
     private final DashboardService dashboardService;
+    private final OwnerAnalyticsService ownerAnalyticsService;
+    private final OwnerStatementService ownerStatementService;
 
-    public DashboardController(DashboardService dashboardService) {
+    public DashboardController(DashboardService dashboardService, OwnerAnalyticsService ownerAnalyticsService,
+            OwnerStatementService ownerStatementService) {
         this.dashboardService = dashboardService;
+        this.ownerAnalyticsService = ownerAnalyticsService;
+        this.ownerStatementService = ownerStatementService;
     }
 
     /**
@@ -41,4 +60,72 @@ public class DashboardController {
                     .body(ApiResponse.error("Erreur lors de la récupération des statistiques: " + e.getMessage()));
         }
     }
+
+    /**
+     * Séries de revenus et d'occupation des bornes d'un propriétaire
+     * GET /api/dashboard/owner/{ownerId}/series?granularity=day|week|month&from=&to=&borneId=
+     *
+     * @param ownerId ID du propriétaire
+     * @return Série totale (une entrée par période) et séries par borne
+     */
+    @GetMapping("/owner/{ownerId}/series")
+    public ResponseEntity<?> getOwnerSeries(
+            @PathVariable Long ownerId,
+            @RequestParam(required = false) String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long borneId) {
+        try {
+            OwnerSeriesDto series = ownerAnalyticsService.getSeries(ownerId, granularity, from, to, borneId);
+            return ResponseEntity.ok(ApiResponse.success("Séries récupérées avec succès", series));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error fetching series for owner {}", ownerId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Erreur lors de la récupération des séries: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Relevé mensuel PDF d'un propriétaire, envoyé depuis le disque
+     * GET /api/dashboard/owner/{ownerId}/releve?mois=AAAA-MM
+     *
+     * @param ownerId ID du propriétaire
+     * @param mois Mois du relevé (mois précédent par défaut)
+     */
+    @GetMapping("/owner/{ownerId}/releve")
+    public ResponseEntity<?> getOwnerStatement(
+            @PathVariable Long ownerId,
+            @RequestParam(required = false) YearMonth mois,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        YearMonth periode = mois != null ? mois : YearMonth.now().minusMonths(1);
+        Path file;
+        long length;
+        try {
+            file = ownerStatementService.getStatement(ownerId, periode);
+            length = Files.size(file);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error generating statement {} for owner {}", periode, ownerId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Erreur lors de la génération du relevé: " + e.getMessage()));
+        }
+
+        try {
+            response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+            response.setContentLengthLong(length);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"releve_" + ownerId + "_" + periode + ".pdf\"");
+            if (!"HEAD".equals(request.getMethod()) && length > 0) {
+                FileTransfer.send(file, 0, length - 1, request, response);
+            }
+        } catch (IOException e) {
+            // Le plus souvent une connexion interrompue par le client pendant l'envoi
+            logger.debug("Envoi du relevé {} du propriétaire {} interrompu : {}", periode, ownerId, e.getMessage());
+        }
+        return null;
+    }
 }
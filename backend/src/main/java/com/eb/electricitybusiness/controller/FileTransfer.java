@@ -0,0 +1,74 @@
+package com.eb.electricitybusiness.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Envoi de fichiers du disque sans copie dans le tas : sendfile lorsque Tomcat
+ * le permet, sinon FileChannel.transferTo vers le flux de la réponse.
+ */
+final class FileTransfer {
+
+        private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+        private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+        private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+        private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+        private FileTransfer() {
+        }
+
+        /**
+         * Envoie les octets [start, end] du fichier ; les en-têtes (type, longueur,
+         * statut) doivent déjà être positionnés
+         */
+        static void send(Path file, long start, long end, HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
+                if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                        // Tomcat envoie le fichier par sendfile une fois la méthode terminée
+                        request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                        request.setAttribute(SENDFILE_START, start);
+                        request.setAttribute(SENDFILE_END, end + 1);
+                        return;
+                }
+
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                                WritableByteChannel out = Channels.newChannel(response.getOutputStream())) {
+                        long position = start;
+                        long remaining = end - start + 1;
+                        while (remaining > 0) {
+                                long sent = channel.transferTo(position, remaining, out);
+                                if (sent <= 0) {
+                                        // Fichier raccourci pendant l'envoi : la longueur annoncée ne peut plus être tenue
+                                        throw new EOFException("Fichier tronqué pendant l'envoi : " + remaining
+                                                        + " octet(s) manquant(s) à partir de " + position);
+                                }
+                                position += sent;
+                                remaining -= sent;
+                        }
+                }
+        }
+
+        /**
+         * Vrai si l'en-tête If-None-Match désigne l'ETag (comparaison faible)
+         */
+        static boolean matchesEtag(String ifNoneMatch, String etag) {
+                if (ifNoneMatch == null) {
+                        return false;
+                }
+                for (String candidate : ifNoneMatch.split(",")) {
+                        String value = candidate.trim();
+                        if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                                return true;
+                        }
+                }
+                return false;
+        }
+}
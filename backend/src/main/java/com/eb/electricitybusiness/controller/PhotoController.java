@@ -0,0 +1,134 @@
+package com.eb.electricitybusiness.controller;
+
+import com.eb.electricitybusiness.service.PhotoStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Service des photos du stockage adressé par contenu (ab/cd/hash.ext).
+ * Le nom du fichier étant le hash de son contenu, il sert d'ETag fort et le
+ * fichier peut être mis en cache indéfiniment. Les requêtes Range (une seule
+ * plage) sont prises en charge. Le contenu est envoyé par sendfile lorsque
+ * Tomcat le permet, sinon par FileChannel.transferTo, sans copie dans le tas.
+ * Une déclinaison pas encore générée est remplacée par l'original, sans cache.
+ * Les autres chemins sous /uploads/bornes restent servis par WebMvcConfig.
+ */
+@RestController
+public class PhotoController {
+
+        private static final String CACHE_CONTROL_IMMUTABLE = "public, max-age=31536000, immutable";
+        private static final String CACHE_CONTROL_FALLBACK = "no-cache";
+
+        @Autowired
+        private PhotoStorageService photoStorageService;
+
+        @GetMapping("/uploads/bornes/{prefix}/{subPrefix}/{fileName:.+}")
+        public void getPhoto(@PathVariable String prefix,
+                        @PathVariable String subPrefix,
+                        @PathVariable String fileName,
+                        HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
+                Path file = photoStorageService.resolve(prefix, subPrefix, fileName);
+                String cacheControl = CACHE_CONTROL_IMMUTABLE;
+                if (file != null && !Files.isRegularFile(file)) {
+                        file = photoStorageService.resolveOriginal(prefix, subPrefix, fileName);
+                        cacheControl = CACHE_CONTROL_FALLBACK;
+                }
+                if (file == null || !Files.isRegularFile(file)) {
+                        response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                        return;
+                }
+
+                String servedName = file.getFileName().toString();
+                String etag = "\"" + servedName.substring(0, servedName.indexOf('.')) + "\"";
+                response.setHeader(HttpHeaders.ETAG, etag);
+                response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+                response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+                if (FileTransfer.matchesEtag(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                        return;
+                }
+
+                long length = Files.size(file);
+                long start = 0;
+                long end = length - 1;
+                String range = request.getHeader(HttpHeaders.RANGE);
+                // If-Range : la plage n'est appliquée que si le client a la même version
+                String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+                if (range != null && (ifRange == null || ifRange.equals(etag))) {
+                        long[] bounds = parseRange(range, length);
+                        if (bounds == null) {
+                                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                                return;
+                        }
+                        if (bounds.length == 2) {
+                                start = bounds[0];
+                                end = bounds[1];
+                                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                                response.setHeader(HttpHeaders.CONTENT_RANGE,
+                                                "bytes " + start + "-" + end + "/" + length);
+                        }
+                }
+
+                long count = end - start + 1;
+                response.setContentType(MediaTypeFactory.getMediaType(servedName)
+                                .map(Object::toString)
+                                .orElse("application/octet-stream"));
+                response.setContentLengthLong(count);
+                if ("HEAD".equals(request.getMethod()) || count == 0) {
+                        return;
+                }
+
+                FileTransfer.send(file, start, end, request, response);
+        }
+
+        /**
+         * Analyse un en-tête Range "bytes=début-fin", "bytes=début-" ou "bytes=-suffixe".
+         * Retourne {début, fin}, un tableau vide pour envoyer tout le fichier (en-tête
+         * non géré ou plages multiples) ou null si la plage n'est pas satisfiable.
+         */
+        private long[] parseRange(String range, long length) {
+                if (!range.startsWith("bytes=") || range.contains(",")) {
+                        return new long[0];
+                }
+                String spec = range.substring("bytes=".length()).trim();
+                int dash = spec.indexOf('-');
+                if (dash < 0) {
+                        return new long[0];
+                }
+                try {
+                        long start;
+                        long end;
+                        if (dash == 0) {
+                                long suffix = Long.parseLong(spec.substring(1));
+                                if (suffix <= 0) {
+                                        return null;
+                                }
+                                start = Math.max(0, length - suffix);
+                                end = length - 1;
+                        } else {
+                                start = Long.parseLong(spec.substring(0, dash));
+                                end = dash == spec.length() - 1
+                                                ? length - 1
+                                                : Math.min(Long.parseLong(spec.substring(dash + 1)), length - 1);
+                        }
+                        if (start >= length || start > end) {
+                                return null;
+                        }
+                        return new long[] { start, end };
+                } catch (NumberFormatException e) {
+                        return new long[0];
+                }
+        }
+}
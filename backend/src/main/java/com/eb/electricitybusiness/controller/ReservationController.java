@@ -1,31 +1,41 @@
 package com.eb.electricitybusiness.controller;
 
 import com.eb.electricitybusiness.dto.ApiResponse;
+import com.eb.electricitybusiness.dto.ExportFormat;
+import com.eb.electricitybusiness.dto.ReservationBatchResultDto;
 import com.eb.electricitybusiness.dto.ReservationDto;
+import com.eb.electricitybusiness.exception.ResourceNotFoundException;
 import com.eb.electricitybusiness.model.Utilisateur;
 import com.eb.electricitybusiness.security.AuthenticationFacade;
 import com.eb.electricitybusiness.service.PdfReceiptService;
 import com.eb.electricitybusiness.service.ReservationService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 import org.springframework.format.annotation.DateTimeFormat;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 @RestController
 @RequestMapping("/reservations")
 public class ReservationController {
 
     private static final Logger logger = LoggerFactory.getLogger(ReservationController.class);
+    private static final String RECEIPT_CACHE_CONTROL = "private, no-cache";
+    private static final DateTimeFormatter EXPORT_FILE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
 
     private final ReservationService reservationService;
     private final PdfReceiptService pdfReceiptService;
@@ -51,51 +61,146 @@ public class ReservationController {
         return ResponseEntity.ok(ApiResponse.success(list));
     }
 
+    /**
+     * Export xlsx ou csv des réservations, avec les mêmes critères que /filtrer.
+     * Le fichier est écrit directement dans la réponse au fil de la lecture.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exporter(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String statut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateDebut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateFin,
+            @RequestParam(required = false) Long borneId,
+            @RequestParam(required = false) Long utilisateurId,
+            HttpServletResponse response) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.parse(format);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(ex.getMessage()));
+        }
+
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"reservations_"
+                + LocalDateTime.now().format(EXPORT_FILE_FORMATTER) + "." + exportFormat.getExtension() + "\"");
+        try {
+            reservationService.exporter(exportFormat, statut, dateDebut, dateFin, borneId, utilisateurId,
+                    response.getOutputStream());
+        } catch (Exception ex) {
+            if (!response.isCommitted()) {
+                logger.error("Erreur lors de l'export des réservations : {}", ex.getMessage());
+                response.reset();
+                return new ResponseEntity<>(ApiResponse.error("Erreur lors de l'export des réservations"),
+                        HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+            // Le plus souvent une connexion interrompue par le client pendant l'envoi
+            logger.debug("Export des réservations interrompu : {}", ex.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Les écritures acceptent ?lean=true pour ne renvoyer que l'identifiant et
+     * l'état de la réservation
+     */
     @PostMapping
-    public ResponseEntity<ApiResponse<?>> create(@Valid @RequestBody ReservationDto dto) {
+    public ResponseEntity<ApiResponse<?>> create(@Valid @RequestBody ReservationDto dto,
+            @RequestParam(defaultValue = "false") boolean lean) {
         try {
-            ReservationDto saved = reservationService.create(dto);
+            ReservationDto saved = reservationService.create(dto, lean);
             return new ResponseEntity<>(ApiResponse.success("Réservation créée", saved), HttpStatus.CREATED);
         } catch (Exception ex) {
             return new ResponseEntity<>(ApiResponse.error(ex.getMessage()), HttpStatus.BAD_REQUEST);
         }
     }
 
+    /**
+     * Création groupée (flottes) : chaque élément est créé ou rejeté avec ses
+     * erreurs, dans l'ordre de la requête
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<?>> createBatch(@RequestBody List<ReservationDto> dtos) {
+        ReservationBatchResultDto result = reservationService.createBatch(dtos);
+        String message = result.creees() + " réservation(s) créée(s), " + result.rejetees() + " rejetée(s)";
+        if (result.creees() == 0) {
+            return new ResponseEntity<>(new ApiResponse<>("ERROR", message, result), HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(ApiResponse.success(message, result), HttpStatus.CREATED);
+    }
+
     // IMPORTANT: Ce mapping doit être AVANT /{id} pour éviter que "receipt" soit
     // traité comme un ID
+    /**
+     * Reçu PDF envoyé depuis le disque sans passer par le tas (voir FileTransfer).
+     * L'ETag combine le nom du fichier et sa date de modification, qui change à
+     * chaque génération : un client qui présente If-None-Match reçoit 304 sans
+     * que le fichier soit relu.
+     */
     @GetMapping("/{id}/receipt")
-    public ResponseEntity<?> getReceipt(@PathVariable Long id) {
+    public ResponseEntity<?> getReceipt(@PathVariable Long id, HttpServletRequest request,
+            HttpServletResponse response) {
+        Path file;
         try {
-            ReservationDto reservation = reservationService.getById(id);
+            // Lecture du seul chemin du reçu, sans charger la réservation
+            String receiptPath = reservationService.getReceiptPath(id);
 
             // Vérifier si un reçu existe
-            if (reservation.getReceiptPath() == null || reservation.getReceiptPath().isEmpty()) {
+            if (receiptPath == null || receiptPath.isEmpty()) {
                 return new ResponseEntity<>(
                         ApiResponse.error("Aucun reçu disponible pour cette réservation"),
                         HttpStatus.NOT_FOUND);
             }
 
-            // Récupérer le contenu du PDF
-            byte[] pdfContent = pdfReceiptService.getReceiptContent(reservation.getReceiptPath());
-            if (pdfContent == null) {
-                throw new IllegalStateException("Le contenu du PDF est null");
+            // Reçu en cours de génération : le client réessaie plus tard
+            if (PdfReceiptService.RECEIPT_PENDING.equals(receiptPath)) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .header(HttpHeaders.RETRY_AFTER, "2")
+                        .body(ApiResponse.success("Reçu en cours de génération"));
             }
 
-            // Créer la réponse avec le PDF
-            ByteArrayResource resource = new ByteArrayResource(pdfContent);
-
-            return ResponseEntity.ok()
-                    .contentType(MediaType.valueOf(MediaType.APPLICATION_PDF_VALUE))
-                    .header(HttpHeaders.CONTENT_DISPOSITION,
-                            "attachment; filename=\"recu_reservation_" + id + ".pdf\"")
-                    .body(resource);
-
+            file = pdfReceiptService.getReceiptFile(receiptPath);
+        } catch (ResourceNotFoundException ex) {
+            return new ResponseEntity<>(ApiResponse.error(ex.getMessage()), HttpStatus.NOT_FOUND);
         } catch (Exception ex) {
             logger.error("Erreur lors de la récupération du reçu pour la réservation {}: {}", id, ex.getMessage());
             return new ResponseEntity<>(
                     ApiResponse.error("Erreur lors de la récupération du reçu"),
                     HttpStatus.INTERNAL_SERVER_ERROR);
         }
+
+        String etag;
+        try {
+            String fileName = file.getFileName().toString();
+            etag = "\"" + fileName.substring(0, fileName.lastIndexOf('.')) + "-"
+                    + Long.toHexString(Files.getLastModifiedTime(file).toMillis()) + "\"";
+        } catch (IOException ex) {
+            logger.error("Reçu illisible pour la réservation {}: {}", id, ex.getMessage());
+            return new ResponseEntity<>(
+                    ApiResponse.error("Erreur lors de la récupération du reçu"),
+                    HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, RECEIPT_CACHE_CONTROL);
+        if (FileTransfer.matchesEtag(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return null;
+        }
+
+        try {
+            long length = Files.size(file);
+            response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+            response.setContentLengthLong(length);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"recu_reservation_" + id + ".pdf\"");
+            if (!"HEAD".equals(request.getMethod()) && length > 0) {
+                FileTransfer.send(file, 0, length - 1, request, response);
+            }
+        } catch (IOException ex) {
+            // Le plus souvent une connexion interrompue par le client pendant l'envoi
+            logger.debug("Envoi du reçu de la réservation {} interrompu : {}", id, ex.getMessage());
+        }
+        return null;
     }
 
     @GetMapping("/{id}")
@@ -138,7 +243,8 @@ public class ReservationController {
     @PutMapping("/{id}/cancel")
     public ResponseEntity<ApiResponse<?>> cancel(
             @PathVariable Long id,
-            @RequestParam(required = false) Long requesterId) {
+            @RequestParam(required = false) Long requesterId,
+            @RequestParam(defaultValue = "false") boolean lean) {
         try {
             logger.debug("Demande d'annulation de la réservation {} avec requesterId: {}", id, requesterId);
 
@@ -165,7 +271,7 @@ public class ReservationController {
             }
 
             logger.info("Annulation de la réservation {} par l'utilisateur {}", id, actualRequesterId);
-            ReservationDto dto = reservationService.cancel(id, actualRequesterId);
+            ReservationDto dto = reservationService.cancel(id, actualRequesterId, lean);
             return ResponseEntity.ok(ApiResponse.success("Réservation annulée", dto));
         } catch (Exception ex) {
             logger.error("Erreur lors de l'annulation de la réservation {}: {}", id, ex.getMessage());
@@ -174,9 +280,10 @@ public class ReservationController {
     }
 
     @PutMapping("/{id}/complete")
-    public ResponseEntity<ApiResponse<?>> complete(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<?>> complete(@PathVariable Long id,
+            @RequestParam(defaultValue = "false") boolean lean) {
         try {
-            ReservationDto dto = reservationService.complete(id);
+            ReservationDto dto = reservationService.complete(id, lean);
             return ResponseEntity.ok(ApiResponse.success("Réservation terminée", dto));
         } catch (Exception ex) {
             return new ResponseEntity<>(ApiResponse.error(ex.getMessage()), HttpStatus.BAD_REQUEST);
@@ -186,7 +293,8 @@ public class ReservationController {
     @PutMapping("/{id}/accepter")
     public ResponseEntity<ApiResponse<?>> accepter(
             @PathVariable Long id,
-            @RequestBody(required = false) java.util.Map<String, Object> body) {
+            @RequestBody(required = false) java.util.Map<String, Object> body,
+            @RequestParam(defaultValue = "false") boolean lean) {
         try {
             Long proprietaireId = body != null && body.get("proprietaireId") != null
                     ? ((Number) body.get("proprietaireId")).longValue()
@@ -198,9 +306,9 @@ public class ReservationController {
                         HttpStatus.BAD_REQUEST);
             }
 
-            ReservationDto dto = reservationService.accepter(id, proprietaireId);
+            ReservationDto dto = reservationService.accepter(id, proprietaireId, lean);
             return ResponseEntity
-                    .ok(ApiResponse.success("Réservation acceptée avec succès. Un reçu PDF a été généré.", dto));
+                    .ok(ApiResponse.success("Réservation acceptée avec succès. Le reçu PDF est en cours de génération.", dto));
         } catch (IllegalArgumentException ex) {
             return new ResponseEntity<>(ApiResponse.error(ex.getMessage()), HttpStatus.FORBIDDEN);
         } catch (Exception ex) {
@@ -212,7 +320,8 @@ public class ReservationController {
     @PutMapping("/{id}/refuser")
     public ResponseEntity<ApiResponse<?>> refuser(
             @PathVariable Long id,
-            @RequestBody(required = false) java.util.Map<String, Object> body) {
+            @RequestBody(required = false) java.util.Map<String, Object> body,
+            @RequestParam(defaultValue = "false") boolean lean) {
         try {
             Long proprietaireId = body != null && body.get("proprietaireId") != null
                     ? ((Number) body.get("proprietaireId")).longValue()
@@ -225,7 +334,7 @@ public class ReservationController {
                         HttpStatus.BAD_REQUEST);
             }
 
-            ReservationDto dto = reservationService.refuser(id, proprietaireId, motif);
+            ReservationDto dto = reservationService.refuser(id, proprietaireId, motif, lean);
             return ResponseEntity.ok(ApiResponse.success("Réservation refusée", dto));
         } catch (IllegalArgumentException ex) {
             return new ResponseEntity<>(ApiResponse.error(ex.getMessage()), HttpStatus.FORBIDDEN);
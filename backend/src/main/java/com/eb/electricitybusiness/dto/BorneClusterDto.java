@@ -0,0 +1,16 @@
+package com.eb.electricitybusiness.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Regroupement de bornes pour l'affichage carte (/bornes/clusters).
+ * prixMin est le taux horaire le plus bas de la cellule ; idBorne n'est
+ * renseigné que pour une cellule ne contenant qu'une seule borne.
+ */
+public record BorneClusterDto(
+        long count,
+        double latitude,
+        double longitude,
+        BigDecimal prixMin,
+        Long idBorne) {
+}
@@ -0,0 +1,20 @@
+package com.eb.electricitybusiness.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection d'une cellule de la grille de regroupement des bornes :
+ * nombre de bornes, barycentre et prix à la minute le plus bas.
+ * idBorne n'est renseigné que si la cellule ne contient qu'une borne.
+ */
+public interface BorneClusterRow {
+    Long getCount();
+
+    Double getLatitude();
+
+    Double getLongitude();
+
+    BigDecimal getPrixMinALaMinute();
+
+    Long getIdBorne();
+}
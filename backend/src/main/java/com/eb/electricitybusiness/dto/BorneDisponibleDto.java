@@ -0,0 +1,10 @@
+package com.eb.electricitybusiness.dto;
+
+/**
+ * Borne libre sur le créneau demandé (/bornes/libres), avec sa distance au
+ * point de recherche en km
+ */
+public record BorneDisponibleDto(
+        BorneSummary borne,
+        Double distance) {
+}
@@ -0,0 +1,9 @@
+package com.eb.electricitybusiness.dto;
+
+/**
+ * Projection de la recherche de bornes libres sur un créneau : colonnes des
+ * listes de bornes et distance au point de référence en mètres
+ */
+public interface BorneDisponibleRow extends BorneSummaryRow {
+    Double getDistance();
+}
@@ -0,0 +1,11 @@
+package com.eb.electricitybusiness.dto;
+
+/**
+ * Projection renvoyée par les recherches de plus proches voisins :
+ * identifiant de la borne et distance au point de référence en mètres
+ */
+public interface BorneDistance {
+    Long getIdBorne();
+
+    Double getDistance();
+}
@@ -35,6 +35,7 @@ public class BorneDto {
     private Integer puissance;
 
     private List<String> medias;
+    private List<MediaVariantsDto> mediaVariants; // Miniatures et formats réduits des medias
     private String instructionSurPied;
     // private String connectorType = "2S"; // Valeur fixe, non modifiable
     private String description;
@@ -54,6 +55,8 @@ public class BorneDto {
 
     private BigDecimal hourlyRate;
 
+    private Double distance; // Distance en km au point de recherche (recherche de proximité)
+
     public Long getId() {
         return id;
     }
@@ -182,6 +185,22 @@ public class BorneDto {
         this.hourlyRate = hourlyRate;
     }
 
+    public List<MediaVariantsDto> getMediaVariants() {
+        return mediaVariants;
+    }
+
+    public void setMediaVariants(List<MediaVariantsDto> mediaVariants) {
+        this.mediaVariants = mediaVariants;
+    }
+
+    public Double getDistance() {
+        return distance;
+    }
+
+    public void setDistance(Double distance) {
+        this.distance = distance;
+    }
+
     // Getters/Setters pour compatibilité frontend
     public Long getIdBorne() {
         return idBorne != null ? idBorne : id;
@@ -0,0 +1,12 @@
+package com.eb.electricitybusiness.dto;
+
+import com.eb.electricitybusiness.model.Borne;
+
+/**
+ * Projection du nombre de bornes d'un propriétaire par état
+ */
+public interface BorneEtatCountRow {
+    Borne.Etat getEtat();
+
+    Long getTotal();
+}
@@ -0,0 +1,11 @@
+package com.eb.electricitybusiness.dto;
+
+/**
+ * Photo (hors data URL) d'une borne, pour les résumés construits depuis les
+ * entités de la recherche paginée
+ */
+public interface BornePhotoRow {
+    Long getIdBorne();
+
+    String getPhoto();
+}
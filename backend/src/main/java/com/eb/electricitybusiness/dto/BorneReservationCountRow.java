@@ -0,0 +1,10 @@
+package com.eb.electricitybusiness.dto;
+
+/**
+ * Projection du nombre de réservations d'une borne
+ */
+public interface BorneReservationCountRow {
+    Long getIdBorne();
+
+    Long getTotal();
+}
@@ -0,0 +1,31 @@
+package com.eb.electricitybusiness.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Critères de recherche des bornes. Tous les champs sont optionnels :
+ * un critère null n'est pas appliqué.
+ * La distance est exprimée en kilomètres, les prix en taux horaire.
+ */
+public record BorneSearchCriteria(
+        Double latitude,
+        Double longitude,
+        Double distance,
+        BigDecimal prixMin,
+        BigDecimal prixMax,
+        Integer puissanceMin,
+        String etat,
+        Boolean disponible) {
+
+    public static BorneSearchCriteria empty() {
+        return new BorneSearchCriteria(null, null, null, null, null, null, null, null);
+    }
+
+    public static BorneSearchCriteria ofEtat(String etat) {
+        return new BorneSearchCriteria(null, null, null, null, null, null, etat, null);
+    }
+
+    public boolean hasPosition() {
+        return latitude != null && longitude != null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.eb.electricitybusiness.dto;
+
+import java.util.List;
+
+/**
+ * Série d'une borne ; seules les périodes ayant des réservations sont présentes
+ */
+public record BorneSeriesDto(
+        Long idBorne,
+        List<SeriesPointDto> points) {
+}
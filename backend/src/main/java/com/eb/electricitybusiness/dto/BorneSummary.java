@@ -0,0 +1,28 @@
+package com.eb.electricitybusiness.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Borne allégée pour les listes : mêmes noms de champs que BorneDto, sans la
+ * description, les instructions ni la liste des medias. thumbnail est la
+ * miniature de la première photo.
+ */
+public record BorneSummary(
+        Long id,
+        Long idBorne,
+        String numero,
+        String nom,
+        String localisation,
+        Double latitude,
+        Double longitude,
+        Integer puissance,
+        BigDecimal prixALaMinute,
+        BigDecimal hourlyRate,
+        BigDecimal prix,
+        String type,
+        String etat,
+        Boolean occupee,
+        Long ownerId,
+        Long lieuId,
+        String thumbnail) {
+}
@@ -0,0 +1,35 @@
+package com.eb.electricitybusiness.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection des listes de bornes : uniquement les colonnes affichées, plus
+ * l'URL d'une photo (hors data URL) lue par sous-requête
+ */
+public interface BorneSummaryRow {
+    Long getIdBorne();
+
+    String getNumero();
+
+    String getNom();
+
+    String getLocalisation();
+
+    Double getLatitude();
+
+    Double getLongitude();
+
+    Integer getPuissance();
+
+    BigDecimal getPrixALaMinute();
+
+    String getEtat();
+
+    Boolean getOccupee();
+
+    Long getOwnerId();
+
+    Long getLieuId();
+
+    String getPhoto();
+}
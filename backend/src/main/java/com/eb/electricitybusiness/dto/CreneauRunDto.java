@@ -0,0 +1,13 @@
+package com.eb.electricitybusiness.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Suite de créneaux consécutifs de même disponibilité (codage par plages) :
+ * elle couvre [debut, debut + nbCreneaux * granularité].
+ */
+public record CreneauRunDto(
+        LocalDateTime debut,
+        int nbCreneaux,
+        boolean libre) {
+}
@@ -0,0 +1,14 @@
+package com.eb.electricitybusiness.dto;
+
+import java.util.List;
+
+/**
+ * Page de résultats paginée par curseur (keyset).
+ * nextCursor est opaque et doit être renvoyé tel quel pour obtenir la page suivante ;
+ * il vaut null lorsqu'il n'y a plus de résultats.
+ */
+public record CursorPageDto<T>(
+        List<T> items,
+        String nextCursor,
+        boolean hasMore) {
+}
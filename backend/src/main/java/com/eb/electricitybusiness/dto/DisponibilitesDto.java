@@ -0,0 +1,17 @@
+package com.eb.electricitybusiness.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Calendrier de disponibilité d'une borne (/bornes/{id}/disponibilites).
+ * [debut, fin[ est découpé en créneaux de granulariteMinutes, regroupés en
+ * plages consécutives libres ou occupées.
+ */
+public record DisponibilitesDto(
+        Long borneId,
+        LocalDateTime debut,
+        LocalDateTime fin,
+        int granulariteMinutes,
+        List<CreneauRunDto> creneaux) {
+}
@@ -0,0 +1,13 @@
+package com.eb.electricitybusiness.dto;
+
+/**
+ * URLs d'une photo de borne et de ses déclinaisons : miniature pour les
+ * listes, format carte et grand format recompressé. Pour une photo hors du
+ * stockage de fichiers, toutes les URLs sont celles de l'original.
+ */
+public record MediaVariantsDto(
+        String original,
+        String thumbnail,
+        String card,
+        String full) {
+}
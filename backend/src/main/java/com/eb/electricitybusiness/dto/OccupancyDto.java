@@ -0,0 +1,18 @@
+package com.eb.electricitybusiness.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Occupation des bornes sur la fenêtre [debut, fin[ : les créneaux qui se
+ * chevauchent ne sont comptés qu'une fois. tauxParBorne ne contient que les
+ * bornes ayant au moins une réservation dans la fenêtre.
+ */
+public record OccupancyDto(
+        LocalDateTime debut,
+        LocalDateTime fin,
+        long minutesDisponibles,
+        long minutesOccupees,
+        double tauxOccupation,
+        Map<Long, Double> tauxParBorne) {
+}
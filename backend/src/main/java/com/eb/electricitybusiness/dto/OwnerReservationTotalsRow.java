@@ -0,0 +1,17 @@
+package com.eb.electricitybusiness.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection des totaux de réservation sur l'ensemble des bornes d'un
+ * propriétaire : compteurs et revenus, calculés en une seule agrégation.
+ */
+public interface OwnerReservationTotalsRow {
+    Long getTotalReservations();
+
+    Long getReservationsConfirmees();
+
+    BigDecimal getRevenusTotaux();
+
+    BigDecimal getRevenusMois();
+}
@@ -0,0 +1,17 @@
+package com.eb.electricitybusiness.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Séries de revenus et d'occupation d'un propriétaire (/dashboard/owner/{id}/series).
+ * total contient une entrée par période de [debut, fin[, y compris les périodes vides.
+ */
+public record OwnerSeriesDto(
+        Long ownerId,
+        SeriesGranularity granularite,
+        LocalDate debut,
+        LocalDate fin,
+        List<SeriesPointDto> total,
+        List<BorneSeriesDto> bornes) {
+}
@@ -0,0 +1,10 @@
+package com.eb.electricitybusiness.dto;
+
+/**
+ * Projection du reçu d'une réservation pour l'archivage
+ */
+public interface ReceiptPathRow {
+    Long getNumeroReservation();
+
+    String getReceiptPath();
+}
@@ -0,0 +1,21 @@
+package com.eb.electricitybusiness.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Résultat d'un élément de /reservations/batch : index est sa position dans
+ * la requête, reservationId est renseigné si la réservation a été créée,
+ * erreurs sinon.
+ */
+public record ReservationBatchItemDto(
+        int index,
+        boolean creee,
+        Long reservationId,
+        Long borneId,
+        LocalDateTime dateDebut,
+        LocalDateTime dateFin,
+        BigDecimal totalPrice,
+        List<String> erreurs) {
+}
@@ -0,0 +1,14 @@
+package com.eb.electricitybusiness.dto;
+
+import java.util.List;
+
+/**
+ * Résultat de /reservations/batch : les éléments valides sont créés, les
+ * autres sont rejetés avec leurs erreurs, dans l'ordre de la requête
+ */
+public record ReservationBatchResultDto(
+        int demandees,
+        int creees,
+        int rejetees,
+        List<ReservationBatchItemDto> resultats) {
+}
@@ -24,6 +24,7 @@ public class ReservationDto {
     private BigDecimal prixALaMinute;
     private BigDecimal totalPrice;
     private String receiptPath;
+    private String receiptStatus; // EN_COURS, DISPONIBLE ; null sans reçu
 
     // Nested objects for frontend consumption
     private BorneDto borne;
@@ -116,4 +117,12 @@ public class ReservationDto {
     public void setReceiptPath(String receiptPath) {
         this.receiptPath = receiptPath;
     }
-}
\ No newline at end of file
+
+    public String getReceiptStatus() {
+        return receiptStatus;
+    }
+
+    public void setReceiptStatus(String receiptStatus) {
+        this.receiptStatus = receiptStatus;
+    }
+}
@@ -0,0 +1,25 @@
+package com.eb.electricitybusiness.dto;
+
+import com.eb.electricitybusiness.model.Reservation;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ligne de l'export des réservations, construite directement par la requête :
+ * les lignes lues ne sont pas rattachées au contexte de persistance
+ */
+public record ReservationExportRow(
+        Long numeroReservation,
+        LocalDateTime dateDebut,
+        LocalDateTime dateFin,
+        Reservation.EtatReservation etat,
+        BigDecimal prixALaMinute,
+        BigDecimal totalPrice,
+        Long idBorne,
+        String nomBorne,
+        Long idUtilisateur,
+        String prenom,
+        String nom,
+        String email) {
+}
@@ -0,0 +1,14 @@
+package com.eb.electricitybusiness.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection minimale d'une réservation pour le calcul d'occupation
+ */
+public interface ReservationIntervalRow {
+    Long getIdBorne();
+
+    LocalDateTime getDateDebut();
+
+    LocalDateTime getDateFin();
+}
@@ -0,0 +1,8 @@
+package com.eb.electricitybusiness.dto;
+
+/**
+ * Créneau d'une réservation identifiée, pour l'index des conflits
+ */
+public interface ReservationSlotRow extends ReservationIntervalRow {
+    Long getNumeroReservation();
+}
@@ -0,0 +1,20 @@
+package com.eb.electricitybusiness.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection d'un agrégat de reservation_rollup par période et par borne.
+ * La période est exprimée en jours depuis le 1er janvier 1970
+ * (LocalDate.ofEpochDay) pour ne pas dépendre du type date renvoyé par le driver.
+ */
+public interface RollupSeriesRow {
+    Long getEpochDay();
+
+    Long getIdBorne();
+
+    Long getReservations();
+
+    BigDecimal getRevenus();
+
+    Long getMinutesOccupees();
+}
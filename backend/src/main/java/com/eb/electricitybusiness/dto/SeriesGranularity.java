@@ -0,0 +1,64 @@
+package com.eb.electricitybusiness.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Pas des séries temporelles du tableau de bord propriétaire. unit est
+ * l'unité passée à date_trunc côté PostgreSQL.
+ */
+public enum SeriesGranularity {
+    DAY("day", ChronoUnit.DAYS, 30),
+    WEEK("week", ChronoUnit.WEEKS, 26),
+    MONTH("month", ChronoUnit.MONTHS, 24);
+
+    private final String unit;
+    private final ChronoUnit chronoUnit;
+    private final int defaultBuckets;
+
+    SeriesGranularity(String unit, ChronoUnit chronoUnit, int defaultBuckets) {
+        this.unit = unit;
+        this.chronoUnit = chronoUnit;
+        this.defaultBuckets = defaultBuckets;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public int getDefaultBuckets() {
+        return defaultBuckets;
+    }
+
+    /**
+     * Début de la période contenant le jour donné (semaine ISO : lundi)
+     */
+    public LocalDate truncate(LocalDate day) {
+        return switch (this) {
+            case DAY -> day;
+            case WEEK -> day.with(DayOfWeek.MONDAY);
+            case MONTH -> day.withDayOfMonth(1);
+        };
+    }
+
+    public LocalDate next(LocalDate periodStart) {
+        return periodStart.plus(1, chronoUnit);
+    }
+
+    public LocalDate minus(LocalDate day, long buckets) {
+        return day.minus(buckets, chronoUnit);
+    }
+
+    public static SeriesGranularity parse(String value) {
+        if (value == null || value.isBlank()) {
+            return DAY;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Granularité invalide : " + value + " (day, week ou month)");
+        }
+    }
+}
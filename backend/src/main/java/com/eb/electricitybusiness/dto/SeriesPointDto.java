@@ -0,0 +1,16 @@
+package com.eb.electricitybusiness.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Point d'une série temporelle : periode est le premier jour de la période,
+ * tauxOccupation le pourcentage du temps disponible couvert par des réservations.
+ */
+public record SeriesPointDto(
+        LocalDate periode,
+        long reservations,
+        BigDecimal revenus,
+        long minutesOccupees,
+        double tauxOccupation) {
+}
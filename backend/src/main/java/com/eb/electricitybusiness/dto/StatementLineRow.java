@@ -0,0 +1,23 @@
+package com.eb.electricitybusiness.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ligne du relevé mensuel d'un propriétaire, lue sans charger les entités
+ */
+public interface StatementLineRow {
+    Long getNumeroReservation();
+
+    LocalDateTime getDateDebut();
+
+    LocalDateTime getDateFin();
+
+    String getNomBorne();
+
+    String getPrenomClient();
+
+    String getNomClient();
+
+    BigDecimal getTotalPrice();
+}
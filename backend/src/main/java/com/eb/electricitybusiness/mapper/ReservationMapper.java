@@ -6,6 +6,7 @@ import com.eb.electricitybusiness.dto.UtilisateurSimpleDto;
 import com.eb.electricitybusiness.model.Borne;
 import com.eb.electricitybusiness.model.Reservation;
 import com.eb.electricitybusiness.model.Utilisateur;
+import com.eb.electricitybusiness.service.PdfReceiptService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -21,6 +22,8 @@ import java.util.stream.Collectors;
 public class ReservationMapper {
 
     private static final Logger logger = LoggerFactory.getLogger(ReservationMapper.class);
+    static final String RECEIPT_EN_COURS = "EN_COURS";
+    static final String RECEIPT_DISPONIBLE = "DISPONIBLE";
 
     /**
      * Converts a Reservation entity to a ReservationDto
@@ -41,7 +44,14 @@ public class ReservationMapper {
         dto.setEtat(reservation.getEtat() != null ? reservation.getEtat().name() : null);
         dto.setPrixALaMinute(reservation.getPrixALaMinute());
         dto.setTotalPrice(reservation.getTotalPrice());
-        dto.setReceiptPath(reservation.getReceiptPath());
+        // Le marqueur de génération en cours n'est pas un chemin : il n'est pas exposé
+        String receiptPath = reservation.getReceiptPath();
+        if (PdfReceiptService.RECEIPT_PENDING.equals(receiptPath)) {
+            dto.setReceiptStatus(RECEIPT_EN_COURS);
+        } else if (receiptPath != null && !receiptPath.isEmpty()) {
+            dto.setReceiptPath(receiptPath);
+            dto.setReceiptStatus(RECEIPT_DISPONIBLE);
+        }
 
         // Populate nested objects
         if (reservation.getBorne() != null) {
@@ -56,6 +66,20 @@ public class ReservationMapper {
         return dto;
     }
 
+    /**
+     * Lean response: only the id and state, without nested objects
+     */
+    public ReservationDto toLeanDto(Reservation reservation) {
+        if (reservation == null) {
+            return null;
+        }
+
+        ReservationDto dto = new ReservationDto();
+        dto.setId(reservation.getNumeroReservation());
+        dto.setEtat(reservation.getEtat() != null ? reservation.getEtat().name() : null);
+        return dto;
+    }
+
     /**
      * Converts a list of Reservation entities to DTOs
      */
@@ -0,0 +1,100 @@
+package com.eb.electricitybusiness.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Agrégats du tableau de bord, une ligne par utilisateur (client), par
+ * propriétaire et par borne. Les compteurs sont incrémentés en SQL par
+ * DashboardStatsRepository et recalculés périodiquement par le job de
+ * réconciliation ; l'entité n'est utilisée qu'en lecture.
+ */
+@Entity
+@Table(name = "dashboard_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(DashboardStats.DashboardStatsId.class)
+public class DashboardStats {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope")
+    private Scope scope;
+
+    @Id
+    @Column(name = "ref_id")
+    private Long refId;
+
+    @Column(name = "total_reservations")
+    private long totalReservations;
+
+    @Column(name = "nb_en_attente")
+    private long nbEnAttente;
+
+    @Column(name = "nb_confirmees")
+    private long nbConfirmees;
+
+    @Column(name = "nb_actives")
+    private long nbActives;
+
+    @Column(name = "nb_terminees")
+    private long nbTerminees;
+
+    @Column(name = "nb_annulees")
+    private long nbAnnulees;
+
+    @Column(name = "nb_refusees")
+    private long nbRefusees;
+
+    @Column(name = "montant_total", precision = 14, scale = 2)
+    private BigDecimal montantTotal = BigDecimal.ZERO;
+
+    // Mois auquel se rapportent montantMois et reservationsMois
+    @Column(name = "mois_courant")
+    private LocalDate moisCourant;
+
+    @Column(name = "montant_mois", precision = 14, scale = 2)
+    private BigDecimal montantMois = BigDecimal.ZERO;
+
+    @Column(name = "reservations_mois")
+    private long reservationsMois;
+
+    // Scope PROPRIETAIRE uniquement : borne la plus réservée
+    @Column(name = "top_borne_id")
+    private Long topBorneId;
+
+    @Column(name = "top_borne_reservations")
+    private Long topBorneReservations;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum Scope {
+        UTILISATEUR,
+        PROPRIETAIRE,
+        BORNE
+    }
+
+    /**
+     * Les agrégats mensuels ne valent que pour le mois où ils ont été écrits
+     */
+    public boolean isMoisCourant(LocalDate debutMois) {
+        return debutMois.equals(moisCourant);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DashboardStatsId implements Serializable {
+        private Scope scope;
+        private Long refId;
+    }
+}
@@ -0,0 +1,49 @@
+package com.eb.electricitybusiness.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Agrégat journalier des réservations retenues d'une borne, rattachées au
+ * jour de leur début. Alimenté par DashboardStatsService ; les séries
+ * hebdomadaires et mensuelles sont obtenues en regroupant ces lignes.
+ */
+@Entity
+@Table(name = "reservation_rollup")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(ReservationRollup.ReservationRollupId.class)
+public class ReservationRollup {
+
+    @Id
+    @Column(name = "borne_id")
+    private Long borneId;
+
+    @Id
+    @Column(name = "jour")
+    private LocalDate jour;
+
+    @Column(name = "nb_reservations")
+    private long nbReservations;
+
+    @Column(name = "montant", precision = 14, scale = 2)
+    private BigDecimal montant = BigDecimal.ZERO;
+
+    @Column(name = "minutes_occupees")
+    private long minutesOccupees;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ReservationRollupId implements Serializable {
+        private Long borneId;
+        private LocalDate jour;
+    }
+}
@@ -1,16 +1,24 @@
 package com.eb.electricitybusiness.repository;
 
+import com.eb.electricitybusiness.dto.BorneClusterRow;
+import com.eb.electricitybusiness.dto.BorneDisponibleRow;
+import com.eb.electricitybusiness.dto.BorneDistance;
+import com.eb.electricitybusiness.dto.BornePhotoRow;
+import com.eb.electricitybusiness.dto.BorneSummaryRow;
 import com.eb.electricitybusiness.model.Borne;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface BorneRepository extends JpaRepository<Borne, Long> {
+public interface BorneRepository extends JpaRepository<Borne, Long>, JpaSpecificationExecutor<Borne> {
         @Query("SELECT cs FROM Borne cs LEFT JOIN FETCH cs.owner WHERE cs.etat = :etat")
         List<Borne> findByEtat(@Param("etat") Borne.Etat etat);
 
@@ -20,18 +28,153 @@ public interface BorneRepository extends JpaRepository<Borne, Long> {
         @Query("SELECT cs FROM Borne cs LEFT JOIN FETCH cs.medias JOIN cs.lieu l WHERE l.idLieu = :idLieu")
         List<Borne> findByLieuxId(@Param("idLieu") Long idLieu);
 
+        // CAST(geom AS geography) est couvert par l'index d'expression idx_borne_geog
         @Query(value = "SELECT * FROM borne cs " +
                         "WHERE cs.geom IS NOT NULL " +
                         "AND ST_DWithin(" +
                         "CAST(cs.geom AS geography), " +
                         "CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography), " +
                         ":distanceMeters" +
-                        ")", nativeQuery = true)
+                        ") " +
+                        "ORDER BY CAST(cs.geom AS geography) <-> " +
+                        "CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography)", nativeQuery = true)
         List<Borne> findByDistance(
                         @Param("latitude") Double latitude,
                         @Param("longitude") Double longitude,
                         @Param("distanceMeters") Double distanceMeters);
 
+        // Recherche des K plus proches voisins : l'opérateur <-> parcourt l'index GiST
+        // dans l'ordre des distances et s'arrête après :limit lignes.
+        // Les alias sont entre guillemets : PostgreSQL met en minuscules les alias
+        // non protégés et la projection ne retrouverait pas idBorne
+        @Query(value = "SELECT cs.borne_id AS \"idBorne\", " +
+                        "ST_Distance(CAST(cs.geom AS geography), ref.point) AS distance " +
+                        "FROM borne cs, " +
+                        "(SELECT CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography) AS point) ref " +
+                        "WHERE cs.geom IS NOT NULL " +
+                        "ORDER BY CAST(cs.geom AS geography) <-> ref.point " +
+                        "LIMIT :limit", nativeQuery = true)
+        List<BorneDistance> findNearest(
+                        @Param("latitude") Double latitude,
+                        @Param("longitude") Double longitude,
+                        @Param("limit") Integer limit);
+
+        @Query(value = "SELECT cs.borne_id AS \"idBorne\", " +
+                        "ST_Distance(CAST(cs.geom AS geography), ref.point) AS distance " +
+                        "FROM borne cs, " +
+                        "(SELECT CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography) AS point) ref " +
+                        "WHERE cs.geom IS NOT NULL " +
+                        "AND ST_DWithin(CAST(cs.geom AS geography), ref.point, :distanceMeters) " +
+                        "ORDER BY CAST(cs.geom AS geography) <-> ref.point " +
+                        "LIMIT :limit", nativeQuery = true)
+        List<BorneDistance> findNearestWithin(
+                        @Param("latitude") Double latitude,
+                        @Param("longitude") Double longitude,
+                        @Param("distanceMeters") Double distanceMeters,
+                        @Param("limit") Integer limit);
+
+        // Même opérateur que le tri KNN de la recherche paginée (knn_distance) : la
+        // valeur du curseur est exactement comparable à la clé de tri
+        @Query(value = "SELECT CAST(cs.geom AS geography) <-> " +
+                        "CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography) " +
+                        "FROM borne cs WHERE cs.borne_id = :id", nativeQuery = true)
+        Double computeDistanceMeters(
+                        @Param("id") Long id,
+                        @Param("latitude") Double latitude,
+                        @Param("longitude") Double longitude);
+
+        // Regroupement sur une grille de :cellSize degrés ; l'opérateur && sur
+        // l'enveloppe utilise l'index GiST idx_borne_geom
+        @Query(value = "SELECT COUNT(*) AS count, " +
+                        "AVG(ST_Y(cs.geom)) AS latitude, " +
+                        "AVG(ST_X(cs.geom)) AS longitude, " +
+                        "MIN(cs.prix_a_la_minute) AS \"prixMinALaMinute\", " +
+                        "CASE WHEN COUNT(*) = 1 THEN MIN(cs.borne_id) END AS \"idBorne\" " +
+                        "FROM borne cs " +
+                        "WHERE cs.geom && ST_MakeEnvelope(:minLon, :minLat, :maxLon, :maxLat, 4326) " +
+                        "GROUP BY ST_SnapToGrid(cs.geom, :cellSize)", nativeQuery = true)
+        List<BorneClusterRow> findClusters(
+                        @Param("minLon") Double minLon,
+                        @Param("minLat") Double minLat,
+                        @Param("maxLon") Double maxLon,
+                        @Param("maxLat") Double maxLat,
+                        @Param("cellSize") Double cellSize);
+
+        // Listes de bornes : une seule requête, sans charger les entités ni leurs medias
+        String SUMMARY_COLUMNS = "SELECT cs.borne_id AS \"idBorne\", cs.numero AS numero, cs.nom AS nom, " +
+                        "cs.localisation AS localisation, cs.latitude AS latitude, cs.longitude AS longitude, " +
+                        "cs.puissance AS puissance, cs.prix_a_la_minute AS \"prixALaMinute\", cs.etat AS etat, " +
+                        "cs.occupee AS occupee, cs.owner_id AS \"ownerId\", cs.lieu_id AS \"lieuId\", " +
+                        "(SELECT MIN(m.media_url) FROM borne_medias m " +
+                        "WHERE m.borne_id = cs.borne_id AND m.media_url NOT LIKE 'data:%') AS photo ";
+
+        String SUMMARY_SELECT = SUMMARY_COLUMNS + "FROM borne cs ";
+
+        // Bornes réservables dans le rayon et sans créneau bloquant qui touche
+        // [:debut, :fin] : l'anti-jointure utilise l'index GiST de la contrainte
+        // excl_reservation_chevauchement, le filtre spatial idx_borne_geog
+        String LIBRES_SELECT = SUMMARY_COLUMNS +
+                        ", ST_Distance(CAST(cs.geom AS geography), ref.point) AS distance " +
+                        "FROM borne cs, " +
+                        "(SELECT CAST(ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326) AS geography) AS point) ref " +
+                        "WHERE cs.geom IS NOT NULL " +
+                        "AND ST_DWithin(CAST(cs.geom AS geography), ref.point, :distanceMeters) " +
+                        "AND cs.etat NOT IN ('EN_PANNE', 'EN_MAINTENANCE') " +
+                        "AND NOT EXISTS (SELECT 1 FROM reservation r WHERE r.borne_id = cs.borne_id " +
+                        "AND r.etat IN ('CONFIRMEE', 'ACTIVE', 'TERMINEE') " +
+                        "AND r.periode && tsrange(CAST(:debut AS timestamp), CAST(:fin AS timestamp), '[]')) ";
+
+        @Query(value = SUMMARY_SELECT + "ORDER BY cs.borne_id", nativeQuery = true)
+        List<BorneSummaryRow> findAllSummaries();
+
+        // Photo des résumés d'une page de bornes déjà chargées, en une requête
+        @Query(value = "SELECT m.borne_id AS \"idBorne\", MIN(m.media_url) AS photo FROM borne_medias m " +
+                        "WHERE m.borne_id IN :ids AND m.media_url NOT LIKE 'data:%' GROUP BY m.borne_id",
+                        nativeQuery = true)
+        List<BornePhotoRow> findPhotos(@Param("ids") Collection<Long> ids);
+
+        @Query(value = SUMMARY_SELECT + "WHERE cs.etat = :etat ORDER BY cs.borne_id", nativeQuery = true)
+        List<BorneSummaryRow> findSummariesByEtat(@Param("etat") String etat);
+
+        @Query(value = SUMMARY_SELECT + "WHERE cs.lieu_id = :idLieu ORDER BY cs.borne_id", nativeQuery = true)
+        List<BorneSummaryRow> findSummariesByLieu(@Param("idLieu") Long idLieu);
+
+        @Query(value = LIBRES_SELECT + "ORDER BY CAST(cs.geom AS geography) <-> ref.point LIMIT :limit",
+                        nativeQuery = true)
+        List<BorneDisponibleRow> findLibresByDistance(
+                        @Param("latitude") Double latitude,
+                        @Param("longitude") Double longitude,
+                        @Param("distanceMeters") Double distanceMeters,
+                        @Param("debut") LocalDateTime debut,
+                        @Param("fin") LocalDateTime fin,
+                        @Param("limit") Integer limit);
+
+        @Query(value = LIBRES_SELECT + "ORDER BY cs.prix_a_la_minute, distance, cs.borne_id LIMIT :limit",
+                        nativeQuery = true)
+        List<BorneDisponibleRow> findLibresByPrix(
+                        @Param("latitude") Double latitude,
+                        @Param("longitude") Double longitude,
+                        @Param("distanceMeters") Double distanceMeters,
+                        @Param("debut") LocalDateTime debut,
+                        @Param("fin") LocalDateTime fin,
+                        @Param("limit") Integer limit);
+
+        // Chargement complet de l'index spatial en mémoire (BorneSpatialIndex)
+        @Query("SELECT DISTINCT cs FROM Borne cs LEFT JOIN FETCH cs.medias")
+        List<Borne> findAllWithMedias();
+
+        // Bornes trouvées par une requête KNN, avec leurs medias en une seule requête
+        @Query("SELECT DISTINCT cs FROM Borne cs LEFT JOIN FETCH cs.medias WHERE cs.idBorne IN :ids")
+        List<Borne> findAllWithMediasByIdIn(@Param("ids") Collection<Long> ids);
+
+        // Seul l'état d'occupation des bornes trouvées est relu en base quand l'index spatial répond
+        @Query("SELECT cs.idBorne FROM Borne cs WHERE cs.idBorne IN :ids AND cs.occupee = true")
+        List<Long> findOccupiedIds(@Param("ids") Collection<Long> ids);
+
+        // Bornes dont les photos sont encore stockées en data URL (migration vers le disque)
+        @Query("SELECT DISTINCT cs.idBorne FROM Borne cs JOIN cs.medias m WHERE m LIKE 'data:%' ORDER BY cs.idBorne")
+        List<Long> findIdsWithDataUrlMedias();
+
         @Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
         @Query("SELECT b FROM Borne b WHERE b.idBorne = :id")
         java.util.Optional<Borne> findByIdWithLock(@Param("id") Long id);
@@ -0,0 +1,67 @@
+package com.eb.electricitybusiness.repository;
+
+import com.eb.electricitybusiness.dto.BorneEtatCountRow;
+import com.eb.electricitybusiness.dto.BorneReservationCountRow;
+import com.eb.electricitybusiness.dto.OwnerReservationTotalsRow;
+import com.eb.electricitybusiness.model.Reservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Requêtes d'agrégation du tableau de bord propriétaire : les compteurs et
+ * sommes sont calculés par la base (GROUP BY) au lieu de charger les
+ * réservations de chaque borne.
+ */
+public interface DashboardRepository extends Repository<Reservation, Long> {
+
+    @Query("SELECT b.etat AS etat, COUNT(b) AS total FROM Borne b "
+            + "WHERE b.owner.idUtilisateur = :ownerId GROUP BY b.etat")
+    List<BorneEtatCountRow> countBornesByEtat(@Param("ownerId") Long ownerId);
+
+    @Query("""
+            SELECT COUNT(r) AS totalReservations,
+                   COALESCE(SUM(CASE WHEN r.etat = :active THEN 1 ELSE 0 END), 0) AS reservationsConfirmees,
+                   COALESCE(SUM(r.totalPrice), 0) AS revenusTotaux,
+                   COALESCE(SUM(CASE WHEN r.createdAt > :debutMois AND r.createdAt < :finMois
+                                     THEN r.totalPrice END), 0) AS revenusMois
+            FROM Reservation r
+            WHERE r.borne.owner.idUtilisateur = :ownerId
+            """)
+    OwnerReservationTotalsRow sumOwnerReservations(@Param("ownerId") Long ownerId,
+            @Param("active") Reservation.EtatReservation active,
+            @Param("debutMois") LocalDateTime debutMois,
+            @Param("finMois") LocalDateTime finMois);
+
+    /**
+     * Réservations par borne, de la plus réservée à la moins réservée
+     */
+    @Query("SELECT r.borne.idBorne AS idBorne, COUNT(r) AS total FROM Reservation r "
+            + "WHERE r.borne.owner.idUtilisateur = :ownerId "
+            + "GROUP BY r.borne.idBorne ORDER BY COUNT(r) DESC, r.borne.idBorne")
+    List<BorneReservationCountRow> countReservationsByBorne(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    /**
+     * Réservations du propriétaire dans l'état donné qui n'ont pas encore commencé
+     */
+    @Query("SELECT COUNT(r) FROM Reservation r "
+            + "WHERE r.borne.owner.idUtilisateur = :ownerId AND r.etat = :etat AND r.dateDebut > :now")
+    long countUpcomingForOwner(@Param("ownerId") Long ownerId,
+            @Param("etat") Reservation.EtatReservation etat,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Prochaines réservations du client dans l'état donné, par date de début croissante
+     */
+    @Query("SELECT r.numeroReservation FROM Reservation r "
+            + "WHERE r.utilisateur.idUtilisateur = :userId AND r.etat = :etat AND r.dateDebut > :now "
+            + "ORDER BY r.dateDebut")
+    List<Long> findUpcomingIdsForUser(@Param("userId") Long userId,
+            @Param("etat") Reservation.EtatReservation etat,
+            @Param("now") LocalDateTime now,
+            Pageable pageable);
+}
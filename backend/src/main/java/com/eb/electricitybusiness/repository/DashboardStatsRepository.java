@@ -0,0 +1,172 @@
+package com.eb.electricitybusiness.repository;
+
+import com.eb.electricitybusiness.model.DashboardStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Maintenance de la table dashboard_stats. Les mises à jour incrémentales
+ * sont des upserts atomiques (INSERT ... ON CONFLICT) appliqués après le
+ * commit de la transaction qui modifie la réservation, dans leur propre
+ * transaction ; la réconciliation recalcule toutes les lignes depuis la table
+ * reservation.
+ */
+@Repository
+public interface DashboardStatsRepository extends JpaRepository<DashboardStats, DashboardStats.DashboardStatsId> {
+
+    String COLONNES = "scope, ref_id, total_reservations, nb_en_attente, nb_confirmees, nb_actives, "
+            + "nb_terminees, nb_annulees, nb_refusees, montant_total, mois_courant, montant_mois, "
+            + "reservations_mois, top_borne_id, top_borne_reservations, updated_at";
+
+    // Agrégats d'un groupe de réservations r, dans l'ordre de COLONNES (après scope et ref_id)
+    String AGREGATS = """
+            COUNT(*),
+            COUNT(*) FILTER (WHERE r.etat = 'EN_ATTENTE'),
+            COUNT(*) FILTER (WHERE r.etat = 'CONFIRMEE'),
+            COUNT(*) FILTER (WHERE r.etat = 'ACTIVE'),
+            COUNT(*) FILTER (WHERE r.etat = 'TERMINEE'),
+            COUNT(*) FILTER (WHERE r.etat = 'ANNULEE'),
+            COUNT(*) FILTER (WHERE r.etat = 'REFUSEE'),
+            COALESCE(SUM(r.total_price), 0),
+            CAST(:debutMois AS date),
+            COALESCE(SUM(r.total_price) FILTER (WHERE r.created_at >= :debutMois AND r.created_at < :finMois), 0),
+            COUNT(*) FILTER (WHERE r.created_at >= :debutMois AND r.created_at < :finMois)
+            """;
+
+    String REMPLACER = """
+            ON CONFLICT (scope, ref_id) DO UPDATE SET
+                total_reservations = EXCLUDED.total_reservations,
+                nb_en_attente = EXCLUDED.nb_en_attente,
+                nb_confirmees = EXCLUDED.nb_confirmees,
+                nb_actives = EXCLUDED.nb_actives,
+                nb_terminees = EXCLUDED.nb_terminees,
+                nb_annulees = EXCLUDED.nb_annulees,
+                nb_refusees = EXCLUDED.nb_refusees,
+                montant_total = EXCLUDED.montant_total,
+                mois_courant = EXCLUDED.mois_courant,
+                montant_mois = EXCLUDED.montant_mois,
+                reservations_mois = EXCLUDED.reservations_mois,
+                top_borne_id = EXCLUDED.top_borne_id,
+                top_borne_reservations = EXCLUDED.top_borne_reservations,
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    /**
+     * Ajoute des deltas à la ligne (scope, refId), créée au besoin. Les
+     * agrégats mensuels repartent de zéro quand le mois a changé.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO dashboard_stats AS s (" + COLONNES + ") "
+            + "VALUES (:scope, :refId, :total, :enAttente, :confirmees, :actives, :terminees, :annulees, "
+            + ":refusees, :montant, :mois, :montantMois, :reservationsMois, NULL, NULL, now()) "
+            + """
+            ON CONFLICT (scope, ref_id) DO UPDATE SET
+                total_reservations = s.total_reservations + EXCLUDED.total_reservations,
+                nb_en_attente = s.nb_en_attente + EXCLUDED.nb_en_attente,
+                nb_confirmees = s.nb_confirmees + EXCLUDED.nb_confirmees,
+                nb_actives = s.nb_actives + EXCLUDED.nb_actives,
+                nb_terminees = s.nb_terminees + EXCLUDED.nb_terminees,
+                nb_annulees = s.nb_annulees + EXCLUDED.nb_annulees,
+                nb_refusees = s.nb_refusees + EXCLUDED.nb_refusees,
+                montant_total = s.montant_total + EXCLUDED.montant_total,
+                montant_mois = CASE WHEN s.mois_courant = EXCLUDED.mois_courant
+                                    THEN s.montant_mois + EXCLUDED.montant_mois
+                                    ELSE EXCLUDED.montant_mois END,
+                reservations_mois = CASE WHEN s.mois_courant = EXCLUDED.mois_courant
+                                         THEN s.reservations_mois + EXCLUDED.reservations_mois
+                                         ELSE EXCLUDED.reservations_mois END,
+                mois_courant = EXCLUDED.mois_courant,
+                updated_at = EXCLUDED.updated_at
+            """, nativeQuery = true)
+    int applyDelta(@Param("scope") String scope,
+            @Param("refId") Long refId,
+            @Param("total") long total,
+            @Param("enAttente") long enAttente,
+            @Param("confirmees") long confirmees,
+            @Param("actives") long actives,
+            @Param("terminees") long terminees,
+            @Param("annulees") long annulees,
+            @Param("refusees") long refusees,
+            @Param("montant") BigDecimal montant,
+            @Param("mois") LocalDate mois,
+            @Param("montantMois") BigDecimal montantMois,
+            @Param("reservationsMois") long reservationsMois);
+
+    /**
+     * Désigne la borne comme la plus réservée du propriétaire si son compteur
+     * dépasse celui de la borne en tête
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE dashboard_stats o
+            SET top_borne_id = b.ref_id,
+                top_borne_reservations = b.total_reservations
+            FROM dashboard_stats b
+            WHERE o.scope = 'PROPRIETAIRE' AND o.ref_id = :ownerId
+              AND b.scope = 'BORNE' AND b.ref_id = :borneId
+              AND (o.top_borne_id IS NULL
+                   OR o.top_borne_id = b.ref_id
+                   OR b.total_reservations > o.top_borne_reservations)
+            """, nativeQuery = true)
+    int promoteTopBorne(@Param("ownerId") Long ownerId, @Param("borneId") Long borneId);
+
+    @Modifying
+    @Query(value = "INSERT INTO dashboard_stats (" + COLONNES + ") "
+            + "SELECT 'UTILISATEUR', r.id_utilisateur, " + AGREGATS + ", NULL, NULL, now() "
+            + "FROM reservation r GROUP BY r.id_utilisateur " + REMPLACER, nativeQuery = true)
+    int reconcileUtilisateurs(@Param("debutMois") LocalDateTime debutMois, @Param("finMois") LocalDateTime finMois);
+
+    @Modifying
+    @Query(value = "INSERT INTO dashboard_stats (" + COLONNES + ") "
+            + "SELECT 'BORNE', r.borne_id, " + AGREGATS + ", NULL, NULL, now() "
+            + "FROM reservation r WHERE r.borne_id IS NOT NULL GROUP BY r.borne_id " + REMPLACER,
+            nativeQuery = true)
+    int reconcileBornes(@Param("debutMois") LocalDateTime debutMois, @Param("finMois") LocalDateTime finMois);
+
+    @Modifying
+    @Query(value = """
+            WITH par_borne AS (
+                SELECT b.owner_id, r.borne_id, COUNT(*) AS total
+                FROM reservation r
+                JOIN borne b ON b.borne_id = r.borne_id
+                GROUP BY b.owner_id, r.borne_id
+            ), top AS (
+                SELECT DISTINCT ON (owner_id) owner_id, borne_id, total
+                FROM par_borne
+                ORDER BY owner_id, total DESC, borne_id
+            )
+            """
+            + "INSERT INTO dashboard_stats (" + COLONNES + ") "
+            + "SELECT 'PROPRIETAIRE', b.owner_id, " + AGREGATS + ", t.borne_id, t.total, now() "
+            + """
+            FROM reservation r
+            JOIN borne b ON b.borne_id = r.borne_id
+            JOIN top t ON t.owner_id = b.owner_id
+            GROUP BY b.owner_id, t.borne_id, t.total
+            """ + REMPLACER, nativeQuery = true)
+    int reconcileProprietaires(@Param("debutMois") LocalDateTime debutMois, @Param("finMois") LocalDateTime finMois);
+
+    /**
+     * Supprime les lignes dont plus aucune réservation ne relève
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM dashboard_stats s
+            WHERE (s.scope = 'UTILISATEUR'
+                   AND NOT EXISTS (SELECT 1 FROM reservation r WHERE r.id_utilisateur = s.ref_id))
+               OR (s.scope = 'BORNE'
+                   AND NOT EXISTS (SELECT 1 FROM reservation r WHERE r.borne_id = s.ref_id))
+               OR (s.scope = 'PROPRIETAIRE'
+                   AND NOT EXISTS (SELECT 1 FROM reservation r
+                                   JOIN borne b ON b.borne_id = r.borne_id
+                                   WHERE b.owner_id = s.ref_id))
+            """, nativeQuery = true)
+    int deleteOrphans();
+}
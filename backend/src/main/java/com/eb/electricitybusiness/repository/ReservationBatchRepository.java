@@ -0,0 +1,71 @@
+package com.eb.electricitybusiness.repository;
+
+import com.eb.electricitybusiness.model.Reservation;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Insertion des réservations par lots JDBC. La clé IDENTITY de reservation
+ * empêche Hibernate de regrouper les INSERT : les lignes sont envoyées ici en
+ * un seul lot et les numéros générés sont reportés sur les entités.
+ */
+@Repository
+public class ReservationBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO reservation (id_utilisateur, borne_id, date_debut, "
+            + "date_fin, prix_a_la_minute, etat, total_price, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReservationBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insère les réservations (utilisateur, borne, dates, prix, état et
+     * createdAt renseignés) et affecte leur numeroReservation
+     */
+    public void insertAll(List<Reservation> reservations) {
+        if (reservations.isEmpty()) {
+            return;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_SQL, new String[] { "numero_reservation" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Reservation reservation = reservations.get(i);
+                        ps.setLong(1, reservation.getUtilisateur().getIdUtilisateur());
+                        ps.setLong(2, reservation.getBorne().getIdBorne());
+                        ps.setObject(3, reservation.getDateDebut());
+                        ps.setObject(4, reservation.getDateFin());
+                        ps.setBigDecimal(5, reservation.getPrixALaMinute());
+                        ps.setString(6, reservation.getEtat().name());
+                        ps.setBigDecimal(7, reservation.getTotalPrice());
+                        ps.setObject(8, reservation.getCreatedAt());
+                        ps.setObject(9, reservation.getCreatedAt());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return reservations.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < reservations.size(); i++) {
+            reservations.get(i).setNumeroReservation(((Number) keys.get(i).get("numero_reservation")).longValue());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.eb.electricitybusiness.repository;
+
+import com.eb.electricitybusiness.dto.ReservationExportRow;
+import com.eb.electricitybusiness.model.Borne;
+import com.eb.electricitybusiness.model.Reservation;
+import com.eb.electricitybusiness.model.Utilisateur;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import java.util.stream.Stream;
+
+/**
+ * Lecture en flux des réservations à exporter. Les lignes sont des
+ * projections (pas d'entités gérées) lues par lots de fetch-size depuis un
+ * curseur : la mémoire utilisée ne dépend pas du nombre de réservations.
+ * Le flux doit être fermé et consommé dans une transaction.
+ */
+@Repository
+public class ReservationExportRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final int fetchSize;
+
+    public ReservationExportRepository(@Value("${app.reservations.export.fetch-size:1000}") int fetchSize) {
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    /**
+     * Réservations satisfaisant le filtre, par identifiant croissant
+     */
+    public Stream<ReservationExportRow> stream(Specification<Reservation> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ReservationExportRow> query = cb.createQuery(ReservationExportRow.class);
+        Root<Reservation> root = query.from(Reservation.class);
+        Join<Reservation, Borne> borne = root.join("borne");
+        Join<Reservation, Utilisateur> utilisateur = root.join("utilisateur");
+        query.select(cb.construct(ReservationExportRow.class,
+                root.get("numeroReservation"),
+                root.get("dateDebut"),
+                root.get("dateFin"),
+                root.get("etat"),
+                root.get("prixALaMinute"),
+                root.get("totalPrice"),
+                borne.get("idBorne"),
+                borne.get("nom"),
+                utilisateur.get("idUtilisateur"),
+                utilisateur.get("prenom"),
+                utilisateur.get("nom"),
+                utilisateur.get("email")));
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(root.get("numeroReservation")));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
@@ -1,12 +1,25 @@
 package com.eb.electricitybusiness.repository;
 
+import com.eb.electricitybusiness.dto.ReceiptPathRow;
+import com.eb.electricitybusiness.dto.ReservationIntervalRow;
+import com.eb.electricitybusiness.dto.ReservationSlotRow;
+import com.eb.electricitybusiness.dto.StatementLineRow;
 import com.eb.electricitybusiness.model.Reservation;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
@@ -16,6 +29,9 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>,
     @Query("SELECT r FROM Reservation r JOIN FETCH r.utilisateur JOIN FETCH r.borne cs LEFT JOIN FETCH cs.owner LEFT JOIN FETCH cs.medias WHERE r.utilisateur.idUtilisateur = :idUtilisateur")
     List<Reservation> findByUtilisateur_IdUtilisateur(Long idUtilisateur);
 
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.utilisateur JOIN FETCH r.borne cs LEFT JOIN FETCH cs.owner WHERE r.utilisateur.idUtilisateur = :idUtilisateur ORDER BY r.dateDebut DESC")
+    List<Reservation> findRecentByUtilisateur(Long idUtilisateur, Pageable pageable);
+
     @Query("SELECT r FROM Reservation r JOIN FETCH r.utilisateur JOIN FETCH r.borne cs LEFT JOIN FETCH cs.owner LEFT JOIN FETCH cs.medias WHERE r.borne.idBorne = :idBorne")
     List<Reservation> findByBorneIdBorne(Long idBorne);
 
@@ -24,6 +40,59 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>,
 
     List<Reservation> findByEtat(String etat);
 
+    /**
+     * Créneaux des réservations du propriétaire qui coupent [debut, fin[, triés
+     * par borne puis par début. Le flux doit être fermé et consommé dans une
+     * transaction ; les lignes sont lues par lots sans être chargées en entités.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT r.borne.idBorne AS idBorne, r.dateDebut AS dateDebut, r.dateFin AS dateFin FROM Reservation r "
+            + "WHERE r.borne.owner.idUtilisateur = :ownerId AND r.etat IN :etats "
+            + "AND r.dateDebut < :fin AND r.dateFin > :debut "
+            + "ORDER BY r.borne.idBorne, r.dateDebut")
+    Stream<ReservationIntervalRow> streamOwnerIntervals(@Param("ownerId") Long ownerId,
+            @Param("etats") Collection<Reservation.EtatReservation> etats,
+            @Param("debut") LocalDateTime debut,
+            @Param("fin") LocalDateTime fin);
+
+    /**
+     * Créneaux d'une borne qui touchent [debut, fin] (bornes incluses, comme
+     * findConflictingReservations), triés par début
+     */
+    @Query("SELECT r.borne.idBorne AS idBorne, r.dateDebut AS dateDebut, r.dateFin AS dateFin FROM Reservation r "
+            + "WHERE r.borne.idBorne = :borneId AND r.etat IN :etats "
+            + "AND r.dateDebut <= :fin AND r.dateFin >= :debut "
+            + "ORDER BY r.dateDebut")
+    List<ReservationIntervalRow> findBorneIntervals(@Param("borneId") Long borneId,
+            @Param("etats") Collection<Reservation.EtatReservation> etats,
+            @Param("debut") LocalDateTime debut,
+            @Param("fin") LocalDateTime fin);
+
+    /**
+     * Créneaux des bornes données qui touchent [debut, fin] (bornes incluses),
+     * pour la validation groupée de /reservations/batch
+     */
+    @Query("SELECT r.numeroReservation AS numeroReservation, r.borne.idBorne AS idBorne, "
+            + "r.dateDebut AS dateDebut, r.dateFin AS dateFin FROM Reservation r "
+            + "WHERE r.borne.idBorne IN :borneIds AND r.etat IN :etats "
+            + "AND r.dateDebut <= :fin AND r.dateFin >= :debut")
+    List<ReservationSlotRow> findSlotsForBornes(@Param("borneIds") Collection<Long> borneIds,
+            @Param("etats") Collection<Reservation.EtatReservation> etats,
+            @Param("debut") LocalDateTime debut,
+            @Param("fin") LocalDateTime fin);
+
+    /**
+     * Créneaux de toutes les bornes dans les états donnés se terminant après
+     * depuis, pour le chargement de ReservationIntervalIndex. Même contrat de
+     * flux que streamOwnerIntervals.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT r.numeroReservation AS numeroReservation, r.borne.idBorne AS idBorne, "
+            + "r.dateDebut AS dateDebut, r.dateFin AS dateFin FROM Reservation r "
+            + "WHERE r.etat IN :etats AND r.dateFin >= :depuis")
+    Stream<ReservationSlotRow> streamSlotsEndingAfter(@Param("etats") Collection<Reservation.EtatReservation> etats,
+            @Param("depuis") LocalDateTime depuis);
+
     @Query("SELECT r FROM Reservation r WHERE r.dateDebut >= :dateDebut AND r.dateFin <= :dateFin")
     List<Reservation> findByDateRange(LocalDateTime dateDebut, LocalDateTime dateFin);
 
@@ -40,6 +109,75 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>,
     @Query("SELECT r FROM Reservation r JOIN FETCH r.utilisateur JOIN FETCH r.borne cs LEFT JOIN FETCH cs.owner LEFT JOIN FETCH cs.medias WHERE r.numeroReservation = :id")
     Optional<Reservation> findWithDetails(Long id);
 
+    /**
+     * Remplace receipt_path uniquement s'il vaut encore la valeur attendue
+     * @return le nombre de lignes modifiées (0 si la réservation a changé entre-temps)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Reservation r SET r.receiptPath = :receiptPath WHERE r.numeroReservation = :id AND r.receiptPath = :attendu")
+    int updateReceiptPath(@Param("id") Long id, @Param("receiptPath") String receiptPath,
+            @Param("attendu") String attendu);
+
+    /**
+     * Lecture du seul chemin du reçu (vide si la réservation n'existe pas ou n'a pas de reçu)
+     */
+    @Query("SELECT r.receiptPath FROM Reservation r WHERE r.numeroReservation = :id")
+    Optional<String> findReceiptPathById(@Param("id") Long id);
+
+    /**
+     * Reçus des réservations terminées avant :avant, hors reçus en attente ou déjà
+     * archivés, par identifiant croissant à partir de :apresId (pagination par clé)
+     */
+    @Query("""
+            SELECT r.numeroReservation AS numeroReservation, r.receiptPath AS receiptPath
+            FROM Reservation r
+            WHERE r.numeroReservation > :apresId
+            AND r.dateFin < :avant
+            AND r.receiptPath IS NOT NULL
+            AND r.receiptPath <> :enAttente
+            AND r.receiptPath NOT LIKE 'archives/%'
+            ORDER BY r.numeroReservation
+            """)
+    List<ReceiptPathRow> findReceiptsToArchive(@Param("apresId") Long apresId, @Param("avant") LocalDateTime avant,
+            @Param("enAttente") String enAttente, Pageable pageable);
+
+    /**
+     * Réservations du propriétaire commençant dans [debut, fin[, par identifiant
+     * croissant à partir de :apresId (pagination par clé), pour le relevé mensuel
+     */
+    @Query("""
+            SELECT r.numeroReservation AS numeroReservation, r.dateDebut AS dateDebut, r.dateFin AS dateFin,
+            cs.nom AS nomBorne, u.prenom AS prenomClient, u.nom AS nomClient,
+            r.totalPrice AS totalPrice
+            FROM Reservation r JOIN r.borne cs JOIN r.utilisateur u
+            WHERE cs.owner.idUtilisateur = :ownerId
+            AND r.etat IN :etats
+            AND r.dateDebut >= :debut AND r.dateDebut < :fin
+            AND r.numeroReservation > :apresId
+            ORDER BY r.numeroReservation
+            """)
+    List<StatementLineRow> findStatementLines(@Param("ownerId") Long ownerId,
+            @Param("etats") Collection<Reservation.EtatReservation> etats,
+            @Param("debut") LocalDateTime debut,
+            @Param("fin") LocalDateTime fin,
+            @Param("apresId") Long apresId,
+            Pageable pageable);
+
+    /**
+     * Propriétaires ayant au moins une réservation dans les états donnés commençant dans [debut, fin[
+     */
+    @Query("""
+            SELECT DISTINCT r.borne.owner.idUtilisateur FROM Reservation r
+            WHERE r.etat IN :etats AND r.dateDebut >= :debut AND r.dateDebut < :fin
+            """)
+    List<Long> findOwnerIdsWithReservations(@Param("etats") Collection<Reservation.EtatReservation> etats,
+            @Param("debut") LocalDateTime debut,
+            @Param("fin") LocalDateTime fin);
+
+    @Query("SELECT r.numeroReservation FROM Reservation r WHERE r.receiptPath = :receiptPath ORDER BY r.numeroReservation")
+    List<Long> findIdsByReceiptPath(@Param("receiptPath") String receiptPath, Pageable pageable);
+
     @Query("SELECT COUNT(r) > 0 FROM Reservation r WHERE r.borne.idBorne = :borneId AND r.etat IN ('EN_COURS', 'CONFIRMEE') AND r.dateFin >= CURRENT_TIMESTAMP")
     boolean hasActiveReservations(Long borneId);
 
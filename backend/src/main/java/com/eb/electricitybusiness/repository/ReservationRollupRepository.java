@@ -0,0 +1,112 @@
+package com.eb.electricitybusiness.repository;
+
+import com.eb.electricitybusiness.dto.RollupSeriesRow;
+import com.eb.electricitybusiness.model.ReservationRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ReservationRollupRepository
+        extends JpaRepository<ReservationRollup, ReservationRollup.ReservationRollupId> {
+
+    // Regroupement des lignes journalières par période (date_trunc) et par borne.
+    // Les alias sont entre guillemets : PostgreSQL les passerait sinon en minuscules.
+    String SERIES_SELECT = """
+            SELECT CAST(date_trunc(CAST(:unit AS text), CAST(r.jour AS timestamp)) AS date) - DATE '1970-01-01'
+                       AS "epochDay",
+                   r.borne_id AS "idBorne",
+                   SUM(r.nb_reservations) AS "reservations",
+                   SUM(r.montant) AS "revenus",
+                   SUM(r.minutes_occupees) AS "minutesOccupees"
+            FROM reservation_rollup r
+            JOIN borne b ON b.borne_id = r.borne_id
+            WHERE b.owner_id = :ownerId
+              AND r.jour >= :debut
+              AND r.jour < :fin
+            """;
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO reservation_rollup AS s (borne_id, jour, nb_reservations, montant, minutes_occupees)
+            VALUES (:borneId, :jour, :reservations, :montant, :minutes)
+            ON CONFLICT (borne_id, jour) DO UPDATE SET
+                nb_reservations = s.nb_reservations + EXCLUDED.nb_reservations,
+                montant = s.montant + EXCLUDED.montant,
+                minutes_occupees = s.minutes_occupees + EXCLUDED.minutes_occupees
+            """, nativeQuery = true)
+    int applyDelta(@Param("borneId") Long borneId,
+            @Param("jour") LocalDate jour,
+            @Param("reservations") long reservations,
+            @Param("montant") BigDecimal montant,
+            @Param("minutes") long minutes);
+
+    /**
+     * Recalcule toutes les lignes depuis la table reservation : les lignes
+     * existantes sont remplacées en place (ON CONFLICT), sans vider la table,
+     * et seules celles dont les valeurs changent sont réécrites.
+     * Chaque réservation est découpée par jour (generate_series) : elle et son
+     * montant comptent le jour de début, ses minutes sur chaque jour couvert.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO reservation_rollup AS s (borne_id, jour, nb_reservations, montant, minutes_occupees)
+            SELECT j.borne_id, j.jour, SUM(j.nb), SUM(j.montant), SUM(j.minutes)
+            FROM (
+                SELECT r.borne_id,
+                       CAST(d.debut_jour AS date) AS jour,
+                       CASE WHEN d.debut_jour <= r.date_debut THEN 1 ELSE 0 END AS nb,
+                       CASE WHEN d.debut_jour <= r.date_debut THEN COALESCE(r.total_price, 0) ELSE 0 END AS montant,
+                       CAST(FLOOR(EXTRACT(EPOCH FROM (LEAST(r.date_fin, d.debut_jour + INTERVAL '1 day')
+                                                      - GREATEST(r.date_debut, d.debut_jour))) / 60) AS BIGINT)
+                           AS minutes
+                FROM reservation r
+                CROSS JOIN LATERAL generate_series(date_trunc('day', r.date_debut), r.date_fin,
+                                                   INTERVAL '1 day') AS d(debut_jour)
+                WHERE r.borne_id IS NOT NULL
+                  AND r.etat IN ('CONFIRMEE', 'ACTIVE', 'TERMINEE')
+                  AND (d.debut_jour < r.date_fin OR d.debut_jour <= r.date_debut)
+            ) j
+            GROUP BY j.borne_id, j.jour
+            ON CONFLICT (borne_id, jour) DO UPDATE SET
+                nb_reservations = EXCLUDED.nb_reservations,
+                montant = EXCLUDED.montant,
+                minutes_occupees = EXCLUDED.minutes_occupees
+            WHERE (s.nb_reservations, s.montant, s.minutes_occupees)
+                  IS DISTINCT FROM (EXCLUDED.nb_reservations, EXCLUDED.montant, EXCLUDED.minutes_occupees)
+            """, nativeQuery = true)
+    int rebuild();
+
+    /**
+     * Supprime les jours qu'aucune réservation retenue ne couvre plus
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM reservation_rollup s
+            WHERE NOT EXISTS (SELECT 1 FROM reservation r
+                              WHERE r.borne_id = s.borne_id
+                                AND r.date_debut < s.jour + 1
+                                AND (r.date_fin > s.jour OR r.date_debut >= s.jour)
+                                AND r.etat IN ('CONFIRMEE', 'ACTIVE', 'TERMINEE'))
+            """, nativeQuery = true)
+    int deleteStale();
+
+    @Query(value = SERIES_SELECT + "GROUP BY 1, 2 ORDER BY 1, 2", nativeQuery = true)
+    List<RollupSeriesRow> findOwnerSeries(@Param("ownerId") Long ownerId,
+            @Param("unit") String unit,
+            @Param("debut") LocalDate debut,
+            @Param("fin") LocalDate fin);
+
+    @Query(value = SERIES_SELECT + "AND r.borne_id = :borneId GROUP BY 1, 2 ORDER BY 1, 2", nativeQuery = true)
+    List<RollupSeriesRow> findBorneSeries(@Param("ownerId") Long ownerId,
+            @Param("borneId") Long borneId,
+            @Param("unit") String unit,
+            @Param("debut") LocalDate debut,
+            @Param("fin") LocalDate fin);
+}
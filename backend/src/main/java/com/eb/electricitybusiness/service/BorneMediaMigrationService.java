@@ -0,0 +1,66 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.repository.BorneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Migration des photos stockées en data URL base64 dans borne_medias vers le
+ * stockage de fichiers (PhotoStorageService).
+ * Exécutée au démarrage lorsque app.upload.migrate-data-urls=true ; chaque
+ * borne est migrée dans sa propre transaction, la migration peut donc être
+ * relancée sans risque après une interruption.
+ */
+@Service
+public class BorneMediaMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BorneMediaMigrationService.class);
+
+    private final BorneRepository borneRepository;
+    private final BorneService borneService;
+
+    @Value("${app.upload.migrate-data-urls:false}")
+    private boolean migrateOnStartup;
+
+    public BorneMediaMigrationService(BorneRepository borneRepository, BorneService borneService) {
+        this.borneRepository = borneRepository;
+        this.borneService = borneService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (migrateOnStartup) {
+            migrateDataUrls();
+        }
+    }
+
+    /**
+     * Migre toutes les bornes ayant encore des photos en data URL
+     * @return Le nombre de photos migrées
+     */
+    public int migrateDataUrls() {
+        List<Long> borneIds = borneRepository.findIdsWithDataUrlMedias();
+        if (borneIds.isEmpty()) {
+            logger.info("Aucune photo en data URL à migrer");
+            return 0;
+        }
+
+        logger.info("Migration des photos en data URL : {} borne(s) concernée(s)", borneIds.size());
+        int migrated = 0;
+        for (Long borneId : borneIds) {
+            try {
+                migrated += borneService.migrateMediaDataUrls(borneId);
+            } catch (Exception e) {
+                logger.error("Erreur lors de la migration des photos de la borne #{}", borneId, e);
+            }
+        }
+        logger.info("{} photo(s) migrée(s) vers le stockage de fichiers", migrated);
+        return migrated;
+    }
+}
@@ -1,10 +1,16 @@
 package com.eb.electricitybusiness.service;
 
 import com.eb.electricitybusiness.model.Borne;
+import com.eb.electricitybusiness.dto.BorneClusterDto;
+import com.eb.electricitybusiness.dto.BorneDisponibleDto;
 import com.eb.electricitybusiness.dto.BorneDto;
+import com.eb.electricitybusiness.dto.BorneSearchCriteria;
+import com.eb.electricitybusiness.dto.BorneSummary;
+import com.eb.electricitybusiness.dto.CursorPageDto;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface BorneService {
@@ -24,20 +30,40 @@ public interface BorneService {
 
     List<Borne> getAllBornes();
 
-    List<BorneDto> getAllBornesDto();
+    List<BorneSummary> getAllBornesDto();
 
     List<Borne> getBornesByOwner(Long ownerId);
 
     List<BorneDto> getBornesByOwnerDto(Long ownerId);
 
-    List<BorneDto> getByLieu(Long idLieu);
+    List<BorneSummary> getByLieu(Long idLieu);
 
-    List<BorneDto> getByDisponibilite(Boolean disponible);
+    List<BorneSummary> getByDisponibilite(Boolean disponible);
 
-    List<BorneDto> getByEtat(String etat);
+    List<BorneSummary> getByEtat(String etat);
 
     List<BorneDto> getProches(Double latitude, Double longitude, Double distance);
 
+    /**
+     * Retourne les {@code limit} bornes les plus proches, triées par distance
+     * croissante, avec la distance calculée (km). distanceMax (km) est optionnelle.
+     */
+    List<BorneDto> getPlusProches(Double latitude, Double longitude, Integer limit, Double distanceMax);
+
+    /**
+     * Bornes réservables à moins de distance km du point et sans réservation
+     * bloquante qui touche [debut, fin], triées par distance ou par prix, en une
+     * seule requête
+     */
+    List<BorneDisponibleDto> searchLibres(Double latitude, Double longitude, Double distance,
+            LocalDateTime debut, LocalDateTime fin, String sort, Integer limit);
+
+    /**
+     * Regroupe les bornes de la zone bbox ("minLon,minLat,maxLon,maxLat") sur une
+     * grille dont la maille dépend du niveau de zoom de la carte.
+     */
+    List<BorneClusterDto> getClusters(String bbox, Integer zoom);
+
     BorneDto toggleOccupation(Long id, Boolean occupee);
 
     BorneDto changerEtat(Long id, String nouvelEtat);
@@ -46,7 +72,22 @@ public interface BorneService {
             BigDecimal prixMin, BigDecimal prixMax,
             Integer puissanceMin, String etat, Boolean disponible);
 
+    /**
+     * Recherche paginée par curseur (keyset), triée de façon stable sur
+     * id, prix, puissance ou distance puis sur l'id. Le tri par distance est
+     * uniquement croissant (parcours KNN de l'index spatial). Les bornes sont
+     * renvoyées sous forme de résumés, sans la liste des medias.
+     */
+    CursorPageDto<BorneSummary> searchPage(BorneSearchCriteria criteria, String sort, String direction,
+            String cursor, Integer size);
+
     List<String> uploadPhotos(Long borneId, MultipartFile[] photos) throws Exception;
 
     void deletePhoto(Long borneId, String photoUrl) throws Exception;
+
+    /**
+     * Remplace les photos encore stockées en data URL base64 par des fichiers
+     * du stockage de photos. Retourne le nombre de photos migrées.
+     */
+    int migrateMediaDataUrls(Long borneId) throws java.io.IOException;
 }
\ No newline at end of file
@@ -0,0 +1,212 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.dto.BorneDto;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Index spatial en mémoire des bornes (JTS STRtree), optionnel.
+ * Les coordonnées et caractéristiques des bornes changent rarement : les
+ * recherches de proximité sont servies depuis cet index, seul l'état
+ * d'occupation est relu en base par l'appelant.
+ *
+ * Activé par app.bornes.spatial-index.enabled=true. Le STRtree étant
+ * immuable une fois construit, toute modification invalide l'arbre qui est
+ * reconstruit à la requête suivante.
+ */
+@Service
+public class BorneSpatialIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(BorneSpatialIndex.class);
+    private static final double RAYON_TERRE_METRES = 6_371_008.8;
+    private static final double METRES_PAR_DEGRE = 111_320d;
+
+    private final boolean enabled;
+    private final Map<Long, BorneDto> bornes = new ConcurrentHashMap<>();
+    private volatile STRtree tree;
+    private volatile boolean loaded;
+
+    public BorneSpatialIndex(@Value("${app.bornes.spatial-index.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * L'index ne répond qu'une fois activé et chargé
+     */
+    public boolean isEnabled() {
+        return enabled && loaded;
+    }
+
+    public boolean isConfigured() {
+        return enabled;
+    }
+
+    /**
+     * Remplace tout le contenu de l'index
+     */
+    public synchronized void load(Collection<BorneDto> snapshot) {
+        bornes.clear();
+        snapshot.stream()
+                .filter(this::isLocated)
+                .forEach(dto -> bornes.put(dto.getId(), dto));
+        tree = null;
+        loaded = true;
+        logger.info("Index spatial des bornes chargé : {} bornes", bornes.size());
+    }
+
+    /**
+     * Ajoute ou remplace une borne, après le commit de la transaction courante
+     */
+    public void upsert(BorneDto dto) {
+        if (!enabled || dto == null || dto.getId() == null) {
+            return;
+        }
+        afterCommit(() -> {
+            if (isLocated(dto)) {
+                bornes.put(dto.getId(), dto);
+            } else {
+                bornes.remove(dto.getId());
+            }
+            tree = null;
+        });
+    }
+
+    /**
+     * Retire une borne, après le commit de la transaction courante
+     */
+    public void remove(Long id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        afterCommit(() -> {
+            bornes.remove(id);
+            tree = null;
+        });
+    }
+
+    /**
+     * Bornes situées à moins de radiusMeters du point, triées par distance
+     * croissante. Les DTO renvoyés sont des copies portant la distance en km.
+     */
+    public List<BorneDto> findWithin(double latitude, double longitude, double radiusMeters) {
+        double deltaLat = radiusMeters / METRES_PAR_DEGRE;
+        double cosLat = Math.max(Math.cos(Math.toRadians(latitude)), 1e-6);
+        double deltaLon = Math.min(radiusMeters / (METRES_PAR_DEGRE * cosLat), 180);
+        Envelope search = new Envelope(longitude - deltaLon, longitude + deltaLon,
+                latitude - deltaLat, latitude + deltaLat);
+
+        List<BorneDto> results = new ArrayList<>();
+        for (Object item : currentTree().query(search)) {
+            BorneDto candidate = (BorneDto) item;
+            double distance = distanceMeters(latitude, longitude, candidate.getLatitude(), candidate.getLongitude());
+            if (distance <= radiusMeters) {
+                BorneDto copy = copy(candidate);
+                copy.setDistance(distance / 1000);
+                results.add(copy);
+            }
+        }
+        results.sort(Comparator.comparing(BorneDto::getDistance));
+        return results;
+    }
+
+    /**
+     * Copie de toutes les bornes indexées, triées par id
+     */
+    public List<BorneDto> findAll() {
+        return bornes.values().stream()
+                .sorted(Comparator.comparing(BorneDto::getId))
+                .map(this::copy)
+                .collect(Collectors.toList());
+    }
+
+    public int size() {
+        return bornes.size();
+    }
+
+    private STRtree currentTree() {
+        STRtree current = tree;
+        if (current == null) {
+            synchronized (this) {
+                current = tree;
+                if (current == null) {
+                    current = new STRtree();
+                    for (BorneDto dto : bornes.values()) {
+                        current.insert(new Envelope(dto.getLongitude(), dto.getLongitude(),
+                                dto.getLatitude(), dto.getLatitude()), dto);
+                    }
+                    current.build();
+                    tree = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private boolean isLocated(BorneDto dto) {
+        return dto.getLatitude() != null && dto.getLongitude() != null;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Distance orthodromique (haversine) en mètres
+     */
+    static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                        * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RAYON_TERRE_METRES * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private BorneDto copy(BorneDto source) {
+        BorneDto dto = new BorneDto();
+        dto.setId(source.getId());
+        dto.setIdBorne(source.getIdBorne());
+        dto.setNumero(source.getNumero());
+        dto.setNom(source.getNom());
+        dto.setLocalisation(source.getLocalisation());
+        dto.setLatitude(source.getLatitude());
+        dto.setLongitude(source.getLongitude());
+        dto.setPrixALaMinute(source.getPrixALaMinute());
+        dto.setPuissance(source.getPuissance());
+        dto.setMedias(source.getMedias() != null ? new ArrayList<>(source.getMedias()) : List.of());
+        dto.setMediaVariants(source.getMediaVariants());
+        dto.setInstructionSurPied(source.getInstructionSurPied());
+        dto.setDescription(source.getDescription());
+        dto.setType(source.getType());
+        dto.setPrix(source.getPrix());
+        dto.setEtat(source.getEtat());
+        dto.setOccupee(source.getOccupee());
+        dto.setOwnerId(source.getOwnerId());
+        dto.setLieuId(source.getLieuId());
+        dto.setHourlyRate(source.getHourlyRate());
+        return dto;
+    }
+}
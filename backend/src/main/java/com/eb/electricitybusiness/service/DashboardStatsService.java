@@ -0,0 +1,338 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.model.DashboardStats;
+import com.eb.electricitybusiness.model.Reservation;
+import com.eb.electricitybusiness.repository.DashboardStatsRepository;
+import com.eb.electricitybusiness.repository.ReservationRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.IntSupplier;
+
+/**
+ * Maintient la table dashboard_stats au fil des changements d'état des
+ * réservations, pour que le tableau de bord se lise en une recherche par clé
+ * primaire au lieu d'agréger tout l'historique.
+ *
+ * Les deltas sont calculés dans la transaction de l'appelant mais appliqués
+ * après son commit, dans leur propre transaction, par l'exécuteur
+ * dashboardStatsExecutor : les lignes par borne et par propriétaire ne sont
+ * donc plus verrouillées pendant la réservation, et une transaction annulée
+ * n'est jamais comptée. Toute dérive (échec d'application, arrêt avant
+ * traitement de la file, modification hors application) est corrigée par
+ * reconcile().
+ *
+ * Alimente aussi reservation_rollup (séries temporelles des propriétaires)
+ * avec les réservations retenues, dès qu'une réservation entre dans l'un de
+ * ces états ou en sort.
+ */
+@Service
+public class DashboardStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardStatsService.class);
+
+    // États comptés dans les séries de revenus et d'occupation
+    private static final Set<Reservation.EtatReservation> ETATS_RETENUS = EnumSet.of(
+            Reservation.EtatReservation.CONFIRMEE,
+            Reservation.EtatReservation.ACTIVE,
+            Reservation.EtatReservation.TERMINEE);
+
+    private final DashboardStatsRepository statsRepository;
+    private final ReservationRollupRepository rollupRepository;
+    private final Executor executor;
+    private final TransactionTemplate transactionTemplate;
+
+    public DashboardStatsService(DashboardStatsRepository statsRepository,
+            ReservationRollupRepository rollupRepository,
+            @Qualifier("dashboardStatsExecutor") Executor executor,
+            PlatformTransactionManager transactionManager) {
+        this.statsRepository = statsRepository;
+        this.rollupRepository = rollupRepository;
+        this.executor = executor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Appelé depuis afterCommit (file pleine de l'exécuteur), la transaction
+        // validée est encore liée au thread : il faut en ouvrir une nouvelle
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Compte une nouvelle réservation pour le client, la borne et son propriétaire
+     */
+    public void onReservationCreated(Reservation reservation) {
+        onReservationsCreated(List.of(reservation));
+    }
+
+    /**
+     * Compte un lot de nouvelles réservations : les deltas sont cumulés par
+     * ligne de dashboard_stats, une seule mise à jour par client, borne et
+     * propriétaire concernés
+     */
+    public void onReservationsCreated(List<Reservation> reservations) {
+        LocalDate mois = debutMois();
+        Map<Cle, Cumul> cumuls = new LinkedHashMap<>();
+        Set<TopBorne> topBornes = new LinkedHashSet<>();
+        List<Runnable> rollups = new ArrayList<>();
+
+        for (Reservation reservation : reservations) {
+            BigDecimal montant = reservation.getTotalPrice() != null ? reservation.getTotalPrice() : BigDecimal.ZERO;
+            boolean creeCeMois = reservation.getCreatedAt() == null
+                    || YearMonth.from(reservation.getCreatedAt()).atDay(1).equals(mois);
+
+            if (reservation.getUtilisateur() != null) {
+                cumuls.computeIfAbsent(new Cle(DashboardStats.Scope.UTILISATEUR,
+                        reservation.getUtilisateur().getIdUtilisateur()), c -> new Cumul())
+                        .add(reservation.getEtat(), montant, creeCeMois);
+            }
+            if (reservation.getBorne() != null) {
+                cumuls.computeIfAbsent(new Cle(DashboardStats.Scope.BORNE,
+                        reservation.getBorne().getIdBorne()), c -> new Cumul())
+                        .add(reservation.getEtat(), montant, creeCeMois);
+            }
+            Long ownerId = ownerId(reservation);
+            if (ownerId != null) {
+                cumuls.computeIfAbsent(new Cle(DashboardStats.Scope.PROPRIETAIRE, ownerId), c -> new Cumul())
+                        .add(reservation.getEtat(), montant, creeCeMois);
+                topBornes.add(new TopBorne(ownerId, reservation.getBorne().getIdBorne()));
+            }
+            if (ETATS_RETENUS.contains(reservation.getEtat())) {
+                rollups.add(rollup(reservation, 1));
+            }
+        }
+
+        applyAfterCommit(() -> {
+            cumuls.forEach((cle, cumul) -> applyDelta(cle.scope(), cle.refId(), cumul.total, cumul.etats,
+                    cumul.montant, mois, cumul.montantMois, cumul.reservationsMois));
+            topBornes.forEach(top -> statsRepository.promoteTopBorne(top.ownerId(), top.borneId()));
+            rollups.forEach(Runnable::run);
+        });
+    }
+
+    /**
+     * Déplace la réservation du compteur de son ancien état vers celui de son état actuel
+     */
+    public void onEtatChanged(Reservation reservation, Reservation.EtatReservation ancienEtat) {
+        if (ancienEtat == null || ancienEtat == reservation.getEtat()) {
+            return;
+        }
+        long[] etats = new long[Reservation.EtatReservation.values().length];
+        etats[ancienEtat.ordinal()]--;
+        etats[reservation.getEtat().ordinal()]++;
+
+        Runnable deltas = deltas(reservation, 0, etats, BigDecimal.ZERO, debutMois(), BigDecimal.ZERO, 0);
+
+        boolean retenueAvant = ETATS_RETENUS.contains(ancienEtat);
+        boolean retenue = ETATS_RETENUS.contains(reservation.getEtat());
+        Runnable rollup = retenueAvant != retenue ? rollup(reservation, retenue ? 1 : -1) : () -> {
+        };
+        applyAfterCommit(() -> {
+            deltas.run();
+            rollup.run();
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<DashboardStats> findStats(DashboardStats.Scope scope, Long refId) {
+        return statsRepository.findById(new DashboardStats.DashboardStatsId(scope, refId));
+    }
+
+    /**
+     * Remplissage initial au démarrage ; un échec est journalisé sans empêcher
+     * l'application de démarrer, la réconciliation nocturne le rattrapera
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileAtStartup() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            logger.error("Échec de la réconciliation des statistiques du tableau de bord au démarrage", e);
+        }
+    }
+
+    /**
+     * Recalcule toutes les lignes depuis la table reservation, chaque nuit.
+     * Les lignes sont remplacées en place puis les lignes obsolètes supprimées,
+     * chaque étape dans sa propre transaction : les verrous ne sont tenus que
+     * le temps d'une requête et les mises à jour concurrentes ne rencontrent
+     * jamais une table vidée.
+     */
+    @Scheduled(cron = "${app.dashboard.stats.reconcile-cron:0 15 3 * * ?}")
+    public void reconcile() {
+        LocalDateTime debutMois = debutMois().atStartOfDay();
+        LocalDateTime finMois = debutMois.plusMonths(1);
+
+        int supprimees = inTransaction(statsRepository::deleteOrphans);
+        int utilisateurs = inTransaction(() -> statsRepository.reconcileUtilisateurs(debutMois, finMois));
+        int bornes = inTransaction(() -> statsRepository.reconcileBornes(debutMois, finMois));
+        int proprietaires = inTransaction(() -> statsRepository.reconcileProprietaires(debutMois, finMois));
+
+        int jours = inTransaction(rollupRepository::rebuild);
+        int joursSupprimes = inTransaction(rollupRepository::deleteStale);
+
+        logger.info("Statistiques du tableau de bord réconciliées : {} utilisateurs, {} bornes, "
+                + "{} propriétaires, {} lignes obsolètes supprimées, {} agrégats journaliers recalculés, "
+                + "{} supprimés", utilisateurs, bornes, proprietaires, supprimees, jours, joursSupprimes);
+    }
+
+    private int inTransaction(IntSupplier step) {
+        Integer lignes = transactionTemplate.execute(status -> step.getAsInt());
+        return lignes != null ? lignes : 0;
+    }
+
+    /**
+     * Applique les deltas après le commit de la transaction courante (rien si
+     * elle est annulée), ou immédiatement hors transaction
+     */
+    private void applyAfterCommit(Runnable deltas) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(deltas);
+                }
+            });
+        } else {
+            submit(deltas);
+        }
+    }
+
+    private void submit(Runnable deltas) {
+        executor.execute(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> deltas.run());
+            } catch (Exception e) {
+                logger.error("Échec de la mise à jour des statistiques du tableau de bord, "
+                        + "corrigée à la prochaine réconciliation", e);
+            }
+        });
+    }
+
+    /**
+     * Ajoute (sens = 1) ou retire (sens = -1) la réservation des agrégats
+     * journaliers de sa borne : la réservation et son montant sont comptés le
+     * jour de début, les minutes occupées réparties sur chaque jour couvert.
+     * Les valeurs sont lues tout de suite, dans la transaction de l'appelant.
+     */
+    private Runnable rollup(Reservation reservation, int sens) {
+        if (reservation.getBorne() == null || reservation.getDateDebut() == null
+                || reservation.getDateFin() == null) {
+            return () -> {
+            };
+        }
+        Long borneId = reservation.getBorne().getIdBorne();
+        BigDecimal montant = reservation.getTotalPrice() != null ? reservation.getTotalPrice() : BigDecimal.ZERO;
+        Map<LocalDate, Long> minutesParJour = minutesParJour(reservation.getDateDebut(), reservation.getDateFin());
+        LocalDate jourDebut = reservation.getDateDebut().toLocalDate();
+        return () -> minutesParJour.forEach((jour, minutes) -> {
+            boolean premierJour = jour.equals(jourDebut);
+            rollupRepository.applyDelta(borneId, jour, premierJour ? sens : 0,
+                    premierJour ? montant.multiply(BigDecimal.valueOf(sens)) : BigDecimal.ZERO, sens * minutes);
+        });
+    }
+
+    /**
+     * Minutes de [debut, fin] comprises dans chacun des jours couverts, dans
+     * l'ordre des jours ; le jour de début figure toujours, même à 0 minute
+     */
+    static Map<LocalDate, Long> minutesParJour(LocalDateTime debut, LocalDateTime fin) {
+        Map<LocalDate, Long> minutes = new LinkedHashMap<>();
+        LocalDate jour = debut.toLocalDate();
+        do {
+            LocalDateTime debutJour = jour.atStartOfDay();
+            LocalDateTime finJour = debutJour.plusDays(1);
+            LocalDateTime from = debut.isAfter(debutJour) ? debut : debutJour;
+            LocalDateTime to = fin.isBefore(finJour) ? fin : finJour;
+            minutes.put(jour, Math.max(0, Duration.between(from, to).toMinutes()));
+            jour = jour.plusDays(1);
+        } while (jour.atStartOfDay().isBefore(fin));
+        return minutes;
+    }
+
+    private Runnable deltas(Reservation reservation, long total, long[] etats, BigDecimal montant,
+            LocalDate mois, BigDecimal montantMois, long reservationsMois) {
+        List<Cle> cles = new ArrayList<>(3);
+        if (reservation.getUtilisateur() != null) {
+            cles.add(new Cle(DashboardStats.Scope.UTILISATEUR, reservation.getUtilisateur().getIdUtilisateur()));
+        }
+        if (reservation.getBorne() != null) {
+            cles.add(new Cle(DashboardStats.Scope.BORNE, reservation.getBorne().getIdBorne()));
+        }
+        Long ownerId = ownerId(reservation);
+        if (ownerId != null) {
+            cles.add(new Cle(DashboardStats.Scope.PROPRIETAIRE, ownerId));
+        }
+        return () -> cles.forEach(cle -> applyDelta(cle.scope(), cle.refId(),
+                total, etats, montant, mois, montantMois, reservationsMois));
+    }
+
+    private void applyDelta(DashboardStats.Scope scope, Long refId, long total, long[] etats,
+            BigDecimal montant, LocalDate mois, BigDecimal montantMois, long reservationsMois) {
+        statsRepository.applyDelta(scope.name(), refId, total,
+                etats[Reservation.EtatReservation.EN_ATTENTE.ordinal()],
+                etats[Reservation.EtatReservation.CONFIRMEE.ordinal()],
+                etats[Reservation.EtatReservation.ACTIVE.ordinal()],
+                etats[Reservation.EtatReservation.TERMINEE.ordinal()],
+                etats[Reservation.EtatReservation.ANNULEE.ordinal()],
+                etats[Reservation.EtatReservation.REFUSEE.ordinal()],
+                montant, mois, montantMois, reservationsMois);
+    }
+
+    private record Cle(DashboardStats.Scope scope, Long refId) {
+    }
+
+    private record TopBorne(Long ownerId, Long borneId) {
+    }
+
+    private static final class Cumul {
+        long total;
+        final long[] etats = new long[Reservation.EtatReservation.values().length];
+        BigDecimal montant = BigDecimal.ZERO;
+        BigDecimal montantMois = BigDecimal.ZERO;
+        long reservationsMois;
+
+        void add(Reservation.EtatReservation etat, BigDecimal montantReservation, boolean creeCeMois) {
+            total++;
+            etats[etat.ordinal()]++;
+            montant = montant.add(montantReservation);
+            if (creeCeMois) {
+                montantMois = montantMois.add(montantReservation);
+                reservationsMois++;
+            }
+        }
+    }
+
+    private Long ownerId(Reservation reservation) {
+        if (reservation.getBorne() == null || reservation.getBorne().getOwner() == null) {
+            return null;
+        }
+        return reservation.getBorne().getOwner().getIdUtilisateur();
+    }
+
+    private static LocalDate debutMois() {
+        return YearMonth.now().atDay(1);
+    }
+}
@@ -0,0 +1,22 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.dto.DisponibilitesDto;
+
+import java.time.LocalDateTime;
+
+public interface DisponibiliteService {
+
+    /**
+     * Créneaux libres et occupés d'une borne entre debut et fin. Un créneau est
+     * libre si une réservation couvrant exactement ce créneau ne serait pas
+     * rejetée pour conflit. Les bornes sont alignées sur la granularité.
+     */
+    DisponibilitesDto getDisponibilites(Long borneId, LocalDateTime debut, LocalDateTime fin,
+            Integer granulariteMinutes);
+
+    /**
+     * Invalide le calendrier en cache d'une borne, après le commit de la
+     * transaction courante
+     */
+    void invalidate(Long borneId);
+}
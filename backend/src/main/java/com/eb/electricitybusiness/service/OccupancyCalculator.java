@@ -0,0 +1,126 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.dto.OccupancyDto;
+import com.eb.electricitybusiness.dto.ReservationIntervalRow;
+import com.eb.electricitybusiness.model.Reservation;
+import com.eb.electricitybusiness.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Calcul du taux d'occupation réel des bornes par balayage des créneaux de
+ * réservation. Les créneaux arrivent triés par borne puis par début : on
+ * fusionne ceux qui se chevauchent en ne gardant en mémoire que le créneau
+ * courant, quel que soit le nombre de réservations lues.
+ */
+@Service
+public class OccupancyCalculator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OccupancyCalculator.class);
+
+    // États pour lesquels la borne est effectivement réservée
+    static final Set<Reservation.EtatReservation> ETATS_OCCUPANTS = EnumSet.of(
+            Reservation.EtatReservation.CONFIRMEE,
+            Reservation.EtatReservation.ACTIVE,
+            Reservation.EtatReservation.TERMINEE);
+
+    private final ReservationRepository reservationRepository;
+
+    public OccupancyCalculator(ReservationRepository reservationRepository) {
+        this.reservationRepository = reservationRepository;
+    }
+
+    /**
+     * Occupation des bornes d'un propriétaire sur [debut, fin[
+     *
+     * @param nbBornes nombre de bornes du propriétaire, y compris celles sans réservation
+     */
+    @Transactional(readOnly = true)
+    public OccupancyDto computeForOwner(Long ownerId, long nbBornes, LocalDateTime debut, LocalDateTime fin) {
+        if (!debut.isBefore(fin)) {
+            throw new IllegalArgumentException("La date de début doit précéder la date de fin");
+        }
+        try (Stream<ReservationIntervalRow> rows = reservationRepository.streamOwnerIntervals(ownerId,
+                ETATS_OCCUPANTS, debut, fin)) {
+            return sweep(rows.iterator(), nbBornes, debut, fin);
+        }
+    }
+
+    /**
+     * Fusionne les créneaux (triés par borne puis par début) découpés sur la
+     * fenêtre et cumule la durée couverte par borne
+     */
+    static OccupancyDto sweep(Iterator<ReservationIntervalRow> rows, long nbBornes, LocalDateTime debut,
+            LocalDateTime fin) {
+        long secondesFenetre = Duration.between(debut, fin).getSeconds();
+        Map<Long, Long> secondesParBorne = new LinkedHashMap<>();
+
+        Long borneCourante = null;
+        LocalDateTime startCourant = null;
+        LocalDateTime endCourant = null;
+        long lignes = 0;
+
+        while (rows.hasNext()) {
+            ReservationIntervalRow row = rows.next();
+            lignes++;
+            LocalDateTime start = row.getDateDebut().isBefore(debut) ? debut : row.getDateDebut();
+            LocalDateTime end = row.getDateFin().isAfter(fin) ? fin : row.getDateFin();
+            if (!start.isBefore(end)) {
+                continue;
+            }
+
+            if (!row.getIdBorne().equals(borneCourante)) {
+                cumuler(secondesParBorne, borneCourante, startCourant, endCourant);
+                borneCourante = row.getIdBorne();
+                startCourant = start;
+                endCourant = end;
+            } else if (start.isAfter(endCourant)) {
+                // Trou entre deux créneaux : le créneau courant est terminé
+                cumuler(secondesParBorne, borneCourante, startCourant, endCourant);
+                startCourant = start;
+                endCourant = end;
+            } else if (end.isAfter(endCourant)) {
+                // Chevauchement : on prolonge le créneau courant
+                endCourant = end;
+            }
+        }
+        cumuler(secondesParBorne, borneCourante, startCourant, endCourant);
+
+        long secondesOccupees = 0;
+        Map<Long, Double> tauxParBorne = new LinkedHashMap<>();
+        for (Map.Entry<Long, Long> entry : secondesParBorne.entrySet()) {
+            secondesOccupees += entry.getValue();
+            tauxParBorne.put(entry.getKey(), pourcentage(entry.getValue(), secondesFenetre));
+        }
+        long secondesDisponibles = secondesFenetre * Math.max(nbBornes, secondesParBorne.size());
+
+        logger.debug("Occupation calculée sur {} créneaux pour {} bornes", lignes, secondesParBorne.size());
+        return new OccupancyDto(debut, fin, secondesDisponibles / 60, secondesOccupees / 60,
+                pourcentage(secondesOccupees, secondesDisponibles), tauxParBorne);
+    }
+
+    private static void cumuler(Map<Long, Long> secondesParBorne, Long borne, LocalDateTime start,
+            LocalDateTime end) {
+        if (borne != null) {
+            secondesParBorne.merge(borne, Duration.between(start, end).getSeconds(), Long::sum);
+        }
+    }
+
+    private static double pourcentage(long valeur, long total) {
+        if (total <= 0) {
+            return 0;
+        }
+        return Math.round((double) valeur / total * 10000.0) / 100.0;
+    }
+}
@@ -0,0 +1,18 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.dto.OwnerSeriesDto;
+
+import java.time.LocalDate;
+
+public interface OwnerAnalyticsService {
+    /**
+     * Séries temporelles de revenus et d'occupation des bornes d'un propriétaire
+     * @param ownerId ID du propriétaire
+     * @param granularite day, week ou month (day par défaut)
+     * @param debut premier jour inclus (facultatif)
+     * @param fin premier jour exclu (facultatif, demain par défaut)
+     * @param borneId limite la série à une borne (facultatif)
+     * @return Série totale et séries par borne
+     */
+    OwnerSeriesDto getSeries(Long ownerId, String granularite, LocalDate debut, LocalDate fin, Long borneId);
+}
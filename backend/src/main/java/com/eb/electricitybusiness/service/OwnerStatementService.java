@@ -0,0 +1,29 @@
+package com.eb.electricitybusiness.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.YearMonth;
+
+public interface OwnerStatementService {
+    /**
+     * Génère le relevé PDF d'un propriétaire pour un mois
+     * @param ownerId ID du propriétaire
+     * @param mois Mois couvert par le relevé
+     * @return Le fichier du relevé
+     * @throws IOException Si une erreur survient lors de la génération
+     */
+    Path generateStatement(Long ownerId, YearMonth mois) throws IOException;
+
+    /**
+     * Relevé d'un propriétaire pour un mois : un mois terminé déjà généré est
+     * réutilisé, sinon le relevé est (re)généré
+     */
+    Path getStatement(Long ownerId, YearMonth mois) throws IOException;
+
+    /**
+     * Génère en parallèle les relevés de tous les propriétaires ayant des
+     * réservations dans le mois
+     * @return le nombre de relevés générés
+     */
+    int generateAllStatements(YearMonth mois);
+}
@@ -3,8 +3,14 @@ package com.eb.electricitybusiness.service;
 import com.eb.electricitybusiness.model.Reservation;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
 public interface PdfReceiptService {
+    /**
+     * Valeur de receipt_path tant que le reçu n'a pas encore été généré
+     */
+    String RECEIPT_PENDING = "PENDING";
+
     /**
      * Génère un reçu PDF pour une réservation acceptée
      * @param reservation La réservation pour laquelle générer le reçu
@@ -20,4 +26,12 @@ public interface PdfReceiptService {
      * @throws IOException Si le fichier n'existe pas ou ne peut être lu
      */
     byte[] getReceiptContent(String receiptPath) throws IOException;
+
+    /**
+     * Localise le fichier d'un reçu PDF sans le lire
+     * @param receiptPath Le chemin du fichier PDF
+     * @return Le fichier du reçu
+     * @throws IOException Si le fichier n'existe pas
+     */
+    Path getReceiptFile(String receiptPath) throws IOException;
 }
@@ -0,0 +1,63 @@
+package com.eb.electricitybusiness.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+public interface PhotoStorageService {
+    /**
+     * Enregistre une image dans le stockage adressé par contenu (SHA-256).
+     * Le flux est copié sur disque par blocs : la taille maximale et le type
+     * (JPEG, PNG, GIF ou WebP, détecté sur les premiers octets) sont vérifiés
+     * pendant la copie. Une image déjà présente n'est pas réécrite.
+     * @param content Le contenu de l'image, fermé par cette méthode
+     * @return L'URL publique courte de l'image
+     * @throws IllegalArgumentException Si le contenu n'est pas une image acceptée ou est trop volumineux
+     * @throws IOException Si l'écriture sur disque échoue
+     */
+    String store(InputStream content) throws IOException;
+
+    /**
+     * Indique si une valeur de medias est une image encodée en data URL
+     * (ancien format stocké en base)
+     */
+    boolean isDataUrl(String media);
+
+    /**
+     * Extrait une data URL base64 vers le stockage de fichiers
+     * @return L'URL publique courte remplaçant la data URL
+     */
+    String storeDataUrl(String dataUrl) throws IOException;
+
+    /**
+     * Résout un fichier du stockage (original ou déclinaison) à partir de son
+     * chemin relatif (ab/cd/hash.ext ou ab/cd/hash_suffixe.jpg)
+     * @return Le chemin du fichier, ou null si le nom ne correspond pas au format du stockage
+     */
+    Path resolve(String prefix, String subPrefix, String fileName);
+
+    /**
+     * Résout le fichier original d'une photo à partir de son URL publique
+     * @return Le chemin du fichier, ou null si l'URL n'est pas celle d'un original du stockage
+     */
+    Path resolveUrl(String url);
+
+    /**
+     * Original existant correspondant au nom d'une déclinaison (ab/cd/hash_suffixe.jpg)
+     * @return Le chemin de l'original, ou null s'il n'existe pas
+     */
+    Path resolveOriginal(String prefix, String subPrefix, String variantFileName);
+
+    /**
+     * URL d'une déclinaison d'une photo du stockage. Les URL qui ne viennent pas
+     * du stockage (data URL non migrées, liens externes) sont renvoyées telles quelles.
+     */
+    String variantUrl(String url, PhotoVariant variant);
+
+    /**
+     * Originaux du stockage auxquels il manque au moins une déclinaison
+     * @param limit Nombre maximal de fichiers renvoyés
+     */
+    List<Path> findOriginalsWithoutVariants(int limit) throws IOException;
+}
@@ -0,0 +1,34 @@
+package com.eb.electricitybusiness.service;
+
+/**
+ * Déclinaisons redimensionnées des photos de bornes, stockées à côté de
+ * l'original sous le nom <hash>_<suffixe>.jpg
+ */
+public enum PhotoVariant {
+    THUMBNAIL("thumb", 160),
+    CARD("card", 480),
+    FULL("full", 1600);
+
+    private final String suffix;
+    private final int maxDimension;
+
+    PhotoVariant(String suffix, int maxDimension) {
+        this.suffix = suffix;
+        this.maxDimension = maxDimension;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    /**
+     * Plus grande dimension (largeur ou hauteur) en pixels
+     */
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    public String fileName(String hash) {
+        return hash + "_" + suffix + ".jpg";
+    }
+}
@@ -0,0 +1,234 @@
+package com.eb.electricitybusiness.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Génère en arrière-plan les déclinaisons (PhotoVariant) d'une photo stockée :
+ * images réduites et recompressées en JPEG, écrites à côté de l'original.
+ * Tant qu'une déclinaison n'existe pas, PhotoController sert l'original.
+ *
+ * Les dimensions sont lues dans l'en-tête avant tout décodage : une image
+ * dépassant max-pixels est ignorée, et une grande image est décodée en
+ * sous-échantillonnant les pixels pour ne jamais dépasser deux fois la taille
+ * de la plus grande déclinaison. Les photos refusées par une file pleine ou
+ * manquées lors d'un redémarrage sont reprises par un parcours périodique du
+ * stockage.
+ */
+@Service
+public class PhotoVariantGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoVariantGenerator.class);
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private static final int MAX_DECODED_DIMENSION = 2 * PhotoVariant.FULL.getMaxDimension();
+
+    private final PhotoStorageService photoStorageService;
+    private final Executor executor;
+    private final long maxPixels;
+    private final int sweepBatch;
+    private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+    // Originaux non décodables ou trop grands : inutile de les reprendre à chaque parcours
+    private final Set<Path> ignored = ConcurrentHashMap.newKeySet();
+
+    public PhotoVariantGenerator(PhotoStorageService photoStorageService,
+            @Qualifier("photoVariantExecutor") Executor executor,
+            @Value("${app.upload.variants.max-pixels:40000000}") long maxPixels,
+            @Value("${app.upload.variants.sweep-batch:500}") int sweepBatch) {
+        this.photoStorageService = photoStorageService;
+        this.executor = executor;
+        this.maxPixels = maxPixels;
+        this.sweepBatch = Math.max(1, sweepBatch);
+    }
+
+    /**
+     * Planifie la génération des déclinaisons d'une photo du stockage
+     * @param photoUrl L'URL renvoyée par PhotoStorageService
+     */
+    public void generateAsync(String photoUrl) {
+        Path original = photoStorageService.resolveUrl(photoUrl);
+        if (original != null) {
+            submit(original);
+        }
+    }
+
+    /**
+     * Planifie la génération ; sans effet si elle est déjà en cours
+     * @return false si la file est pleine
+     */
+    boolean submit(Path original) {
+        if (!inFlight.add(original)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(original);
+                } finally {
+                    inFlight.remove(original);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(original);
+            logger.warn("File de génération des miniatures pleine, {} repris au prochain parcours",
+                    original.getFileName());
+            return false;
+        }
+    }
+
+    /**
+     * Reprend les originaux du stockage auxquels il manque des déclinaisons
+     */
+    @Scheduled(fixedDelayString = "${app.upload.variants.sweep-ms:3600000}",
+            initialDelayString = "${app.upload.variants.sweep-initial-delay-ms:120000}")
+    public void sweepMissingVariants() {
+        try {
+            List<Path> missing = photoStorageService.findOriginalsWithoutVariants(sweepBatch + ignored.size());
+            int submitted = 0;
+            for (Path original : missing) {
+                if (ignored.contains(original)) {
+                    continue;
+                }
+                if (!submit(original)) {
+                    break;
+                }
+                submitted++;
+            }
+            if (submitted > 0) {
+                logger.info("Reprise de la génération des miniatures de {} photo(s)", submitted);
+            }
+        } catch (IOException e) {
+            logger.error("Erreur lors du parcours des photos sans miniatures", e);
+        }
+    }
+
+    /**
+     * Génère les déclinaisons manquantes d'une photo
+     */
+    public void generate(Path original) {
+        try {
+            BufferedImage source = read(original);
+            if (source == null) {
+                ignored.add(original);
+                return;
+            }
+            String hash = hashOf(original);
+            for (PhotoVariant variant : PhotoVariant.values()) {
+                Path target = original.resolveSibling(variant.fileName(hash));
+                if (!Files.exists(target)) {
+                    writeJpeg(resize(source, variant.getMaxDimension()), target);
+                }
+            }
+            logger.debug("Miniatures générées pour {}", original.getFileName());
+        } catch (IOException | RuntimeException e) {
+            logger.error("Erreur lors de la génération des miniatures de {}", original.getFileName(), e);
+        }
+    }
+
+    /**
+     * Décode l'image après contrôle de ses dimensions, en sous-échantillonnant
+     * les grandes images ; null si le format n'est pas décodable ou si l'image
+     * dépasse max-pixels
+     */
+    private BufferedImage read(Path original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                logger.info("Format non décodable, pas de miniatures pour {}", original.getFileName());
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    logger.warn("Image de {}x{} pixels trop grande, pas de miniatures pour {}", width, height,
+                            original.getFileName());
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / MAX_DECODED_DIMENSION);
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Réduit l'image pour que sa plus grande dimension ne dépasse pas maxDimension
+     * (jamais d'agrandissement). La transparence est aplatie sur fond blanc.
+     */
+    private BufferedImage resize(BufferedImage source, int maxDimension) {
+        double scale = Math.min(1.0,
+                (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), "variant-", ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try {
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(tmp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            writer.dispose();
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private String hashOf(Path original) {
+        String fileName = original.getFileName().toString();
+        return fileName.substring(0, fileName.indexOf('.'));
+    }
+}
@@ -0,0 +1,148 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.model.Reservation;
+import com.eb.electricitybusiness.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Génère les reçus PDF en arrière-plan, hors de la transaction d'acceptation.
+ * L'état est durable : receipt_path vaut RECEIPT_PENDING jusqu'à ce que le
+ * fichier soit écrit, puis reçoit son chemin. Les reçus restés en attente
+ * (file pleine, échecs répétés, redémarrage) sont relancés périodiquement.
+ */
+@Service
+public class ReceiptGenerationQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReceiptGenerationQueue.class);
+
+    private final PdfReceiptService pdfReceiptService;
+    private final ReservationRepository reservationRepository;
+    private final Executor executor;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+    private final int recoveryBatch;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    public ReceiptGenerationQueue(PdfReceiptService pdfReceiptService,
+            ReservationRepository reservationRepository,
+            @Qualifier("receiptExecutor") Executor executor,
+            @Value("${app.receipts.async.max-attempts:3}") int maxAttempts,
+            @Value("${app.receipts.async.retry-delay-ms:2000}") long retryDelayMs,
+            @Value("${app.receipts.async.recovery-batch:200}") int recoveryBatch) {
+        this.pdfReceiptService = pdfReceiptService;
+        this.reservationRepository = reservationRepository;
+        this.executor = executor;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelayMs = Math.max(0, retryDelayMs);
+        this.recoveryBatch = Math.max(1, recoveryBatch);
+    }
+
+    /**
+     * Planifie la génération du reçu après le commit de la transaction courante,
+     * pour que le worker lise l'état en attente déjà enregistré
+     */
+    public void submitAfterCommit(Long reservationId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(reservationId);
+                }
+            });
+        } else {
+            submit(reservationId);
+        }
+    }
+
+    /**
+     * Planifie la génération du reçu ; sans effet si elle est déjà en cours
+     */
+    public void submit(Long reservationId) {
+        if (reservationId == null || !inFlight.add(reservationId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(reservationId);
+                } finally {
+                    inFlight.remove(reservationId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(reservationId);
+            logger.warn("File de génération des reçus pleine, réservation #{} reprise à la prochaine relance",
+                    reservationId);
+        }
+    }
+
+    /**
+     * Relance les reçus restés en attente
+     */
+    @Scheduled(fixedDelayString = "${app.receipts.async.recovery-ms:60000}",
+            initialDelayString = "${app.receipts.async.recovery-ms:60000}")
+    public void recoverPending() {
+        List<Long> pending = reservationRepository.findIdsByReceiptPath(PdfReceiptService.RECEIPT_PENDING,
+                PageRequest.of(0, recoveryBatch));
+        if (!pending.isEmpty()) {
+            logger.info("Relance de la génération de {} reçu(s) en attente", pending.size());
+            pending.forEach(this::submit);
+        }
+    }
+
+    /**
+     * Génère le reçu puis enregistre son chemin, avec nouvelles tentatives
+     * espacées en cas d'échec
+     */
+    void generate(Long reservationId) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                Reservation reservation = reservationRepository.findWithDetails(reservationId).orElse(null);
+                if (reservation == null || !PdfReceiptService.RECEIPT_PENDING.equals(reservation.getReceiptPath())) {
+                    return;
+                }
+                String receiptPath = pdfReceiptService.generateReceipt(reservation);
+                // Le nom du fichier ne dépend que de la réservation : si le reçu a été
+                // produit par ailleurs entre-temps, c'est le même fichier
+                if (reservationRepository.updateReceiptPath(reservationId, receiptPath,
+                        PdfReceiptService.RECEIPT_PENDING) == 0) {
+                    return;
+                }
+                logger.info("Reçu PDF généré pour la réservation #{}: {}", reservationId, receiptPath);
+                return;
+            } catch (Exception e) {
+                logger.warn("Échec de la génération du reçu de la réservation #{} (tentative {}/{})",
+                        reservationId, attempt, maxAttempts, e);
+            }
+            if (attempt < maxAttempts && !pause(retryDelayMs * attempt)) {
+                return;
+            }
+        }
+        logger.error("Reçu de la réservation #{} toujours en attente après {} tentatives", reservationId,
+                maxAttempts);
+    }
+
+    private boolean pause(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
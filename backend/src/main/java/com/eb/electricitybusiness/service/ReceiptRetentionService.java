@@ -0,0 +1,91 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.dto.ReceiptPathRow;
+import com.eb.electricitybusiness.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Archivage périodique des reçus anciens : les reçus des réservations
+ * terminées depuis plus de retention-days jours sont regroupés par lots dans
+ * des archives zip. receipt_path est mis à jour avant la suppression des
+ * fichiers, si bien qu'une interruption laisse au pire un fichier en double.
+ */
+@Service
+public class ReceiptRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReceiptRetentionService.class);
+
+    private final ReservationRepository reservationRepository;
+    private final ReceiptStorageService receiptStorageService;
+    private final int retentionDays;
+    private final int batchSize;
+    private final Duration restoredMaxAge;
+
+    public ReceiptRetentionService(ReservationRepository reservationRepository,
+            ReceiptStorageService receiptStorageService,
+            @Value("${app.receipts.retention.days:365}") int retentionDays,
+            @Value("${app.receipts.retention.batch-size:1000}") int batchSize,
+            @Value("${app.receipts.retention.restored-max-age-hours:24}") long restoredMaxAgeHours) {
+        this.reservationRepository = reservationRepository;
+        this.receiptStorageService = receiptStorageService;
+        this.retentionDays = retentionDays;
+        this.batchSize = Math.max(1, batchSize);
+        this.restoredMaxAge = Duration.ofHours(restoredMaxAgeHours);
+    }
+
+    @Scheduled(cron = "${app.receipts.retention.cron:0 30 4 * * ?}")
+    public void archiveOldReceipts() {
+        try {
+            int archives = archiveBefore(LocalDateTime.now().minusDays(retentionDays));
+            int purges = receiptStorageService.purgeRestored(restoredMaxAge);
+            logger.info("Rétention des reçus : {} reçu(s) archivé(s), {} copie(s) extraite(s) supprimée(s)",
+                    archives, purges);
+        } catch (Exception e) {
+            logger.error("Erreur lors de l'archivage des reçus", e);
+        }
+    }
+
+    /**
+     * Archive les reçus des réservations terminées avant la date donnée
+     * @return le nombre de reçus archivés
+     */
+    public int archiveBefore(LocalDateTime avant) throws IOException {
+        int total = 0;
+        long apresId = 0;
+        while (true) {
+            List<ReceiptPathRow> rows = reservationRepository.findReceiptsToArchive(apresId, avant,
+                    PdfReceiptService.RECEIPT_PENDING, PageRequest.of(0, batchSize));
+            if (rows.isEmpty()) {
+                return total;
+            }
+            Map<Long, String> receipts = new LinkedHashMap<>();
+            rows.forEach(row -> receipts.put(row.getNumeroReservation(), row.getReceiptPath()));
+            apresId = rows.get(rows.size() - 1).getNumeroReservation();
+
+            Map<Long, String> archived = receiptStorageService.archive(receipts);
+            for (Map.Entry<Long, String> entry : archived.entrySet()) {
+                String ancien = receipts.get(entry.getKey());
+                // Le fichier n'est supprimé que si receipt_path pointe bien vers l'archive
+                if (reservationRepository.updateReceiptPath(entry.getKey(), entry.getValue(), ancien) == 1) {
+                    receiptStorageService.delete(ancien);
+                    total++;
+                }
+            }
+            if (rows.size() < batchSize) {
+                return total;
+            }
+        }
+    }
+}
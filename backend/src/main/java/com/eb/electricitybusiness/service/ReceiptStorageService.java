@@ -0,0 +1,51 @@
+package com.eb.electricitybusiness.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+public interface ReceiptStorageService {
+    /**
+     * Enregistre le reçu d'une réservation. Le nom ne dépend que de l'identifiant
+     * de la réservation : une nouvelle génération remplace l'ancien fichier.
+     * L'écriture passe par un fichier temporaire renommé atomiquement.
+     * @param reservationId L'identifiant de la réservation
+     * @param content Le contenu du PDF
+     * @return Le chemin relatif à enregistrer dans receipt_path (ab/cd/recu_reservation_ID.pdf)
+     * @throws IOException Si l'écriture sur disque échoue
+     */
+    String store(Long reservationId, ByteArrayOutputStream content) throws IOException;
+
+    /**
+     * Localise le fichier d'un reçu à partir de la valeur de receipt_path :
+     * chemin du stockage, reçu archivé (extrait à la demande) ou ancien chemin absolu
+     * @throws IOException Si le fichier n'existe pas ou ne peut être extrait de son archive
+     */
+    Path resolve(String receiptPath) throws IOException;
+
+    /**
+     * Regroupe des reçus dans une nouvelle archive compressée. Les fichiers ne
+     * sont pas supprimés : l'appelant le fait une fois receipt_path mis à jour.
+     * @param receipts receipt_path actuel par identifiant de réservation
+     * @return le nouveau receipt_path de chaque reçu archivé (les fichiers absents sont ignorés)
+     */
+    Map<Long, String> archive(Map<Long, String> receipts) throws IOException;
+
+    /**
+     * Indique si receipt_path désigne un reçu déjà archivé
+     */
+    boolean isArchived(String receiptPath);
+
+    /**
+     * Supprime le fichier d'un reçu non archivé, s'il existe
+     */
+    void delete(String receiptPath) throws IOException;
+
+    /**
+     * Supprime les reçus extraits d'une archive depuis plus de maxAge
+     * @return le nombre de fichiers supprimés
+     */
+    int purgeRestored(Duration maxAge) throws IOException;
+}
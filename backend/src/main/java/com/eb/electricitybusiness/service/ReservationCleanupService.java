@@ -22,9 +22,12 @@ public class ReservationCleanupService {
     private static final int EXPIRATION_HOURS = 24;
     
     private final ReservationRepository reservationRepository;
+    private final DashboardStatsService dashboardStatsService;
     
-    public ReservationCleanupService(ReservationRepository reservationRepository) {
+    public ReservationCleanupService(ReservationRepository reservationRepository,
+            DashboardStatsService dashboardStatsService) {
         this.reservationRepository = reservationRepository;
+        this.dashboardStatsService = dashboardStatsService;
     }
     
     /**
@@ -53,6 +56,8 @@ public class ReservationCleanupService {
             }
             
             reservationRepository.saveAll(expiredReservations);
+            expiredReservations.forEach(reservation ->
+                    dashboardStatsService.onEtatChanged(reservation, Reservation.EtatReservation.EN_ATTENTE));
             logger.info("{} réservation(s) en attente expirée(s) annulée(s)", expiredReservations.size());
             
         } catch (Exception e) {
@@ -86,6 +91,8 @@ public class ReservationCleanupService {
             }
             
             reservationRepository.saveAll(pastReservations);
+            pastReservations.forEach(reservation ->
+                    dashboardStatsService.onEtatChanged(reservation, Reservation.EtatReservation.EN_ATTENTE));
             logger.info("{} réservation(s) en attente avec date passée annulée(s)", pastReservations.size());
             
         } catch (Exception e) {
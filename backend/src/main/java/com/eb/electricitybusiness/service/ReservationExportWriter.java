@@ -0,0 +1,201 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.dto.ExportFormat;
+import com.eb.electricitybusiness.dto.ReservationExportRow;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Écriture en flux de l'export des réservations. Chaque ligne est écrite dès
+ * qu'elle est lue :
+ * - CSV : séparateur ";" et BOM UTF-8, pour une ouverture directe dans Excel ;
+ * - XLSX : SXSSFWorkbook ne garde en mémoire qu'une fenêtre de lignes, les
+ *   lignes plus anciennes sont vidées dans un fichier temporaire compressé.
+ *   Au-delà de la limite d'une feuille Excel, une nouvelle feuille est ouverte.
+ */
+@Component
+public class ReservationExportWriter {
+
+    static final String[] COLUMNS = { "Numéro", "Début", "Fin", "Statut", "Prix à la minute", "Montant total",
+            "ID borne", "Borne", "ID utilisateur", "Prénom", "Nom", "Email" };
+    private static final DateTimeFormatter CSV_DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final String CSV_SEPARATOR = ";";
+    private static final char BOM = '\uFEFF';
+
+    private final int rowWindow;
+    private final int maxRowsPerSheet;
+
+    public ReservationExportWriter(@Value("${app.reservations.export.xlsx-window:100}") int rowWindow) {
+        this(rowWindow, SpreadsheetVersion.EXCEL2007.getMaxRows() - 1);
+    }
+
+    ReservationExportWriter(int rowWindow, int maxRowsPerSheet) {
+        this.rowWindow = Math.max(1, rowWindow);
+        this.maxRowsPerSheet = maxRowsPerSheet;
+    }
+
+    /**
+     * Écrit les lignes dans le format demandé ; le flux de sortie n'est pas fermé
+     * @return le nombre de réservations exportées
+     */
+    public long write(ExportFormat format, Stream<ReservationExportRow> rows, OutputStream out) throws IOException {
+        return switch (format) {
+            case CSV -> writeCsv(rows, out);
+            case XLSX -> writeXlsx(rows, out);
+        };
+    }
+
+    long writeCsv(Stream<ReservationExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(BOM);
+        writer.write(String.join(CSV_SEPARATOR, COLUMNS));
+        writer.write("\r\n");
+        long count = 0;
+        Iterator<ReservationExportRow> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            ReservationExportRow row = iterator.next();
+            writer.write(csvLine(row));
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    long writeXlsx(Stream<ReservationExportRow> rows, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        workbook.setCompressTempFiles(true);
+        try {
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("dd/mm/yyyy hh:mm"));
+            CellStyle amountStyle = workbook.createCellStyle();
+            amountStyle.setDataFormat(workbook.createDataFormat().getFormat("0.00"));
+            CellStyle rateStyle = workbook.createCellStyle();
+            rateStyle.setDataFormat(workbook.createDataFormat().getFormat("0.0000"));
+
+            Sheet sheet = null;
+            int rowIndex = 0;
+            long count = 0;
+            Iterator<ReservationExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                ReservationExportRow data = iterator.next();
+                if (sheet == null || rowIndex > maxRowsPerSheet) {
+                    sheet = newSheet(workbook, headerStyle);
+                    rowIndex = 1;
+                }
+                Row row = sheet.createRow(rowIndex++);
+                setNumber(row, 0, data.numeroReservation(), null);
+                setDate(row, 1, data.dateDebut(), dateStyle);
+                setDate(row, 2, data.dateFin(), dateStyle);
+                setText(row, 3, data.etat() != null ? data.etat().name() : null);
+                setNumber(row, 4, data.prixALaMinute(), rateStyle);
+                setNumber(row, 5, data.totalPrice(), amountStyle);
+                setNumber(row, 6, data.idBorne(), null);
+                setText(row, 7, data.nomBorne());
+                setNumber(row, 8, data.idUtilisateur(), null);
+                setText(row, 9, data.prenom());
+                setText(row, 10, data.nom());
+                setText(row, 11, data.email());
+                count++;
+            }
+            if (sheet == null) {
+                newSheet(workbook, headerStyle);
+            }
+            workbook.write(out);
+            return count;
+        } finally {
+            // Supprime les fichiers temporaires des lignes déjà vidées
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private Sheet newSheet(SXSSFWorkbook workbook, CellStyle headerStyle) {
+        Sheet sheet = workbook.createSheet("Réservations" + (workbook.getNumberOfSheets() > 0
+                ? " " + (workbook.getNumberOfSheets() + 1) : ""));
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            Cell cell = header.createCell(i);
+            cell.setCellValue(COLUMNS[i]);
+            cell.setCellStyle(headerStyle);
+        }
+        return sheet;
+    }
+
+    private void setText(Row row, int column, String value) {
+        if (value != null) {
+            row.createCell(column).setCellValue(value);
+        }
+    }
+
+    private void setNumber(Row row, int column, Number value, CellStyle style) {
+        if (value != null) {
+            Cell cell = row.createCell(column);
+            cell.setCellValue(value.doubleValue());
+            if (style != null) {
+                cell.setCellStyle(style);
+            }
+        }
+    }
+
+    private void setDate(Row row, int column, LocalDateTime value, CellStyle style) {
+        if (value != null) {
+            Cell cell = row.createCell(column);
+            cell.setCellValue(value);
+            cell.setCellStyle(style);
+        }
+    }
+
+    private String csvLine(ReservationExportRow row) {
+        return String.join(CSV_SEPARATOR,
+                csvValue(row.numeroReservation()),
+                csvValue(row.dateDebut() != null ? row.dateDebut().format(CSV_DATE_FORMATTER) : null),
+                csvValue(row.dateFin() != null ? row.dateFin().format(CSV_DATE_FORMATTER) : null),
+                csvValue(row.etat() != null ? row.etat().name() : null),
+                csvValue(row.prixALaMinute()),
+                csvValue(row.totalPrice()),
+                csvValue(row.idBorne()),
+                csvValue(row.nomBorne()),
+                csvValue(row.idUtilisateur()),
+                csvValue(row.prenom()),
+                csvValue(row.nom()),
+                csvValue(row.email())) + "\r\n";
+    }
+
+    private String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        // Une saisie commençant par =, +, - ou @ serait interprétée comme une formule par le tableur
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.contains(CSV_SEPARATOR) || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
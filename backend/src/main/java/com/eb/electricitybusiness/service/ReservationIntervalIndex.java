@@ -0,0 +1,211 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.dto.ReservationSlotRow;
+import com.eb.electricitybusiness.model.Reservation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Index en mémoire, par borne, des créneaux réservés (CONFIRMEE, ACTIVE,
+ * TERMINEE), optionnel. La détection de conflits à la création et à
+ * l'acceptation d'une réservation interroge un arbre d'intervalles au lieu de
+ * relancer findConflictingReservations pendant que la borne est verrouillée.
+ *
+ * Activé par app.reservations.interval-index.enabled=true. Seuls les
+ * créneaux se terminant après le début de l'horizon de chargement sont
+ * indexés : une question portant sur une période antérieure retombe sur la
+ * requête en base. Un créneau qui devient bloquant est ajouté dès la
+ * transaction (et retiré si elle est annulée) ; un créneau libéré n'est retiré
+ * qu'après le commit. Le rechargement périodique rattrape les modifications
+ * faites par d'autres instances.
+ */
+@Service
+public class ReservationIntervalIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationIntervalIndex.class);
+
+    /**
+     * États qui bloquent un créneau, identiques à findConflictingReservations
+     */
+    public static final Set<Reservation.EtatReservation> ETATS_BLOQUANTS = EnumSet.of(
+            Reservation.EtatReservation.CONFIRMEE,
+            Reservation.EtatReservation.ACTIVE,
+            Reservation.EtatReservation.TERMINEE);
+
+    private final boolean enabled;
+    private final int horizonDays;
+    private final Object lock = new Object();
+
+    private Map<Long, ReservationIntervalTree> trees = new HashMap<>();
+    // Modifications reçues pendant un chargement, rejouées sur le nouvel index
+    private List<Consumer<Map<Long, ReservationIntervalTree>>> journal;
+    private LocalDateTime horizon;
+    private volatile boolean loaded;
+
+    public ReservationIntervalIndex(
+            @Value("${app.reservations.interval-index.enabled:false}") boolean enabled,
+            @Value("${app.reservations.interval-index.horizon-days:1}") int horizonDays) {
+        this.enabled = enabled;
+        this.horizonDays = Math.max(horizonDays, 0);
+    }
+
+    public boolean isConfigured() {
+        return enabled;
+    }
+
+    /**
+     * L'index ne répond qu'une fois activé et chargé, et seulement pour une
+     * période qui commence après l'horizon de chargement
+     */
+    public boolean canAnswer(LocalDateTime dateDebut) {
+        if (!enabled || !loaded || dateDebut == null) {
+            return false;
+        }
+        synchronized (lock) {
+            return !dateDebut.isBefore(horizon);
+        }
+    }
+
+    /**
+     * Début de l'horizon du prochain chargement : les créneaux se terminant
+     * avant ne sont pas indexés
+     */
+    public LocalDateTime horizonFrom(LocalDateTime now) {
+        return now.minusDays(horizonDays);
+    }
+
+    /**
+     * À appeler avant de lire les créneaux en base : les modifications reçues
+     * à partir de cet instant seront rejouées sur le nouvel index
+     */
+    public void beginLoad() {
+        synchronized (lock) {
+            journal = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Remplace tout le contenu de l'index par les créneaux lus en base
+     */
+    public void load(Iterator<? extends ReservationSlotRow> rows, LocalDateTime depuis) {
+        Map<Long, ReservationIntervalTree> rebuilt = new HashMap<>();
+        int count = 0;
+        while (rows.hasNext()) {
+            ReservationSlotRow row = rows.next();
+            rebuilt.computeIfAbsent(row.getIdBorne(), id -> new ReservationIntervalTree())
+                    .put(row.getNumeroReservation(), row.getDateDebut(), row.getDateFin());
+            count++;
+        }
+        synchronized (lock) {
+            if (journal != null) {
+                journal.forEach(op -> op.accept(rebuilt));
+            }
+            journal = null;
+            trees = rebuilt;
+            horizon = depuis;
+            loaded = true;
+        }
+        logger.info("Index des créneaux réservés chargé : {} créneaux sur {} bornes", count, rebuilt.size());
+    }
+
+    /**
+     * Vrai si un créneau indexé de la borne, autre que excludeReservationId,
+     * coupe [dateDebut, dateFin] (bornes incluses)
+     */
+    public boolean hasConflict(Long borneId, LocalDateTime dateDebut, LocalDateTime dateFin,
+            Long excludeReservationId) {
+        synchronized (lock) {
+            ReservationIntervalTree tree = trees.get(borneId);
+            return tree != null && tree.overlaps(dateDebut, dateFin, excludeReservationId);
+        }
+    }
+
+    /**
+     * Aligne l'index sur l'état de la réservation, qui était ancienEtat avant
+     * la transaction. Un créneau bloquant est ajouté immédiatement pour que
+     * les validations suivantes le voient avant le commit, et retiré au
+     * rollback s'il ne l'était pas déjà ; un créneau libéré reste bloquant
+     * jusqu'au commit.
+     */
+    public void sync(Reservation reservation, Reservation.EtatReservation ancienEtat) {
+        if (!enabled || reservation == null || reservation.getNumeroReservation() == null
+                || reservation.getBorne() == null || reservation.getBorne().getIdBorne() == null) {
+            return;
+        }
+        Long borneId = reservation.getBorne().getIdBorne();
+        Long id = reservation.getNumeroReservation();
+        if (ETATS_BLOQUANTS.contains(reservation.getEtat())
+                && reservation.getDateDebut() != null && reservation.getDateFin() != null) {
+            LocalDateTime debut = reservation.getDateDebut();
+            LocalDateTime fin = reservation.getDateFin();
+            apply(map -> map.computeIfAbsent(borneId, b -> new ReservationIntervalTree()).put(id, debut, fin));
+            if (!ETATS_BLOQUANTS.contains(ancienEtat)) {
+                onRollback(() -> apply(map -> remove(map, borneId, id)));
+            }
+        } else {
+            afterCommit(() -> apply(map -> remove(map, borneId, id)));
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return trees.values().stream().mapToInt(ReservationIntervalTree::size).sum();
+        }
+    }
+
+    private void apply(Consumer<Map<Long, ReservationIntervalTree>> op) {
+        synchronized (lock) {
+            op.accept(trees);
+            if (journal != null) {
+                journal.add(op);
+            }
+        }
+    }
+
+    private static void remove(Map<Long, ReservationIntervalTree> map, Long borneId, Long id) {
+        ReservationIntervalTree tree = map.get(borneId);
+        if (tree != null && tree.remove(id) && tree.size() == 0) {
+            map.remove(borneId);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void onRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -1,29 +1,77 @@
 package com.eb.electricitybusiness.service;
 
+import com.eb.electricitybusiness.dto.ExportFormat;
+import com.eb.electricitybusiness.dto.ReservationBatchResultDto;
 import com.eb.electricitybusiness.dto.ReservationDto;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface ReservationService {
-    ReservationDto create(ReservationDto dto);
+    default ReservationDto create(ReservationDto dto) {
+        return create(dto, false);
+    }
 
-    ReservationDto cancel(Long reservationId, Long requesterId);
+    /**
+     * Variantes des écritures avec mode de réponse allégé : lean renvoie
+     * uniquement l'identifiant et l'état de la réservation
+     */
+    ReservationDto create(ReservationDto dto, boolean lean);
 
-    ReservationDto complete(Long reservationId);
-    
-    ReservationDto accepter(Long reservationId, Long proprietaireId);
-    
-    ReservationDto refuser(Long reservationId, Long proprietaireId, String motif);
+    /**
+     * Crée un lot de réservations en une transaction : les éléments valides
+     * sont insérés, les autres rejetés avec leurs erreurs
+     */
+    ReservationBatchResultDto createBatch(List<ReservationDto> dtos);
+
+    default ReservationDto cancel(Long reservationId, Long requesterId) {
+        return cancel(reservationId, requesterId, false);
+    }
+
+    ReservationDto cancel(Long reservationId, Long requesterId, boolean lean);
+
+    default ReservationDto complete(Long reservationId) {
+        return complete(reservationId, false);
+    }
+
+    ReservationDto complete(Long reservationId, boolean lean);
+
+    default ReservationDto accepter(Long reservationId, Long proprietaireId) {
+        return accepter(reservationId, proprietaireId, false);
+    }
+
+    ReservationDto accepter(Long reservationId, Long proprietaireId, boolean lean);
+
+    default ReservationDto refuser(Long reservationId, Long proprietaireId, String motif) {
+        return refuser(reservationId, proprietaireId, motif, false);
+    }
+
+    ReservationDto refuser(Long reservationId, Long proprietaireId, String motif, boolean lean);
 
     ReservationDto getById(Long id);
 
+    /**
+     * Chemin du reçu PDF de la réservation, null si elle n'en a pas
+     */
+    String getReceiptPath(Long id);
+
     List<ReservationDto> getByUser(Long userId);
 
+    List<ReservationDto> getRecentByUser(Long userId, int limit);
+
     List<ReservationDto> getByChargingStation(Long stationId);
     
     List<ReservationDto> getByOwner(Long ownerId);
 
     List<ReservationDto> filtrer(String statut, java.time.LocalDateTime dateDebut, java.time.LocalDateTime dateFin, Long borneId, Long utilisateurId);
 
+    /**
+     * Écrit dans out les réservations correspondant aux critères de filtrer
+     * @return le nombre de réservations exportées
+     */
+    long exporter(ExportFormat format, String statut, java.time.LocalDateTime dateDebut, java.time.LocalDateTime dateFin,
+            Long borneId, Long utilisateurId, OutputStream out) throws IOException;
+
     List<ReservationDto> getAll();
 } 
\ No newline at end of file
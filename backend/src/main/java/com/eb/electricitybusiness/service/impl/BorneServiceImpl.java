@@ -1,6 +1,17 @@
 package com.eb.electricitybusiness.service.impl;
 
+import com.eb.electricitybusiness.config.PostgisFunctionContributor;
+import com.eb.electricitybusiness.dto.BorneClusterDto;
+import com.eb.electricitybusiness.dto.BorneClusterRow;
+import com.eb.electricitybusiness.dto.BorneDisponibleDto;
+import com.eb.electricitybusiness.dto.BorneDisponibleRow;
+import com.eb.electricitybusiness.dto.BorneDistance;
 import com.eb.electricitybusiness.dto.BorneDto;
+import com.eb.electricitybusiness.dto.BorneSearchCriteria;
+import com.eb.electricitybusiness.dto.BorneSummary;
+import com.eb.electricitybusiness.dto.BorneSummaryRow;
+import com.eb.electricitybusiness.dto.CursorPageDto;
+import com.eb.electricitybusiness.dto.MediaVariantsDto;
 import com.eb.electricitybusiness.model.Borne;
 import com.eb.electricitybusiness.model.Lieu;
 import com.eb.electricitybusiness.model.Utilisateur;
@@ -9,40 +20,99 @@ import com.eb.electricitybusiness.repository.LieuRepository;
 import com.eb.electricitybusiness.repository.ReservationRepository;
 import com.eb.electricitybusiness.repository.UtilisateurRepository;
 import com.eb.electricitybusiness.service.BorneService;
+import com.eb.electricitybusiness.service.BorneSpatialIndex;
+import com.eb.electricitybusiness.service.PhotoStorageService;
+import com.eb.electricitybusiness.service.PhotoVariant;
+import com.eb.electricitybusiness.service.PhotoVariantGenerator;
 import jakarta.persistence.EntityNotFoundException;
-
-import org.springframework.beans.factory.annotation.Value;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class BorneServiceImpl implements BorneService {
 
+    private static final BigDecimal MINUTES_PAR_HEURE = BigDecimal.valueOf(60);
+    private static final int PRIX_A_LA_MINUTE_SCALE = 4;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final double DEFAULT_RAYON_LIBRES_KM = 10;
+    private static final double MAX_RAYON_LIBRES_KM = 100;
+    private static final int MAX_ZOOM = 22;
+    // Identifiants par requête de relecture de l'occupation (liste IN)
+    private static final int OCCUPATION_BATCH = 1000;
+    // Mailles de regroupement par tuile de carte (tuile de 256 px, mailles de 64 px)
+    private static final int CLUSTER_CELLS_PER_TILE = 4;
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory(new PrecisionModel(), 4326);
+
     private final BorneRepository borneRepository;
     private final UtilisateurRepository utilisateurRepository;
     private final ReservationRepository reservationRepository;
     private final LieuRepository lieuRepository;
-
-    @Value("${app.upload.dir:${user.home}/electriccharge/uploads/bornes}")
-    private String uploadDir;
-
-    @Value("${app.upload.base-url:http://localhost:8080/uploads/bornes}")
-    private String uploadBaseUrl;
+    private final BorneSpatialIndex spatialIndex;
+    private final PhotoStorageService photoStorageService;
+    private final PhotoVariantGenerator photoVariantGenerator;
 
     public BorneServiceImpl(BorneRepository borneRepository,
             UtilisateurRepository utilisateurRepository,
             ReservationRepository reservationRepository,
-            LieuRepository lieuRepository) {
+            LieuRepository lieuRepository,
+            BorneSpatialIndex spatialIndex,
+            PhotoStorageService photoStorageService,
+            PhotoVariantGenerator photoVariantGenerator) {
         this.borneRepository = borneRepository;
         this.utilisateurRepository = utilisateurRepository;
         this.reservationRepository = reservationRepository;
         this.lieuRepository = lieuRepository;
+        this.spatialIndex = spatialIndex;
+        this.photoStorageService = photoStorageService;
+        this.photoVariantGenerator = photoVariantGenerator;
+    }
+
+    /**
+     * Chargement de l'index spatial au démarrage, puis rechargement périodique
+     * pour rattraper les modifications faites par d'autres instances
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.bornes.spatial-index.refresh-ms:300000}",
+            initialDelayString = "${app.bornes.spatial-index.refresh-ms:300000}")
+    @Transactional(readOnly = true)
+    public void reloadSpatialIndex() {
+        if (!spatialIndex.isConfigured()) {
+            return;
+        }
+        spatialIndex.load(borneRepository.findAllWithMedias().stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList()));
     }
 
     @Override
@@ -51,7 +121,9 @@ public class BorneServiceImpl implements BorneService {
         Borne borne = new Borne();
         updateBorneFromDto(borne, dto);
         Borne savedBorne = borneRepository.save(borne);
-        return convertToDto(savedBorne);
+        BorneDto saved = convertToDto(savedBorne);
+        spatialIndex.upsert(saved);
+        return saved;
     }
 
     @Override
@@ -66,7 +138,9 @@ public class BorneServiceImpl implements BorneService {
 
         borne.setOwner(owner);
         borne.setLieu(lieu);
-        return borneRepository.save(borne);
+        Borne saved = borneRepository.save(borne);
+        syncSpatialIndex(saved);
+        return saved;
     }
 
     @Override
@@ -81,7 +155,9 @@ public class BorneServiceImpl implements BorneService {
         updateBorneFromDto(borne, dto);
         @SuppressWarnings("null")
         Borne updatedBorne = borneRepository.save(borne);
-        return convertToDto(updatedBorne);
+        BorneDto updated = convertToDto(updatedBorne);
+        spatialIndex.upsert(updated);
+        return updated;
     }
 
     @Override
@@ -94,13 +170,16 @@ public class BorneServiceImpl implements BorneService {
         borne.setLocalisation(borneDetails.getLocalisation());
         borne.setLatitude(borneDetails.getLatitude());
         borne.setLongitude(borneDetails.getLongitude());
+        borne.setGeom(toPoint(borneDetails.getLatitude(), borneDetails.getLongitude()));
         borne.setPuissance(borneDetails.getPuissance());
         borne.setPrixALaMinute(borneDetails.getPrixALaMinute());
         borne.setInstructionSurPied(borneDetails.getInstructionSurPied());
         borne.setDescription(borneDetails.getDescription());
         borne.setEtat(borneDetails.getEtat());
 
-        return borneRepository.save(borne);
+        Borne saved = borneRepository.save(borne);
+        syncSpatialIndex(saved);
+        return saved;
     }
 
     @Override
@@ -122,9 +201,10 @@ public class BorneServiceImpl implements BorneService {
     }
 
     @Override
-    public List<BorneDto> getAllBornesDto() {
-        return getAllBornes().stream()
-                .map(this::convertToDto)
+    @Transactional(readOnly = true)
+    public List<BorneSummary> getAllBornesDto() {
+        return borneRepository.findAllSummaries().stream()
+                .map(this::convertToSummary)
                 .collect(Collectors.toList());
     }
 
@@ -141,10 +221,10 @@ public class BorneServiceImpl implements BorneService {
     }
 
     @Override
-    public List<BorneDto> getByLieu(Long idLieu) {
-        List<Borne> stations = borneRepository.findByLieuxId(idLieu);
-        return stations.stream()
-                .map(this::convertToDto)
+    @Transactional(readOnly = true)
+    public List<BorneSummary> getByLieu(Long idLieu) {
+        return borneRepository.findSummariesByLieu(idLieu).stream()
+                .map(this::convertToSummary)
                 .collect(Collectors.toList());
     }
 
@@ -154,6 +234,7 @@ public class BorneServiceImpl implements BorneService {
         borne.setLocalisation(dto.getLocalisation());
         borne.setLatitude(dto.getLatitude());
         borne.setLongitude(dto.getLongitude());
+        borne.setGeom(toPoint(dto.getLatitude(), dto.getLongitude()));
         borne.setPuissance(dto.getPuissance());
         borne.setMedias(dto.getMedias());
         borne.setInstructionSurPied(dto.getInstructionSurPied());
@@ -181,19 +262,11 @@ public class BorneServiceImpl implements BorneService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<BorneDto> getByDisponibilite(Boolean disponible) {
+    public List<BorneSummary> getByDisponibilite(Boolean disponible) {
         try {
             Borne.Etat etat = disponible ? Borne.Etat.DISPONIBLE : Borne.Etat.OCCUPEE;
-            List<Borne> stations = borneRepository.findByEtat(etat);
-            return stations.stream()
-                    .map(station -> {
-                        try {
-                            return convertToDto(station);
-                        } catch (Exception e) {
-                            return null;
-                        }
-                    })
-                    .filter(dto -> dto != null)
+            return borneRepository.findSummariesByEtat(etat.name()).stream()
+                    .map(this::convertToSummary)
                     .collect(Collectors.toList());
         } catch (Exception e) {
             throw new RuntimeException("Error retrieving available charging stations: " + e.getMessage(), e);
@@ -202,11 +275,10 @@ public class BorneServiceImpl implements BorneService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<BorneDto> getByEtat(String etat) {
+    public List<BorneSummary> getByEtat(String etat) {
         Borne.Etat etatEnum = parseEtat(etat);
-        List<Borne> stations = borneRepository.findByEtat(etatEnum);
-        return stations.stream()
-                .map(this::convertToDto)
+        return borneRepository.findSummariesByEtat(etatEnum.name()).stream()
+                .map(this::convertToSummary)
                 .collect(Collectors.toList());
     }
 
@@ -226,6 +298,7 @@ public class BorneServiceImpl implements BorneService {
         }
 
         borneRepository.deleteById(id);
+        spatialIndex.remove(id);
     }
 
     @Override
@@ -233,12 +306,120 @@ public class BorneServiceImpl implements BorneService {
     public List<BorneDto> getProches(Double latitude, Double longitude, Double distance) {
         // Convertir km en mètres pour ST_DWithin
         Double distanceMeters = distance * 1000;
+        if (spatialIndex.isEnabled()) {
+            return withLiveOccupation(spatialIndex.findWithin(latitude, longitude, distanceMeters));
+        }
         List<Borne> stations = borneRepository.findByDistance(latitude, longitude, distanceMeters);
         return stations.stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<BorneDto> getPlusProches(Double latitude, Double longitude, Integer limit, Double distanceMax) {
+        int k = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<BorneDistance> nearest = distanceMax != null
+                ? borneRepository.findNearestWithin(latitude, longitude, distanceMax * 1000, k)
+                : borneRepository.findNearest(latitude, longitude, k);
+        if (nearest.isEmpty()) {
+            return List.of();
+        }
+
+        // Medias chargés avec les bornes (jointure), pas borne par borne à la conversion
+        Map<Long, Borne> bornesById = borneRepository
+                .findAllWithMediasByIdIn(nearest.stream().map(BorneDistance::getIdBorne).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Borne::getIdBorne, Function.identity()));
+
+        // Conserver l'ordre des distances renvoyé par la requête KNN
+        List<BorneDto> results = new ArrayList<>(nearest.size());
+        for (BorneDistance candidate : nearest) {
+            Borne station = bornesById.get(candidate.getIdBorne());
+            if (station != null) {
+                BorneDto dto = convertToDto(station);
+                dto.setDistance(candidate.getDistance() / 1000);
+                results.add(dto);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BorneDisponibleDto> searchLibres(Double latitude, Double longitude, Double distance,
+            LocalDateTime debut, LocalDateTime fin, String sort, Integer limit) {
+        if (latitude == null || longitude == null) {
+            throw new IllegalArgumentException("Les paramètres latitude et longitude sont obligatoires");
+        }
+        if (debut == null || fin == null || !debut.isBefore(fin)) {
+            throw new IllegalArgumentException("Le créneau doit avoir un début antérieur à sa fin");
+        }
+        double rayonKm = distance == null ? DEFAULT_RAYON_LIBRES_KM : Math.min(distance, MAX_RAYON_LIBRES_KM);
+        if (rayonKm <= 0) {
+            throw new IllegalArgumentException("La distance doit être positive");
+        }
+        int k = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        List<BorneDisponibleRow> rows;
+        if (sort == null || sort.isBlank() || "distance".equalsIgnoreCase(sort)) {
+            rows = borneRepository.findLibresByDistance(latitude, longitude, rayonKm * 1000, debut, fin, k);
+        } else if ("prix".equalsIgnoreCase(sort) || "price".equalsIgnoreCase(sort)) {
+            rows = borneRepository.findLibresByPrix(latitude, longitude, rayonKm * 1000, debut, fin, k);
+        } else {
+            throw new IllegalArgumentException("Tri invalide : " + sort + " (distance ou prix)");
+        }
+        return rows.stream()
+                .map(row -> new BorneDisponibleDto(convertToSummary(row),
+                        row.getDistance() != null ? row.getDistance() / 1000 : null))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BorneClusterDto> getClusters(String bbox, Integer zoom) {
+        double[] bounds = parseBbox(bbox);
+        int z = zoom == null ? 0 : Math.max(0, Math.min(zoom, MAX_ZOOM));
+        double cellSize = 360.0 / ((1L << z) * CLUSTER_CELLS_PER_TILE);
+
+        return borneRepository.findClusters(bounds[0], bounds[1], bounds[2], bounds[3], cellSize).stream()
+                .map(row -> new BorneClusterDto(
+                        row.getCount(),
+                        row.getLatitude(),
+                        row.getLongitude(),
+                        row.getPrixMinALaMinute() != null
+                                ? row.getPrixMinALaMinute().multiply(MINUTES_PAR_HEURE)
+                                : null,
+                        row.getIdBorne()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * bbox au format "minLon,minLat,maxLon,maxLat", bornée aux limites WGS84
+     */
+    private double[] parseBbox(String bbox) {
+        String[] parts = bbox == null ? new String[0] : bbox.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("bbox invalide, format attendu : minLon,minLat,maxLon,maxLat");
+        }
+        double[] bounds = new double[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                bounds[i] = Double.parseDouble(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bbox invalide : " + bbox);
+        }
+        bounds[0] = Math.max(-180, bounds[0]);
+        bounds[1] = Math.max(-90, bounds[1]);
+        bounds[2] = Math.min(180, bounds[2]);
+        bounds[3] = Math.min(90, bounds[3]);
+        if (bounds[0] > bounds[2] || bounds[1] > bounds[3]) {
+            throw new IllegalArgumentException("bbox invalide : " + bbox);
+        }
+        return bounds;
+    }
+
     @Override
     @Transactional
     @SuppressWarnings("null")
@@ -248,7 +429,9 @@ public class BorneServiceImpl implements BorneService {
         station.setOccupee(occupee);
         station.setEtat(occupee ? Borne.Etat.OCCUPEE : Borne.Etat.DISPONIBLE);
         Borne updatedStation = borneRepository.save(station);
-        return convertToDto(updatedStation);
+        BorneDto updated = convertToDto(updatedStation);
+        spatialIndex.upsert(updated);
+        return updated;
     }
 
     @Override
@@ -264,7 +447,9 @@ public class BorneServiceImpl implements BorneService {
             station.setOccupee(false);
         }
         Borne updatedStation = borneRepository.save(station);
-        return convertToDto(updatedStation);
+        BorneDto updated = convertToDto(updatedStation);
+        spatialIndex.upsert(updated);
+        return updated;
     }
 
     @Override
@@ -273,66 +458,281 @@ public class BorneServiceImpl implements BorneService {
             java.math.BigDecimal prixMin, java.math.BigDecimal prixMax,
             Integer puissanceMin, String etat, Boolean disponible) {
 
-        // D'abord filtrer par distance si coordonnées fournies
-        List<Borne> stations;
-        if (latitude != null && longitude != null && distance != null) {
-            // Convertir km en mètres pour ST_DWithin
-            Double distanceMeters = distance * 1000;
-            stations = borneRepository.findByDistance(latitude, longitude, distanceMeters);
-        } else {
-            stations = borneRepository.findAll();
+        BorneSearchCriteria criteria = new BorneSearchCriteria(latitude, longitude,
+                distance, prixMin, prixMax, puissanceMin, etat, disponible);
+        if (spatialIndex.isEnabled()) {
+            return searchInSpatialIndex(criteria);
         }
 
-        // Appliquer les filtres supplémentaires
-        List<BorneDto> results = stations.stream()
-                .filter(station -> matchesPriceMin(station, prixMin))
-                .filter(station -> matchesPriceMax(station, prixMax))
-                .filter(station -> matchesPowerMin(station, puissanceMin))
-                .filter(station -> matchesState(station, etat))
-                .filter(station -> matchesAvailability(station, disponible))
+        // Tous les filtres sont traduits en une seule requête SQL : seules les
+        // bornes correspondantes sont chargées
+        Specification<Borne> spec = buildSearchSpecification(criteria);
+
+        return borneRepository.findAll(spec).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
+    }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<BorneSummary> searchPage(BorneSearchCriteria criteria, String sort, String direction,
+            String cursor, Integer size) {
+        BorneSortKey sortKey = BorneSortKey.parse(sort);
+        if (sortKey == BorneSortKey.DISTANCE && !criteria.hasPosition()) {
+            throw new IllegalArgumentException("Le tri par distance nécessite une latitude et une longitude");
+        }
+        boolean ascending = direction == null || !direction.equalsIgnoreCase("desc");
+        // L'index KNN ne renvoie les bornes que de la plus proche à la plus éloignée
+        if (sortKey == BorneSortKey.DISTANCE && !ascending) {
+            throw new IllegalArgumentException("Le tri par distance est uniquement croissant");
+        }
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        PageCursor after = cursor != null && !cursor.isBlank() ? PageCursor.decode(cursor, sortKey) : null;
+
+        Specification<Borne> spec = buildSearchSpecification(criteria)
+                .and(keysetSpecification(criteria, sortKey, ascending, after));
+
+        // Une ligne de plus que la taille de page permet de savoir s'il reste des
+        // résultats, sans requête de comptage ni OFFSET
+        List<Borne> rows = borneRepository.findBy(spec, q -> q.limit(pageSize + 1).all());
+        boolean hasMore = rows.size() > pageSize;
+        List<Borne> pageRows = hasMore ? rows.subList(0, pageSize) : rows;
+
+        // Résumés sans la liste des medias : une seule requête pour les photos de la page
+        Map<Long, String> photos = new HashMap<>();
+        if (!pageRows.isEmpty()) {
+            borneRepository.findPhotos(pageRows.stream().map(Borne::getIdBorne).toList())
+                    .forEach(row -> photos.put(row.getIdBorne(), row.getPhoto()));
+        }
+        List<BorneSummary> items = pageRows.stream()
+                .map(borne -> convertToSummary(borne, photos.get(borne.getIdBorne())))
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasMore) {
+            Borne last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new PageCursor(sortKey, sortValue(last, sortKey, criteria), last.getIdBorne()).encode();
+        }
+        return new CursorPageDto<>(items, nextCursor, hasMore);
+    }
+
+    private Specification<Borne> buildSearchSpecification(BorneSearchCriteria criteria) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            // Filtre de distance (ST_DWithin sur geography, distance en mètres)
+            if (criteria.hasPosition() && criteria.distance() != null) {
+                predicates.add(cb.isNotNull(root.get("geom")));
+                predicates.add(cb.isTrue(cb.function("ST_DWithin", Boolean.class,
+                        geography(cb, root.get("geom")),
+                        geography(cb, point(cb, criteria.latitude(), criteria.longitude())),
+                        cb.literal(criteria.distance() * 1000))));
+            }
+
+            // Les bornes de prix horaires sont converties une seule fois en prix à la
+            // minute pour que la comparaison porte directement sur la colonne indexée
+            if (criteria.prixMin() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("prixALaMinute"),
+                        toPrixALaMinute(criteria.prixMin(), RoundingMode.CEILING)));
+            }
+
+            if (criteria.prixMax() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("prixALaMinute"),
+                        toPrixALaMinute(criteria.prixMax(), RoundingMode.FLOOR)));
+            }
+
+            if (criteria.puissanceMin() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("puissance"), criteria.puissanceMin()));
+            }
+
+            if (criteria.etat() != null) {
+                Borne.Etat etatEnum = parseEtatOrNull(criteria.etat());
+                // Un état inconnu ne correspond à aucune borne
+                predicates.add(etatEnum != null ? cb.equal(root.get("etat"), etatEnum) : cb.disjunction());
+            }
+
+            if (Boolean.TRUE.equals(criteria.disponible())) {
+                predicates.add(cb.or(cb.isNull(root.get("occupee")), cb.isFalse(root.get("occupee"))));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Mêmes filtres que buildSearchSpecification, appliqués aux bornes de l'index
+     * spatial ; seule l'occupation est relue en base
+     */
+    private List<BorneDto> searchInSpatialIndex(BorneSearchCriteria criteria) {
+        List<BorneDto> candidates = criteria.hasPosition() && criteria.distance() != null
+                ? spatialIndex.findWithin(criteria.latitude(), criteria.longitude(), criteria.distance() * 1000)
+                : spatialIndex.findAll();
+
+        BigDecimal prixMin = criteria.prixMin() != null
+                ? toPrixALaMinute(criteria.prixMin(), RoundingMode.CEILING)
+                : null;
+        BigDecimal prixMax = criteria.prixMax() != null
+                ? toPrixALaMinute(criteria.prixMax(), RoundingMode.FLOOR)
+                : null;
+        String etat = null;
+        if (criteria.etat() != null) {
+            Borne.Etat etatEnum = parseEtatOrNull(criteria.etat());
+            if (etatEnum == null) {
+                return List.of();
+            }
+            etat = etatEnum.name();
+        }
+
+        List<BorneDto> results = new ArrayList<>();
+        for (BorneDto dto : candidates) {
+            BigDecimal prix = dto.getPrixALaMinute();
+            if (prixMin != null && (prix == null || prix.compareTo(prixMin) < 0)) {
+                continue;
+            }
+            if (prixMax != null && (prix == null || prix.compareTo(prixMax) > 0)) {
+                continue;
+            }
+            if (criteria.puissanceMin() != null
+                    && (dto.getPuissance() == null || dto.getPuissance() < criteria.puissanceMin())) {
+                continue;
+            }
+            if (etat != null && !etat.equals(dto.getEtat())) {
+                continue;
+            }
+            results.add(dto);
+        }
+
+        withLiveOccupation(results);
+        if (Boolean.TRUE.equals(criteria.disponible())) {
+            results.removeIf(dto -> Boolean.TRUE.equals(dto.getOccupee()));
+        }
         return results;
     }
 
-    private boolean matchesPriceMin(Borne station, java.math.BigDecimal prixMin) {
-        if (prixMin != null && station.getPrixALaMinute() != null) {
-            java.math.BigDecimal hourlyRate = station.getPrixALaMinute()
-                    .multiply(java.math.BigDecimal.valueOf(60));
-            return hourlyRate.compareTo(prixMin) >= 0;
+    /**
+     * Remplace l'occupation mémorisée dans l'index par la valeur courante en
+     * base, lue pour les seules bornes trouvées, par lots (clé primaire)
+     */
+    private List<BorneDto> withLiveOccupation(List<BorneDto> bornes) {
+        if (bornes.isEmpty()) {
+            return bornes;
+        }
+        List<Long> ids = bornes.stream().map(BorneDto::getId).toList();
+        Set<Long> occupiedIds = new HashSet<>();
+        for (int debut = 0; debut < ids.size(); debut += OCCUPATION_BATCH) {
+            occupiedIds.addAll(borneRepository.findOccupiedIds(
+                    ids.subList(debut, Math.min(debut + OCCUPATION_BATCH, ids.size()))));
         }
-        return true;
+        bornes.forEach(dto -> dto.setOccupee(occupiedIds.contains(dto.getId())));
+        return bornes;
     }
 
-    private boolean matchesPriceMax(Borne station, java.math.BigDecimal prixMax) {
-        if (prixMax != null && station.getPrixALaMinute() != null) {
-            java.math.BigDecimal hourlyRate = station.getPrixALaMinute()
-                    .multiply(java.math.BigDecimal.valueOf(60));
-            return hourlyRate.compareTo(prixMax) <= 0;
+    private void syncSpatialIndex(Borne borne) {
+        if (spatialIndex.isConfigured()) {
+            spatialIndex.upsert(convertToDto(borne));
         }
-        return true;
     }
 
-    private boolean matchesPowerMin(Borne station, Integer puissanceMin) {
-        if (puissanceMin != null && station.getPuissance() != null) {
-            return station.getPuissance() >= puissanceMin;
+    /**
+     * Tri stable (clé de tri puis id) et reprise après la dernière ligne de la
+     * page précédente : (clé, id) > (dernière clé, dernier id)
+     */
+    private Specification<Borne> keysetSpecification(BorneSearchCriteria criteria, BorneSortKey sortKey,
+            boolean ascending, PageCursor after) {
+        return (root, query, cb) -> {
+            Path<Long> id = root.get("idBorne");
+            Expression<? extends Comparable> key = switch (sortKey) {
+                case PRIX -> root.get("prixALaMinute");
+                case PUISSANCE -> root.get("puissance");
+                // Opérateur KNN <-> sur geography(geom) : l'ordre est fourni par
+                // l'index idx_borne_geog, sans calculer ni trier toutes les distances
+                case DISTANCE -> cb.function(PostgisFunctionContributor.KNN_DISTANCE, Double.class,
+                        geography(cb, root.get("geom")),
+                        geography(cb, point(cb, criteria.latitude(), criteria.longitude())));
+                case ID -> id;
+            };
+
+            if (ascending) {
+                query.orderBy(cb.asc(key), cb.asc(id));
+            } else {
+                query.orderBy(cb.desc(key), cb.desc(id));
+            }
+
+            // Sans géométrie, la distance est nulle : la borne ne peut pas être
+            // ordonnée ni servir de curseur, elle est exclue du tri par distance
+            Predicate geomPresente = sortKey == BorneSortKey.DISTANCE
+                    ? cb.isNotNull(root.get("geom"))
+                    : cb.conjunction();
+            if (after == null) {
+                return geomPresente;
+            }
+            if (sortKey == BorneSortKey.ID) {
+                return ascending ? cb.greaterThan(id, after.id()) : cb.lessThan(id, after.id());
+            }
+            return cb.and(geomPresente, keysetPredicate(cb, key, after.value(), id, after.id(), ascending));
+        };
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Predicate keysetPredicate(CriteriaBuilder cb, Expression key, Comparable lastValue,
+            Path<Long> id, Long lastId, boolean ascending) {
+        if (ascending) {
+            // Le prédicat redondant key >= lastValue permet un parcours d'index par plage
+            return cb.and(cb.greaterThanOrEqualTo(key, lastValue),
+                    cb.or(cb.greaterThan(key, lastValue),
+                            cb.and(cb.equal(key, lastValue), cb.greaterThan(id, lastId))));
         }
-        return true;
+        return cb.and(cb.lessThanOrEqualTo(key, lastValue),
+                cb.or(cb.lessThan(key, lastValue),
+                        cb.and(cb.equal(key, lastValue), cb.lessThan(id, lastId))));
     }
 
-    private boolean matchesState(Borne station, String etat) {
-        if (etat != null && station.getEtat() != null) {
-            return station.getEtat().name().equalsIgnoreCase(etat);
+    private Comparable<?> sortValue(Borne borne, BorneSortKey sortKey, BorneSearchCriteria criteria) {
+        return switch (sortKey) {
+            case PRIX -> borne.getPrixALaMinute();
+            case PUISSANCE -> borne.getPuissance();
+            // Distance relue en base pour que le curseur soit exactement comparable à la clé KNN
+            case DISTANCE -> borneRepository.computeDistanceMeters(borne.getIdBorne(),
+                    criteria.latitude(), criteria.longitude());
+            case ID -> borne.getIdBorne();
+        };
+    }
+
+    /**
+     * Point WGS84 utilisé par les requêtes spatiales ; null si les coordonnées
+     * sont incomplètes
+     */
+    private Point toPoint(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return null;
         }
-        return true;
+        return GEOMETRY_FACTORY.createPoint(new Coordinate(longitude, latitude));
+    }
+
+    private Expression<Geometry> point(CriteriaBuilder cb, Double latitude, Double longitude) {
+        return cb.function("ST_SetSRID", Geometry.class,
+                cb.function("ST_MakePoint", Geometry.class, cb.literal(longitude), cb.literal(latitude)),
+                cb.literal(4326));
     }
 
-    private boolean matchesAvailability(Borne station, Boolean disponible) {
-        if (disponible != null && disponible) {
-            return !Boolean.TRUE.equals(station.getOccupee());
+    private Expression<Geometry> geography(CriteriaBuilder cb, Expression<?> geometry) {
+        return cb.function("geography", Geometry.class, geometry);
+    }
+
+    /**
+     * Convertit un taux horaire en prix à la minute à l'échelle de la colonne
+     * prix_a_la_minute (4 décimales)
+     */
+    private BigDecimal toPrixALaMinute(BigDecimal hourlyRate, RoundingMode roundingMode) {
+        return hourlyRate.divide(MINUTES_PAR_HEURE, PRIX_A_LA_MINUTE_SCALE, roundingMode);
+    }
+
+    private Borne.Etat parseEtatOrNull(String etatStr) {
+        try {
+            return parseEtat(etatStr);
+        } catch (IllegalArgumentException e) {
+            return null;
         }
-        return true;
     }
 
     private Borne.Etat parseEtat(String etatStr) {
@@ -372,6 +772,48 @@ public class BorneServiceImpl implements BorneService {
         return etat != null ? etat.name() : null;
     }
 
+    private BorneSummary convertToSummary(BorneSummaryRow row) {
+        return toSummary(row.getIdBorne(), row.getNumero(), row.getNom(), row.getLocalisation(),
+                row.getLatitude(), row.getLongitude(), row.getPuissance(), row.getPrixALaMinute(), row.getEtat(),
+                row.getOccupee(), row.getOwnerId(), row.getLieuId(), row.getPhoto());
+    }
+
+    /**
+     * Résumé d'une entité déjà chargée ; la photo est lue à part pour ne pas
+     * initialiser la collection medias. Les identifiants du propriétaire et du
+     * lieu sont lus sur les proxys sans les charger.
+     */
+    private BorneSummary convertToSummary(Borne borne, String photo) {
+        return toSummary(borne.getIdBorne(), borne.getNumero(), borne.getNom(), borne.getLocalisation(),
+                borne.getLatitude(), borne.getLongitude(), borne.getPuissance(), borne.getPrixALaMinute(),
+                borne.getEtat() != null ? borne.getEtat().name() : null, borne.getOccupee(),
+                borne.getOwner() != null ? borne.getOwner().getIdUtilisateur() : null,
+                borne.getLieu() != null ? borne.getLieu().getIdLieu() : null, photo);
+    }
+
+    private BorneSummary toSummary(Long id, String numero, String nom, String localisation, Double latitude,
+            Double longitude, Integer puissance, BigDecimal prixALaMinute, String etat, Boolean occupee,
+            Long ownerId, Long lieuId, String photo) {
+        BigDecimal hourlyRate = prixALaMinute != null
+                ? prixALaMinute.multiply(MINUTES_PAR_HEURE)
+                : null;
+        String type = puissance != null
+                ? (puissance >= 50 ? "RAPIDE" : "NORMALE")
+                : null;
+        String thumbnail = photo != null
+                ? photoStorageService.variantUrl(photo, PhotoVariant.THUMBNAIL)
+                : null;
+        return new BorneSummary(id, id, numero, nom, localisation, latitude, longitude, puissance,
+                prixALaMinute, hourlyRate, hourlyRate, type, etat, occupee, ownerId, lieuId, thumbnail);
+    }
+
+    private MediaVariantsDto toMediaVariants(String media) {
+        return new MediaVariantsDto(media,
+                photoStorageService.variantUrl(media, PhotoVariant.THUMBNAIL),
+                photoStorageService.variantUrl(media, PhotoVariant.CARD),
+                photoStorageService.variantUrl(media, PhotoVariant.FULL));
+    }
+
     private BorneDto convertToDto(Borne station) {
         BorneDto dto = new BorneDto();
         dto.setId(station.getIdBorne());
@@ -390,6 +832,9 @@ public class BorneServiceImpl implements BorneService {
         } catch (Exception e) {
             dto.setMedias(List.of());
         }
+        dto.setMediaVariants(dto.getMedias().stream()
+                .map(this::toMediaVariants)
+                .collect(Collectors.toList()));
 
         dto.setInstructionSurPied(station.getInstructionSurPied());
         dto.setEtat(convertEtatToString(station.getEtat()));
@@ -430,7 +875,7 @@ public class BorneServiceImpl implements BorneService {
         Borne station = borneRepository.findById(borneId)
                 .orElseThrow(() -> new EntityNotFoundException("Borne non trouvée avec l'id " + borneId));
 
-        List<String> photoDataUrls = new ArrayList<>();
+        List<String> photoUrls = new ArrayList<>();
 
         // Limiter à 5 photos au total
         int currentPhotoCount = station.getMedias() != null ? station.getMedias().size() : 0;
@@ -452,28 +897,25 @@ public class BorneServiceImpl implements BorneService {
                 throw new Exception("Le fichier doit être une image");
             }
 
-            // Valider la taille (max 2MB pour Base64 - plus petit car stocké en BDD)
-            if (photo.getSize() > 2 * 1024 * 1024) {
-                throw new Exception("La taille maximale par image est de 2MB");
-            }
-
-            // Convertir l'image en Base64 Data URL
-            byte[] imageBytes = photo.getBytes();
-            String base64Image = java.util.Base64.getEncoder().encodeToString(imageBytes);
-            String dataUrl = "data:" + contentType + ";base64," + base64Image;
-
-            photoDataUrls.add(dataUrl);
+            // Le fichier est copié sur disque par blocs sans être chargé en mémoire ;
+            // la taille et le type réel de l'image sont vérifiés pendant la copie.
+            // Seule l'URL est conservée en base
+            photoUrls.add(photoStorageService.store(photo.getInputStream()));
         }
 
-        // Ajouter les nouvelles Data URLs à la liste existante
+        // Ajouter les nouvelles URLs à la liste existante
         if (station.getMedias() == null) {
             station.setMedias(new ArrayList<>());
         }
-        station.getMedias().addAll(photoDataUrls);
+        station.getMedias().addAll(photoUrls);
 
         borneRepository.save(station);
+        syncSpatialIndex(station);
 
-        return photoDataUrls;
+        // Miniatures générées en arrière-plan ; l'original est servi en attendant
+        photoUrls.forEach(photoVariantGenerator::generateAsync);
+
+        return photoUrls;
     }
 
     @Override
@@ -487,8 +929,100 @@ public class BorneServiceImpl implements BorneService {
             throw new EntityNotFoundException("Photo non trouvée");
         }
 
-        // Supprimer l'URL/Data URL de la liste
+        // Supprimer l'URL/Data URL de la liste ; le fichier reste sur disque car
+        // une même image peut être référencée par plusieurs bornes
         station.getMedias().remove(photoUrl);
         borneRepository.save(station);
+        syncSpatialIndex(station);
+    }
+
+    @Override
+    @Transactional
+    @SuppressWarnings("null")
+    public int migrateMediaDataUrls(Long borneId) throws java.io.IOException {
+        Borne station = borneRepository.findById(borneId)
+                .orElseThrow(() -> new EntityNotFoundException("Borne non trouvée avec l'id " + borneId));
+        if (station.getMedias() == null) {
+            return 0;
+        }
+
+        int migrated = 0;
+        List<String> medias = new ArrayList<>(station.getMedias().size());
+        for (String media : station.getMedias()) {
+            if (photoStorageService.isDataUrl(media)) {
+                String url = photoStorageService.storeDataUrl(media);
+                photoVariantGenerator.generateAsync(url);
+                medias.add(url);
+                migrated++;
+            } else {
+                medias.add(media);
+            }
+        }
+        if (migrated > 0) {
+            station.getMedias().clear();
+            station.getMedias().addAll(medias);
+            borneRepository.save(station);
+            syncSpatialIndex(station);
+        }
+        return migrated;
+    }
+
+    /**
+     * Clés de tri disponibles pour la pagination par curseur
+     */
+    private enum BorneSortKey {
+        ID, PRIX, PUISSANCE, DISTANCE;
+
+        static BorneSortKey parse(String sort) {
+            if (sort == null || sort.isBlank()) {
+                return ID;
+            }
+            switch (sort.toUpperCase().trim()) {
+                case "ID":
+                    return ID;
+                case "PRIX":
+                case "PRICE":
+                    return PRIX;
+                case "PUISSANCE":
+                case "POWER":
+                    return PUISSANCE;
+                case "DISTANCE":
+                    return DISTANCE;
+                default:
+                    throw new IllegalArgumentException("Tri invalide: " + sort +
+                            ". Tris valides: id, prix, puissance, distance");
+            }
+        }
+    }
+
+    /**
+     * Position de la dernière ligne renvoyée, encodée en Base64 pour le client
+     */
+    private record PageCursor(BorneSortKey sortKey, Comparable<?> value, Long id) {
+
+        String encode() {
+            String raw = sortKey.name() + "|" + value + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static PageCursor decode(String cursor, BorneSortKey expectedSortKey) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|", 3);
+                BorneSortKey sortKey = BorneSortKey.valueOf(parts[0]);
+                if (sortKey != expectedSortKey) {
+                    throw new IllegalArgumentException("Le curseur ne correspond pas au tri demandé");
+                }
+                Comparable<?> value = switch (sortKey) {
+                    case PRIX -> new BigDecimal(parts[1]);
+                    case PUISSANCE -> Integer.valueOf(parts[1]);
+                    case DISTANCE -> Double.valueOf(parts[1]);
+                    case ID -> Long.valueOf(parts[1]);
+                };
+                return new PageCursor(sortKey, value, Long.valueOf(parts[2]));
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Curseur de pagination invalide", e);
+            }
+        }
     }
-}
+}
\ No newline at end of file
@@ -1,19 +1,24 @@
 package com.eb.electricitybusiness.service.impl;
 
 import com.eb.electricitybusiness.dto.BorneDto;
+import com.eb.electricitybusiness.dto.BorneEtatCountRow;
+import com.eb.electricitybusiness.dto.BorneReservationCountRow;
 import com.eb.electricitybusiness.dto.DashboardStatsDto;
 import com.eb.electricitybusiness.dto.DashboardStatsDto.ClientStats;
 import com.eb.electricitybusiness.dto.DashboardStatsDto.OwnerStats;
-import com.eb.electricitybusiness.dto.ReservationDto;
+import com.eb.electricitybusiness.dto.OwnerReservationTotalsRow;
 import com.eb.electricitybusiness.model.Borne;
+import com.eb.electricitybusiness.model.DashboardStats;
 import com.eb.electricitybusiness.model.Reservation;
-import com.eb.electricitybusiness.repository.BorneRepository;
-import com.eb.electricitybusiness.repository.ReservationRepository;
+import com.eb.electricitybusiness.repository.DashboardRepository;
 import com.eb.electricitybusiness.service.BorneService;
+import com.eb.electricitybusiness.service.DashboardStatsService;
+import com.eb.electricitybusiness.service.OccupancyCalculator;
 import com.eb.electricitybusiness.service.DashboardService;
 import com.eb.electricitybusiness.service.ReservationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,24 +33,29 @@ import java.util.stream.Collectors;
 public class DashboardServiceImpl implements DashboardService {
 
         private static final Logger logger = LoggerFactory.getLogger(DashboardServiceImpl.class);
+        private static final int RECENT_LIMIT = 5;
+        private static final int OCCUPATION_WINDOW_DAYS = 30;
 
-        private final ReservationRepository reservationRepository;
-        private final BorneRepository borneRepository;
+        private final DashboardRepository dashboardRepository;
+        private final DashboardStatsService dashboardStatsService;
         // private final UtilisateurRepository utilisateurRepository;
         private final ReservationService reservationService;
         private final BorneService borneService;
+        private final OccupancyCalculator occupancyCalculator;
 
         public DashboardServiceImpl(
-                        ReservationRepository reservationRepository,
-                        BorneRepository borneRepository,
+                        DashboardRepository dashboardRepository,
+                        DashboardStatsService dashboardStatsService,
                         // UtilisateurRepository utilisateurRepository,
                         ReservationService reservationService,
-                        BorneService borneService) {
-                this.reservationRepository = reservationRepository;
-                this.borneRepository = borneRepository;
+                        BorneService borneService,
+                        OccupancyCalculator occupancyCalculator) {
+                this.dashboardRepository = dashboardRepository;
+                this.dashboardStatsService = dashboardStatsService;
                 // this.utilisateurRepository = utilisateurRepository;
                 this.reservationService = reservationService;
                 this.borneService = borneService;
+                this.occupancyCalculator = occupancyCalculator;
         }
 
         @Override
@@ -58,22 +68,19 @@ public class DashboardServiceImpl implements DashboardService {
                 stats.setClientStats(calculateClientStats(userId));
 
                 // Charger les réservations récentes (les 5 dernières)
-                List<ReservationDto> allReservations = reservationService.getByUser(userId);
-                stats.setRecentReservations(allReservations.stream()
-                                .sorted((r1, r2) -> r2.getDateDebut().compareTo(r1.getDateDebut()))
-                                .limit(5)
-                                .collect(Collectors.toList()));
+                stats.setRecentReservations(reservationService.getRecentByUser(userId, RECENT_LIMIT));
 
                 // Vérifier si l'utilisateur est propriétaire
-                List<Borne> userBornes = borneRepository.findByOwnerIdUtilisateur(userId);
-                if (!userBornes.isEmpty()) {
-                        stats.setOwnerStats(calculateOwnerStats(userId, userBornes));
+                Map<Borne.Etat, Long> bornesByStatus = dashboardRepository.countBornesByEtat(userId).stream()
+                                .collect(Collectors.toMap(BorneEtatCountRow::getEtat, BorneEtatCountRow::getTotal));
+                if (!bornesByStatus.isEmpty()) {
+                        stats.setOwnerStats(calculateOwnerStats(userId, bornesByStatus));
 
                         // Charger les bornes récentes (les 5 dernières)
                         List<Borne> allBornes = borneService.getBornesByOwner(userId);
                         stats.setRecentBornes(allBornes.stream()
                                         .map(this::convertBorneToBorneDto)
-                                        .limit(5)
+                                        .limit(RECENT_LIMIT)
                                         .collect(Collectors.toList()));
                 }
 
@@ -82,80 +89,47 @@ public class DashboardServiceImpl implements DashboardService {
 
         private ClientStats calculateClientStats(Long userId) {
                 ClientStats stats = new ClientStats();
-
-                List<Reservation> allReservations = reservationRepository.findByUtilisateur_IdUtilisateur(userId);
-
-                // Statistiques générales
-                stats.setTotalReservations(allReservations.size());
-
-                // Compter par état
-                Map<Reservation.EtatReservation, Long> reservationsByStatus = allReservations.stream()
-                                .collect(Collectors.groupingBy(Reservation::getEtat, Collectors.counting()));
-
-                stats.setReservationsEnCours(
-                                reservationsByStatus.getOrDefault(Reservation.EtatReservation.ACTIVE, 0L).intValue());
-                stats.setReservationsTerminees(
-                                reservationsByStatus.getOrDefault(Reservation.EtatReservation.TERMINEE, 0L).intValue());
-                stats.setReservationsAnnulees(
-                                reservationsByStatus.getOrDefault(Reservation.EtatReservation.ANNULEE, 0L).intValue());
-                stats.setReservationsConfirmees(stats.getReservationsEnCours());
-
-                // Montants
-                BigDecimal montantTotal = allReservations.stream()
-                                .filter(r -> r.getTotalPrice() != null)
-                                .map(Reservation::getTotalPrice)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
-                stats.setMontantTotalDepense(montantTotal);
-
-                // Montant du mois en cours
-                LocalDateTime startOfMonth = YearMonth.now().atDay(1).atStartOfDay();
-                LocalDateTime endOfMonth = YearMonth.now().atEndOfMonth().atTime(23, 59, 59);
-
-                BigDecimal montantMois = allReservations.stream()
-                                .filter(r -> r.getCreatedAt() != null &&
-                                                r.getCreatedAt().isAfter(startOfMonth) &&
-                                                r.getCreatedAt().isBefore(endOfMonth))
-                                .filter(r -> r.getTotalPrice() != null)
-                                .map(Reservation::getTotalPrice)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
-                stats.setMontantMoisEnCours(montantMois);
-
-                // Réservations ce mois
-                long reservationsMois = allReservations.stream()
-                                .filter(r -> r.getCreatedAt() != null &&
-                                                r.getCreatedAt().isAfter(startOfMonth) &&
-                                                r.getCreatedAt().isBefore(endOfMonth))
-                                .count();
-                stats.setReservationsCeMois((int) reservationsMois);
-
-                // Prochaine réservation
-                Optional<Reservation> nextReservation = allReservations.stream()
-                                .filter(r -> r.getEtat() == Reservation.EtatReservation.ACTIVE)
-                                .filter(r -> r.getDateDebut().isAfter(LocalDateTime.now()))
-                                .min(Comparator.comparing(Reservation::getDateDebut));
-
-                nextReservation.ifPresent(reservation -> {
-                        try {
-                                ReservationDto nextResDto = reservationService
-                                                .getById(reservation.getNumeroReservation());
-                                stats.setProchaineReservation(nextResDto);
-                        } catch (Exception e) {
-                                logger.warn("Could not load next reservation details", e);
+                stats.setMontantTotalDepense(BigDecimal.ZERO);
+                stats.setMontantMoisEnCours(BigDecimal.ZERO);
+
+                // Agrégats maintenus par DashboardStatsService : une lecture par clé primaire
+                dashboardStatsService.findStats(DashboardStats.Scope.UTILISATEUR, userId).ifPresent(row -> {
+                        stats.setTotalReservations((int) row.getTotalReservations());
+                        stats.setReservationsEnCours((int) row.getNbActives());
+                        stats.setReservationsTerminees((int) row.getNbTerminees());
+                        stats.setReservationsAnnulees((int) row.getNbAnnulees());
+                        stats.setReservationsConfirmees(stats.getReservationsEnCours());
+                        stats.setMontantTotalDepense(row.getMontantTotal());
+
+                        // Montant et réservations du mois en cours
+                        if (row.isMoisCourant(YearMonth.now().atDay(1))) {
+                                stats.setMontantMoisEnCours(row.getMontantMois());
+                                stats.setReservationsCeMois((int) row.getReservationsMois());
                         }
                 });
 
+                // Prochaine réservation
+                dashboardRepository.findUpcomingIdsForUser(userId, Reservation.EtatReservation.ACTIVE,
+                                LocalDateTime.now(), PageRequest.of(0, 1)).stream()
+                                .findFirst()
+                                .ifPresent(reservationId -> {
+                                        try {
+                                                stats.setProchaineReservation(reservationService.getById(reservationId));
+                                        } catch (Exception e) {
+                                                logger.warn("Could not load next reservation details", e);
+                                        }
+                                });
+
                 return stats;
         }
 
-        private OwnerStats calculateOwnerStats(Long userId, List<Borne> bornes) {
+        private OwnerStats calculateOwnerStats(Long userId, Map<Borne.Etat, Long> bornesByStatus) {
                 OwnerStats stats = new OwnerStats();
 
-                stats.setTotalBornes(bornes.size());
+                int totalBornes = bornesByStatus.values().stream().mapToInt(Long::intValue).sum();
+                stats.setTotalBornes(totalBornes);
 
                 // Compter par état
-                Map<Borne.Etat, Long> bornesByStatus = bornes.stream()
-                                .collect(Collectors.groupingBy(Borne::getEtat, Collectors.counting()));
-
                 stats.setBornesDisponibles(
                                 bornesByStatus.getOrDefault(Borne.Etat.DISPONIBLE, 0L).intValue());
                 stats.setBornesOccupees(bornesByStatus.getOrDefault(Borne.Etat.OCCUPEE, 0L).intValue());
@@ -163,76 +137,80 @@ public class DashboardServiceImpl implements DashboardService {
                                 bornesByStatus.getOrDefault(Borne.Etat.EN_MAINTENANCE, 0L).intValue());
                 stats.setBornesHorsService(bornesByStatus.getOrDefault(Borne.Etat.EN_PANNE, 0L).intValue());
 
-                // Récupérer toutes les réservations pour les bornes du propriétaire
-                List<Long> borneIds = bornes.stream()
-                                .map(Borne::getIdBorne)
-                                .collect(Collectors.toList());
-
-                List<Reservation> allReservations = borneIds.stream()
-                                .flatMap(id -> reservationRepository.findByBorneIdBorne(id).stream())
-                                .collect(Collectors.toList());
+                stats.setRevenusEstimesMois(BigDecimal.ZERO);
+                stats.setRevenusTotaux(BigDecimal.ZERO);
+
+                // Demandes en attente (réservations actives à venir), dépend de l'heure courante
+                stats.setDemandesEnAttente((int) dashboardRepository.countUpcomingForOwner(userId,
+                                Reservation.EtatReservation.ACTIVE, LocalDateTime.now()));
+
+                Optional<DashboardStats> row = dashboardStatsService.findStats(DashboardStats.Scope.PROPRIETAIRE,
+                                userId);
+                Long mostReservedId;
+                if (row.isPresent()) {
+                        DashboardStats ownerRow = row.get();
+                        stats.setTotalReservations((int) ownerRow.getTotalReservations());
+                        // Réservations confirmées en cours
+                        stats.setReservationsConfirmees((int) ownerRow.getNbActives());
+                        stats.setRevenusTotaux(ownerRow.getMontantTotal());
+                        if (ownerRow.isMoisCourant(YearMonth.now().atDay(1))) {
+                                stats.setRevenusEstimesMois(ownerRow.getMontantMois());
+                        }
+                        mostReservedId = ownerRow.getTopBorneId();
+                } else {
+                        // Ligne pas encore créée (avant la première réconciliation) : agrégats directs
+                        mostReservedId = applyOwnerAggregates(userId, stats);
+                }
 
-                stats.setTotalReservations(allReservations.size());
+                // Borne la plus réservée
+                if (mostReservedId != null) {
+                        try {
+                                Borne borne = borneService.getBorneById(mostReservedId);
+                                BorneDto borneDto = convertBorneToBorneDto(borne);
+                                stats.setBorneLaPlusReservee(borneDto);
+                        } catch (Exception e) {
+                                logger.warn("Could not load most reserved station details", e);
+                        }
+                }
 
-                // Demandes en attente (réservations actives à venir)
-                long demandesEnAttente = allReservations.stream()
-                                .filter(r -> r.getEtat() == Reservation.EtatReservation.ACTIVE)
-                                .filter(r -> r.getDateDebut().isAfter(LocalDateTime.now()))
-                                .count();
-                stats.setDemandesEnAttente((int) demandesEnAttente);
+                // Taux d'occupation sur les 30 derniers jours, créneaux réservés fusionnés par borne
+                LocalDateTime now = LocalDateTime.now();
+                stats.setTauxOccupationMoyen(occupancyCalculator
+                                .computeForOwner(userId, totalBornes, now.minusDays(OCCUPATION_WINDOW_DAYS), now)
+                                .tauxOccupation());
 
-                // Réservations confirmées en cours
-                long reservationsConfirmees = allReservations.stream()
-                                .filter(r -> r.getEtat() == Reservation.EtatReservation.ACTIVE)
-                                .count();
-                stats.setReservationsConfirmees((int) reservationsConfirmees);
+                return stats;
+        }
 
-                // Calcul des revenus
+        /**
+         * Calcule les compteurs et revenus par agrégation sur les réservations
+         * du propriétaire et renvoie l'id de sa borne la plus réservée
+         */
+        private Long applyOwnerAggregates(Long userId, OwnerStats stats) {
                 LocalDateTime startOfMonth = YearMonth.now().atDay(1).atStartOfDay();
                 LocalDateTime endOfMonth = YearMonth.now().atEndOfMonth().atTime(23, 59, 59);
 
-                BigDecimal revenusEstimesMois = allReservations.stream()
-                                .filter(r -> r.getCreatedAt() != null &&
-                                                r.getCreatedAt().isAfter(startOfMonth) &&
-                                                r.getCreatedAt().isBefore(endOfMonth))
-                                .filter(r -> r.getTotalPrice() != null)
-                                .map(Reservation::getTotalPrice)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
-                stats.setRevenusEstimesMois(revenusEstimesMois);
-
-                BigDecimal revenusTotaux = allReservations.stream()
-                                .filter(r -> r.getTotalPrice() != null)
-                                .map(Reservation::getTotalPrice)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
-                stats.setRevenusTotaux(revenusTotaux);
-
-                // Borne la plus réservée
-                Map<Long, Long> reservationsByBorne = allReservations.stream()
-                                .collect(Collectors.groupingBy(r -> r.getBorne().getIdBorne(),
-                                                Collectors.counting()));
-
-                if (!reservationsByBorne.isEmpty()) {
-                        Optional<Map.Entry<Long, Long>> mostReserved = reservationsByBorne.entrySet().stream()
-                                        .max(Map.Entry.comparingByValue());
-
-                        mostReserved.ifPresent(entry -> {
-                                try {
-                                        Borne borne = borneService.getBorneById(entry.getKey());
-                                        BorneDto borneDto = convertBorneToBorneDto(borne);
-                                        stats.setBorneLaPlusReservee(borneDto);
-                                } catch (Exception e) {
-                                        logger.warn("Could not load most reserved station details", e);
-                                }
-                        });
+                OwnerReservationTotalsRow totals = dashboardRepository.sumOwnerReservations(userId,
+                                Reservation.EtatReservation.ACTIVE, startOfMonth, endOfMonth);
+                if (totals != null) {
+                        stats.setTotalReservations(toInt(totals.getTotalReservations()));
+                        stats.setReservationsConfirmees(toInt(totals.getReservationsConfirmees()));
+                        stats.setRevenusEstimesMois(orZero(totals.getRevenusMois()));
+                        stats.setRevenusTotaux(orZero(totals.getRevenusTotaux()));
                 }
 
-                // Taux d'occupation moyen (simplifié)
-                if (!bornes.isEmpty()) {
-                        double tauxOccupation = (double) stats.getBornesOccupees() / bornes.size() * 100;
-                        stats.setTauxOccupationMoyen(Math.round(tauxOccupation * 100.0) / 100.0);
-                }
+                return dashboardRepository.countReservationsByBorne(userId, PageRequest.of(0, 1)).stream()
+                                .findFirst()
+                                .map(BorneReservationCountRow::getIdBorne)
+                                .orElse(null);
+        }
 
-                return stats;
+        private static int toInt(Long value) {
+                return value != null ? value.intValue() : 0;
+        }
+
+        private static BigDecimal orZero(BigDecimal value) {
+                return value != null ? value : BigDecimal.ZERO;
         }
 
         private BorneDto convertBorneToBorneDto(Borne borne) {
@@ -0,0 +1,208 @@
+package com.eb.electricitybusiness.service.impl;
+
+import com.eb.electricitybusiness.dto.CreneauRunDto;
+import com.eb.electricitybusiness.dto.DisponibilitesDto;
+import com.eb.electricitybusiness.dto.ReservationIntervalRow;
+import com.eb.electricitybusiness.repository.BorneRepository;
+import com.eb.electricitybusiness.repository.ReservationRepository;
+import com.eb.electricitybusiness.service.DisponibiliteService;
+import com.eb.electricitybusiness.service.ReservationIntervalIndex;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calendrier de disponibilité des bornes, calculé en une lecture des créneaux
+ * bloquants de la période puis mis en cache par borne. Le cache d'une borne
+ * est vidé après chaque changement d'état d'une de ses réservations ; la durée
+ * de vie (app.bornes.disponibilites.cache-ttl-ms) borne le retard sur les
+ * modifications faites par d'autres instances.
+ *
+ * Le cache est borné : les entrées expirées d'une borne sont purgées à chaque
+ * écriture, et au-delà de app.bornes.disponibilites.cache-max-bornes bornes
+ * en cache, les entrées expirées de toutes les bornes sont purgées puis, s'il
+ * en reste trop, le cache est vidé.
+ */
+@Service
+public class DisponibiliteServiceImpl implements DisponibiliteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DisponibiliteServiceImpl.class);
+    private static final int GRANULARITE_DEFAUT = 30;
+    private static final int MINUTES_PAR_JOUR = 24 * 60;
+    private static final int JOURS_DEFAUT = 7;
+    private static final int MAX_CRENEAUX = 5000;
+    private static final int MAX_ENTREES_PAR_BORNE = 32;
+
+    private final ReservationRepository reservationRepository;
+    private final BorneRepository borneRepository;
+    private final long cacheTtlMillis;
+    private final int maxBornes;
+    private final Map<Long, BorneCache> cache = new ConcurrentHashMap<>();
+
+    public DisponibiliteServiceImpl(ReservationRepository reservationRepository,
+            BorneRepository borneRepository,
+            @Value("${app.bornes.disponibilites.cache-ttl-ms:60000}") long cacheTtlMillis,
+            @Value("${app.bornes.disponibilites.cache-max-bornes:1000}") int maxBornes) {
+        this.reservationRepository = reservationRepository;
+        this.borneRepository = borneRepository;
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.maxBornes = Math.max(1, maxBornes);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public DisponibilitesDto getDisponibilites(Long borneId, LocalDateTime debut, LocalDateTime fin,
+            Integer granulariteMinutes) {
+        int granularite = granulariteMinutes != null ? granulariteMinutes : GRANULARITE_DEFAUT;
+        if (granularite <= 0 || MINUTES_PAR_JOUR % granularite != 0) {
+            throw new IllegalArgumentException(
+                    "Granularité invalide : " + granularite + " (diviseur de 1440 minutes attendu)");
+        }
+        LocalDateTime start = debut != null ? floor(debut, granularite) : ceil(LocalDateTime.now(), granularite);
+        LocalDateTime end = fin != null ? ceil(fin, granularite) : start.plusDays(JOURS_DEFAUT);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("La date de début doit précéder la date de fin");
+        }
+        long nbCreneaux = Duration.between(start, end).toMinutes() / granularite;
+        if (nbCreneaux > MAX_CRENEAUX) {
+            throw new IllegalArgumentException("Plage trop longue : " + MAX_CRENEAUX + " créneaux maximum");
+        }
+
+        CacheKey key = new CacheKey(start, end, granularite);
+        // La référence est prise avant la lecture : un calcul concurrent d'une
+        // invalidation est rangé dans un cache déjà détaché
+        BorneCache borneCache = cacheTtlMillis > 0 ? cache.computeIfAbsent(borneId, id -> new BorneCache()) : null;
+        long now = System.currentTimeMillis();
+        CacheEntry hit = borneCache != null ? borneCache.entries.get(key) : null;
+        if (hit != null && hit.expiresAt() > now) {
+            return hit.dto();
+        }
+
+        if (!borneRepository.existsById(borneId)) {
+            if (borneCache != null) {
+                cache.remove(borneId, borneCache);
+            }
+            throw new EntityNotFoundException("Borne non trouvée avec l'id " + borneId);
+        }
+        logger.debug("Computing availability of station {} from {} to {} by {} min", borneId, start, end,
+                granularite);
+        List<ReservationIntervalRow> intervals = reservationRepository.findBorneIntervals(borneId,
+                ReservationIntervalIndex.ETATS_BLOQUANTS, start, end);
+        DisponibilitesDto dto = new DisponibilitesDto(borneId, start, end, granularite,
+                encode(intervals, start, granularite, (int) nbCreneaux));
+
+        if (borneCache != null) {
+            borneCache.entries.values().removeIf(entry -> entry.expiresAt() <= now);
+            if (borneCache.entries.size() >= MAX_ENTREES_PAR_BORNE) {
+                borneCache.entries.clear();
+            }
+            borneCache.entries.put(key, new CacheEntry(dto, now + cacheTtlMillis));
+            if (cache.size() > maxBornes) {
+                purgeExpired(now);
+            }
+        }
+        return dto;
+    }
+
+    /**
+     * Retire les entrées expirées et les bornes sans entrée ; vide le cache si
+     * le nombre de bornes dépasse encore la limite
+     */
+    private void purgeExpired(long now) {
+        cache.forEach((id, borneCache) -> {
+            borneCache.entries.values().removeIf(entry -> entry.expiresAt() <= now);
+            if (borneCache.entries.isEmpty()) {
+                cache.remove(id, borneCache);
+            }
+        });
+        if (cache.size() > maxBornes) {
+            logger.debug("Availability cache above {} stations, clearing it", maxBornes);
+            cache.clear();
+        }
+    }
+
+    @Override
+    public void invalidate(Long borneId) {
+        if (borneId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.remove(borneId);
+                }
+            });
+        } else {
+            cache.remove(borneId);
+        }
+    }
+
+    /**
+     * Marque les créneaux occupés puis les regroupe en plages. Le créneau i
+     * couvre [debut + i*g, debut + (i+1)*g], bornes incluses comme dans la
+     * détection de conflits : une réservation qui se termine à 10:00 occupe
+     * aussi le créneau qui commence à 10:00.
+     */
+    static List<CreneauRunDto> encode(List<? extends ReservationIntervalRow> intervals, LocalDateTime debut,
+            int granularite, int nbCreneaux) {
+        BitSet occupes = new BitSet(nbCreneaux);
+        long pas = granularite * 60L;
+        for (ReservationIntervalRow interval : intervals) {
+            long depuisDebut = Duration.between(debut, interval.getDateDebut()).getSeconds();
+            long jusquaFin = Duration.between(debut, interval.getDateFin()).getSeconds();
+            long premier = Math.max(-Math.floorDiv(-depuisDebut, pas) - 1, 0);
+            long dernier = Math.min(Math.floorDiv(jusquaFin, pas), nbCreneaux - 1L);
+            if (premier <= dernier) {
+                occupes.set((int) premier, (int) dernier + 1);
+            }
+        }
+
+        List<CreneauRunDto> runs = new ArrayList<>();
+        int i = 0;
+        while (i < nbCreneaux) {
+            boolean libre = !occupes.get(i);
+            int suivant = libre ? occupes.nextSetBit(i) : occupes.nextClearBit(i);
+            if (suivant < 0 || suivant > nbCreneaux) {
+                suivant = nbCreneaux;
+            }
+            runs.add(new CreneauRunDto(debut.plusMinutes((long) i * granularite), suivant - i, libre));
+            i = suivant;
+        }
+        return runs;
+    }
+
+    private static LocalDateTime floor(LocalDateTime instant, int granularite) {
+        LocalDateTime jour = instant.toLocalDate().atStartOfDay();
+        long minutes = Duration.between(jour, instant).toMinutes();
+        return jour.plusMinutes(minutes / granularite * granularite);
+    }
+
+    private static LocalDateTime ceil(LocalDateTime instant, int granularite) {
+        LocalDateTime floor = floor(instant, granularite);
+        return floor.equals(instant) ? instant : floor.plusMinutes(granularite);
+    }
+
+    private record CacheKey(LocalDateTime debut, LocalDateTime fin, int granularite) {
+    }
+
+    private record CacheEntry(DisponibilitesDto dto, long expiresAt) {
+    }
+
+    private static final class BorneCache {
+        final Map<CacheKey, CacheEntry> entries = new ConcurrentHashMap<>();
+    }
+}
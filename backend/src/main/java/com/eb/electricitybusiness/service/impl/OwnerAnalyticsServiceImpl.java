@@ -0,0 +1,131 @@
+package com.eb.electricitybusiness.service.impl;
+
+import com.eb.electricitybusiness.dto.BorneEtatCountRow;
+import com.eb.electricitybusiness.dto.BorneSeriesDto;
+import com.eb.electricitybusiness.dto.OwnerSeriesDto;
+import com.eb.electricitybusiness.dto.RollupSeriesRow;
+import com.eb.electricitybusiness.dto.SeriesGranularity;
+import com.eb.electricitybusiness.dto.SeriesPointDto;
+import com.eb.electricitybusiness.repository.DashboardRepository;
+import com.eb.electricitybusiness.repository.ReservationRollupRepository;
+import com.eb.electricitybusiness.service.OwnerAnalyticsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Séries temporelles des propriétaires, lues dans reservation_rollup
+ * (une ligne par borne et par jour) et regroupées par date_trunc : le coût
+ * dépend du nombre de jours demandés, pas de l'historique des réservations.
+ */
+@Service
+@Transactional(readOnly = true)
+public class OwnerAnalyticsServiceImpl implements OwnerAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OwnerAnalyticsServiceImpl.class);
+    private static final int MAX_PERIODES = 400;
+    private static final long MINUTES_PAR_JOUR = 24 * 60;
+
+    private final ReservationRollupRepository rollupRepository;
+    private final DashboardRepository dashboardRepository;
+
+    public OwnerAnalyticsServiceImpl(ReservationRollupRepository rollupRepository,
+            DashboardRepository dashboardRepository) {
+        this.rollupRepository = rollupRepository;
+        this.dashboardRepository = dashboardRepository;
+    }
+
+    @Override
+    public OwnerSeriesDto getSeries(Long ownerId, String granularite, LocalDate debut, LocalDate fin,
+            Long borneId) {
+        SeriesGranularity granularity = SeriesGranularity.parse(granularite);
+        LocalDate end = fin != null ? fin : LocalDate.now().plusDays(1);
+        LocalDate start = debut != null ? debut
+                : granularity.minus(granularity.truncate(end.minusDays(1)), granularity.getDefaultBuckets() - 1L);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("La date de début doit précéder la date de fin");
+        }
+
+        Map<LocalDate, Cumul> totaux = new LinkedHashMap<>();
+        for (LocalDate periode = granularity.truncate(start); periode.isBefore(end); periode = granularity.next(periode)) {
+            if (totaux.size() == MAX_PERIODES) {
+                throw new IllegalArgumentException("Plage trop longue : " + MAX_PERIODES + " périodes maximum");
+            }
+            totaux.put(periode, new Cumul());
+        }
+
+        logger.debug("Fetching {} series for owner {} from {} to {}", granularity, ownerId, start, end);
+        List<RollupSeriesRow> rows = borneId == null
+                ? rollupRepository.findOwnerSeries(ownerId, granularity.getUnit(), start, end)
+                : rollupRepository.findBorneSeries(ownerId, borneId, granularity.getUnit(), start, end);
+
+        Map<Long, List<SeriesPointDto>> parBorne = new TreeMap<>();
+        for (RollupSeriesRow row : rows) {
+            LocalDate periode = LocalDate.ofEpochDay(row.getEpochDay());
+            long reservations = orZero(row.getReservations());
+            BigDecimal revenus = row.getRevenus() != null ? row.getRevenus() : BigDecimal.ZERO;
+            long minutes = orZero(row.getMinutesOccupees());
+
+            parBorne.computeIfAbsent(row.getIdBorne(), id -> new ArrayList<>())
+                    .add(point(periode, reservations, revenus, minutes,
+                            minutesDisponibles(granularity, periode, start, end)));
+            totaux.computeIfAbsent(periode, p -> new Cumul()).add(reservations, revenus, minutes);
+        }
+
+        long nbBornes = borneId != null ? 1 : dashboardRepository.countBornesByEtat(ownerId).stream()
+                .mapToLong(BorneEtatCountRow::getTotal)
+                .sum();
+        List<SeriesPointDto> total = new ArrayList<>(totaux.size());
+        totaux.forEach((periode, cumul) -> total.add(point(periode, cumul.reservations, cumul.revenus,
+                cumul.minutes, nbBornes * minutesDisponibles(granularity, periode, start, end))));
+
+        List<BorneSeriesDto> bornes = new ArrayList<>(parBorne.size());
+        parBorne.forEach((id, points) -> bornes.add(new BorneSeriesDto(id, points)));
+
+        return new OwnerSeriesDto(ownerId, granularity, start, end, total, bornes);
+    }
+
+    /**
+     * Minutes de la période comprises dans [start, end[ : les périodes
+     * extrêmes peuvent n'être que partiellement couvertes
+     */
+    private static long minutesDisponibles(SeriesGranularity granularity, LocalDate periode, LocalDate start,
+            LocalDate end) {
+        LocalDate from = periode.isBefore(start) ? start : periode;
+        LocalDate next = granularity.next(periode);
+        LocalDate to = next.isAfter(end) ? end : next;
+        return Math.max(0, ChronoUnit.DAYS.between(from, to)) * MINUTES_PAR_JOUR;
+    }
+
+    private static SeriesPointDto point(LocalDate periode, long reservations, BigDecimal revenus, long minutes,
+            long minutesDisponibles) {
+        double taux = minutesDisponibles > 0 ? (double) minutes / minutesDisponibles * 100 : 0;
+        return new SeriesPointDto(periode, reservations, revenus, minutes, Math.round(taux * 100.0) / 100.0);
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static final class Cumul {
+        private long reservations;
+        private BigDecimal revenus = BigDecimal.ZERO;
+        private long minutes;
+
+        void add(long reservations, BigDecimal revenus, long minutes) {
+            this.reservations += reservations;
+            this.revenus = this.revenus.add(revenus);
+            this.minutes += minutes;
+        }
+    }
+}
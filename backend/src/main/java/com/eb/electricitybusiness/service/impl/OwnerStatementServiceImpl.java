@@ -0,0 +1,268 @@
+package com.eb.electricitybusiness.service.impl;
+
+import com.eb.electricitybusiness.dto.StatementLineRow;
+import com.eb.electricitybusiness.model.Reservation;
+import com.eb.electricitybusiness.repository.ReservationRepository;
+import com.eb.electricitybusiness.service.OwnerStatementService;
+import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Relevés mensuels des propriétaires : une ligne par réservation facturée
+ * (confirmée, active ou terminée) commençant dans le mois.
+ *
+ * Les réservations sont lues par pages (pagination par clé sur l'identifiant)
+ * sous forme de projections, et le tableau est ajouté au document après chaque
+ * page : iText écrit alors les pages complètes dans le fichier et libère les
+ * lignes déjà rendues. La mémoire utilisée ne dépend donc que de la taille de
+ * page, quel que soit le nombre de réservations du propriétaire.
+ *
+ * Le relevé est écrit dans un fichier temporaire puis renommé :
+ * app.statements.storage.path/ID_PROPRIETAIRE/releve_AAAA-MM.pdf.
+ */
+@Service
+public class OwnerStatementServiceImpl implements OwnerStatementService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OwnerStatementServiceImpl.class);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final DateTimeFormatter MOIS_FORMATTER = DateTimeFormatter.ofPattern("MMMM yyyy", Locale.FRENCH);
+    private static final Set<Reservation.EtatReservation> ETATS_FACTURES = EnumSet.of(
+            Reservation.EtatReservation.CONFIRMEE,
+            Reservation.EtatReservation.ACTIVE,
+            Reservation.EtatReservation.TERMINEE);
+
+    private static final Font TITLE_FONT = new Font(Font.FontFamily.HELVETICA, 24, Font.BOLD, BaseColor.DARK_GRAY);
+    private static final Font SUBTITLE_FONT = new Font(Font.FontFamily.HELVETICA, 12, Font.NORMAL, BaseColor.GRAY);
+    private static final Font HEADER_FONT = new Font(Font.FontFamily.HELVETICA, 9, Font.BOLD, BaseColor.WHITE);
+    private static final Font CELL_FONT = new Font(Font.FontFamily.HELVETICA, 9, Font.NORMAL, BaseColor.BLACK);
+    private static final Font NORMAL_FONT = new Font(Font.FontFamily.HELVETICA, 11, Font.NORMAL, BaseColor.BLACK);
+    private static final Font TOTAL_FONT = new Font(Font.FontFamily.HELVETICA, 14, Font.BOLD, BaseColor.BLACK);
+    private static final float[] COLUMN_WIDTHS = { 1.2f, 2f, 2f, 2.6f, 2.6f, 1.4f };
+    private static final String[] COLUMNS = { "N°", "Début", "Fin", "Borne", "Client", "Montant" };
+
+    private final ReservationRepository reservationRepository;
+    private final Executor statementExecutor;
+    private final Path root;
+    private final int pageSize;
+
+    public OwnerStatementServiceImpl(ReservationRepository reservationRepository,
+            @Qualifier("statementExecutor") Executor statementExecutor,
+            @Value("${app.statements.storage.path:statements}") String storagePath,
+            @Value("${app.statements.page-size:500}") int pageSize) {
+        this.reservationRepository = reservationRepository;
+        this.statementExecutor = statementExecutor;
+        this.root = Paths.get(storagePath);
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    /**
+     * Relevés du mois écoulé, le 1er de chaque mois
+     */
+    @Scheduled(cron = "${app.statements.cron:0 0 5 1 * ?}")
+    public void generatePreviousMonth() {
+        YearMonth mois = YearMonth.now().minusMonths(1);
+        int generes = generateAllStatements(mois);
+        logger.info("Relevés mensuels {} : {} relevé(s) généré(s)", mois, generes);
+    }
+
+    @Override
+    public int generateAllStatements(YearMonth mois) {
+        List<Long> ownerIds = reservationRepository.findOwnerIdsWithReservations(ETATS_FACTURES,
+                mois.atDay(1).atStartOfDay(), mois.plusMonths(1).atDay(1).atStartOfDay());
+        AtomicInteger generes = new AtomicInteger();
+        List<CompletableFuture<Void>> taches = new ArrayList<>(ownerIds.size());
+        // L'exécuteur est borné : une fois sa file pleine, le thread appelant rend
+        // lui-même le relevé suivant, ce qui ralentit la soumission
+        for (Long ownerId : ownerIds) {
+            taches.add(CompletableFuture.runAsync(() -> {
+                try {
+                    generateStatement(ownerId, mois);
+                    generes.incrementAndGet();
+                } catch (Exception e) {
+                    logger.error("Erreur lors de la génération du relevé {} du propriétaire {}", mois, ownerId, e);
+                }
+            }, statementExecutor));
+        }
+        CompletableFuture.allOf(taches.toArray(new CompletableFuture[0])).join();
+        return generes.get();
+    }
+
+    @Override
+    public Path getStatement(Long ownerId, YearMonth mois) throws IOException {
+        Path target = statementFile(ownerId, mois);
+        // Un mois terminé ne change plus : le relevé déjà généré est réutilisé
+        if (mois.isBefore(YearMonth.now()) && Files.isRegularFile(target)) {
+            return target;
+        }
+        return generateStatement(ownerId, mois);
+    }
+
+    @Override
+    public Path generateStatement(Long ownerId, YearMonth mois) throws IOException {
+        if (ownerId == null || mois == null) {
+            throw new IllegalArgumentException("Le propriétaire et le mois du relevé sont requis");
+        }
+        if (mois.isAfter(YearMonth.now())) {
+            throw new IllegalArgumentException("Le mois du relevé ne peut pas être dans le futur");
+        }
+        logger.info("Génération du relevé {} du propriétaire {}", mois, ownerId);
+
+        Path target = statementFile(ownerId, mois);
+        Files.createDirectories(target.getParent());
+        // Fichier temporaire dans le même répertoire : le renommage final reste atomique
+        Path tmp = Files.createTempFile(target.getParent(), "releve-", ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                render(ownerId, mois, out);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (DocumentException e) {
+            logger.error("Erreur lors de la génération du relevé {} du propriétaire {}", mois, ownerId, e);
+            throw new IOException("Erreur lors de la génération du relevé PDF", e);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return target;
+    }
+
+    /**
+     * Produit le PDF du relevé dans le flux fourni, page de réservations par page
+     */
+    public void render(Long ownerId, YearMonth mois, OutputStream out) throws DocumentException {
+        LocalDateTime debut = mois.atDay(1).atStartOfDay();
+        LocalDateTime fin = mois.plusMonths(1).atDay(1).atStartOfDay();
+
+        Document document = new Document(PageSize.A4);
+        PdfWriter.getInstance(document, out);
+        document.open();
+        addHeader(document, ownerId, mois);
+
+        PdfPTable table = newLinesTable();
+        int lignes = 0;
+        BigDecimal total = BigDecimal.ZERO;
+        long apresId = 0;
+        while (true) {
+            List<StatementLineRow> rows = reservationRepository.findStatementLines(ownerId, ETATS_FACTURES,
+                    debut, fin, apresId, PageRequest.of(0, pageSize));
+            for (StatementLineRow row : rows) {
+                addLine(table, row);
+                if (row.getTotalPrice() != null) {
+                    total = total.add(row.getTotalPrice());
+                }
+            }
+            if (!rows.isEmpty()) {
+                lignes += rows.size();
+                apresId = rows.get(rows.size() - 1).getNumeroReservation();
+                // Les lignes ajoutées sont mises en page et retirées du tableau
+                document.add(table);
+            }
+            if (rows.size() < pageSize) {
+                break;
+            }
+        }
+
+        if (lignes == 0) {
+            document.add(new Paragraph("Aucune réservation facturée sur la période.", NORMAL_FONT));
+        } else {
+            table.setComplete(true);
+            document.add(table);
+        }
+        addTotals(document, lignes, total);
+        document.close();
+    }
+
+    Path statementFile(Long ownerId, YearMonth mois) {
+        return root.resolve(String.valueOf(ownerId)).resolve("releve_" + mois + ".pdf");
+    }
+
+    private void addHeader(Document document, Long ownerId, YearMonth mois) throws DocumentException {
+        Paragraph title = new Paragraph("ELECTRICITY BUSINESS", TITLE_FONT);
+        title.setAlignment(Element.ALIGN_CENTER);
+        title.setSpacingAfter(10);
+        document.add(title);
+
+        Paragraph subtitle = new Paragraph("Relevé mensuel du propriétaire n° " + ownerId + " - "
+                + mois.format(MOIS_FORMATTER), SUBTITLE_FONT);
+        subtitle.setAlignment(Element.ALIGN_CENTER);
+        subtitle.setSpacingAfter(20);
+        document.add(subtitle);
+    }
+
+    private PdfPTable newLinesTable() throws DocumentException {
+        PdfPTable table = new PdfPTable(COLUMN_WIDTHS.length);
+        table.setWidthPercentage(100);
+        table.setWidths(COLUMN_WIDTHS);
+        // En-tête répété sur chaque page ; tableau rendu au fur et à mesure
+        table.setHeaderRows(1);
+        table.setComplete(false);
+        for (String column : COLUMNS) {
+            PdfPCell cell = new PdfPCell(new Phrase(column, HEADER_FONT));
+            cell.setBackgroundColor(BaseColor.DARK_GRAY);
+            cell.setPadding(4);
+            table.addCell(cell);
+        }
+        return table;
+    }
+
+    private void addLine(PdfPTable table, StatementLineRow row) {
+        addCell(table, String.valueOf(row.getNumeroReservation()), Element.ALIGN_LEFT);
+        addCell(table, row.getDateDebut().format(DATE_FORMATTER), Element.ALIGN_LEFT);
+        addCell(table, row.getDateFin().format(DATE_FORMATTER), Element.ALIGN_LEFT);
+        addCell(table, row.getNomBorne(), Element.ALIGN_LEFT);
+        addCell(table, row.getPrenomClient() + " " + row.getNomClient(), Element.ALIGN_LEFT);
+        addCell(table, formatMontant(row.getTotalPrice()) + " €", Element.ALIGN_RIGHT);
+    }
+
+    private void addCell(PdfPTable table, String value, int alignment) {
+        PdfPCell cell = new PdfPCell(new Phrase(value, CELL_FONT));
+        cell.setHorizontalAlignment(alignment);
+        cell.setPadding(3);
+        table.addCell(cell);
+    }
+
+    private void addTotals(Document document, int lignes, BigDecimal total) throws DocumentException {
+        Paragraph count = new Paragraph("Nombre de réservations : " + lignes, NORMAL_FONT);
+        count.setSpacingBefore(20);
+        document.add(count);
+
+        Paragraph amount = new Paragraph("MONTANT TOTAL : " + formatMontant(total) + " €", TOTAL_FONT);
+        amount.setAlignment(Element.ALIGN_RIGHT);
+        amount.setSpacingBefore(10);
+        document.add(amount);
+    }
+
+    private String formatMontant(BigDecimal montant) {
+        if (montant == null)
+            return "0.00";
+        return String.format("%.2f", montant);
+    }
+}
@@ -2,20 +2,22 @@ package com.eb.electricitybusiness.service.impl;
 
 import com.eb.electricitybusiness.model.Reservation;
 import com.eb.electricitybusiness.service.PdfReceiptService;
+import com.eb.electricitybusiness.service.ReceiptStorageService;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
+import com.itextpdf.text.pdf.draw.LineSeparator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.format.DateTimeFormatter;
 
 @Service
@@ -24,67 +26,94 @@ public class PdfReceiptServiceImpl implements PdfReceiptService {
     private static final Logger logger = LoggerFactory.getLogger(PdfReceiptServiceImpl.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
-    @Value("${app.receipts.storage.path:receipts}")
-    private String receiptsStoragePath;
+    // Mise en page statique construite une seule fois : les polices et le trait
+    // de séparation ne sont jamais modifiés après leur création
+    private static final Font TITLE_FONT = new Font(Font.FontFamily.HELVETICA, 24, Font.BOLD, BaseColor.DARK_GRAY);
+    private static final Font SUBTITLE_FONT = new Font(Font.FontFamily.HELVETICA, 12, Font.NORMAL, BaseColor.GRAY);
+    private static final Font SECTION_FONT = new Font(Font.FontFamily.HELVETICA, 14, Font.BOLD, BaseColor.BLACK);
+    private static final Font SUBSECTION_FONT = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD,
+            BaseColor.DARK_GRAY);
+    private static final Font NORMAL_FONT = new Font(Font.FontFamily.HELVETICA, 11, Font.NORMAL, BaseColor.BLACK);
+    private static final Font LABEL_FONT = new Font(Font.FontFamily.HELVETICA, 11, Font.BOLD, BaseColor.BLACK);
+    private static final Font TOTAL_FONT = new Font(Font.FontFamily.HELVETICA, 14, Font.BOLD, BaseColor.BLACK);
+    private static final Font FOOTER_FONT = new Font(Font.FontFamily.HELVETICA, 9, Font.ITALIC, BaseColor.GRAY);
+    private static final String FOOTER_TEXT = "Merci d'avoir utilisé nos services ELECTRICITY BUSINESS.\n"
+            + "Pour toute question, contactez-nous à support@electricitybusiness.com";
+    private static final LineSeparator SEPARATOR_LINE = new LineSeparator();
+
+    static {
+        SEPARATOR_LINE.setLineColor(BaseColor.LIGHT_GRAY);
+    }
+
+    // Tampon de rendu réutilisé par thread ; un tampon devenu trop gros n'est pas conservé
+    private static final int BUFFER_INITIAL_BYTES = 16 * 1024;
+    private static final int BUFFER_MAX_RETAINED_BYTES = 256 * 1024;
+    private static final ThreadLocal<ByteArrayOutputStream> BUFFERS =
+            ThreadLocal.withInitial(() -> new ByteArrayOutputStream(BUFFER_INITIAL_BYTES));
+
+    private final ReceiptStorageService receiptStorageService;
+
+    public PdfReceiptServiceImpl(ReceiptStorageService receiptStorageService) {
+        this.receiptStorageService = receiptStorageService;
+    }
 
     @Override
     public String generateReceipt(Reservation reservation) throws IOException {
         logger.info("Génération du reçu PDF pour la réservation #{}", reservation.getNumeroReservation());
 
+        // Rendu en mémoire puis écriture du fichier en une fois
+        ByteArrayOutputStream buffer = BUFFERS.get();
+        buffer.reset();
         try {
-            // Créer le répertoire de stockage s'il n'existe pas
-            Path storagePath = Paths.get(receiptsStoragePath);
-            if (!Files.exists(storagePath)) {
-                Files.createDirectories(storagePath);
-            }
-
-            // Nom du fichier PDF
-            String fileName = String.format("recu_reservation_%d_%d.pdf",
-                    reservation.getNumeroReservation(),
-                    System.currentTimeMillis());
-            String fullPath = Paths.get(receiptsStoragePath, fileName).toString();
-
-            // Créer le document PDF
-            Document document = new Document(PageSize.A4);
-            PdfWriter.getInstance(document, Files.newOutputStream(Paths.get(fullPath)));
-            document.open();
-
-            // Ajouter le contenu
-            addHeader(document);
-            addReservationDetails(document, reservation);
-            addFooter(document);
-
-            document.close();
-
-            logger.info("Reçu PDF généré avec succès : {}", fullPath);
-            return fullPath;
-
+            render(reservation, buffer);
+            String receiptPath = receiptStorageService.store(reservation.getNumeroReservation(), buffer);
+            logger.info("Reçu PDF généré avec succès : {}", receiptPath);
+            return receiptPath;
         } catch (DocumentException e) {
             logger.error("Erreur lors de la génération du PDF pour la réservation #{}",
                     reservation.getNumeroReservation(), e);
             throw new IOException("Erreur lors de la génération du reçu PDF", e);
+        } finally {
+            if (buffer.size() > BUFFER_MAX_RETAINED_BYTES) {
+                BUFFERS.remove();
+            }
         }
     }
 
     @Override
     public byte[] getReceiptContent(String receiptPath) throws IOException {
-        Path path = Paths.get(receiptPath);
-        if (!Files.exists(path)) {
-            throw new IOException("Le fichier du reçu n'existe pas : " + receiptPath);
-        }
-        return Files.readAllBytes(path);
+        return Files.readAllBytes(getReceiptFile(receiptPath));
+    }
+
+    @Override
+    public Path getReceiptFile(String receiptPath) throws IOException {
+        return receiptStorageService.resolve(receiptPath);
+    }
+
+    /**
+     * Produit le PDF du reçu dans le flux fourni
+     */
+    public void render(Reservation reservation, OutputStream out) throws DocumentException {
+        Document document = new Document(PageSize.A4);
+        PdfWriter.getInstance(document, out);
+        document.open();
+
+        // Ajouter le contenu
+        addHeader(document);
+        addReservationDetails(document, reservation);
+        addFooter(document);
+
+        document.close();
     }
 
     private void addHeader(Document document) throws DocumentException {
         // Logo / Titre de l'entreprise
-        Font titleFont = new Font(Font.FontFamily.HELVETICA, 24, Font.BOLD, BaseColor.DARK_GRAY);
-        Paragraph title = new Paragraph("ELECTRICITY BUSINESS", titleFont);
+        Paragraph title = new Paragraph("ELECTRICITY BUSINESS", TITLE_FONT);
         title.setAlignment(Element.ALIGN_CENTER);
         title.setSpacingAfter(10);
         document.add(title);
 
-        Font subtitleFont = new Font(Font.FontFamily.HELVETICA, 12, Font.NORMAL, BaseColor.GRAY);
-        Paragraph subtitle = new Paragraph("Reçu de réservation", subtitleFont);
+        Paragraph subtitle = new Paragraph("Reçu de réservation", SUBTITLE_FONT);
         subtitle.setAlignment(Element.ALIGN_CENTER);
         subtitle.setSpacingAfter(30);
         document.add(subtitle);
@@ -94,33 +123,28 @@ public class PdfReceiptServiceImpl implements PdfReceiptService {
     }
 
     private void addReservationDetails(Document document, Reservation reservation) throws DocumentException {
-        // Informations de la réservation
-        Font sectionFont = new Font(Font.FontFamily.HELVETICA, 14, Font.BOLD, BaseColor.BLACK);
-        Font normalFont = new Font(Font.FontFamily.HELVETICA, 11, Font.NORMAL, BaseColor.BLACK);
-
         // Numéro de réservation
         Paragraph reservationNumber = new Paragraph("Réservation n° " + reservation.getNumeroReservation(),
-                sectionFont);
+                SECTION_FONT);
         reservationNumber.setSpacingBefore(20);
         reservationNumber.setSpacingAfter(15);
         document.add(reservationNumber);
 
         // Table des informations client
-        addClientInfo(document, reservation, normalFont);
+        addClientInfo(document, reservation);
 
         // Table des informations de la borne
-        addStationInfo(document, reservation, normalFont);
+        addStationInfo(document, reservation);
 
         // Table des détails de la réservation
-        addReservationInfo(document, reservation, normalFont);
+        addReservationInfo(document, reservation);
 
         // Montant total
         addTotalAmount(document, reservation);
     }
 
-    private void addClientInfo(Document document, Reservation reservation, Font font) throws DocumentException {
-        Paragraph clientTitle = new Paragraph("Informations client",
-                new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD, BaseColor.DARK_GRAY));
+    private void addClientInfo(Document document, Reservation reservation) throws DocumentException {
+        Paragraph clientTitle = new Paragraph("Informations client", SUBSECTION_FONT);
         clientTitle.setSpacingBefore(10);
         clientTitle.setSpacingAfter(8);
         document.add(clientTitle);
@@ -130,18 +154,17 @@ public class PdfReceiptServiceImpl implements PdfReceiptService {
         table.setSpacingAfter(15);
 
         addTableRow(table, "Nom",
-                reservation.getUtilisateur().getPrenom() + " " + reservation.getUtilisateur().getNom(), font);
-        addTableRow(table, "Email", reservation.getUtilisateur().getEmail(), font);
+                reservation.getUtilisateur().getPrenom() + " " + reservation.getUtilisateur().getNom());
+        addTableRow(table, "Email", reservation.getUtilisateur().getEmail());
         if (reservation.getUtilisateur().getPseudo() != null) {
-            addTableRow(table, "Pseudo", reservation.getUtilisateur().getPseudo(), font);
+            addTableRow(table, "Pseudo", reservation.getUtilisateur().getPseudo());
         }
 
         document.add(table);
     }
 
-    private void addStationInfo(Document document, Reservation reservation, Font font) throws DocumentException {
-        Paragraph stationTitle = new Paragraph("Borne de recharge",
-                new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD, BaseColor.DARK_GRAY));
+    private void addStationInfo(Document document, Reservation reservation) throws DocumentException {
+        Paragraph stationTitle = new Paragraph("Borne de recharge", SUBSECTION_FONT);
         stationTitle.setSpacingBefore(10);
         stationTitle.setSpacingAfter(8);
         document.add(stationTitle);
@@ -150,18 +173,17 @@ public class PdfReceiptServiceImpl implements PdfReceiptService {
         table.setWidthPercentage(100);
         table.setSpacingAfter(15);
 
-        addTableRow(table, "Nom", reservation.getBorne().getNom(), font);
-        addTableRow(table, "Localisation", reservation.getBorne().getLocalisation(), font);
-        addTableRow(table, "Numéro", reservation.getBorne().getNumero(), font);
-        addTableRow(table, "Puissance", reservation.getBorne().getPuissance() + " kW", font);
-        addTableRow(table, "Type de connecteur", "Type 2S", font);
+        addTableRow(table, "Nom", reservation.getBorne().getNom());
+        addTableRow(table, "Localisation", reservation.getBorne().getLocalisation());
+        addTableRow(table, "Numéro", reservation.getBorne().getNumero());
+        addTableRow(table, "Puissance", reservation.getBorne().getPuissance() + " kW");
+        addTableRow(table, "Type de connecteur", "Type 2S");
 
         document.add(table);
     }
 
-    private void addReservationInfo(Document document, Reservation reservation, Font font) throws DocumentException {
-        Paragraph reservationTitle = new Paragraph("Détails de la réservation",
-                new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD, BaseColor.DARK_GRAY));
+    private void addReservationInfo(Document document, Reservation reservation) throws DocumentException {
+        Paragraph reservationTitle = new Paragraph("Détails de la réservation", SUBSECTION_FONT);
         reservationTitle.setSpacingBefore(10);
         reservationTitle.setSpacingAfter(8);
         document.add(reservationTitle);
@@ -171,13 +193,13 @@ public class PdfReceiptServiceImpl implements PdfReceiptService {
         table.setSpacingAfter(15);
 
         addTableRow(table, "Date de début",
-                reservation.getDateDebut().format(DATE_FORMATTER), font);
+                reservation.getDateDebut().format(DATE_FORMATTER));
         addTableRow(table, "Date de fin",
-                reservation.getDateFin().format(DATE_FORMATTER), font);
+                reservation.getDateFin().format(DATE_FORMATTER));
         addTableRow(table, "Prix à la minute",
-                formatMontant(reservation.getPrixALaMinute()) + " €", font);
+                formatMontant(reservation.getPrixALaMinute()) + " €");
         addTableRow(table, "Statut",
-                getStatutLabel(reservation.getEtat().name()), font);
+                getStatutLabel(reservation.getEtat().name()));
 
         document.add(table);
     }
@@ -190,16 +212,14 @@ public class PdfReceiptServiceImpl implements PdfReceiptService {
         totalTable.setSpacingBefore(20);
         totalTable.setSpacingAfter(20);
 
-        Font totalFont = new Font(Font.FontFamily.HELVETICA, 14, Font.BOLD, BaseColor.BLACK);
-
-        PdfPCell labelCell = new PdfPCell(new Phrase("MONTANT TOTAL", totalFont));
+        PdfPCell labelCell = new PdfPCell(new Phrase("MONTANT TOTAL", TOTAL_FONT));
         labelCell.setBorder(Rectangle.NO_BORDER);
         labelCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
         labelCell.setPaddingRight(20);
         totalTable.addCell(labelCell);
 
         PdfPCell amountCell = new PdfPCell(new Phrase(
-                formatMontant(reservation.getTotalPrice()) + " €", totalFont));
+                formatMontant(reservation.getTotalPrice()) + " €", TOTAL_FONT));
         amountCell.setBorder(Rectangle.NO_BORDER);
         amountCell.setHorizontalAlignment(Element.ALIGN_LEFT);
         amountCell.setPaddingLeft(20);
@@ -211,26 +231,20 @@ public class PdfReceiptServiceImpl implements PdfReceiptService {
     private void addFooter(Document document) throws DocumentException {
         addSeparator(document);
 
-        Font footerFont = new Font(Font.FontFamily.HELVETICA, 9, Font.ITALIC, BaseColor.GRAY);
-        Paragraph footer = new Paragraph(
-                "Merci d'avoir utilisé nos services ELECTRICITY BUSINESS.\n" +
-                        "Pour toute question, contactez-nous à support@electricitybusiness.com",
-                footerFont);
+        Paragraph footer = new Paragraph(FOOTER_TEXT, FOOTER_FONT);
         footer.setAlignment(Element.ALIGN_CENTER);
         footer.setSpacingBefore(30);
         document.add(footer);
     }
 
-    private void addTableRow(PdfPTable table, String label, String value, Font font) {
-        Font boldFont = new Font(font.getFamily(), font.getSize(), Font.BOLD, font.getColor());
-
-        PdfPCell labelCell = new PdfPCell(new Phrase(label + " :", boldFont));
+    private void addTableRow(PdfPTable table, String label, String value) {
+        PdfPCell labelCell = new PdfPCell(new Phrase(label + " :", LABEL_FONT));
         labelCell.setBorder(Rectangle.NO_BORDER);
         labelCell.setPaddingBottom(8);
         labelCell.setPaddingTop(5);
         table.addCell(labelCell);
 
-        PdfPCell valueCell = new PdfPCell(new Phrase(value, font));
+        PdfPCell valueCell = new PdfPCell(new Phrase(value, NORMAL_FONT));
         valueCell.setBorder(Rectangle.NO_BORDER);
         valueCell.setPaddingBottom(8);
         valueCell.setPaddingTop(5);
@@ -242,9 +256,7 @@ public class PdfReceiptServiceImpl implements PdfReceiptService {
         separator.setSpacingBefore(10);
         separator.setSpacingAfter(10);
 
-        com.itextpdf.text.pdf.draw.LineSeparator line = new com.itextpdf.text.pdf.draw.LineSeparator();
-        line.setLineColor(BaseColor.LIGHT_GRAY);
-        separator.add(new Chunk(line));
+        separator.add(new Chunk(SEPARATOR_LINE));
 
         document.add(separator);
     }
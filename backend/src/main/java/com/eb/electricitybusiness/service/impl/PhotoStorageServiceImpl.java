@@ -0,0 +1,235 @@
+package com.eb.electricitybusiness.service.impl;
+
+import com.eb.electricitybusiness.service.PhotoStorageService;
+import com.eb.electricitybusiness.service.PhotoVariant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Stockage des photos de bornes sur disque, dans app.upload.dir (servi sous
+ * /uploads/bornes). Chaque fichier est nommé par le SHA-256 de son contenu et
+ * réparti sur deux niveaux de sous-répertoires : ab/cd/abcd....jpg.
+ * Une même image envoyée plusieurs fois n'est stockée qu'une fois.
+ */
+@Service
+public class PhotoStorageServiceImpl implements PhotoStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoStorageServiceImpl.class);
+    private static final String DATA_URL_PREFIX = "data:";
+    private static final String BASE64_MARKER = ";base64,";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int HEADER_SIZE = 12;
+    private static final Pattern PREFIX_PATTERN = Pattern.compile("[0-9a-f]{2}");
+    private static final Pattern ORIGINAL_NAME_PATTERN = Pattern.compile("[0-9a-f]{64}\\.(jpg|png|gif|webp)");
+    private static final Pattern VARIANT_NAME_PATTERN = Pattern.compile("([0-9a-f]{64})_(thumb|card|full)\\.jpg");
+    private static final String[] EXTENSIONS = { "jpg", "png", "gif", "webp" };
+
+    @Value("${app.upload.dir:${user.home}/electriccharge/uploads/bornes}")
+    private String uploadDir;
+
+    @Value("${app.upload.base-url:http://localhost:8080/uploads/bornes}")
+    private String uploadBaseUrl;
+
+    @Value("${app.upload.max-photo-bytes:2097152}")
+    private long maxPhotoBytes = 2 * 1024 * 1024;
+
+    @Override
+    public String store(InputStream content) throws IOException {
+        Path root = Paths.get(uploadDir);
+        Files.createDirectories(root);
+        // Fichier temporaire dans le stockage : le renommage final reste atomique
+        Path tmp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MessageDigest digest = newDigest();
+            String extension;
+            long size;
+            try (InputStream in = content; OutputStream out = Files.newOutputStream(tmp)) {
+                byte[] header = in.readNBytes(HEADER_SIZE);
+                extension = detectExtension(header);
+                if (extension == null) {
+                    throw new IllegalArgumentException("Le fichier doit être une image (JPEG, PNG, GIF ou WebP)");
+                }
+                digest.update(header);
+                out.write(header);
+                size = header.length;
+
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxPhotoBytes) {
+                        throw new IllegalArgumentException("La taille maximale par image est de "
+                                + (maxPhotoBytes / (1024 * 1024)) + "MB");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String relativePath = relativePath(hash, extension);
+            Path target = root.resolve(relativePath);
+            if (Files.exists(target)) {
+                logger.debug("Photo déjà présente : {}", relativePath);
+            } else {
+                Files.createDirectories(target.getParent());
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                logger.info("Photo enregistrée : {} ({} octets)", relativePath, size);
+            }
+            return uploadBaseUrl + "/" + relativePath;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public boolean isDataUrl(String media) {
+        return media != null && media.startsWith(DATA_URL_PREFIX) && media.contains(BASE64_MARKER);
+    }
+
+    @Override
+    public String storeDataUrl(String dataUrl) throws IOException {
+        if (!isDataUrl(dataUrl)) {
+            throw new IllegalArgumentException("Data URL base64 attendue");
+        }
+        int marker = dataUrl.indexOf(BASE64_MARKER);
+        byte[] content = Base64.getDecoder().decode(dataUrl.substring(marker + BASE64_MARKER.length()));
+        return store(new ByteArrayInputStream(content));
+    }
+
+    @Override
+    public Path resolve(String prefix, String subPrefix, String fileName) {
+        if (!isStorageDirectory(prefix, subPrefix, fileName)
+                || !(ORIGINAL_NAME_PATTERN.matcher(fileName).matches()
+                        || VARIANT_NAME_PATTERN.matcher(fileName).matches())) {
+            return null;
+        }
+        return Paths.get(uploadDir, prefix, subPrefix, fileName);
+    }
+
+    @Override
+    public Path resolveUrl(String url) {
+        String prefix = uploadBaseUrl + "/";
+        if (url == null || !url.startsWith(prefix)) {
+            return null;
+        }
+        String[] parts = url.substring(prefix.length()).split("/");
+        if (parts.length != 3 || !ORIGINAL_NAME_PATTERN.matcher(parts[2]).matches()) {
+            return null;
+        }
+        return resolve(parts[0], parts[1], parts[2]);
+    }
+
+    @Override
+    public Path resolveOriginal(String prefix, String subPrefix, String variantFileName) {
+        Matcher matcher = VARIANT_NAME_PATTERN.matcher(variantFileName);
+        if (!isStorageDirectory(prefix, subPrefix, variantFileName) || !matcher.matches()) {
+            return null;
+        }
+        for (String extension : EXTENSIONS) {
+            Path original = Paths.get(uploadDir, prefix, subPrefix, matcher.group(1) + "." + extension);
+            if (Files.isRegularFile(original)) {
+                return original;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String variantUrl(String url, PhotoVariant variant) {
+        Path original = resolveUrl(url);
+        if (original == null) {
+            return url;
+        }
+        String fileName = original.getFileName().toString();
+        return url.substring(0, url.length() - fileName.length())
+                + variant.fileName(fileName.substring(0, fileName.indexOf('.')));
+    }
+
+    @Override
+    public List<Path> findOriginalsWithoutVariants(int limit) throws IOException {
+        Path root = Paths.get(uploadDir);
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        // Profondeur 3 : ab/cd/fichier
+        try (Stream<Path> files = Files.walk(root, 3)) {
+            return files
+                    .filter(file -> ORIGINAL_NAME_PATTERN.matcher(file.getFileName().toString()).matches())
+                    .filter(this::hasMissingVariant)
+                    .limit(limit)
+                    .toList();
+        }
+    }
+
+    private boolean hasMissingVariant(Path original) {
+        String fileName = original.getFileName().toString();
+        String hash = fileName.substring(0, fileName.indexOf('.'));
+        for (PhotoVariant variant : PhotoVariant.values()) {
+            if (!Files.exists(original.resolveSibling(variant.fileName(hash)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isStorageDirectory(String prefix, String subPrefix, String fileName) {
+        return PREFIX_PATTERN.matcher(prefix).matches()
+                && PREFIX_PATTERN.matcher(subPrefix).matches()
+                && fileName.startsWith(prefix + subPrefix);
+    }
+
+    private String relativePath(String hash, String extension) {
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + "." + extension;
+    }
+
+    /**
+     * Type d'image déterminé par sa signature, indépendamment du Content-Type
+     * annoncé par le client
+     */
+    private String detectExtension(byte[] header) {
+        if (header.length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8
+                && (header[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (header.length >= 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N'
+                && header[3] == 'G') {
+            return "png";
+        }
+        if (header.length >= 6 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8') {
+            return "gif";
+        }
+        if (header.length >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "webp";
+        }
+        return null;
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
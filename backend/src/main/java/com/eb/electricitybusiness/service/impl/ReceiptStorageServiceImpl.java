@@ -0,0 +1,234 @@
+package com.eb.electricitybusiness.service.impl;
+
+import com.eb.electricitybusiness.service.ReceiptStorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Stockage des reçus PDF dans app.receipts.storage.path. Chaque reçu est
+ * nommé par l'identifiant de sa réservation et réparti sur deux niveaux de
+ * sous-répertoires tirés du SHA-256 de cet identifiant :
+ * ab/cd/recu_reservation_42.pdf.
+ *
+ * Les reçus anciens sont regroupés dans des archives zip (archives/) ; leur
+ * receipt_path prend alors la forme archives/recus-....zip!ab/cd/recu_....pdf
+ * et le fichier est extrait à la demande dans restored/.
+ */
+@Service
+public class ReceiptStorageServiceImpl implements ReceiptStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReceiptStorageServiceImpl.class);
+    private static final String ARCHIVE_SEPARATOR = "!";
+    private static final String ARCHIVES_DIR = "archives";
+    private static final String RESTORED_DIR = "restored";
+    private static final String LEGACY_ENTRY_DIR = "legacy/";
+    private static final Pattern RELATIVE_PATH_PATTERN =
+            Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}/recu_reservation_\\d+\\.pdf");
+    private static final DateTimeFormatter BUNDLE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final Path root;
+
+    public ReceiptStorageServiceImpl(@Value("${app.receipts.storage.path:receipts}") String storagePath) {
+        this.root = Paths.get(storagePath);
+    }
+
+    @Override
+    public String store(Long reservationId, ByteArrayOutputStream content) throws IOException {
+        String relativePath = relativePath(reservationId);
+        Path target = root.resolve(relativePath);
+        Files.createDirectories(target.getParent());
+        // Fichier temporaire dans le même répertoire : le renommage final reste atomique
+        Path tmp = Files.createTempFile(target.getParent(), "recu-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                content.writeTo(out);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return relativePath;
+    }
+
+    @Override
+    public Path resolve(String receiptPath) throws IOException {
+        Path path;
+        if (isArchived(receiptPath)) {
+            path = restore(receiptPath);
+        } else if (RELATIVE_PATH_PATTERN.matcher(receiptPath).matches()) {
+            path = root.resolve(receiptPath);
+        } else {
+            // Reçus générés avant le stockage réparti : chemin enregistré tel quel
+            path = Paths.get(receiptPath);
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new IOException("Le fichier du reçu n'existe pas : " + receiptPath);
+        }
+        return path;
+    }
+
+    @Override
+    public Map<Long, String> archive(Map<Long, String> receipts) throws IOException {
+        Map<Long, String> archived = new LinkedHashMap<>();
+        if (receipts.isEmpty()) {
+            return archived;
+        }
+        Path archives = root.resolve(ARCHIVES_DIR);
+        Files.createDirectories(archives);
+        String bundleName = "recus-" + LocalDateTime.now().format(BUNDLE_FORMATTER) + ".zip";
+        Path bundle = archives.resolve(bundleName);
+        Path tmp = Files.createTempFile(archives, "recus-", ".tmp");
+        try {
+            try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(tmp))) {
+                for (Map.Entry<Long, String> receipt : receipts.entrySet()) {
+                    String receiptPath = receipt.getValue();
+                    if (receiptPath == null || isArchived(receiptPath)) {
+                        continue;
+                    }
+                    Path file = currentFile(receiptPath);
+                    if (!Files.isRegularFile(file)) {
+                        logger.warn("Reçu introuvable, non archivé : {}", receiptPath);
+                        continue;
+                    }
+                    String entryName = RELATIVE_PATH_PATTERN.matcher(receiptPath).matches()
+                            ? receiptPath
+                            : LEGACY_ENTRY_DIR + file.getFileName();
+                    ZipEntry entry = new ZipEntry(entryName);
+                    entry.setLastModifiedTime(Files.getLastModifiedTime(file));
+                    zip.putNextEntry(entry);
+                    Files.copy(file, zip);
+                    zip.closeEntry();
+                    archived.put(receipt.getKey(), ARCHIVES_DIR + "/" + bundleName + ARCHIVE_SEPARATOR + entryName);
+                }
+            }
+            if (!archived.isEmpty()) {
+                Files.move(tmp, bundle, StandardCopyOption.ATOMIC_MOVE);
+                logger.info("{} reçu(s) archivé(s) dans {}", archived.size(), bundleName);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return archived;
+    }
+
+    @Override
+    public boolean isArchived(String receiptPath) {
+        return receiptPath != null && receiptPath.startsWith(ARCHIVES_DIR + "/")
+                && receiptPath.contains(ARCHIVE_SEPARATOR);
+    }
+
+    @Override
+    public void delete(String receiptPath) throws IOException {
+        if (receiptPath != null && !isArchived(receiptPath)) {
+            Files.deleteIfExists(currentFile(receiptPath));
+        }
+    }
+
+    @Override
+    public int purgeRestored(Duration maxAge) throws IOException {
+        Path restored = root.resolve(RESTORED_DIR);
+        if (!Files.isDirectory(restored)) {
+            return 0;
+        }
+        FileTime limit = FileTime.from(Instant.now().minus(maxAge));
+        List<Path> expired;
+        try (Stream<Path> files = Files.walk(restored)) {
+            expired = files.filter(Files::isRegularFile)
+                    .filter(file -> isOlderThan(file, limit))
+                    .collect(Collectors.toList());
+        }
+        for (Path file : expired) {
+            Files.deleteIfExists(file);
+        }
+        return expired.size();
+    }
+
+    /**
+     * Extrait un reçu archivé dans restored/, sauf s'il l'a déjà été
+     */
+    private Path restore(String receiptPath) throws IOException {
+        int separator = receiptPath.indexOf(ARCHIVE_SEPARATOR);
+        Path bundle = root.resolve(receiptPath.substring(0, separator));
+        String entryName = receiptPath.substring(separator + 1);
+        Path target = root.resolve(RESTORED_DIR).resolve(entryName).normalize();
+        if (!target.startsWith(root.resolve(RESTORED_DIR).normalize())) {
+            throw new IOException("Chemin d'archive invalide : " + receiptPath);
+        }
+        if (Files.isRegularFile(target)) {
+            return target;
+        }
+        Files.createDirectories(target.getParent());
+        try (ZipFile zip = new ZipFile(bundle.toFile())) {
+            ZipEntry entry = zip.getEntry(entryName);
+            if (entry == null) {
+                throw new IOException("Reçu absent de l'archive : " + receiptPath);
+            }
+            Path tmp = Files.createTempFile(target.getParent(), "recu-", ".tmp");
+            try {
+                try (InputStream in = zip.getInputStream(entry)) {
+                    Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        return target;
+    }
+
+    private Path currentFile(String receiptPath) {
+        return RELATIVE_PATH_PATTERN.matcher(receiptPath).matches()
+                ? root.resolve(receiptPath)
+                : Paths.get(receiptPath);
+    }
+
+    private boolean isOlderThan(Path file, FileTime limit) {
+        try {
+            return Files.getLastModifiedTime(file).compareTo(limit) < 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static String relativePath(Long reservationId) {
+        String hash = HexFormat.of().formatHex(sha256(Long.toString(reservationId)));
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/recu_reservation_" + reservationId + ".pdf";
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
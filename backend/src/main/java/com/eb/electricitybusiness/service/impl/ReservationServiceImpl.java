@@ -1,25 +1,52 @@
 package com.eb.electricitybusiness.service.impl;
 
+import com.eb.electricitybusiness.dto.ReservationBatchItemDto;
+import com.eb.electricitybusiness.dto.ReservationBatchResultDto;
+import com.eb.electricitybusiness.dto.ExportFormat;
 import com.eb.electricitybusiness.dto.ReservationDto;
+import com.eb.electricitybusiness.dto.ReservationExportRow;
+import com.eb.electricitybusiness.dto.ReservationSlotRow;
 import com.eb.electricitybusiness.exception.ResourceNotFoundException;
 import com.eb.electricitybusiness.mapper.ReservationMapper;
 import com.eb.electricitybusiness.model.Borne;
 import com.eb.electricitybusiness.model.Reservation;
 import com.eb.electricitybusiness.model.Utilisateur;
 import com.eb.electricitybusiness.repository.BorneRepository;
+import com.eb.electricitybusiness.repository.ReservationBatchRepository;
+import com.eb.electricitybusiness.repository.ReservationExportRepository;
 import com.eb.electricitybusiness.repository.ReservationRepository;
 import com.eb.electricitybusiness.repository.UtilisateurRepository;
+import com.eb.electricitybusiness.service.DashboardStatsService;
+import com.eb.electricitybusiness.service.DisponibiliteService;
 import com.eb.electricitybusiness.service.PdfReceiptService;
 import com.eb.electricitybusiness.service.PriceCalculator;
+import com.eb.electricitybusiness.service.ReceiptGenerationQueue;
+import com.eb.electricitybusiness.service.ReservationExportWriter;
+import com.eb.electricitybusiness.service.ReservationIntervalIndex;
 import com.eb.electricitybusiness.service.ReservationService;
 import com.eb.electricitybusiness.validator.ReservationValidator;
 import com.eb.electricitybusiness.validator.ValidationResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.data.jpa.domain.Specification;
 import jakarta.persistence.criteria.Predicate;
@@ -32,39 +59,61 @@ import java.util.ArrayList;
 public class ReservationServiceImpl implements ReservationService {
 
     private static final Logger logger = LoggerFactory.getLogger(ReservationServiceImpl.class);
+    private static final String SQLSTATE_EXCLUSION_VIOLATION = "23P01";
+    private static final int MAX_LOT = 200;
 
     private final ReservationRepository reservationRepository;
     private final BorneRepository borneRepository;
     private final UtilisateurRepository utilisateurRepository;
-    private final PdfReceiptService pdfReceiptService;
+    private final ReceiptGenerationQueue receiptGenerationQueue;
     private final ReservationValidator validator;
     private final PriceCalculator priceCalculator;
     private final ReservationMapper mapper;
+    private final DashboardStatsService dashboardStatsService;
+    private final ReservationIntervalIndex intervalIndex;
+    private final DisponibiliteService disponibiliteService;
+    private final ReservationBatchRepository reservationBatchRepository;
+    private final ReservationExportRepository reservationExportRepository;
+    private final ReservationExportWriter reservationExportWriter;
 
     public ReservationServiceImpl(
             ReservationRepository reservationRepository,
             BorneRepository borneRepository,
             UtilisateurRepository utilisateurRepository,
-            PdfReceiptService pdfReceiptService,
+            ReceiptGenerationQueue receiptGenerationQueue,
             ReservationValidator validator,
             PriceCalculator priceCalculator,
-            ReservationMapper mapper) {
+            ReservationMapper mapper,
+            DashboardStatsService dashboardStatsService,
+            ReservationIntervalIndex intervalIndex,
+            DisponibiliteService disponibiliteService,
+            ReservationBatchRepository reservationBatchRepository,
+            ReservationExportRepository reservationExportRepository,
+            ReservationExportWriter reservationExportWriter) {
         this.reservationRepository = reservationRepository;
         this.borneRepository = borneRepository;
         this.utilisateurRepository = utilisateurRepository;
-        this.pdfReceiptService = pdfReceiptService;
+        this.receiptGenerationQueue = receiptGenerationQueue;
         this.validator = validator;
         this.priceCalculator = priceCalculator;
         this.mapper = mapper;
+        this.dashboardStatsService = dashboardStatsService;
+        this.intervalIndex = intervalIndex;
+        this.disponibiliteService = disponibiliteService;
+        this.reservationBatchRepository = reservationBatchRepository;
+        this.reservationExportRepository = reservationExportRepository;
+        this.reservationExportWriter = reservationExportWriter;
     }
 
     @Override
     @SuppressWarnings("null")
-    public ReservationDto create(ReservationDto dto) {
+    public ReservationDto create(ReservationDto dto, boolean lean) {
         logger.debug("Creating reservation for user {} on station {}", dto.getUtilisateurId(),
                 dto.getBorneId());
 
-        Borne borne = borneRepository.findByIdWithLock(dto.getBorneId())
+        // Pas de verrou sur la borne : le chevauchement de créneaux confirmés est
+        // garanti par la contrainte d'exclusion, vérifiée à l'acceptation
+        Borne borne = borneRepository.findById(dto.getBorneId())
                 .orElseThrow(() -> new EntityNotFoundException("Borne non trouvée avec l'id " + dto.getBorneId()));
         Utilisateur utilisateur = utilisateurRepository.findById(dto.getUtilisateurId())
                 .orElseThrow(() -> new ResourceNotFoundException("Utilisateur", "id", dto.getUtilisateurId()));
@@ -86,17 +135,122 @@ public class ReservationServiceImpl implements ReservationService {
         reservation.setTotalPrice(priceCalculator.calculateTotalPrice(borne, dto.getDateDebut(), dto.getDateFin()));
 
         Reservation saved = reservationRepository.save(reservation);
+        dashboardStatsService.onReservationCreated(saved);
 
-        // Reload with details to avoid lazy loading issues
-        return mapper.toDto(reservationRepository.findWithDetails(saved.getNumeroReservation())
-                .orElse(saved));
+        // Borne et utilisateur sont déjà dans le contexte de persistance : pas de rechargement
+        return toResponse(saved, lean);
+    }
+
+    @Override
+    public ReservationBatchResultDto createBatch(List<ReservationDto> dtos) {
+        if (dtos == null || dtos.isEmpty()) {
+            throw new IllegalArgumentException("Le lot de réservations est vide");
+        }
+        if (dtos.size() > MAX_LOT) {
+            throw new IllegalArgumentException("Lot trop volumineux : " + MAX_LOT + " réservations maximum");
+        }
+        logger.debug("Creating batch of {} reservations", dtos.size());
+
+        // Bornes et utilisateurs chargés en une requête chacun
+        Map<Long, Borne> bornes = borneRepository.findAllById(distinctIds(dtos, ReservationDto::getBorneId))
+                .stream()
+                .collect(Collectors.toMap(Borne::getIdBorne, Function.identity()));
+        Map<Long, Utilisateur> utilisateurs = utilisateurRepository
+                .findAllById(distinctIds(dtos, ReservationDto::getUtilisateurId))
+                .stream()
+                .collect(Collectors.toMap(Utilisateur::getIdUtilisateur, Function.identity()));
+
+        List<List<String>> erreurs = new ArrayList<>(dtos.size());
+        List<Integer> candidats = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            ReservationDto dto = dtos.get(i);
+            List<String> itemErreurs = new ArrayList<>();
+            erreurs.add(itemErreurs);
+            if (dto == null) {
+                itemErreurs.add("Réservation absente");
+                continue;
+            }
+            if (dto.getUtilisateurId() == null || !utilisateurs.containsKey(dto.getUtilisateurId())) {
+                itemErreurs.add("Utilisateur non trouvé avec l'id " + dto.getUtilisateurId());
+            }
+            itemErreurs.addAll(validator.validateDates(dto).getErrors());
+            itemErreurs.addAll(validator.validateStationAvailability(
+                    dto.getBorneId() != null ? bornes.get(dto.getBorneId()) : null).getErrors());
+            if (itemErreurs.isEmpty()) {
+                candidats.add(i);
+            }
+        }
+
+        List<ValidationResult> conflits = validator.validateBatchNoConflicts(
+                candidats.stream().map(dtos::get).collect(Collectors.toList()));
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, Reservation> creees = new LinkedHashMap<>();
+        for (int k = 0; k < candidats.size(); k++) {
+            int index = candidats.get(k);
+            if (!conflits.get(k).isValid()) {
+                erreurs.get(index).addAll(conflits.get(k).getErrors());
+                continue;
+            }
+            ReservationDto dto = dtos.get(index);
+            Borne borne = bornes.get(dto.getBorneId());
+            Reservation reservation = new Reservation();
+            reservation.setDateDebut(dto.getDateDebut());
+            reservation.setDateFin(dto.getDateFin());
+            reservation.setBorne(borne);
+            reservation.setUtilisateur(utilisateurs.get(dto.getUtilisateurId()));
+            reservation.setPrixALaMinute(borne.getPrixALaMinute());
+            reservation.setTotalPrice(priceCalculator.calculateTotalPrice(borne, dto.getDateDebut(), dto.getDateFin()));
+            reservation.setCreatedAt(now);
+            creees.put(index, reservation);
+        }
+
+        List<Reservation> aInserer = new ArrayList<>(creees.values());
+        reservationBatchRepository.insertAll(aInserer);
+        dashboardStatsService.onReservationsCreated(aInserer);
+
+        List<ReservationBatchItemDto> resultats = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            Reservation reservation = creees.get(i);
+            ReservationDto dto = dtos.get(i);
+            resultats.add(reservation != null
+                    ? new ReservationBatchItemDto(i, true, reservation.getNumeroReservation(),
+                            reservation.getBorne().getIdBorne(), reservation.getDateDebut(),
+                            reservation.getDateFin(), reservation.getTotalPrice(), List.of())
+                    : new ReservationBatchItemDto(i, false, null,
+                            dto != null ? dto.getBorneId() : null,
+                            dto != null ? dto.getDateDebut() : null,
+                            dto != null ? dto.getDateFin() : null, null, erreurs.get(i)));
+        }
+        logger.info("Lot de réservations traité : {} créées, {} rejetées", creees.size(),
+                dtos.size() - creees.size());
+        return new ReservationBatchResultDto(dtos.size(), creees.size(), dtos.size() - creees.size(), resultats);
+    }
+
+    private static List<Long> distinctIds(List<ReservationDto> dtos, Function<ReservationDto, Long> id) {
+        return dtos.stream()
+                .filter(Objects::nonNull)
+                .map(id)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Réponse construite depuis les entités du contexte de persistance ; en mode
+     * allégé seuls l'identifiant et l'état sont renvoyés
+     */
+    private ReservationDto toResponse(Reservation reservation, boolean lean) {
+        return lean ? mapper.toLeanDto(reservation) : mapper.toDto(reservation);
     }
 
     @Override
     @SuppressWarnings("null")
-    public ReservationDto cancel(Long reservationId, Long requesterId) {
+    public ReservationDto cancel(Long reservationId, Long requesterId, boolean lean) {
         logger.debug("Cancelling reservation {} by requester {}", reservationId, requesterId);
-        Reservation reservation = reservationRepository.findById(reservationId)
+        // Chargement unique avec les détails, réutilisé pour construire la réponse
+        Reservation reservation = reservationRepository.findWithDetails(reservationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Reservation", "id", reservationId));
 
         // Valider avec ReservationValidator
@@ -110,30 +264,34 @@ public class ReservationServiceImpl implements ReservationService {
             throw new IllegalArgumentException(cancelResult.getFirstError());
         }
 
+        Reservation.EtatReservation ancienEtat = reservation.getEtat();
         reservation.setEtat(Reservation.EtatReservation.ANNULEE);
         Reservation saved = reservationRepository.save(reservation);
+        dashboardStatsService.onEtatChanged(saved, ancienEtat);
+        intervalIndex.sync(saved, ancienEtat);
+        disponibiliteService.invalidate(saved.getBorne().getIdBorne());
 
-        // Recharger avec les détails pour éviter les problèmes de chargement différé
-        return mapper.toDto(reservationRepository.findWithDetails(saved.getNumeroReservation())
-                .orElse(saved));
+        return toResponse(saved, lean);
     }
 
     @Override
     @SuppressWarnings("null")
-    public ReservationDto complete(Long reservationId) {
+    public ReservationDto complete(Long reservationId, boolean lean) {
         logger.debug("Completing reservation {}", reservationId);
-        Reservation reservation = reservationRepository.findById(reservationId)
+        Reservation reservation = reservationRepository.findWithDetails(reservationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Reservation", "id", reservationId));
+        Reservation.EtatReservation ancienEtat = reservation.getEtat();
         reservation.setEtat(Reservation.EtatReservation.TERMINEE);
-        Reservation saved = reservationRepository.save(reservation);
+        Reservation saved = flushEtatBloquant(reservation);
+        dashboardStatsService.onEtatChanged(saved, ancienEtat);
+        intervalIndex.sync(saved, ancienEtat);
+        disponibiliteService.invalidate(saved.getBorne().getIdBorne());
 
-        // Recharger avec les détails pour éviter les problèmes de chargement différé
-        return mapper.toDto(reservationRepository.findWithDetails(saved.getNumeroReservation())
-                .orElse(saved));
+        return toResponse(saved, lean);
     }
 
     @Override
-    public ReservationDto accepter(Long reservationId, Long proprietaireId) {
+    public ReservationDto accepter(Long reservationId, Long proprietaireId, boolean lean) {
         logger.debug("Accepting reservation {} by owner {}", reservationId, proprietaireId);
 
         Reservation reservation = reservationRepository.findWithDetails(reservationId)
@@ -161,28 +319,22 @@ public class ReservationServiceImpl implements ReservationService {
             throw new IllegalArgumentException(noConflictResult.getFirstError());
         }
 
-        // Changer le statut
+        // Changer le statut ; le reçu PDF est généré en arrière-plan après le commit
+        Reservation.EtatReservation ancienEtat = reservation.getEtat();
         reservation.setEtat(Reservation.EtatReservation.CONFIRMEE);
+        reservation.setReceiptPath(PdfReceiptService.RECEIPT_PENDING);
+        Reservation saved = flushEtatBloquant(reservation);
+        receiptGenerationQueue.submitAfterCommit(saved.getNumeroReservation());
 
-        // Générer le reçu PDF
-        try {
-            String receiptPath = pdfReceiptService.generateReceipt(reservation);
-            reservation.setReceiptPath(receiptPath);
-            logger.info("Reçu PDF généré pour la réservation #{}: {}", reservationId, receiptPath);
-        } catch (Exception e) {
-            logger.error("Erreur lors de la génération du reçu PDF pour la réservation #{}", reservationId, e);
-            // Continuer même si la génération du PDF échoue
-        }
+        dashboardStatsService.onEtatChanged(saved, ancienEtat);
+        intervalIndex.sync(saved, ancienEtat);
+        disponibiliteService.invalidate(saved.getBorne().getIdBorne());
 
-        Reservation saved = reservationRepository.save(reservation);
-
-        // Recharger avec les détails pour éviter les problèmes de chargement différé
-        return mapper.toDto(reservationRepository.findWithDetails(saved.getNumeroReservation())
-                .orElse(saved));
+        return toResponse(saved, lean);
     }
 
     @Override
-    public ReservationDto refuser(Long reservationId, Long proprietaireId, String motif) {
+    public ReservationDto refuser(Long reservationId, Long proprietaireId, String motif, boolean lean) {
         logger.debug("Refusing reservation {} by owner {} with reason: {}", reservationId, proprietaireId, motif);
 
         Reservation reservation = reservationRepository.findWithDetails(reservationId)
@@ -200,13 +352,15 @@ public class ReservationServiceImpl implements ReservationService {
         }
 
         // Changer le statut
+        Reservation.EtatReservation ancienEtat = reservation.getEtat();
         reservation.setEtat(Reservation.EtatReservation.REFUSEE);
 
         Reservation saved = reservationRepository.save(reservation);
+        dashboardStatsService.onEtatChanged(saved, ancienEtat);
+        intervalIndex.sync(saved, ancienEtat);
+        disponibiliteService.invalidate(saved.getBorne().getIdBorne());
 
-        // Recharger avec les détails pour éviter les problèmes de chargement différé
-        return mapper.toDto(reservationRepository.findWithDetails(saved.getNumeroReservation())
-                .orElse(saved));
+        return toResponse(saved, lean);
     }
 
     @Override
@@ -216,12 +370,29 @@ public class ReservationServiceImpl implements ReservationService {
                 .orElseThrow(() -> new ResourceNotFoundException("Reservation", "id", id)));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public String getReceiptPath(Long id) {
+        return reservationRepository.findReceiptPathById(id).orElseGet(() -> {
+            if (!reservationRepository.existsById(id)) {
+                throw new ResourceNotFoundException("Reservation", "id", id);
+            }
+            return null;
+        });
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<ReservationDto> getByUser(Long userId) {
         return mapper.toDtoList(reservationRepository.findByUtilisateur_IdUtilisateur(userId));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ReservationDto> getRecentByUser(Long userId, int limit) {
+        return mapper.toDtoList(reservationRepository.findRecentByUtilisateur(userId, PageRequest.of(0, limit)));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<ReservationDto> getByChargingStation(Long stationId) {
@@ -238,9 +409,8 @@ public class ReservationServiceImpl implements ReservationService {
     @Transactional(readOnly = true)
     public List<ReservationDto> filtrer(String statut, java.time.LocalDateTime dateDebut,
             java.time.LocalDateTime dateFin, Long borneId, Long utilisateurId) {
+        Specification<Reservation> filtre = filtreSpecification(statut, dateDebut, dateFin, borneId, utilisateurId);
         Specification<Reservation> spec = (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-
             // Récupérer les relations pour éviter N+1
             if (query.getResultType() != Long.class) {
                 root.fetch("utilisateur", JoinType.INNER);
@@ -248,6 +418,36 @@ public class ReservationServiceImpl implements ReservationService {
                 borneFetch.fetch("owner", JoinType.LEFT);
                 borneFetch.fetch("medias", JoinType.LEFT);
             }
+            return filtre.toPredicate(root, query, cb);
+        };
+
+        return mapper.toDtoList(reservationRepository.findAll(spec));
+    }
+
+    /**
+     * Export des réservations filtrées comme /filtrer, lues en flux depuis un
+     * curseur et écrites au fil de l'eau : la transaction reste ouverte pendant
+     * l'écriture de la réponse
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exporter(ExportFormat format, String statut, java.time.LocalDateTime dateDebut,
+            java.time.LocalDateTime dateFin, Long borneId, Long utilisateurId, OutputStream out) throws IOException {
+        Specification<Reservation> filtre = filtreSpecification(statut, dateDebut, dateFin, borneId, utilisateurId);
+        try (Stream<ReservationExportRow> rows = reservationExportRepository.stream(filtre)) {
+            long count = reservationExportWriter.write(format, rows, out);
+            logger.info("Export {} : {} réservation(s)", format, count);
+            return count;
+        }
+    }
+
+    /**
+     * Critères de /filtrer, partagés avec l'export
+     */
+    private Specification<Reservation> filtreSpecification(String statut, java.time.LocalDateTime dateDebut,
+            java.time.LocalDateTime dateFin, Long borneId, Long utilisateurId) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
 
             if (statut != null && !statut.isEmpty()) {
                 Reservation.EtatReservation etat = parseEtatReservation(statut);
@@ -274,8 +474,6 @@ public class ReservationServiceImpl implements ReservationService {
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
-
-        return mapper.toDtoList(reservationRepository.findAll(spec));
     }
 
     @Override
@@ -284,6 +482,54 @@ public class ReservationServiceImpl implements ReservationService {
         return mapper.toDtoList(reservationRepository.findAll());
     }
 
+    /**
+     * Chargement de l'index des créneaux réservés au démarrage, puis
+     * rechargement périodique pour rattraper les modifications faites par
+     * d'autres instances
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.reservations.interval-index.refresh-ms:300000}",
+            initialDelayString = "${app.reservations.interval-index.refresh-ms:300000}")
+    @Transactional(readOnly = true)
+    public void reloadIntervalIndex() {
+        if (!intervalIndex.isConfigured()) {
+            return;
+        }
+        LocalDateTime depuis = intervalIndex.horizonFrom(LocalDateTime.now());
+        intervalIndex.beginLoad();
+        try (Stream<ReservationSlotRow> rows = reservationRepository.streamSlotsEndingAfter(
+                ReservationIntervalIndex.ETATS_BLOQUANTS, depuis)) {
+            intervalIndex.load(rows.iterator(), depuis);
+        }
+    }
+
+    /**
+     * Écrit immédiatement le passage dans un état bloquant : la contrainte
+     * d'exclusion excl_reservation_chevauchement départage deux acceptations
+     * concurrentes de créneaux qui se chevauchent sur la même borne.
+     */
+    private Reservation flushEtatBloquant(Reservation reservation) {
+        try {
+            return reservationRepository.saveAndFlush(reservation);
+        } catch (DataIntegrityViolationException e) {
+            if (isExclusionViolation(e)) {
+                logger.debug("Exclusion constraint rejected reservation {} on station {}",
+                        reservation.getNumeroReservation(), reservation.getBorne().getIdBorne());
+                throw new IllegalArgumentException("Conflit de réservation : la plage horaire est déjà réservée");
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isExclusionViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && SQLSTATE_EXCLUSION_VIOLATION.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Parse l'état de réservation de manière tolérante (gère les variations de
      * noms)
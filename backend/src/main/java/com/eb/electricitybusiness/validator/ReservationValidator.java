@@ -1,25 +1,35 @@
 package com.eb.electricitybusiness.validator;
 
 import com.eb.electricitybusiness.dto.ReservationDto;
+import com.eb.electricitybusiness.dto.ReservationSlotRow;
 import com.eb.electricitybusiness.model.Borne;
 import com.eb.electricitybusiness.model.Reservation;
 import com.eb.electricitybusiness.repository.ReservationRepository;
+import com.eb.electricitybusiness.service.ReservationIntervalIndex;
+import com.eb.electricitybusiness.service.ReservationIntervalTree;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Component
 public class ReservationValidator {
 
     private static final Logger logger = LoggerFactory.getLogger(ReservationValidator.class);
     private final ReservationRepository reservationRepository;
+    private final ReservationIntervalIndex intervalIndex;
 
-    public ReservationValidator(ReservationRepository reservationRepository) {
+    public ReservationValidator(ReservationRepository reservationRepository,
+            ReservationIntervalIndex intervalIndex) {
         this.reservationRepository = reservationRepository;
+        this.intervalIndex = intervalIndex;
     }
 
     /**
@@ -64,6 +74,16 @@ public class ReservationValidator {
      */
     public ValidationResult validateNoConflicts(Long stationId, LocalDateTime dateDebut, LocalDateTime dateFin,
             Long excludeReservationId) {
+        // Chemin rapide : arbre d'intervalles de la borne, sans aller-retour en base
+        if (intervalIndex.canAnswer(dateDebut)) {
+            if (intervalIndex.hasConflict(stationId, dateDebut, dateFin, excludeReservationId)) {
+                logger.debug("Conflicting reservation found in interval index for station {} between {} and {}",
+                        stationId, dateDebut, dateFin);
+                return ValidationResult.failure("Conflit de réservation : la plage horaire est déjà réservée");
+            }
+            return ValidationResult.success();
+        }
+
         var conflicts = reservationRepository.findConflictingReservations(stationId, dateDebut, dateFin);
 
         // Filtrer la réservation en cours de modification si applicable
@@ -82,6 +102,54 @@ public class ReservationValidator {
         return ValidationResult.success();
     }
 
+    /**
+     * Valide l'absence de conflits pour un lot de créneaux (dates déjà
+     * validées), en une seule lecture : contre les réservations bloquantes en
+     * base, puis entre eux. Les résultats suivent l'ordre des créneaux ; un
+     * créneau rejeté n'est pas opposé aux suivants.
+     */
+    public List<ValidationResult> validateBatchNoConflicts(List<ReservationDto> dtos) {
+        List<ValidationResult> results = new ArrayList<>(dtos.size());
+        if (dtos.isEmpty()) {
+            return results;
+        }
+
+        LocalDateTime debut = dtos.stream().map(ReservationDto::getDateDebut).min(LocalDateTime::compareTo).get();
+        LocalDateTime fin = dtos.stream().map(ReservationDto::getDateFin).max(LocalDateTime::compareTo).get();
+        boolean viaIndex = intervalIndex.canAnswer(debut);
+        Map<Long, ReservationIntervalTree> existants = new HashMap<>();
+        if (!viaIndex) {
+            Set<Long> borneIds = new TreeSet<>();
+            dtos.forEach(dto -> borneIds.add(dto.getBorneId()));
+            for (ReservationSlotRow row : reservationRepository.findSlotsForBornes(borneIds,
+                    ReservationIntervalIndex.ETATS_BLOQUANTS, debut, fin)) {
+                existants.computeIfAbsent(row.getIdBorne(), id -> new ReservationIntervalTree())
+                        .put(row.getNumeroReservation(), row.getDateDebut(), row.getDateFin());
+            }
+        }
+
+        Map<Long, ReservationIntervalTree> lot = new HashMap<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            ReservationDto dto = dtos.get(i);
+            boolean conflitBase = viaIndex
+                    ? intervalIndex.hasConflict(dto.getBorneId(), dto.getDateDebut(), dto.getDateFin(), null)
+                    : existants.containsKey(dto.getBorneId())
+                            && existants.get(dto.getBorneId()).overlaps(dto.getDateDebut(), dto.getDateFin(), null);
+            ReservationIntervalTree creneauxDuLot = lot.computeIfAbsent(dto.getBorneId(),
+                    id -> new ReservationIntervalTree());
+            if (conflitBase) {
+                results.add(ValidationResult.failure("Conflit de réservation : la plage horaire est déjà réservée"));
+            } else if (creneauxDuLot.overlaps(dto.getDateDebut(), dto.getDateFin(), null)) {
+                results.add(ValidationResult.failure("Le créneau chevauche un autre créneau du lot"));
+            } else {
+                creneauxDuLot.put(i, dto.getDateDebut(), dto.getDateFin());
+                results.add(ValidationResult.success());
+            }
+        }
+        logger.debug("Validated {} batch slots for conflicts (interval index: {})", dtos.size(), viaIndex);
+        return results;
+    }
+
     /**
      * Valide qu'une borne de recharge est disponible pour la réservation
      */
@@ -1,6 +1,7 @@
 package com.eb.electricitybusiness.controller;
 
 import com.eb.electricitybusiness.dto.BorneDto;
+import com.eb.electricitybusiness.dto.BorneSummary;
 import com.eb.electricitybusiness.service.BorneService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -97,9 +98,11 @@ public class BorneControllerTest {
         @WithMockUser
         public void testGetAllBornes() throws Exception {
                 // Arrange
-                List<BorneDto> bornes = Arrays.asList(
-                                new BorneDto(),
-                                new BorneDto());
+                List<BorneSummary> bornes = Arrays.asList(
+                                new BorneSummary(1L, 1L, "B1", "Borne 1", "Paris", 48.85, 2.35, 22, null, null,
+                                                null, "NORMALE", "DISPONIBLE", false, 1L, 1L, null),
+                                new BorneSummary(2L, 2L, "B2", "Borne 2", "Paris", 48.86, 2.36, 50, null, null,
+                                                null, "RAPIDE", "DISPONIBLE", false, 1L, 1L, null));
                 when(borneService.getAllBornesDto()).thenReturn(bornes);
 
                 // Act & Assert
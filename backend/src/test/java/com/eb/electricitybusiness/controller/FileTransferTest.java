@@ -0,0 +1,53 @@
+package com.eb.electricitybusiness.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.EOFException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileTransferTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void send_WritesRequestedRange() throws Exception {
+        Path file = Files.write(tempDir.resolve("photo.jpg"), "0123456789".getBytes());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        FileTransfer.send(file, 2, 5, new MockHttpServletRequest(), response);
+
+        assertEquals("2345", response.getContentAsString());
+    }
+
+    @Test
+    void send_FileShortenedDuringTransfer_ThrowsInsteadOfLooping() throws Exception {
+        // Longueur lue avant que le fichier ne soit raccourci
+        Path file = Files.write(tempDir.resolve("photo.jpg"), "01234".getBytes());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(EOFException.class,
+                () -> FileTransfer.send(file, 0, 9, new MockHttpServletRequest(), response)));
+        assertEquals("01234", response.getContentAsString());
+    }
+
+    @Test
+    void send_SendfileSupported_DelegatesToTomcat() throws Exception {
+        Path file = Files.write(tempDir.resolve("photo.jpg"), "0123456789".getBytes());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        FileTransfer.send(file, 0, 9, request, response);
+
+        assertEquals(10L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+}
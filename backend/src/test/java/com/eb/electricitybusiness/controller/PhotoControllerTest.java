@@ -0,0 +1,120 @@
+package com.eb.electricitybusiness.controller;
+
+import com.eb.electricitybusiness.service.PhotoStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class PhotoControllerTest {
+
+    private static final String HASH = "ab".repeat(32);
+    private static final String FILE_NAME = HASH + ".jpg";
+
+    @Mock
+    private PhotoStorageService photoStorageService;
+
+    @InjectMocks
+    private PhotoController photoController;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        Path file = tempDir.resolve(FILE_NAME);
+        Files.write(file, "0123456789".getBytes());
+        when(photoStorageService.resolve("ab", "ab", FILE_NAME)).thenReturn(file);
+    }
+
+    @Test
+    void getPhoto_FullContentWithEtag() throws Exception {
+        MockHttpServletResponse response = get(new MockHttpServletRequest("GET", "/"));
+
+        assertEquals(200, response.getStatus());
+        assertEquals("\"" + HASH + "\"", response.getHeader("ETag"));
+        assertEquals("image/jpeg", response.getContentType());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    void getPhoto_MatchingEtag_NotModified() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("If-None-Match", "\"" + HASH + "\"");
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void getPhoto_Range_PartialContent() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", "bytes=2-5");
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/10", response.getHeader("Content-Range"));
+        assertEquals("2345", response.getContentAsString());
+
+        MockHttpServletRequest suffix = new MockHttpServletRequest("GET", "/");
+        suffix.addHeader("Range", "bytes=-3");
+        assertEquals("789", get(suffix).getContentAsString());
+    }
+
+    @Test
+    void getPhoto_UnsatisfiableRange_Returns416() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", "bytes=20-");
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader("Content-Range"));
+    }
+
+    @Test
+    void getPhoto_SendfileSupported_DelegatesToContainer() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(0L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(10L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void getPhoto_VariantNotGeneratedYet_ServesOriginalWithoutLongCache() throws Exception {
+        String variantName = HASH + "_thumb.jpg";
+        when(photoStorageService.resolve("ab", "ab", variantName)).thenReturn(tempDir.resolve(variantName));
+        when(photoStorageService.resolveOriginal("ab", "ab", variantName)).thenReturn(tempDir.resolve(FILE_NAME));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        photoController.getPhoto("ab", "ab", variantName, new MockHttpServletRequest("GET", "/"), response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("no-cache", response.getHeader("Cache-Control"));
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        photoController.getPhoto("ab", "ab", FILE_NAME, request, response);
+        return response;
+    }
+}
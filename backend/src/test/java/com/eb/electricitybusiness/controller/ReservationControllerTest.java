@@ -0,0 +1,143 @@
+package com.eb.electricitybusiness.controller;
+
+import com.eb.electricitybusiness.dto.ExportFormat;
+import com.eb.electricitybusiness.exception.ResourceNotFoundException;
+import com.eb.electricitybusiness.security.AuthenticationFacade;
+import com.eb.electricitybusiness.service.PdfReceiptService;
+import com.eb.electricitybusiness.service.ReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ReservationControllerTest {
+
+    private static final String FILE_NAME = "recu_reservation_7.pdf";
+    private static final FileTime MODIFIED = FileTime.fromMillis(1_700_000_000_000L);
+    private static final String ETAG = "\"recu_reservation_7-" + Long.toHexString(1_700_000_000_000L) + "\"";
+
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private PdfReceiptService pdfReceiptService;
+
+    @Mock
+    private AuthenticationFacade authenticationFacade;
+
+    @InjectMocks
+    private ReservationController reservationController;
+
+    @TempDir
+    Path tempDir;
+
+    private Path receipt;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        receipt = tempDir.resolve(FILE_NAME);
+        Files.write(receipt, "%PDF-1.4 recu".getBytes());
+        Files.setLastModifiedTime(receipt, MODIFIED);
+        when(reservationService.getReceiptPath(7L)).thenReturn(receipt.toString());
+        when(pdfReceiptService.getReceiptFile(receipt.toString())).thenReturn(receipt);
+    }
+
+    @Test
+    void getReceipt_StreamsFileWithEtag() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResponseEntity<?> entity = reservationController.getReceipt(7L,
+                new MockHttpServletRequest("GET", "/"), response);
+
+        assertNull(entity);
+        assertEquals(200, response.getStatus());
+        assertEquals(ETAG, response.getHeader("ETag"));
+        assertEquals("application/pdf", response.getContentType());
+        assertEquals("%PDF-1.4 recu", response.getContentAsString());
+    }
+
+    @Test
+    void getReceipt_MatchingEtag_NotModified() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("If-None-Match", ETAG);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        reservationController.getReceipt(7L, request, response);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void getReceipt_Regenerated_EtagChanges() throws Exception {
+        Files.setLastModifiedTime(receipt, FileTime.fromMillis(1_700_000_060_000L));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("If-None-Match", ETAG);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        reservationController.getReceipt(7L, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("%PDF-1.4 recu", response.getContentAsString());
+    }
+
+    @Test
+    void getReceipt_Pending_Returns202() {
+        when(reservationService.getReceiptPath(7L)).thenReturn(PdfReceiptService.RECEIPT_PENDING);
+
+        ResponseEntity<?> entity = reservationController.getReceipt(7L,
+                new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse());
+
+        assertEquals(202, entity.getStatusCode().value());
+        assertEquals("2", entity.getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    void getReceipt_UnknownReservation_Returns404() {
+        when(reservationService.getReceiptPath(8L)).thenThrow(new ResourceNotFoundException("Reservation", "id", 8L));
+
+        ResponseEntity<?> entity = reservationController.getReceipt(8L,
+                new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse());
+
+        assertEquals(404, entity.getStatusCode().value());
+    }
+
+    @Test
+    void exporter_InvalidFormat_BadRequest() throws Exception {
+        ResponseEntity<?> entity = reservationController.exporter("pdf", null, null, null, null, null,
+                new MockHttpServletResponse());
+
+        assertEquals(400, entity.getStatusCode().value());
+        verifyNoInteractions(reservationService);
+    }
+
+    @Test
+    void exporter_Csv_SetsAttachmentHeaders() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertNull(reservationController.exporter("csv", "terminee", null, null, null, null, response));
+
+        assertEquals("text/csv;charset=UTF-8", response.getContentType());
+        assertTrue(response.getHeader("Content-Disposition").endsWith(".csv\""));
+        verify(reservationService).exporter(eq(ExportFormat.CSV), eq("terminee"), isNull(), isNull(), isNull(),
+                isNull(), any());
+    }
+}
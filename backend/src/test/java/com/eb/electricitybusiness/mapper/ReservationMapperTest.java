@@ -0,0 +1,45 @@
+package com.eb.electricitybusiness.mapper;
+
+import com.eb.electricitybusiness.dto.ReservationDto;
+import com.eb.electricitybusiness.model.Reservation;
+import com.eb.electricitybusiness.service.PdfReceiptService;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationMapperTest {
+
+    private final ReservationMapper mapper = new ReservationMapper();
+
+    @Test
+    void toDto_PendingReceipt_HidesMarker() {
+        ReservationDto dto = mapper.toDto(reservation(PdfReceiptService.RECEIPT_PENDING));
+
+        assertNull(dto.getReceiptPath());
+        assertEquals("EN_COURS", dto.getReceiptStatus());
+    }
+
+    @Test
+    void toDto_GeneratedReceipt_IsAvailable() {
+        ReservationDto dto = mapper.toDto(reservation("receipts/2026/03/recu_1.pdf"));
+
+        assertEquals("receipts/2026/03/recu_1.pdf", dto.getReceiptPath());
+        assertEquals("DISPONIBLE", dto.getReceiptStatus());
+    }
+
+    @Test
+    void toDto_NoReceipt_HasNoStatus() {
+        ReservationDto dto = mapper.toDto(reservation(null));
+
+        assertNull(dto.getReceiptPath());
+        assertNull(dto.getReceiptStatus());
+    }
+
+    private static Reservation reservation(String receiptPath) {
+        Reservation reservation = new Reservation();
+        reservation.setNumeroReservation(1L);
+        reservation.setEtat(Reservation.EtatReservation.CONFIRMEE);
+        reservation.setReceiptPath(receiptPath);
+        return reservation;
+    }
+}
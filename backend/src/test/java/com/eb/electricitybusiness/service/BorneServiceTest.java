@@ -1,6 +1,14 @@
 package com.eb.electricitybusiness.service;
 
+import com.eb.electricitybusiness.dto.BorneDisponibleDto;
+import com.eb.electricitybusiness.dto.BorneDisponibleRow;
+import com.eb.electricitybusiness.dto.BorneDistance;
 import com.eb.electricitybusiness.dto.BorneDto;
+import com.eb.electricitybusiness.dto.BornePhotoRow;
+import com.eb.electricitybusiness.dto.BorneSearchCriteria;
+import com.eb.electricitybusiness.dto.BorneSummary;
+import com.eb.electricitybusiness.dto.BorneSummaryRow;
+import com.eb.electricitybusiness.dto.CursorPageDto;
 import com.eb.electricitybusiness.model.Borne;
 import com.eb.electricitybusiness.model.Utilisateur;
 import com.eb.electricitybusiness.repository.BorneRepository;
@@ -10,13 +18,21 @@ import com.eb.electricitybusiness.service.impl.BorneServiceImpl;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -40,6 +56,15 @@ class BorneServiceTest {
     @Mock
     private com.eb.electricitybusiness.repository.LieuRepository lieuRepository;
 
+    @Mock
+    private BorneSpatialIndex spatialIndex;
+
+    @Mock
+    private PhotoStorageService photoStorageService;
+
+    @Mock
+    private PhotoVariantGenerator photoVariantGenerator;
+
     @InjectMocks
     private BorneServiceImpl borneService;
 
@@ -296,28 +321,24 @@ class BorneServiceTest {
 
     @Test
     void getByDisponibilite_ReturnsAvailableList() {
-        Borne borne = new Borne();
-        borne.setIdBorne(1L);
-        borne.setEtat(Borne.Etat.DISPONIBLE);
+        BorneSummaryRow row = summaryRow(1L, "DISPONIBLE");
 
-        when(borneRepository.findByEtat(Borne.Etat.DISPONIBLE)).thenReturn(Arrays.asList(borne));
+        when(borneRepository.findSummariesByEtat("DISPONIBLE")).thenReturn(Arrays.asList(row));
 
-        List<BorneDto> result = borneService.getByDisponibilite(true);
+        List<BorneSummary> result = borneService.getByDisponibilite(true);
         assertFalse(result.isEmpty());
-        assertEquals("DISPONIBLE", result.get(0).getEtat());
+        assertEquals("DISPONIBLE", result.get(0).etat());
     }
 
     @Test
     void getByEtat_ReturnsList() {
-        Borne borne = new Borne();
-        borne.setIdBorne(1L);
-        borne.setEtat(Borne.Etat.EN_PANNE);
+        BorneSummaryRow row = summaryRow(1L, "EN_PANNE");
 
-        when(borneRepository.findByEtat(Borne.Etat.EN_PANNE)).thenReturn(Arrays.asList(borne));
+        when(borneRepository.findSummariesByEtat("EN_PANNE")).thenReturn(Arrays.asList(row));
 
-        List<BorneDto> result = borneService.getByEtat("EN_PANNE");
+        List<BorneSummary> result = borneService.getByEtat("EN_PANNE");
         assertFalse(result.isEmpty());
-        assertEquals("EN_PANNE", result.get(0).getEtat());
+        assertEquals("EN_PANNE", result.get(0).etat());
     }
 
     @Test
@@ -326,9 +347,68 @@ class BorneServiceTest {
         assertFalse(borneService.getProches(1.0, 1.0, 10.0).isEmpty());
     }
 
+    @Test
+    void getPlusProches_KeepsDistanceOrderAndSetsDistance() {
+        Borne proche = new Borne();
+        proche.setIdBorne(2L);
+        Borne loin = new Borne();
+        loin.setIdBorne(1L);
+
+        BorneDistance d2 = mock(BorneDistance.class);
+        when(d2.getIdBorne()).thenReturn(2L);
+        when(d2.getDistance()).thenReturn(500.0);
+        BorneDistance d1 = mock(BorneDistance.class);
+        when(d1.getIdBorne()).thenReturn(1L);
+        when(d1.getDistance()).thenReturn(2500.0);
+
+        when(borneRepository.findNearest(48.85, 2.35, 2)).thenReturn(Arrays.asList(d2, d1));
+        when(borneRepository.findAllWithMediasByIdIn(any())).thenReturn(Arrays.asList(loin, proche));
+
+        List<BorneDto> result = borneService.getPlusProches(48.85, 2.35, 2, null);
+
+        assertEquals(2, result.size());
+        assertEquals(2L, result.get(0).getId());
+        assertEquals(0.5, result.get(0).getDistance());
+        assertEquals(1L, result.get(1).getId());
+        assertEquals(2.5, result.get(1).getDistance());
+        verify(borneRepository, never()).findNearestWithin(any(), any(), any(), any());
+        // Medias chargés par jointure avec les bornes, jamais borne par borne
+        verify(borneRepository).findAllWithMediasByIdIn(List.of(2L, 1L));
+        verify(borneRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void searchLibres_SortedByPrix_UsesSingleQueryAndConvertsDistance() {
+        LocalDateTime debut = LocalDateTime.of(2030, 6, 1, 18, 0);
+        LocalDateTime fin = debut.plusHours(1);
+        BorneDisponibleRow row = mock(BorneDisponibleRow.class);
+        when(row.getIdBorne()).thenReturn(3L);
+        when(row.getEtat()).thenReturn("DISPONIBLE");
+        when(row.getDistance()).thenReturn(1500.0);
+        when(borneRepository.findLibresByPrix(48.85, 2.35, 5000.0, debut, fin, 20)).thenReturn(List.of(row));
+
+        List<BorneDisponibleDto> result = borneService.searchLibres(48.85, 2.35, 5.0, debut, fin, "prix", null);
+
+        assertEquals(1, result.size());
+        assertEquals(3L, result.get(0).borne().id());
+        assertEquals(1.5, result.get(0).distance());
+        verify(borneRepository, never()).findLibresByDistance(any(), any(), any(), any(), any(), any());
+        verifyNoInteractions(reservationRepository);
+    }
+
+    @Test
+    void searchLibres_InvalidWindowOrSort_Throws() {
+        LocalDateTime debut = LocalDateTime.of(2030, 6, 1, 18, 0);
+        assertThrows(IllegalArgumentException.class,
+                () -> borneService.searchLibres(48.85, 2.35, 5.0, debut, debut, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> borneService.searchLibres(48.85, 2.35, 5.0, debut, debut.plusHours(1), "nom", null));
+    }
+
     @Test
     void getByLieu_ReturnsList() {
-        when(borneRepository.findByLieuxId(1L)).thenReturn(Arrays.asList(new Borne()));
+        BorneSummaryRow row = summaryRow(1L, "DISPONIBLE");
+        when(borneRepository.findSummariesByLieu(1L)).thenReturn(Arrays.asList(row));
         assertFalse(borneService.getByLieu(1L).isEmpty());
     }
 
@@ -339,13 +419,34 @@ class BorneServiceTest {
     }
 
     @Test
-    void getAllBornesDto_ReturnsList() {
-        when(borneRepository.findAll()).thenReturn(Arrays.asList(new Borne()));
-        assertFalse(borneService.getAllBornesDto().isEmpty());
+    void getAllBornesDto_ReturnsSummariesWithoutLoadingEntities() {
+        BorneSummaryRow row = summaryRow(1L, "DISPONIBLE");
+        when(row.getPrixALaMinute()).thenReturn(new BigDecimal("0.5000"));
+        when(row.getPuissance()).thenReturn(50);
+        when(row.getPhoto()).thenReturn("http://localhost:8080/uploads/bornes/ab/cd/abcd.jpg");
+        when(photoStorageService.variantUrl("http://localhost:8080/uploads/bornes/ab/cd/abcd.jpg",
+                PhotoVariant.THUMBNAIL)).thenReturn("http://localhost:8080/uploads/bornes/ab/cd/abcd_thumb.jpg");
+        when(borneRepository.findAllSummaries()).thenReturn(Arrays.asList(row));
+
+        List<BorneSummary> result = borneService.getAllBornesDto();
+
+        assertEquals(1, result.size());
+        assertEquals(0, new BigDecimal("30").compareTo(result.get(0).hourlyRate()));
+        assertEquals("RAPIDE", result.get(0).type());
+        assertEquals("http://localhost:8080/uploads/bornes/ab/cd/abcd_thumb.jpg", result.get(0).thumbnail());
+        verify(borneRepository, never()).findAll();
+    }
+
+    private BorneSummaryRow summaryRow(Long id, String etat) {
+        BorneSummaryRow row = mock(BorneSummaryRow.class);
+        when(row.getIdBorne()).thenReturn(id);
+        when(row.getEtat()).thenReturn(etat);
+        return row;
     }
 
     @Test
-    void searchAdvanced_FiltersByAllCriteria() {
+    @SuppressWarnings("unchecked")
+    void searchAdvanced_FiltersInDatabase() {
         Borne b1 = new Borne();
         b1.setIdBorne(1L);
         b1.setPrixALaMinute(new BigDecimal("0.5")); // 30 per hour
@@ -353,44 +454,259 @@ class BorneServiceTest {
         b1.setEtat(Borne.Etat.DISPONIBLE);
         b1.setOccupee(false);
 
+        when(borneRepository.findAll(any(Specification.class))).thenReturn(Arrays.asList(b1));
+
+        List<BorneDto> results = borneService.searchAdvanced(48.85, 2.35, 10.0, new BigDecimal("20"),
+                new BigDecimal("40"), 40, "DISPONIBLE", true);
+
+        assertEquals(1, results.size());
+        assertEquals(0, new BigDecimal("30").compareTo(results.get(0).getHourlyRate()));
+        verify(borneRepository, never()).findAll();
+
+        // Chaque critère devient un prédicat de la requête
+        SearchPredicates p = searchPredicates();
+        verify(p.cb).isNotNull(p.geom);
+        verify(p.cb).greaterThanOrEqualTo(p.prix, new BigDecimal("0.3334"));
+        verify(p.cb).lessThanOrEqualTo(p.prix, new BigDecimal("0.6666"));
+        verify(p.cb).greaterThanOrEqualTo(p.puissance, 40);
+        verify(p.cb).equal(p.etat, (Object) Borne.Etat.DISPONIBLE);
+        verify(p.cb).isNull(p.occupee);
+        verify(p.cb).isFalse(p.occupee);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void searchAdvanced_NoCriteria_AddsNoPredicate() {
+        when(borneRepository.findAll(any(Specification.class))).thenReturn(List.of());
+
+        borneService.searchAdvanced(null, null, null, null, null, null, null, null);
+
+        SearchPredicates p = searchPredicates();
+        verify(p.cb, never()).greaterThanOrEqualTo(any(Expression.class), any(Comparable.class));
+        verify(p.cb, never()).lessThanOrEqualTo(any(Expression.class), any(Comparable.class));
+        verify(p.cb, never()).equal(any(Expression.class), any(Object.class));
+        verify(p.cb, never()).isNotNull(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void searchAdvanced_HourlyPriceBounds_RoundedTowardsRange() {
+        when(borneRepository.findAll(any(Specification.class))).thenReturn(List.of());
+
+        // 20.01 €/h = 0.3335 €/min exactement : aucun arrondi
+        borneService.searchAdvanced(null, null, null, new BigDecimal("20.01"), new BigDecimal("20.01"),
+                null, null, null);
+        SearchPredicates p = searchPredicates();
+        verify(p.cb).greaterThanOrEqualTo(p.prix, new BigDecimal("0.3335"));
+        verify(p.cb).lessThanOrEqualTo(p.prix, new BigDecimal("0.3335"));
+
+        // 20.02 €/h = 0.33366... €/min : le minimum est arrondi au-dessus et le
+        // maximum au-dessous, pour ne garder que les prix réellement dans l'intervalle
+        clearInvocations(borneRepository);
+        borneService.searchAdvanced(null, null, null, new BigDecimal("20.02"), new BigDecimal("20.02"),
+                null, null, null);
+        p = searchPredicates();
+        verify(p.cb).greaterThanOrEqualTo(p.prix, new BigDecimal("0.3337"));
+        verify(p.cb).lessThanOrEqualTo(p.prix, new BigDecimal("0.3336"));
+
+        // Plus petit écart représentable
+        clearInvocations(borneRepository);
+        borneService.searchAdvanced(null, null, null, new BigDecimal("0.0001"), new BigDecimal("0.0059"),
+                null, null, null);
+        p = searchPredicates();
+        verify(p.cb).greaterThanOrEqualTo(p.prix, new BigDecimal("0.0001"));
+        verify(p.cb).lessThanOrEqualTo(p.prix, new BigDecimal("0.0000"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void searchAdvanced_StateAliases_MapToEnum() {
+        when(borneRepository.findAll(any(Specification.class))).thenReturn(List.of());
+        String[][] aliases = {
+                { "maintenance", "EN_MAINTENANCE" }, { "En maintenance", "EN_MAINTENANCE" },
+                { "panne", "EN_PANNE" }, { "hors service", "EN_PANNE" }, { "OUT_OF_SERVICE", "EN_PANNE" },
+                { "occupée", "OCCUPEE" }, { " disponible ", "DISPONIBLE" } };
+
+        for (String[] alias : aliases) {
+            clearInvocations(borneRepository);
+            borneService.searchAdvanced(null, null, null, null, null, null, alias[0], null);
+            SearchPredicates p = searchPredicates();
+            verify(p.cb).equal(p.etat, (Object) Borne.Etat.valueOf(alias[1]));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void searchAdvanced_UnknownState_MatchesNothing() {
+        when(borneRepository.findAll(any(Specification.class))).thenReturn(List.of());
+
+        borneService.searchAdvanced(null, null, null, null, null, null, "inconnu", null);
+
+        SearchPredicates p = searchPredicates();
+        verify(p.cb).disjunction();
+        verify(p.cb, never()).equal(any(Expression.class), any(Object.class));
+    }
+
+    /**
+     * Applique la Specification passée à findAll sur des objets Criteria simulés
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private SearchPredicates searchPredicates() {
+        ArgumentCaptor<Specification<Borne>> captor = ArgumentCaptor.forClass(Specification.class);
+        verify(borneRepository).findAll(captor.capture());
+        SearchPredicates p = new SearchPredicates();
+        Root<Borne> root = mock(Root.class);
+        when(root.get("geom")).thenReturn((Path) p.geom);
+        when(root.get("prixALaMinute")).thenReturn((Path) p.prix);
+        when(root.get("puissance")).thenReturn((Path) p.puissance);
+        when(root.get("etat")).thenReturn((Path) p.etat);
+        when(root.get("occupee")).thenReturn((Path) p.occupee);
+        captor.getValue().toPredicate(root, mock(CriteriaQuery.class), p.cb);
+        return p;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static class SearchPredicates {
+        final CriteriaBuilder cb = mock(CriteriaBuilder.class);
+        final Path<Object> geom = mock(Path.class);
+        final Path<BigDecimal> prix = mock(Path.class);
+        final Path<Integer> puissance = mock(Path.class);
+        final Path<Borne.Etat> etat = mock(Path.class);
+        final Path<Boolean> occupee = mock(Path.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void searchPage_MoreRowsThanSize_ReturnsCursor() {
+        Borne b1 = new Borne();
+        b1.setIdBorne(1L);
+        b1.setPrixALaMinute(new BigDecimal("0.2000"));
         Borne b2 = new Borne();
         b2.setIdBorne(2L);
-        b2.setPrixALaMinute(new BigDecimal("1.0")); // 60 per hour
-        b2.setPuissance(20);
-        b2.setEtat(Borne.Etat.OCCUPEE);
-        b2.setOccupee(true);
+        b2.setPrixALaMinute(new BigDecimal("0.3000"));
+        Borne b3 = new Borne();
+        b3.setIdBorne(3L);
+        b3.setPrixALaMinute(new BigDecimal("0.4000"));
 
-        when(borneRepository.findAll()).thenReturn(Arrays.asList(b1, b2));
+        when(borneRepository.findBy(any(org.springframework.data.jpa.domain.Specification.class), any()))
+                .thenReturn(Arrays.asList(b1, b2, b3));
 
-        // Test filtering by price min
-        List<BorneDto> results = borneService.searchAdvanced(null, null, null, new BigDecimal("40"), null, null, null,
-                null);
-        assertEquals(1, results.size());
-        assertEquals(2L, results.get(0).getId());
+        CursorPageDto<BorneSummary> page = borneService.searchPage(BorneSearchCriteria.empty(), "prix", "asc", null, 2);
 
-        // Test filtering by price max
-        results = borneService.searchAdvanced(null, null, null, null, new BigDecimal("40"), null, null, null);
-        assertEquals(1, results.size());
-        assertEquals(1L, results.get(0).getId());
+        assertEquals(2, page.items().size());
+        assertTrue(page.hasMore());
+        assertNotNull(page.nextCursor());
 
-        // Test filtering by power
-        results = borneService.searchAdvanced(null, null, null, null, null, 40, null, null);
-        assertEquals(1, results.size());
-        assertEquals(1L, results.get(0).getId());
+        // Le curseur renvoyé est accepté pour la page suivante
+        when(borneRepository.findBy(any(org.springframework.data.jpa.domain.Specification.class), any()))
+                .thenReturn(Arrays.asList(b3));
+        CursorPageDto<BorneSummary> next = borneService.searchPage(BorneSearchCriteria.empty(), "prix", "asc",
+                page.nextCursor(), 2);
 
-        // Test filtering by state
-        results = borneService.searchAdvanced(null, null, null, null, null, null, "DISPONIBLE", null);
-        assertEquals(1, results.size());
-        assertEquals(1L, results.get(0).getId());
+        assertEquals(1, next.items().size());
+        assertFalse(next.hasMore());
+        assertNull(next.nextCursor());
+    }
 
-        // Test filtering by availability
-        results = borneService.searchAdvanced(null, null, null, null, null, null, null, true);
-        assertEquals(1, results.size());
-        assertEquals(1L, results.get(0).getId());
+    @Test
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void searchPage_SortByDistanceWithoutRadius_ExcludesBornesWithoutGeom() {
+        // Sans rayon, seule la clé de tri impose une géométrie : une borne sans
+        // geom aurait une distance nulle et produirait un curseur inutilisable
+        Borne proche = new Borne();
+        proche.setIdBorne(1L);
+        Borne loin = new Borne();
+        loin.setIdBorne(2L);
+        Borne sansGeom = new Borne();
+        sansGeom.setIdBorne(3L);
+        BorneSearchCriteria criteria = new BorneSearchCriteria(48.85, 2.35, null, null, null, null, null, null);
+        when(borneRepository.findBy(any(Specification.class), any())).thenReturn(Arrays.asList(proche, loin));
+        when(borneRepository.computeDistanceMeters(1L, 48.85, 2.35)).thenReturn(120.5);
+
+        CursorPageDto<BorneSummary> page = borneService.searchPage(criteria, "distance", "asc", null, 1);
+
+        assertTrue(page.hasMore());
+        ArgumentCaptor<Specification<Borne>> captor = ArgumentCaptor.forClass(Specification.class);
+        verify(borneRepository).findBy(captor.capture(), any());
+        CriteriaBuilder cb = mock(CriteriaBuilder.class);
+        Root<Borne> root = mock(Root.class);
+        Path geom = mock(Path.class);
+        when(root.get("geom")).thenReturn(geom);
+        captor.getValue().toPredicate(root, mock(CriteriaQuery.class), cb);
+        verify(cb).isNotNull(geom);
+
+        // Le curseur porte une distance et reste valide pour la page suivante
+        clearInvocations(borneRepository);
+        when(borneRepository.findBy(any(Specification.class), any())).thenReturn(Arrays.asList(loin));
+        CursorPageDto<BorneSummary> next = borneService.searchPage(criteria, "distance", "asc", page.nextCursor(), 1);
+        assertEquals(2L, next.items().get(0).id());
+        verify(borneRepository).findBy(captor.capture(), any());
+        CriteriaBuilder nextCb = mock(CriteriaBuilder.class);
+        captor.getValue().toPredicate(root, mock(CriteriaQuery.class), nextCb);
+        verify(nextCb).isNotNull(geom);
+        assertFalse(next.items().stream().anyMatch(b -> b.id().equals(sansGeom.getIdBorne())));
+    }
+
+    @Test
+    void searchPage_InvalidCursorOrSort_ThrowsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class,
+                () -> borneService.searchPage(BorneSearchCriteria.empty(), "prix", null, "not-a-cursor", 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> borneService.searchPage(BorneSearchCriteria.empty(), "couleur", null, null, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> borneService.searchPage(BorneSearchCriteria.empty(), "distance", null, null, 10));
+        // L'index KNN ne fournit que l'ordre croissant des distances
+        BorneSearchCriteria position = new BorneSearchCriteria(48.85, 2.35, null, null, null, null, null, null);
+        assertThrows(IllegalArgumentException.class,
+                () -> borneService.searchPage(position, "distance", "desc", null, 10));
+    }
+
+    @Test
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void searchPage_SortByDistance_OrdersWithKnnOperator() {
+        BorneSearchCriteria criteria = new BorneSearchCriteria(48.85, 2.35, null, null, null, null, null, null);
+        when(borneRepository.findBy(any(Specification.class), any())).thenReturn(List.of());
+
+        borneService.searchPage(criteria, "distance", null, null, 10);
+
+        ArgumentCaptor<Specification<Borne>> captor = ArgumentCaptor.forClass(Specification.class);
+        verify(borneRepository).findBy(captor.capture(), any());
+        CriteriaBuilder cb = mock(CriteriaBuilder.class);
+        Root<Borne> root = mock(Root.class);
+        when(root.get(anyString())).thenReturn(mock(Path.class));
+        captor.getValue().toPredicate(root, mock(CriteriaQuery.class), cb);
+        verify(cb).function(eq("knn_distance"), eq(Double.class), any(), any());
+        verify(cb, never()).function(eq("ST_Distance"), any(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void searchPage_ReturnsSummariesWithPhotosReadInOneQuery() {
+        Borne b1 = new Borne();
+        b1.setIdBorne(1L);
+        b1.setPuissance(50);
+        b1.setPrixALaMinute(new BigDecimal("0.5000"));
+        Borne b2 = new Borne();
+        b2.setIdBorne(2L);
+        BornePhotoRow photo = mock(BornePhotoRow.class);
+        when(photo.getIdBorne()).thenReturn(1L);
+        when(photo.getPhoto()).thenReturn("http://localhost/uploads/bornes/ab/cd/abcd.jpg");
+        when(borneRepository.findBy(any(Specification.class), any())).thenReturn(Arrays.asList(b1, b2));
+        when(borneRepository.findPhotos(List.of(1L, 2L))).thenReturn(List.of(photo));
+        when(photoStorageService.variantUrl("http://localhost/uploads/bornes/ab/cd/abcd.jpg", PhotoVariant.THUMBNAIL))
+                .thenReturn("http://localhost/uploads/bornes/ab/cd/abcd_thumb.jpg");
+
+        CursorPageDto<BorneSummary> page = borneService.searchPage(BorneSearchCriteria.empty(), null, null, null, 10);
+
+        assertEquals("http://localhost/uploads/bornes/ab/cd/abcd_thumb.jpg", page.items().get(0).thumbnail());
+        assertEquals(new BigDecimal("30.0000"), page.items().get(0).hourlyRate());
+        assertEquals("RAPIDE", page.items().get(0).type());
+        assertNull(page.items().get(1).thumbnail());
+        verify(borneRepository, times(1)).findPhotos(any());
     }
 
     @Test
-    void uploadPhotos_ValidPhotos_ReturnsDataUrls() throws Exception {
+    void uploadPhotos_ValidPhotos_ReturnsStoredUrls() throws Exception {
         Long id = 1L;
         Borne borne = new Borne();
         borne.setIdBorne(id);
@@ -401,14 +717,36 @@ class BorneServiceTest {
         // Créer un fichier image simulé
         byte[] imageContent = "fake image content".getBytes();
         MockMultipartFile file = new MockMultipartFile("photos", "test.jpg", "image/jpeg", imageContent);
+        String url = "http://localhost:8080/uploads/bornes/ab/cd/abcd.jpg";
+        when(photoStorageService.store(any(java.io.InputStream.class))).thenReturn(url);
 
-        List<String> dataUrls = borneService.uploadPhotos(id, new MultipartFile[] { file });
+        List<String> photoUrls = borneService.uploadPhotos(id, new MultipartFile[] { file });
 
-        assertFalse(dataUrls.isEmpty());
-        // Vérifier que c'est une data URL Base64
-        assertTrue(dataUrls.get(0).startsWith("data:image/jpeg;base64,"));
-        // Vérifier que le contenu a été ajouté aux medias de la borne
-        assertEquals(1, borne.getMedias().size());
+        // Seule l'URL courte est conservée en base
+        assertEquals(List.of(url), photoUrls);
+        assertEquals(List.of(url), borne.getMedias());
+        verify(borneRepository).save(borne);
+        verify(photoVariantGenerator).generateAsync(url);
+    }
+
+    @Test
+    void migrateMediaDataUrls_ReplacesOnlyDataUrls() throws Exception {
+        Long id = 1L;
+        String dataUrl = "data:image/jpeg;base64,SGVsbG8gV29ybGQ=";
+        String existingUrl = "http://localhost:8080/uploads/bornes/ef/01/ef01.png";
+        String storedUrl = "http://localhost:8080/uploads/bornes/ab/cd/abcd.jpg";
+        Borne borne = new Borne();
+        borne.setIdBorne(id);
+        borne.setMedias(new java.util.ArrayList<>(List.of(existingUrl, dataUrl)));
+
+        when(borneRepository.findById(id)).thenReturn(Optional.of(borne));
+        when(photoStorageService.isDataUrl(dataUrl)).thenReturn(true);
+        when(photoStorageService.storeDataUrl(dataUrl)).thenReturn(storedUrl);
+
+        int migrated = borneService.migrateMediaDataUrls(id);
+
+        assertEquals(1, migrated);
+        assertEquals(List.of(existingUrl, storedUrl), borne.getMedias());
         verify(borneRepository).save(borne);
     }
 
@@ -429,4 +767,72 @@ class BorneServiceTest {
         assertTrue(borne.getMedias().isEmpty());
         verify(borneRepository).save(borne);
     }
+
+    @Test
+    void getProches_SpatialIndexEnabled_ReadsOnlyOccupationFromDatabase() {
+        BorneDto proche = new BorneDto();
+        proche.setId(1L);
+        proche.setOccupee(false);
+        BorneDto loin = new BorneDto();
+        loin.setId(2L);
+        loin.setOccupee(false);
+
+        when(spatialIndex.isEnabled()).thenReturn(true);
+        when(spatialIndex.findWithin(48.85, 2.35, 5000.0)).thenReturn(new java.util.ArrayList<>(List.of(proche, loin)));
+        when(borneRepository.findOccupiedIds(List.of(1L, 2L))).thenReturn(List.of(2L));
+
+        List<BorneDto> result = borneService.getProches(48.85, 2.35, 5.0);
+
+        assertEquals(List.of(1L, 2L), result.stream().map(BorneDto::getId).toList());
+        assertFalse(result.get(0).getOccupee());
+        assertTrue(result.get(1).getOccupee());
+        // Seules les bornes trouvées sont relues, jamais toutes les bornes occupées
+        verify(borneRepository).findOccupiedIds(List.of(1L, 2L));
+        verify(borneRepository, never()).findByDistance(any(), any(), any());
+    }
+
+    @Test
+    void getProches_SpatialIndexManyResults_ReadsOccupationInBatches() {
+        List<BorneDto> trouvees = new java.util.ArrayList<>();
+        for (long id = 1; id <= 1500; id++) {
+            BorneDto dto = new BorneDto();
+            dto.setId(id);
+            trouvees.add(dto);
+        }
+        when(spatialIndex.isEnabled()).thenReturn(true);
+        when(spatialIndex.findWithin(48.85, 2.35, 5000.0)).thenReturn(trouvees);
+        when(borneRepository.findOccupiedIds(any())).thenReturn(List.of(1200L));
+
+        List<BorneDto> result = borneService.getProches(48.85, 2.35, 5.0);
+
+        verify(borneRepository).findOccupiedIds(argThat(ids -> ids.size() == 1000));
+        verify(borneRepository).findOccupiedIds(argThat(ids -> ids.size() == 500));
+        assertTrue(result.get(1199).getOccupee());
+        assertFalse(result.get(0).getOccupee());
+    }
+
+    @Test
+    void getClusters_ConvertsMinPriceToHourlyRateAndSizesGridFromZoom() {
+        com.eb.electricitybusiness.dto.BorneClusterRow row = mock(com.eb.electricitybusiness.dto.BorneClusterRow.class);
+        when(row.getCount()).thenReturn(3L);
+        when(row.getLatitude()).thenReturn(48.85);
+        when(row.getLongitude()).thenReturn(2.35);
+        when(row.getPrixMinALaMinute()).thenReturn(new BigDecimal("0.2500"));
+        when(row.getIdBorne()).thenReturn(null);
+        when(borneRepository.findClusters(2.0, 48.0, 3.0, 49.0, 360.0 / (1024 * 4))).thenReturn(List.of(row));
+
+        List<com.eb.electricitybusiness.dto.BorneClusterDto> result = borneService.getClusters("2,48,3,49", 10);
+
+        assertEquals(1, result.size());
+        assertEquals(3L, result.get(0).count());
+        assertEquals(0, new BigDecimal("15").compareTo(result.get(0).prixMin()));
+        assertNull(result.get(0).idBorne());
+    }
+
+    @Test
+    void getClusters_InvalidBbox_ThrowsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> borneService.getClusters("2,48,3", 10));
+        assertThrows(IllegalArgumentException.class, () -> borneService.getClusters("3,48,2,49", 10));
+        assertThrows(IllegalArgumentException.class, () -> borneService.getClusters("a,b,c,d", 10));
+    }
 }
@@ -0,0 +1,59 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.dto.BorneDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BorneSpatialIndexTest {
+
+    private BorneSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BorneSpatialIndex(true);
+        index.load(List.of(
+                borne(1L, 48.8566, 2.3522),   // Paris centre
+                borne(2L, 48.8738, 2.2950),   // Arc de Triomphe, ~4,6 km
+                borne(3L, 45.7640, 4.8357))); // Lyon
+    }
+
+    @Test
+    void findWithin_ReturnsBornesInRadiusSortedByDistance() {
+        List<BorneDto> result = index.findWithin(48.8600, 2.3400, 10_000);
+
+        assertEquals(List.of(1L, 2L), result.stream().map(BorneDto::getId).toList());
+        assertTrue(result.get(0).getDistance() < result.get(1).getDistance());
+    }
+
+    @Test
+    void upsertAndRemove_OutsideTransaction_UpdateIndexImmediately() {
+        index.upsert(borne(3L, 48.8600, 2.3400));
+        index.remove(1L);
+
+        List<BorneDto> result = index.findWithin(48.8600, 2.3400, 10_000);
+
+        assertEquals(List.of(3L, 2L), result.stream().map(BorneDto::getId).toList());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void disabled_IgnoresUpdates() {
+        BorneSpatialIndex disabled = new BorneSpatialIndex(false);
+        disabled.upsert(borne(1L, 48.8566, 2.3522));
+
+        assertFalse(disabled.isEnabled());
+        assertEquals(0, disabled.size());
+    }
+
+    private BorneDto borne(Long id, double latitude, double longitude) {
+        BorneDto dto = new BorneDto();
+        dto.setId(id);
+        dto.setLatitude(latitude);
+        dto.setLongitude(longitude);
+        return dto;
+    }
+}
@@ -1,23 +1,33 @@
 package com.eb.electricitybusiness.service;
 
+import com.eb.electricitybusiness.dto.BorneEtatCountRow;
+import com.eb.electricitybusiness.dto.BorneReservationCountRow;
 import com.eb.electricitybusiness.dto.DashboardStatsDto;
+import com.eb.electricitybusiness.dto.OccupancyDto;
+import com.eb.electricitybusiness.dto.OwnerReservationTotalsRow;
 import com.eb.electricitybusiness.dto.ReservationDto;
 import com.eb.electricitybusiness.model.Borne;
+import com.eb.electricitybusiness.model.DashboardStats;
 import com.eb.electricitybusiness.model.Reservation;
 import com.eb.electricitybusiness.model.Utilisateur;
-import com.eb.electricitybusiness.repository.BorneRepository;
-import com.eb.electricitybusiness.repository.ReservationRepository;
+import com.eb.electricitybusiness.repository.DashboardRepository;
 import com.eb.electricitybusiness.service.impl.DashboardServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,10 +35,10 @@ import static org.mockito.Mockito.*;
 class DashboardServiceTest {
 
     @Mock
-    private ReservationRepository reservationRepository;
+    private DashboardRepository dashboardRepository;
 
     @Mock
-    private BorneRepository borneRepository;
+    private DashboardStatsService dashboardStatsService;
 
     @Mock
     private ReservationService reservationService;
@@ -36,12 +46,21 @@ class DashboardServiceTest {
     @Mock
     private BorneService borneService;
 
+    @Mock
+    private OccupancyCalculator occupancyCalculator;
+
     @InjectMocks
     private DashboardServiceImpl dashboardService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(dashboardStatsService.findStats(any(), any())).thenReturn(Optional.empty());
+        when(dashboardRepository.findUpcomingIdsForUser(any(), any(), any(), any())).thenReturn(List.of());
+        when(dashboardRepository.countReservationsByBorne(any(), any())).thenReturn(List.of());
+        when(reservationService.getRecentByUser(any(), anyInt())).thenReturn(List.of());
+        when(occupancyCalculator.computeForOwner(any(), anyLong(), any(), any()))
+                .thenReturn(new OccupancyDto(null, null, 0, 0, 0, Map.of()));
     }
 
     @Test
@@ -49,28 +68,24 @@ class DashboardServiceTest {
         Long userId = 1L;
 
         // Mock bornes (empty for client only)
-        when(borneRepository.findByOwnerIdUtilisateur(userId)).thenReturn(Collections.emptyList());
-
-        // Mock reservations
-        Reservation r1 = new Reservation();
-        r1.setEtat(Reservation.EtatReservation.ACTIVE);
-        r1.setTotalPrice(BigDecimal.TEN);
-        r1.setCreatedAt(LocalDateTime.now());
-        r1.setDateDebut(LocalDateTime.now().plusDays(1));
-        r1.setNumeroReservation(100L); // Ensure ID is set
-
-        Reservation r2 = new Reservation();
-        r2.setEtat(Reservation.EtatReservation.TERMINEE);
-        r2.setTotalPrice(BigDecimal.valueOf(20));
-        r2.setCreatedAt(LocalDateTime.now().minusMonths(1));
-        r2.setDateDebut(LocalDateTime.now().minusMonths(1));
-
-        when(reservationRepository.findByUtilisateur_IdUtilisateur(userId)).thenReturn(Arrays.asList(r1, r2));
-
-        // Mock reservation service for recent list and next reservation details
+        when(dashboardRepository.countBornesByEtat(userId)).thenReturn(Collections.emptyList());
+
+        // Ligne d'agrégats du client : une réservation active ce mois-ci, une terminée le mois dernier
+        DashboardStats row = statsRow(DashboardStats.Scope.UTILISATEUR, userId);
+        row.setTotalReservations(2);
+        row.setNbActives(1);
+        row.setNbTerminees(1);
+        row.setMontantTotal(BigDecimal.valueOf(30));
+        row.setMontantMois(BigDecimal.TEN);
+        row.setReservationsMois(1);
+        when(dashboardStatsService.findStats(DashboardStats.Scope.UTILISATEUR, userId)).thenReturn(Optional.of(row));
+
+        // Prochaine réservation
+        when(dashboardRepository.findUpcomingIdsForUser(eq(userId), eq(Reservation.EtatReservation.ACTIVE),
+                any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(100L));
         ReservationDto r1Dto = new ReservationDto();
         r1Dto.setId(100L);
-        when(reservationService.getByUser(userId)).thenReturn(Arrays.asList(r1Dto));
+        when(reservationService.getRecentByUser(userId, 5)).thenReturn(Arrays.asList(r1Dto));
         when(reservationService.getById(100L)).thenReturn(r1Dto);
 
         DashboardStatsDto result = dashboardService.getDashboardStats(userId);
@@ -79,37 +94,69 @@ class DashboardServiceTest {
         assertNotNull(result.getClientStats());
         assertNull(result.getOwnerStats());
         assertEquals(2, result.getClientStats().getTotalReservations());
+        assertEquals(1, result.getClientStats().getReservationsEnCours());
         assertEquals(BigDecimal.valueOf(30), result.getClientStats().getMontantTotalDepense());
+        assertEquals(BigDecimal.TEN, result.getClientStats().getMontantMoisEnCours());
+        assertEquals(1, result.getClientStats().getReservationsCeMois());
         assertNotNull(result.getClientStats().getProchaineReservation());
+        assertEquals(1, result.getRecentReservations().size());
+        // Plus aucun chargement de l'historique complet
+        verify(reservationService, never()).getByUser(any());
     }
 
     @Test
-    void getDashboardStats_Owner_ReturnsOwnerStats() {
+    void getDashboardStats_ClientStaleMonth_IgnoresMonthlyTotals() {
         Long userId = 1L;
+        when(dashboardRepository.countBornesByEtat(userId)).thenReturn(Collections.emptyList());
 
-        // Mock bornes
-        Borne b1 = new Borne();
-        b1.setIdBorne(10L);
-        b1.setEtat(Borne.Etat.DISPONIBLE);
-        b1.setOwner(new Utilisateur());
-        b1.getOwner().setIdUtilisateur(userId);
+        DashboardStats row = statsRow(DashboardStats.Scope.UTILISATEUR, userId);
+        row.setTotalReservations(1);
+        row.setMontantTotal(BigDecimal.TEN);
+        row.setMoisCourant(YearMonth.now().minusMonths(1).atDay(1));
+        row.setMontantMois(BigDecimal.TEN);
+        row.setReservationsMois(1);
+        when(dashboardStatsService.findStats(DashboardStats.Scope.UTILISATEUR, userId)).thenReturn(Optional.of(row));
 
-        when(borneRepository.findByOwnerIdUtilisateur(userId)).thenReturn(Arrays.asList(b1));
-        when(borneService.getBornesByOwner(userId)).thenReturn(Arrays.asList(b1));
+        DashboardStatsDto result = dashboardService.getDashboardStats(userId);
 
-        // Mock reservations on borne
-        Reservation r1 = new Reservation();
-        r1.setEtat(Reservation.EtatReservation.ACTIVE);
-        r1.setTotalPrice(BigDecimal.TEN);
-        r1.setCreatedAt(LocalDateTime.now());
-        r1.setDateDebut(LocalDateTime.now().plusDays(1));
-        r1.setBorne(b1);
+        assertEquals(BigDecimal.TEN, result.getClientStats().getMontantTotalDepense());
+        assertEquals(BigDecimal.ZERO, result.getClientStats().getMontantMoisEnCours());
+        assertEquals(0, result.getClientStats().getReservationsCeMois());
+    }
 
-        when(reservationRepository.findByBorneIdBorne(10L)).thenReturn(Arrays.asList(r1));
+    @Test
+    void getDashboardStats_NoStatsRow_ReturnsZeros() {
+        Long userId = 1L;
+        when(dashboardRepository.countBornesByEtat(userId)).thenReturn(Collections.emptyList());
 
-        // Mock calls for client stats (empty)
-        when(reservationRepository.findByUtilisateur_IdUtilisateur(userId)).thenReturn(Collections.emptyList());
-        when(reservationService.getByUser(userId)).thenReturn(Collections.emptyList());
+        DashboardStatsDto result = dashboardService.getDashboardStats(userId);
+
+        assertEquals(0, result.getClientStats().getTotalReservations());
+        assertEquals(BigDecimal.ZERO, result.getClientStats().getMontantTotalDepense());
+        assertNull(result.getClientStats().getProchaineReservation());
+    }
+
+    @Test
+    void getDashboardStats_Owner_ReturnsOwnerStats() {
+        Long userId = 1L;
+
+        Borne b1 = borne(10L, userId);
+
+        BorneEtatCountRow disponibles = etatCount(Borne.Etat.DISPONIBLE, 1L);
+        when(dashboardRepository.countBornesByEtat(userId)).thenReturn(Arrays.asList(disponibles));
+        when(borneService.getBornesByOwner(userId)).thenReturn(Arrays.asList(b1));
+
+        DashboardStats row = statsRow(DashboardStats.Scope.PROPRIETAIRE, userId);
+        row.setTotalReservations(1);
+        row.setNbActives(1);
+        row.setMontantTotal(BigDecimal.TEN);
+        row.setMontantMois(BigDecimal.TEN);
+        row.setTopBorneId(10L);
+        row.setTopBorneReservations(1L);
+        when(dashboardStatsService.findStats(DashboardStats.Scope.PROPRIETAIRE, userId)).thenReturn(Optional.of(row));
+        when(dashboardRepository.countUpcomingForOwner(eq(userId), eq(Reservation.EtatReservation.ACTIVE),
+                any(LocalDateTime.class))).thenReturn(1L);
+        when(borneService.getBorneById(10L)).thenReturn(b1);
 
         DashboardStatsDto result = dashboardService.getDashboardStats(userId);
 
@@ -118,62 +165,75 @@ class DashboardServiceTest {
         assertEquals(1, result.getOwnerStats().getTotalBornes());
         assertEquals(1, result.getOwnerStats().getBornesDisponibles());
         assertEquals(1, result.getOwnerStats().getTotalReservations());
+        assertEquals(1, result.getOwnerStats().getDemandesEnAttente());
+        assertEquals(1, result.getOwnerStats().getReservationsConfirmees());
         assertEquals(BigDecimal.TEN, result.getOwnerStats().getRevenusEstimesMois());
+        assertEquals(BigDecimal.TEN, result.getOwnerStats().getRevenusTotaux());
+        assertEquals(10L, result.getOwnerStats().getBorneLaPlusReservee().getId());
+        assertEquals(1, result.getRecentBornes().size());
+        // La ligne d'agrégats suffit : pas de recalcul
+        verify(dashboardRepository, never()).sumOwnerReservations(any(), any(), any(), any());
+        verify(dashboardRepository, never()).countReservationsByBorne(any(), any());
     }
 
     @Test
-    void getDashboardStats_MostReservedBorne_CalculatesCorrectly() {
+    void getDashboardStats_Owner_NoStatsRow_FallsBackToAggregates() {
         Long userId = 1L;
 
-        Borne b1 = new Borne();
-        b1.setIdBorne(10L);
-        b1.setEtat(Borne.Etat.DISPONIBLE);
-        b1.setOwner(new Utilisateur());
-        b1.getOwner().setIdUtilisateur(userId);
-
-        Borne b2 = new Borne();
-        b2.setIdBorne(20L);
-        b2.setEtat(Borne.Etat.DISPONIBLE);
-        b2.setOwner(new Utilisateur());
-        b2.getOwner().setIdUtilisateur(userId);
-
-        when(borneRepository.findByOwnerIdUtilisateur(userId)).thenReturn(Arrays.asList(b1, b2));
-        when(borneService.getBornesByOwner(userId)).thenReturn(Arrays.asList(b1, b2));
-
-        // b1 has 2 reservations, b2 has 1
-        Reservation r1 = new Reservation();
-        r1.setBorne(b1);
-        r1.setEtat(Reservation.EtatReservation.TERMINEE);
-        Reservation r2 = new Reservation();
-        r2.setBorne(b1);
-        r2.setEtat(Reservation.EtatReservation.TERMINEE);
-        Reservation r3 = new Reservation();
-        r3.setBorne(b2);
-        r3.setEtat(Reservation.EtatReservation.TERMINEE);
-
-        when(reservationRepository.findByBorneIdBorne(10L)).thenReturn(Arrays.asList(r1, r2));
-        when(reservationRepository.findByBorneIdBorne(20L)).thenReturn(Arrays.asList(r3));
+        Borne b1 = borne(10L, userId);
+
+        BorneEtatCountRow disponibles = etatCount(Borne.Etat.DISPONIBLE, 1L);
+        when(dashboardRepository.countBornesByEtat(userId)).thenReturn(Arrays.asList(disponibles));
+        when(borneService.getBornesByOwner(userId)).thenReturn(Arrays.asList(b1));
 
+        OwnerReservationTotalsRow totals = totals(1L, 1L, BigDecimal.TEN, BigDecimal.TEN);
+        when(dashboardRepository.sumOwnerReservations(eq(userId), eq(Reservation.EtatReservation.ACTIVE),
+                any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(totals);
+        BorneReservationCountRow top = reservationCount(10L, 1L);
+        when(dashboardRepository.countReservationsByBorne(eq(userId), any(Pageable.class)))
+                .thenReturn(Arrays.asList(top));
         when(borneService.getBorneById(10L)).thenReturn(b1);
 
         DashboardStatsDto result = dashboardService.getDashboardStats(userId);
 
-        assertNotNull(result.getOwnerStats().getBorneLaPlusReservee());
+        assertEquals(1, result.getOwnerStats().getTotalReservations());
+        assertEquals(BigDecimal.TEN, result.getOwnerStats().getRevenusEstimesMois());
+        assertEquals(BigDecimal.TEN, result.getOwnerStats().getRevenusTotaux());
         assertEquals(10L, result.getOwnerStats().getBorneLaPlusReservee().getId());
+        verify(dashboardRepository).countReservationsByBorne(eq(userId),
+                argThat((Pageable p) -> p.getPageSize() == 1));
     }
 
     @Test
-    void getDashboardStats_HandleExceptionsInSubServiceCalls() {
+    void getDashboardStats_Owner_OccupationRateFromReservationIntervals() {
         Long userId = 1L;
 
-        when(borneRepository.findByOwnerIdUtilisateur(userId)).thenReturn(Collections.emptyList());
+        BorneEtatCountRow disponibles = etatCount(Borne.Etat.DISPONIBLE, 3L);
+        BorneEtatCountRow occupees = etatCount(Borne.Etat.OCCUPEE, 1L);
+        when(dashboardRepository.countBornesByEtat(userId)).thenReturn(Arrays.asList(disponibles, occupees));
+        when(borneService.getBornesByOwner(userId)).thenReturn(Collections.emptyList());
+        when(occupancyCalculator.computeForOwner(eq(userId), eq(4L), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(new OccupancyDto(null, null, 172800, 17280, 10.0, Map.of()));
 
-        Reservation r1 = new Reservation();
-        r1.setEtat(Reservation.EtatReservation.ACTIVE);
-        r1.setDateDebut(LocalDateTime.now().plusHours(1));
-        r1.setNumeroReservation(100L);
+        DashboardStatsDto result = dashboardService.getDashboardStats(userId);
+
+        assertEquals(4, result.getOwnerStats().getTotalBornes());
+        assertEquals(1, result.getOwnerStats().getBornesOccupees());
+        // Taux calculé sur les créneaux réservés, pas sur l'état instantané des bornes
+        assertEquals(10.0, result.getOwnerStats().getTauxOccupationMoyen());
+        assertEquals(0, result.getOwnerStats().getTotalReservations());
+        assertNull(result.getOwnerStats().getBorneLaPlusReservee());
+        verify(occupancyCalculator).computeForOwner(eq(userId), eq(4L),
+                argThat((LocalDateTime debut) -> debut.isBefore(LocalDateTime.now().minusDays(29))),
+                any(LocalDateTime.class));
+    }
+
+    @Test
+    void getDashboardStats_HandleExceptionsInSubServiceCalls() {
+        Long userId = 1L;
 
-        when(reservationRepository.findByUtilisateur_IdUtilisateur(userId)).thenReturn(Arrays.asList(r1));
+        when(dashboardRepository.countBornesByEtat(userId)).thenReturn(Collections.emptyList());
+        when(dashboardRepository.findUpcomingIdsForUser(eq(userId), any(), any(), any())).thenReturn(List.of(100L));
 
         // Throw exception when fetching reservation details
         when(reservationService.getById(100L)).thenThrow(new RuntimeException("Service failure"));
@@ -189,18 +249,16 @@ class DashboardServiceTest {
     void getDashboardStats_Owner_MostReservedBorneException_Handled() {
         Long userId = 1L;
 
-        Borne b1 = new Borne();
-        b1.setIdBorne(10L);
-        b1.setEtat(Borne.Etat.DISPONIBLE);
-        b1.setOwner(new Utilisateur());
-        b1.getOwner().setIdUtilisateur(userId);
+        Borne b1 = borne(10L, userId);
 
-        when(borneRepository.findByOwnerIdUtilisateur(userId)).thenReturn(Arrays.asList(b1));
+        BorneEtatCountRow disponibles = etatCount(Borne.Etat.DISPONIBLE, 1L);
+        when(dashboardRepository.countBornesByEtat(userId)).thenReturn(Arrays.asList(disponibles));
         when(borneService.getBornesByOwner(userId)).thenReturn(Arrays.asList(b1));
 
-        Reservation r1 = new Reservation();
-        r1.setBorne(b1);
-        when(reservationRepository.findByBorneIdBorne(10L)).thenReturn(Arrays.asList(r1));
+        DashboardStats row = statsRow(DashboardStats.Scope.PROPRIETAIRE, userId);
+        row.setTotalReservations(1);
+        row.setTopBorneId(10L);
+        when(dashboardStatsService.findStats(DashboardStats.Scope.PROPRIETAIRE, userId)).thenReturn(Optional.of(row));
 
         when(borneService.getBorneById(10L)).thenThrow(new RuntimeException("DB Error"));
 
@@ -210,4 +268,45 @@ class DashboardServiceTest {
         // Borne la plus réservée should be null because of exception
         assertNull(result.getOwnerStats().getBorneLaPlusReservee());
     }
+
+    private Borne borne(Long id, Long ownerId) {
+        Borne borne = new Borne();
+        borne.setIdBorne(id);
+        borne.setEtat(Borne.Etat.DISPONIBLE);
+        borne.setOwner(new Utilisateur());
+        borne.getOwner().setIdUtilisateur(ownerId);
+        return borne;
+    }
+
+    private DashboardStats statsRow(DashboardStats.Scope scope, Long refId) {
+        DashboardStats row = new DashboardStats();
+        row.setScope(scope);
+        row.setRefId(refId);
+        row.setMoisCourant(LocalDate.now().withDayOfMonth(1));
+        return row;
+    }
+
+    private BorneEtatCountRow etatCount(Borne.Etat etat, Long total) {
+        BorneEtatCountRow row = mock(BorneEtatCountRow.class);
+        when(row.getEtat()).thenReturn(etat);
+        when(row.getTotal()).thenReturn(total);
+        return row;
+    }
+
+    private BorneReservationCountRow reservationCount(Long idBorne, Long total) {
+        BorneReservationCountRow row = mock(BorneReservationCountRow.class);
+        when(row.getIdBorne()).thenReturn(idBorne);
+        when(row.getTotal()).thenReturn(total);
+        return row;
+    }
+
+    private OwnerReservationTotalsRow totals(Long total, Long confirmees,
+            BigDecimal revenusTotaux, BigDecimal revenusMois) {
+        OwnerReservationTotalsRow row = mock(OwnerReservationTotalsRow.class);
+        when(row.getTotalReservations()).thenReturn(total);
+        when(row.getReservationsConfirmees()).thenReturn(confirmees);
+        when(row.getRevenusTotaux()).thenReturn(revenusTotaux);
+        when(row.getRevenusMois()).thenReturn(revenusMois);
+        return row;
+    }
 }
@@ -0,0 +1,365 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.model.Borne;
+import com.eb.electricitybusiness.model.DashboardStats;
+import com.eb.electricitybusiness.model.Reservation;
+import com.eb.electricitybusiness.model.Utilisateur;
+import com.eb.electricitybusiness.repository.DashboardStatsRepository;
+import com.eb.electricitybusiness.repository.ReservationRollupRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("null")
+class DashboardStatsServiceTest {
+
+    @Mock
+    private DashboardStatsRepository statsRepository;
+
+    @Mock
+    private ReservationRollupRepository rollupRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DashboardStatsService dashboardStatsService;
+
+    private Reservation reservation;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        dashboardStatsService = new DashboardStatsService(statsRepository, rollupRepository, Runnable::run,
+                transactionManager);
+
+        Utilisateur client = new Utilisateur();
+        client.setIdUtilisateur(1L);
+        Utilisateur owner = new Utilisateur();
+        owner.setIdUtilisateur(2L);
+        Borne borne = new Borne();
+        borne.setIdBorne(10L);
+        borne.setOwner(owner);
+
+        reservation = new Reservation();
+        reservation.setNumeroReservation(100L);
+        reservation.setUtilisateur(client);
+        reservation.setBorne(borne);
+        reservation.setTotalPrice(new BigDecimal("12.50"));
+        reservation.setCreatedAt(LocalDateTime.now());
+        reservation.setDateDebut(LocalDateTime.of(2026, 3, 14, 9, 0));
+        reservation.setDateFin(LocalDateTime.of(2026, 3, 14, 10, 30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void onReservationCreated_IncrementsEveryScopeAndPromotesBorne() {
+        LocalDate mois = YearMonth.now().atDay(1);
+        BigDecimal montant = new BigDecimal("12.50");
+
+        dashboardStatsService.onReservationCreated(reservation);
+
+        for (Object[] scope : new Object[][] { { "UTILISATEUR", 1L }, { "BORNE", 10L }, { "PROPRIETAIRE", 2L } }) {
+            verify(statsRepository).applyDelta((String) scope[0], (Long) scope[1], 1L,
+                    1L, 0L, 0L, 0L, 0L, 0L, montant, mois, montant, 1L);
+        }
+        verify(statsRepository).promoteTopBorne(2L, 10L);
+        // En attente : pas encore comptée dans les séries
+        verifyNoInteractions(rollupRepository);
+    }
+
+    @Test
+    void onReservationsCreated_AggregatesDeltasPerRow() {
+        LocalDate mois = YearMonth.now().atDay(1);
+        Reservation seconde = new Reservation();
+        seconde.setNumeroReservation(101L);
+        seconde.setUtilisateur(reservation.getUtilisateur());
+        seconde.setBorne(reservation.getBorne());
+        seconde.setTotalPrice(new BigDecimal("7.50"));
+        seconde.setCreatedAt(LocalDateTime.now());
+
+        dashboardStatsService.onReservationsCreated(List.of(reservation, seconde));
+
+        for (Object[] scope : new Object[][] { { "UTILISATEUR", 1L }, { "BORNE", 10L }, { "PROPRIETAIRE", 2L } }) {
+            verify(statsRepository).applyDelta((String) scope[0], (Long) scope[1], 2L,
+                    2L, 0L, 0L, 0L, 0L, 0L, new BigDecimal("20.00"), mois, new BigDecimal("20.00"), 2L);
+        }
+        verify(statsRepository, times(3)).applyDelta(any(), any(), anyLong(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong(), any(), any(), any(), anyLong());
+        verify(statsRepository, times(1)).promoteTopBorne(2L, 10L);
+    }
+
+    @Test
+    void onReservationCreated_CreatedLastMonth_CountsOnlyTotals() {
+        reservation.setCreatedAt(LocalDateTime.now().minusMonths(1));
+
+        dashboardStatsService.onReservationCreated(reservation);
+
+        verify(statsRepository).applyDelta(eq("UTILISATEUR"), eq(1L), eq(1L),
+                eq(1L), eq(0L), eq(0L), eq(0L), eq(0L), eq(0L),
+                eq(new BigDecimal("12.50")), any(LocalDate.class), eq(BigDecimal.ZERO), eq(0L));
+    }
+
+    @Test
+    void onEtatChanged_MovesCounterBetweenStates() {
+        reservation.setEtat(Reservation.EtatReservation.ANNULEE);
+
+        dashboardStatsService.onEtatChanged(reservation, Reservation.EtatReservation.EN_ATTENTE);
+
+        verify(statsRepository).applyDelta(eq("UTILISATEUR"), eq(1L), eq(0L),
+                eq(-1L), eq(0L), eq(0L), eq(0L), eq(1L), eq(0L),
+                eq(BigDecimal.ZERO), any(LocalDate.class), eq(BigDecimal.ZERO), eq(0L));
+        verify(statsRepository, times(3)).applyDelta(any(), any(), anyLong(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong(), any(), any(), any(), anyLong());
+        verify(statsRepository, never()).promoteTopBorne(any(), any());
+    }
+
+    @Test
+    void onEtatChanged_Confirmed_AddsToDailyRollup() {
+        reservation.setEtat(Reservation.EtatReservation.CONFIRMEE);
+
+        dashboardStatsService.onEtatChanged(reservation, Reservation.EtatReservation.EN_ATTENTE);
+
+        verify(rollupRepository).applyDelta(10L, LocalDate.of(2026, 3, 14), 1L, new BigDecimal("12.50"), 90L);
+    }
+
+    @Test
+    void onEtatChanged_ConfirmedThenCancelled_RemovesFromDailyRollup() {
+        reservation.setEtat(Reservation.EtatReservation.ANNULEE);
+
+        dashboardStatsService.onEtatChanged(reservation, Reservation.EtatReservation.CONFIRMEE);
+
+        verify(rollupRepository).applyDelta(10L, LocalDate.of(2026, 3, 14), -1L, new BigDecimal("-12.50"), -90L);
+    }
+
+    @Test
+    void onEtatChanged_Confirmed_CrossingMidnight_SplitsMinutesPerDay() {
+        reservation.setDateDebut(LocalDateTime.of(2026, 3, 14, 23, 0));
+        reservation.setDateFin(LocalDateTime.of(2026, 3, 15, 1, 30));
+        reservation.setEtat(Reservation.EtatReservation.CONFIRMEE);
+
+        dashboardStatsService.onEtatChanged(reservation, Reservation.EtatReservation.EN_ATTENTE);
+
+        verify(rollupRepository).applyDelta(10L, LocalDate.of(2026, 3, 14), 1L, new BigDecimal("12.50"), 60L);
+        verify(rollupRepository).applyDelta(10L, LocalDate.of(2026, 3, 15), 0L, BigDecimal.ZERO, 90L);
+        verifyNoMoreInteractions(rollupRepository);
+    }
+
+    @Test
+    void onEtatChanged_CancelledAcrossSeveralDays_RemovesMinutesFromEachDay() {
+        reservation.setDateDebut(LocalDateTime.of(2026, 3, 14, 20, 0));
+        reservation.setDateFin(LocalDateTime.of(2026, 3, 16, 0, 0));
+        reservation.setEtat(Reservation.EtatReservation.ANNULEE);
+
+        dashboardStatsService.onEtatChanged(reservation, Reservation.EtatReservation.CONFIRMEE);
+
+        verify(rollupRepository).applyDelta(10L, LocalDate.of(2026, 3, 14), -1L, new BigDecimal("-12.50"), -240L);
+        verify(rollupRepository).applyDelta(10L, LocalDate.of(2026, 3, 15), 0L, BigDecimal.ZERO, -1440L);
+        verifyNoMoreInteractions(rollupRepository);
+    }
+
+    @Test
+    void onEtatChanged_ConfirmedToCompleted_KeepsDailyRollup() {
+        reservation.setEtat(Reservation.EtatReservation.TERMINEE);
+
+        dashboardStatsService.onEtatChanged(reservation, Reservation.EtatReservation.CONFIRMEE);
+
+        verifyNoInteractions(rollupRepository);
+    }
+
+    @Test
+    void onEtatChanged_SameState_DoesNothing() {
+        reservation.setEtat(Reservation.EtatReservation.EN_ATTENTE);
+
+        dashboardStatsService.onEtatChanged(reservation, Reservation.EtatReservation.EN_ATTENTE);
+
+        verifyNoInteractions(statsRepository);
+    }
+
+    @Test
+    void onReservationCreated_BorneWithoutOwner_SkipsOwnerScope() {
+        reservation.getBorne().setOwner(null);
+
+        dashboardStatsService.onReservationCreated(reservation);
+
+        verify(statsRepository, times(2)).applyDelta(any(), any(), anyLong(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong(), any(), any(), any(), anyLong());
+        verify(statsRepository, never()).applyDelta(eq("PROPRIETAIRE"), any(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong(), anyLong(), any(), any(), any(), anyLong());
+        verify(statsRepository, never()).promoteTopBorne(any(), any());
+    }
+
+    @Test
+    void onReservationCreated_InTransaction_AppliesDeltasOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        dashboardStatsService.onReservationCreated(reservation);
+
+        // Rien n'est écrit tant que la transaction de réservation est ouverte
+        verifyNoInteractions(statsRepository, transactionManager);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(transactionManager).getTransaction(any());
+        verify(statsRepository, times(3)).applyDelta(any(), any(), anyLong(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong(), any(), any(), any(), anyLong());
+        verify(statsRepository).promoteTopBorne(2L, 10L);
+    }
+
+    @Test
+    void onReservationCreated_QueueFull_AppliesDeltasInNewTransactionFromAfterCommit() {
+        // Exécution dans le thread appelant (CallerRunsPolicy) : la tâche tourne
+        // dans afterCommit, alors que la transaction validée est encore liée
+        TransactionsEnregistrees transactions = new TransactionsEnregistrees();
+        dashboardStatsService = new DashboardStatsService(statsRepository, rollupRepository, Runnable::run,
+                transactions);
+        List<Integer> transactionsAuMomentDeLEcriture = new ArrayList<>();
+        when(statsRepository.promoteTopBorne(2L, 10L)).thenAnswer(invocation -> {
+            transactionsAuMomentDeLEcriture.add(transactions.commencees);
+            return 1;
+        });
+
+        new TransactionTemplate(transactions).executeWithoutResult(
+                status -> dashboardStatsService.onReservationCreated(reservation));
+
+        // Réservation puis statistiques : deux transactions distinctes, toutes deux validées
+        assertEquals(List.of(2), transactionsAuMomentDeLEcriture);
+        assertEquals(2, transactions.commencees);
+        assertEquals(2, transactions.validees);
+        verify(statsRepository, times(3)).applyDelta(any(), any(), anyLong(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong(), any(), any(), any(), anyLong());
+    }
+
+    @Test
+    void onEtatChanged_TransactionRolledBack_AppliesNothing() {
+        TransactionSynchronizationManager.initSynchronization();
+        reservation.setEtat(Reservation.EtatReservation.CONFIRMEE);
+
+        dashboardStatsService.onEtatChanged(reservation, Reservation.EtatReservation.EN_ATTENTE);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verifyNoInteractions(statsRepository, rollupRepository, transactionManager);
+    }
+
+    @Test
+    void onReservationCreated_RepositoryFailure_IsNotPropagated() {
+        when(statsRepository.promoteTopBorne(2L, 10L)).thenThrow(new IllegalStateException("verrou"));
+
+        dashboardStatsService.onReservationCreated(reservation);
+
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void reconcile_RecomputesEveryScopeForCurrentMonth() {
+        LocalDateTime debutMois = YearMonth.now().atDay(1).atStartOfDay();
+
+        dashboardStatsService.reconcile();
+
+        verify(statsRepository).deleteOrphans();
+        verify(statsRepository).reconcileUtilisateurs(debutMois, debutMois.plusMonths(1));
+        verify(statsRepository).reconcileBornes(debutMois, debutMois.plusMonths(1));
+        verify(statsRepository).reconcileProprietaires(debutMois, debutMois.plusMonths(1));
+        verify(rollupRepository).rebuild();
+        verify(rollupRepository).deleteStale();
+        // Une transaction par étape, jamais de vidage de la table
+        verify(transactionManager, times(6)).getTransaction(any());
+        verify(transactionManager, times(6)).commit(any());
+    }
+
+    @Test
+    void reconcileAtStartup_Failure_IsNotPropagated() {
+        when(rollupRepository.rebuild()).thenThrow(new IllegalStateException("conflit"));
+
+        dashboardStatsService.reconcileAtStartup();
+
+        verify(rollupRepository, never()).deleteStale();
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void findStats_LooksUpByPrimaryKey() {
+        dashboardStatsService.findStats(DashboardStats.Scope.UTILISATEUR, 1L);
+
+        verify(statsRepository).findById(new DashboardStats.DashboardStatsId(DashboardStats.Scope.UTILISATEUR, 1L));
+    }
+
+    /**
+     * Gestionnaire de transactions minimal qui, comme DataSourceTransactionManager,
+     * laisse la transaction liée au thread jusqu'après les callbacks afterCommit
+     */
+    private static final class TransactionsEnregistrees extends AbstractPlatformTransactionManager {
+        private boolean active;
+        int commencees;
+        int validees;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected boolean isExistingTransaction(Object transaction) {
+            return active;
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            active = true;
+            commencees++;
+        }
+
+        @Override
+        protected Object doSuspend(Object transaction) {
+            active = false;
+            return Boolean.TRUE;
+        }
+
+        @Override
+        protected void doResume(Object transaction, Object suspendedResources) {
+            active = true;
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            validees++;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doCleanupAfterCompletion(Object transaction) {
+            active = false;
+        }
+    }
+}
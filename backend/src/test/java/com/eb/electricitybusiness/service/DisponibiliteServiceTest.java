@@ -0,0 +1,174 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.dto.CreneauRunDto;
+import com.eb.electricitybusiness.dto.DisponibilitesDto;
+import com.eb.electricitybusiness.dto.ReservationIntervalRow;
+import com.eb.electricitybusiness.repository.BorneRepository;
+import com.eb.electricitybusiness.repository.ReservationRepository;
+import com.eb.electricitybusiness.service.impl.DisponibiliteServiceImpl;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("null")
+class DisponibiliteServiceTest {
+
+    private static final LocalDateTime JOUR = LocalDateTime.of(2030, 6, 1, 0, 0);
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private BorneRepository borneRepository;
+
+    private DisponibiliteServiceImpl disponibiliteService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        disponibiliteService = new DisponibiliteServiceImpl(reservationRepository, borneRepository, 60_000, 2);
+        when(borneRepository.existsById(1L)).thenReturn(true);
+    }
+
+    @Test
+    void getDisponibilites_EncodesRunsWithClosedIntervals() {
+        // 10:00-11:00 occupe aussi les créneaux qui le touchent (09:00-10:00 et 11:00-12:00)
+        when(reservationRepository.findBorneIntervals(eq(1L), any(), any(), any()))
+                .thenReturn(List.of(interval(at(10, 0), at(11, 0))));
+
+        DisponibilitesDto result = disponibiliteService.getDisponibilites(1L, at(8, 0), at(14, 0), 60);
+
+        assertEquals(List.of(
+                new CreneauRunDto(at(8, 0), 1, true),
+                new CreneauRunDto(at(9, 0), 3, false),
+                new CreneauRunDto(at(12, 0), 2, true)), result.creneaux());
+        assertEquals(60, result.granulariteMinutes());
+    }
+
+    @Test
+    void getDisponibilites_AlignsBoundsOnGranularity() {
+        when(reservationRepository.findBorneIntervals(eq(1L), any(), any(), any())).thenReturn(List.of());
+
+        DisponibilitesDto result = disponibiliteService.getDisponibilites(1L, at(8, 10), at(9, 40), 30);
+
+        assertEquals(at(8, 0), result.debut());
+        assertEquals(at(10, 0), result.fin());
+        assertEquals(List.of(new CreneauRunDto(at(8, 0), 4, true)), result.creneaux());
+    }
+
+    @Test
+    void getDisponibilites_ClipsReservationsOutsideRange() {
+        when(reservationRepository.findBorneIntervals(eq(1L), any(), any(), any()))
+                .thenReturn(List.of(interval(at(6, 0), at(8, 15)), interval(at(9, 50), at(18, 0))));
+
+        DisponibilitesDto result = disponibiliteService.getDisponibilites(1L, at(8, 0), at(10, 0), 30);
+
+        assertEquals(List.of(
+                new CreneauRunDto(at(8, 0), 1, false),
+                new CreneauRunDto(at(8, 30), 2, true),
+                new CreneauRunDto(at(9, 30), 1, false)), result.creneaux());
+    }
+
+    @Test
+    void getDisponibilites_ServesFromCacheUntilInvalidated() {
+        when(reservationRepository.findBorneIntervals(eq(1L), any(), any(), any())).thenReturn(List.of());
+
+        disponibiliteService.getDisponibilites(1L, at(8, 0), at(10, 0), 30);
+        disponibiliteService.getDisponibilites(1L, at(8, 0), at(10, 0), 30);
+        verify(reservationRepository, times(1)).findBorneIntervals(eq(1L), any(), any(), any());
+
+        disponibiliteService.invalidate(1L);
+        disponibiliteService.getDisponibilites(1L, at(8, 0), at(10, 0), 30);
+        verify(reservationRepository, times(2)).findBorneIntervals(eq(1L), any(), any(), any());
+    }
+
+    @Test
+    void getDisponibilites_TooManyBornesCached_ClearsCache() {
+        when(borneRepository.existsById(anyLong())).thenReturn(true);
+        when(reservationRepository.findBorneIntervals(anyLong(), any(), any(), any())).thenReturn(List.of());
+
+        disponibiliteService.getDisponibilites(1L, at(8, 0), at(10, 0), 30);
+        disponibiliteService.getDisponibilites(2L, at(8, 0), at(10, 0), 30);
+        disponibiliteService.getDisponibilites(1L, at(8, 0), at(10, 0), 30);
+        verify(reservationRepository, times(1)).findBorneIntervals(eq(1L), any(), any(), any());
+
+        // Troisième borne : aucune entrée expirée à purger, le cache est vidé
+        disponibiliteService.getDisponibilites(3L, at(8, 0), at(10, 0), 30);
+        disponibiliteService.getDisponibilites(1L, at(8, 0), at(10, 0), 30);
+        verify(reservationRepository, times(2)).findBorneIntervals(eq(1L), any(), any(), any());
+    }
+
+    @Test
+    void getDisponibilites_ExpiredEntries_AreRecomputed() throws InterruptedException {
+        disponibiliteService = new DisponibiliteServiceImpl(reservationRepository, borneRepository, 1, 2);
+        when(reservationRepository.findBorneIntervals(eq(1L), any(), any(), any())).thenReturn(List.of());
+
+        disponibiliteService.getDisponibilites(1L, at(8, 0), at(10, 0), 30);
+        Thread.sleep(5);
+        disponibiliteService.getDisponibilites(1L, at(8, 0), at(10, 0), 30);
+
+        verify(reservationRepository, times(2)).findBorneIntervals(eq(1L), any(), any(), any());
+    }
+
+    @Test
+    void getDisponibilites_CacheDisabled_AlwaysReads() {
+        disponibiliteService = new DisponibiliteServiceImpl(reservationRepository, borneRepository, 0, 2);
+        when(reservationRepository.findBorneIntervals(eq(1L), any(), any(), any())).thenReturn(List.of());
+
+        disponibiliteService.getDisponibilites(1L, at(8, 0), at(10, 0), 30);
+        disponibiliteService.getDisponibilites(1L, at(8, 0), at(10, 0), 30);
+
+        verify(reservationRepository, times(2)).findBorneIntervals(eq(1L), any(), any(), any());
+    }
+
+    @Test
+    void getDisponibilites_InvalidParameters_Throw() {
+        assertThrows(IllegalArgumentException.class,
+                () -> disponibiliteService.getDisponibilites(1L, at(8, 0), at(10, 0), 7));
+        assertThrows(IllegalArgumentException.class,
+                () -> disponibiliteService.getDisponibilites(1L, at(10, 0), at(8, 0), 30));
+        assertThrows(IllegalArgumentException.class,
+                () -> disponibiliteService.getDisponibilites(1L, JOUR, JOUR.plusYears(1), 5));
+        verifyNoInteractions(reservationRepository);
+    }
+
+    @Test
+    void getDisponibilites_UnknownBorne_Throws() {
+        assertThrows(EntityNotFoundException.class,
+                () -> disponibiliteService.getDisponibilites(2L, at(8, 0), at(10, 0), 30));
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return JOUR.withHour(hour).withMinute(minute);
+    }
+
+    private static ReservationIntervalRow interval(LocalDateTime debut, LocalDateTime fin) {
+        return new ReservationIntervalRow() {
+            @Override
+            public Long getIdBorne() {
+                return 1L;
+            }
+
+            @Override
+            public LocalDateTime getDateDebut() {
+                return debut;
+            }
+
+            @Override
+            public LocalDateTime getDateFin() {
+                return fin;
+            }
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.dto.OccupancyDto;
+import com.eb.electricitybusiness.dto.ReservationIntervalRow;
+import com.eb.electricitybusiness.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("null")
+class OccupancyCalculatorTest {
+
+    private static final LocalDateTime DEBUT = LocalDateTime.of(2026, 3, 1, 0, 0);
+    private static final LocalDateTime FIN = LocalDateTime.of(2026, 3, 2, 0, 0);
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @InjectMocks
+    private OccupancyCalculator occupancyCalculator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void sweep_OverlappingIntervals_CountedOnce() {
+        // 8h-10h et 9h-12h se chevauchent : 4 heures, puis 14h-15h
+        List<ReservationIntervalRow> rows = List.of(
+                interval(1L, 8, 10),
+                interval(1L, 9, 12),
+                interval(1L, 14, 15));
+
+        OccupancyDto result = OccupancyCalculator.sweep(rows.iterator(), 1, DEBUT, FIN);
+
+        assertEquals(300, result.minutesOccupees());
+        assertEquals(1440, result.minutesDisponibles());
+        assertEquals(20.83, result.tauxOccupation());
+    }
+
+    @Test
+    void sweep_NestedAndAdjacentIntervals_Merged() {
+        List<ReservationIntervalRow> rows = List.of(
+                interval(1L, 6, 12),
+                interval(1L, 7, 8),
+                interval(1L, 12, 18));
+
+        OccupancyDto result = OccupancyCalculator.sweep(rows.iterator(), 1, DEBUT, FIN);
+
+        assertEquals(720, result.minutesOccupees());
+        assertEquals(50.0, result.tauxParBorne().get(1L));
+    }
+
+    @Test
+    void sweep_IntervalsOutsideWindow_Clipped() {
+        ReservationIntervalRow veille = row(1L, DEBUT.minusHours(2), DEBUT.plusHours(3));
+        ReservationIntervalRow lendemain = row(2L, FIN.minusHours(1), FIN.plusHours(5));
+        List<ReservationIntervalRow> rows = List.of(veille, lendemain);
+
+        OccupancyDto result = OccupancyCalculator.sweep(rows.iterator(), 4, DEBUT, FIN);
+
+        assertEquals(240, result.minutesOccupees());
+        assertEquals(4 * 1440, result.minutesDisponibles());
+        assertEquals(12.5, result.tauxParBorne().get(1L));
+        assertEquals(4.17, result.tauxParBorne().get(2L));
+        assertEquals(4.17, result.tauxOccupation());
+    }
+
+    @Test
+    void sweep_NoReservations_ZeroRate() {
+        OccupancyDto result = OccupancyCalculator.sweep(List.<ReservationIntervalRow>of().iterator(), 3, DEBUT, FIN);
+
+        assertEquals(0, result.minutesOccupees());
+        assertEquals(0.0, result.tauxOccupation());
+        assertTrue(result.tauxParBorne().isEmpty());
+    }
+
+    @Test
+    void sweep_ManyRows_ConsumedLazily() {
+        // Un million de créneaux d'une minute, tous sur la même journée : rien n'est matérialisé
+        Iterator<ReservationIntervalRow> rows = Stream.iterate(0, i -> i + 1)
+                .limit(1_000_000)
+                .map(i -> row(1L + i / 1000, DEBUT.plusMinutes(i % 1000), DEBUT.plusMinutes(i % 1000 + 1)))
+                .iterator();
+
+        OccupancyDto result = OccupancyCalculator.sweep(rows, 1000, DEBUT, FIN);
+
+        assertEquals(1_000_000, result.minutesOccupees());
+        assertEquals(1000, result.tauxParBorne().size());
+    }
+
+    @Test
+    void computeForOwner_StreamsRetainedStatesAndClosesStream() {
+        AtomicBoolean closed = new AtomicBoolean();
+        ReservationIntervalRow slot = interval(1L, 0, 6);
+        when(reservationRepository.streamOwnerIntervals(eq(7L), eq(OccupancyCalculator.ETATS_OCCUPANTS),
+                eq(DEBUT), eq(FIN))).thenReturn(Stream.of(slot).onClose(() -> closed.set(true)));
+
+        OccupancyDto result = occupancyCalculator.computeForOwner(7L, 2, DEBUT, FIN);
+
+        assertEquals(12.5, result.tauxOccupation());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void computeForOwner_InvalidWindow_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> occupancyCalculator.computeForOwner(7L, 1, FIN, DEBUT));
+        verify(reservationRepository, never()).streamOwnerIntervals(any(), any(), any(), any());
+    }
+
+    private ReservationIntervalRow interval(Long borneId, int heureDebut, int heureFin) {
+        return row(borneId, DEBUT.plusHours(heureDebut), DEBUT.plusHours(heureFin));
+    }
+
+    private ReservationIntervalRow row(Long borneId, LocalDateTime debut, LocalDateTime fin) {
+        return new ReservationIntervalRow() {
+            @Override
+            public Long getIdBorne() {
+                return borneId;
+            }
+
+            @Override
+            public LocalDateTime getDateDebut() {
+                return debut;
+            }
+
+            @Override
+            public LocalDateTime getDateFin() {
+                return fin;
+            }
+        };
+    }
+}
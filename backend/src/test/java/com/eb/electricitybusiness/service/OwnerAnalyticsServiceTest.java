@@ -0,0 +1,138 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.dto.BorneEtatCountRow;
+import com.eb.electricitybusiness.dto.OwnerSeriesDto;
+import com.eb.electricitybusiness.dto.RollupSeriesRow;
+import com.eb.electricitybusiness.dto.SeriesGranularity;
+import com.eb.electricitybusiness.dto.SeriesPointDto;
+import com.eb.electricitybusiness.model.Borne;
+import com.eb.electricitybusiness.repository.DashboardRepository;
+import com.eb.electricitybusiness.repository.ReservationRollupRepository;
+import com.eb.electricitybusiness.service.impl.OwnerAnalyticsServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("null")
+class OwnerAnalyticsServiceTest {
+
+    @Mock
+    private ReservationRollupRepository rollupRepository;
+
+    @Mock
+    private DashboardRepository dashboardRepository;
+
+    @InjectMocks
+    private OwnerAnalyticsServiceImpl ownerAnalyticsService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        BorneEtatCountRow bornes = mock(BorneEtatCountRow.class);
+        when(bornes.getEtat()).thenReturn(Borne.Etat.DISPONIBLE);
+        when(bornes.getTotal()).thenReturn(2L);
+        when(dashboardRepository.countBornesByEtat(1L)).thenReturn(List.of(bornes));
+    }
+
+    @Test
+    void getSeries_Daily_FillsEmptyDaysAndSplitsPerBorne() {
+        LocalDate debut = LocalDate.of(2026, 3, 1);
+        LocalDate fin = LocalDate.of(2026, 3, 4);
+        RollupSeriesRow b10 = row(debut, 10L, 2L, "30.00", 720L);
+        RollupSeriesRow b20 = row(debut, 20L, 1L, "10.00", 0L);
+        RollupSeriesRow b10Day3 = row(debut.plusDays(2), 10L, 1L, "5.00", 144L);
+        when(rollupRepository.findOwnerSeries(1L, "day", debut, fin)).thenReturn(List.of(b10, b20, b10Day3));
+
+        OwnerSeriesDto series = ownerAnalyticsService.getSeries(1L, "day", debut, fin, null);
+
+        assertEquals(SeriesGranularity.DAY, series.granularite());
+        assertEquals(3, series.total().size());
+        SeriesPointDto first = series.total().get(0);
+        assertEquals(3, first.reservations());
+        assertEquals(new BigDecimal("40.00"), first.revenus());
+        // 720 minutes sur 2 bornes x 1440 minutes
+        assertEquals(25.0, first.tauxOccupation());
+        assertEquals(0, series.total().get(1).reservations());
+        assertEquals(BigDecimal.ZERO, series.total().get(1).revenus());
+
+        assertEquals(2, series.bornes().size());
+        assertEquals(10L, series.bornes().get(0).idBorne());
+        assertEquals(2, series.bornes().get(0).points().size());
+        assertEquals(50.0, series.bornes().get(0).points().get(0).tauxOccupation());
+        assertEquals(10.0, series.bornes().get(0).points().get(1).tauxOccupation());
+    }
+
+    @Test
+    void getSeries_Monthly_PartialBucketsUseCoveredDaysOnly() {
+        LocalDate debut = LocalDate.of(2026, 1, 16);
+        LocalDate fin = LocalDate.of(2026, 3, 1);
+        RollupSeriesRow janvier = row(LocalDate.of(2026, 1, 1), 10L, 1L, "12.00", 1440L);
+        when(rollupRepository.findBorneSeries(1L, 10L, "month", debut, fin)).thenReturn(List.of(janvier));
+
+        OwnerSeriesDto series = ownerAnalyticsService.getSeries(1L, "month", debut, fin, 10L);
+
+        assertEquals(2, series.total().size());
+        assertEquals(LocalDate.of(2026, 1, 1), series.total().get(0).periode());
+        assertEquals(LocalDate.of(2026, 2, 1), series.total().get(1).periode());
+        // Janvier couvert du 16 au 31 : 16 jours pour une seule borne
+        assertEquals(6.25, series.total().get(0).tauxOccupation());
+        verify(rollupRepository, never()).findOwnerSeries(any(), any(), any(), any());
+        verify(dashboardRepository, never()).countBornesByEtat(any());
+    }
+
+    @Test
+    void getSeries_Weekly_BucketsStartOnMonday() {
+        LocalDate debut = LocalDate.of(2026, 3, 4); // mercredi
+        LocalDate fin = LocalDate.of(2026, 3, 18);
+        when(rollupRepository.findOwnerSeries(1L, "week", debut, fin)).thenReturn(List.of());
+
+        OwnerSeriesDto series = ownerAnalyticsService.getSeries(1L, "WEEK", debut, fin, null);
+
+        assertEquals(List.of(LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 9), LocalDate.of(2026, 3, 16)),
+                series.total().stream().map(SeriesPointDto::periode).toList());
+        assertTrue(series.bornes().isEmpty());
+    }
+
+    @Test
+    void getSeries_DefaultRange_UsesDefaultBucketCount() {
+        when(rollupRepository.findOwnerSeries(any(), any(), any(), any())).thenReturn(List.of());
+
+        OwnerSeriesDto series = ownerAnalyticsService.getSeries(1L, null, null, null, null);
+
+        assertEquals(SeriesGranularity.DAY, series.granularite());
+        assertEquals(SeriesGranularity.DAY.getDefaultBuckets(), series.total().size());
+        assertEquals(LocalDate.now().plusDays(1), series.fin());
+    }
+
+    @Test
+    void getSeries_InvalidArguments_Throw() {
+        LocalDate jour = LocalDate.of(2026, 3, 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> ownerAnalyticsService.getSeries(1L, "hour", null, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> ownerAnalyticsService.getSeries(1L, "day", jour, jour, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> ownerAnalyticsService.getSeries(1L, "day", jour.minusYears(5), jour, null));
+        verifyNoInteractions(rollupRepository);
+    }
+
+    private RollupSeriesRow row(LocalDate periode, Long idBorne, Long reservations, String revenus, Long minutes) {
+        RollupSeriesRow row = mock(RollupSeriesRow.class);
+        when(row.getEpochDay()).thenReturn(periode.toEpochDay());
+        when(row.getIdBorne()).thenReturn(idBorne);
+        when(row.getReservations()).thenReturn(reservations);
+        when(row.getRevenus()).thenReturn(new BigDecimal(revenus));
+        when(row.getMinutesOccupees()).thenReturn(minutes);
+        return row;
+    }
+}
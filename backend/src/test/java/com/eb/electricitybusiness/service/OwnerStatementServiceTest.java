@@ -0,0 +1,160 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.dto.StatementLineRow;
+import com.eb.electricitybusiness.repository.ReservationRepository;
+import com.eb.electricitybusiness.service.impl.OwnerStatementServiceImpl;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OwnerStatementServiceTest {
+
+    private static final YearMonth MOIS = YearMonth.of(2025, 3);
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @TempDir
+    Path tempDir;
+
+    private OwnerStatementServiceImpl statementService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        statementService = new OwnerStatementServiceImpl(reservationRepository, Runnable::run, tempDir.toString(), 2);
+    }
+
+    @Test
+    void generateStatement_ReadsReservationsPageByPage() throws IOException {
+        when(reservationRepository.findStatementLines(eq(7L), any(), any(), any(), eq(0L), any()))
+                .thenReturn(List.of(line(1L, "10.00"), line(2L, "5.50")));
+        when(reservationRepository.findStatementLines(eq(7L), any(), any(), any(), eq(2L), any()))
+                .thenReturn(List.of(line(4L, "2.25"), line(6L, null)));
+        when(reservationRepository.findStatementLines(eq(7L), any(), any(), any(), eq(6L), any()))
+                .thenReturn(List.of(line(9L, "1.00")));
+
+        Path file = statementService.generateStatement(7L, MOIS);
+
+        assertEquals(tempDir.resolve("7").resolve("releve_2025-03.pdf"), file);
+        String text = extractText(file);
+        assertTrue(text.contains("Nombre de réservations : 5"));
+        assertTrue(text.contains("18.75") || text.contains("18,75"));
+        verify(reservationRepository, times(3)).findStatementLines(eq(7L), any(),
+                eq(LocalDateTime.of(2025, 3, 1, 0, 0)), eq(LocalDateTime.of(2025, 4, 1, 0, 0)), anyLong(), any());
+        // Aucun fichier temporaire laissé dans le répertoire
+        try (var files = Files.list(file.getParent())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void generateStatement_NoReservation_StillProducesStatement() throws IOException {
+        when(reservationRepository.findStatementLines(any(), any(), any(), any(), anyLong(), any()))
+                .thenReturn(List.of());
+
+        Path file = statementService.generateStatement(7L, MOIS);
+
+        assertTrue(extractText(file).contains("Aucune réservation facturée"));
+    }
+
+    @Test
+    void generateStatement_FutureMonth_Throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> statementService.generateStatement(7L, YearMonth.now().plusMonths(1)));
+    }
+
+    @Test
+    void getStatement_PastMonthAlreadyGenerated_ReusesFile() throws IOException {
+        Path existing = tempDir.resolve("7").resolve("releve_2025-03.pdf");
+        Files.createDirectories(existing.getParent());
+        Files.writeString(existing, "%PDF");
+
+        assertEquals(existing, statementService.getStatement(7L, MOIS));
+        verifyNoInteractions(reservationRepository);
+    }
+
+    @Test
+    void generateAllStatements_CountsGeneratedStatements() {
+        when(reservationRepository.findOwnerIdsWithReservations(any(), any(), any())).thenReturn(List.of(1L, 2L, 3L));
+        when(reservationRepository.findStatementLines(any(), any(), any(), any(), anyLong(), any()))
+                .thenReturn(List.of(line(1L, "3.00")));
+        when(reservationRepository.findStatementLines(eq(2L), any(), any(), any(), anyLong(), any()))
+                .thenThrow(new IllegalStateException("boom"));
+
+        assertEquals(2, statementService.generateAllStatements(MOIS));
+        assertTrue(Files.exists(tempDir.resolve("1").resolve("releve_2025-03.pdf")));
+        assertFalse(Files.exists(tempDir.resolve("2").resolve("releve_2025-03.pdf")));
+    }
+
+    private static String extractText(Path file) throws IOException {
+        PdfReader reader = new PdfReader(file.toString());
+        try {
+            List<String> pages = new ArrayList<>();
+            for (int i = 1; i <= reader.getNumberOfPages(); i++) {
+                pages.add(PdfTextExtractor.getTextFromPage(reader, i));
+            }
+            return String.join("\n", pages);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static StatementLineRow line(Long id, String montant) {
+        return new StatementLineRow() {
+            @Override
+            public Long getNumeroReservation() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getDateDebut() {
+                return LocalDateTime.of(2025, 3, 10, 8, 0);
+            }
+
+            @Override
+            public LocalDateTime getDateFin() {
+                return LocalDateTime.of(2025, 3, 10, 9, 0);
+            }
+
+            @Override
+            public String getNomBorne() {
+                return "Borne " + id;
+            }
+
+            @Override
+            public String getPrenomClient() {
+                return "Jean";
+            }
+
+            @Override
+            public String getNomClient() {
+                return "Dupont";
+            }
+
+            @Override
+            public BigDecimal getTotalPrice() {
+                return montant != null ? new BigDecimal(montant) : null;
+            }
+        };
+    }
+}
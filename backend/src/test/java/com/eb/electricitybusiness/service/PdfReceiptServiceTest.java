@@ -4,12 +4,10 @@ import com.eb.electricitybusiness.model.Borne;
 import com.eb.electricitybusiness.model.Reservation;
 import com.eb.electricitybusiness.model.Utilisateur;
 import com.eb.electricitybusiness.service.impl.PdfReceiptServiceImpl;
+import com.eb.electricitybusiness.service.impl.ReceiptStorageServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
-import org.mockito.InjectMocks;
-import org.mockito.MockitoAnnotations;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -22,7 +20,6 @@ import static org.junit.jupiter.api.Assertions.*;
 @SuppressWarnings("null")
 class PdfReceiptServiceTest {
 
-    @InjectMocks
     private PdfReceiptServiceImpl pdfReceiptService;
 
     @TempDir
@@ -30,8 +27,7 @@ class PdfReceiptServiceTest {
 
     @BeforeEach
     void setUp() {
-        MockitoAnnotations.openMocks(this);
-        ReflectionTestUtils.setField(pdfReceiptService, "receiptsStoragePath", tempDir.toString());
+        pdfReceiptService = new PdfReceiptServiceImpl(new ReceiptStorageServiceImpl(tempDir.toString()));
     }
 
     @Test
@@ -61,7 +57,40 @@ class PdfReceiptServiceTest {
         String path = pdfReceiptService.generateReceipt(reservation);
 
         assertNotNull(path);
-        assertTrue(Files.exists(Path.of(path)));
+        assertTrue(path.matches("[0-9a-f]{2}/[0-9a-f]{2}/recu_reservation_100\\.pdf"));
+        assertTrue(Files.exists(tempDir.resolve(path)));
+    }
+
+    @Test
+    void generateReceipt_Repeated_ProducesIdenticalCompleteDocuments() throws IOException {
+        Reservation reservation = new Reservation();
+        reservation.setNumeroReservation(101L);
+        reservation.setDateDebut(LocalDateTime.of(2030, 1, 15, 8, 0));
+        reservation.setDateFin(LocalDateTime.of(2030, 1, 15, 9, 0));
+        reservation.setPrixALaMinute(new BigDecimal("0.25"));
+        reservation.setTotalPrice(new BigDecimal("15.00"));
+        reservation.setEtat(Reservation.EtatReservation.CONFIRMEE);
+        Utilisateur u = new Utilisateur();
+        u.setNom("Doe");
+        u.setPrenom("Jane");
+        u.setEmail("jane@test.com");
+        reservation.setUtilisateur(u);
+        Borne b = new Borne();
+        b.setNom("Borne 2");
+        b.setNumero("B-002");
+        b.setPuissance(50);
+        reservation.setBorne(b);
+
+        // Le tampon de rendu est réutilisé : aucun reste du reçu précédent
+        String path = pdfReceiptService.generateReceipt(reservation);
+        byte[] first = Files.readAllBytes(tempDir.resolve(path));
+        // Nom stable par réservation : la nouvelle génération remplace le fichier
+        assertEquals(path, pdfReceiptService.generateReceipt(reservation));
+        byte[] second = Files.readAllBytes(tempDir.resolve(path));
+
+        assertEquals("%PDF", new String(first, 0, 4));
+        assertTrue(new String(first).trim().endsWith("%%EOF"));
+        assertEquals(first.length, second.length);
     }
 
     @Test
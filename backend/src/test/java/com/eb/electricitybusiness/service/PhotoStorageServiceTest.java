@@ -0,0 +1,123 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.service.impl.PhotoStorageServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhotoStorageServiceTest {
+
+    private static final String BASE_URL = "http://localhost:8080/uploads/bornes";
+    private static final byte[] JPEG = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0x10, 'J', 'F', 'I',
+            'F', 0, 1, 2, 3, 4 };
+    private static final byte[] PNG = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 0x0D };
+
+    private PhotoStorageServiceImpl photoStorageService;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        photoStorageService = new PhotoStorageServiceImpl();
+        ReflectionTestUtils.setField(photoStorageService, "uploadDir", tempDir.toString());
+        ReflectionTestUtils.setField(photoStorageService, "uploadBaseUrl", BASE_URL);
+        ReflectionTestUtils.setField(photoStorageService, "maxPhotoBytes", 1024L);
+    }
+
+    @Test
+    void store_SameContent_StoredOnceUnderContentHash() throws IOException {
+        String first = photoStorageService.store(new ByteArrayInputStream(JPEG));
+        String second = photoStorageService.store(new ByteArrayInputStream(JPEG));
+
+        assertEquals(first, second);
+        assertTrue(first.startsWith(BASE_URL + "/"));
+        assertTrue(first.endsWith(".jpg"));
+
+        Path stored = tempDir.resolve(first.substring(BASE_URL.length() + 1));
+        assertArrayEquals(JPEG, Files.readAllBytes(stored));
+        try (var files = Files.list(stored.getParent())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void store_NotAnImageOrTooLarge_RejectedWithoutLeavingFiles() throws IOException {
+        assertThrows(IllegalArgumentException.class,
+                () -> photoStorageService.store(new ByteArrayInputStream("<svg></svg>".getBytes())));
+
+        byte[] tooLarge = new byte[2048];
+        System.arraycopy(JPEG, 0, tooLarge, 0, JPEG.length);
+        assertThrows(IllegalArgumentException.class,
+                () -> photoStorageService.store(new ByteArrayInputStream(tooLarge)));
+
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void storeDataUrl_DecodesBase64Content() throws IOException {
+        String dataUrl = "data:image/png;base64," + Base64.getEncoder().encodeToString(PNG);
+
+        assertTrue(photoStorageService.isDataUrl(dataUrl));
+        String url = photoStorageService.storeDataUrl(dataUrl);
+
+        assertTrue(url.endsWith(".png"));
+        assertArrayEquals(PNG, Files.readAllBytes(tempDir.resolve(url.substring(BASE_URL.length() + 1))));
+    }
+
+    @Test
+    void resolve_RejectsNamesOutsideStorageLayout() {
+        String hash = "ab".repeat(32);
+
+        assertNotNull(photoStorageService.resolve("ab", "ab", hash + ".jpg"));
+        assertNull(photoStorageService.resolve("..", "ab", hash + ".jpg"));
+        assertNull(photoStorageService.resolve("ab", "cd", hash + ".jpg"));
+        assertNull(photoStorageService.resolve("ab", "ab", "photo.jpg"));
+    }
+
+    @Test
+    void isDataUrl_ShortUrl_ReturnsFalse() {
+        assertFalse(photoStorageService.isDataUrl(BASE_URL + "/ab/cd/abcd.jpg"));
+        assertFalse(photoStorageService.isDataUrl(null));
+    }
+
+    @Test
+    void variantUrl_StoredPhoto_PointsToVariantNextToOriginal() throws IOException {
+        String url = photoStorageService.store(new ByteArrayInputStream(PNG));
+        String hash = url.substring(url.lastIndexOf('/') + 1, url.lastIndexOf('.'));
+
+        String thumbnail = photoStorageService.variantUrl(url, PhotoVariant.THUMBNAIL);
+
+        assertEquals(url.substring(0, url.lastIndexOf('/') + 1) + hash + "_thumb.jpg", thumbnail);
+        assertEquals(photoStorageService.resolveUrl(url),
+                photoStorageService.resolveOriginal(hash.substring(0, 2), hash.substring(2, 4), hash + "_thumb.jpg"));
+        // Les URLs hors stockage sont conservées telles quelles
+        String dataUrl = "data:image/png;base64,AAAA";
+        assertEquals(dataUrl, photoStorageService.variantUrl(dataUrl, PhotoVariant.CARD));
+    }
+
+    @Test
+    void findOriginalsWithoutVariants_SkipsCompleteOriginals() throws IOException {
+        Path incomplete = tempDir.resolve(photoStorageService.store(new ByteArrayInputStream(JPEG))
+                .substring(BASE_URL.length() + 1));
+        Path complete = tempDir.resolve(photoStorageService.store(new ByteArrayInputStream(PNG))
+                .substring(BASE_URL.length() + 1));
+        String hash = complete.getFileName().toString().substring(0, 64);
+        for (PhotoVariant variant : PhotoVariant.values()) {
+            Files.write(complete.resolveSibling(variant.fileName(hash)), new byte[0]);
+        }
+
+        assertEquals(java.util.List.of(incomplete), photoStorageService.findOriginalsWithoutVariants(10));
+    }
+}
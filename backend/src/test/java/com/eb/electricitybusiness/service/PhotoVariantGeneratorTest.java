@@ -0,0 +1,115 @@
+package com.eb.electricitybusiness.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+class PhotoVariantGeneratorTest {
+
+    private static final String HASH = "ab".repeat(32);
+
+    @Mock
+    private PhotoStorageService photoStorageService;
+
+    private PhotoVariantGenerator generator;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // Exécution synchrone pour le test
+        generator = new PhotoVariantGenerator(photoStorageService, Runnable::run, 40_000_000L, 500);
+    }
+
+    @Test
+    void generateAsync_WritesDownscaledJpegVariants() throws Exception {
+        Path original = tempDir.resolve(HASH + ".png");
+        ImageIO.write(new BufferedImage(800, 400, BufferedImage.TYPE_INT_ARGB), "png", original.toFile());
+        when(photoStorageService.resolveUrl("url")).thenReturn(original);
+
+        generator.generateAsync("url");
+
+        BufferedImage thumbnail = ImageIO.read(tempDir.resolve(HASH + "_thumb.jpg").toFile());
+        assertEquals(160, thumbnail.getWidth());
+        assertEquals(80, thumbnail.getHeight());
+        assertEquals(480, ImageIO.read(tempDir.resolve(HASH + "_card.jpg").toFile()).getWidth());
+        // Jamais d'agrandissement
+        assertEquals(800, ImageIO.read(tempDir.resolve(HASH + "_full.jpg").toFile()).getWidth());
+    }
+
+    @Test
+    void generate_UndecodableImage_WritesNothing() throws Exception {
+        Path original = tempDir.resolve(HASH + ".webp");
+        Files.write(original, new byte[] { 'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P' });
+
+        generator.generate(original);
+
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void generate_ImageAboveMaxPixels_NotDecoded() throws Exception {
+        generator = new PhotoVariantGenerator(photoStorageService, Runnable::run, 1_000_000L, 500);
+        Path original = tempDir.resolve(HASH + ".png");
+        ImageIO.write(new BufferedImage(2000, 1000, BufferedImage.TYPE_BYTE_BINARY), "png", original.toFile());
+
+        generator.generate(original);
+
+        assertFalse(Files.exists(tempDir.resolve(HASH + "_thumb.jpg")));
+    }
+
+    @Test
+    void generate_LargeImage_SubsampledBeforeResize() throws Exception {
+        Path original = tempDir.resolve(HASH + ".png");
+        ImageIO.write(new BufferedImage(12800, 400, BufferedImage.TYPE_BYTE_BINARY), "png", original.toFile());
+
+        generator.generate(original);
+
+        BufferedImage full = ImageIO.read(tempDir.resolve(HASH + "_full.jpg").toFile());
+        assertEquals(1600, full.getWidth());
+        assertEquals(50, full.getHeight());
+    }
+
+    @Test
+    void sweepMissingVariants_ResubmitsPhotosRejectedByFullQueue() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Executor rejectFirst = task -> {
+            if (calls.getAndIncrement() == 0) {
+                throw new RejectedExecutionException("pleine");
+            }
+            task.run();
+        };
+        generator = new PhotoVariantGenerator(photoStorageService, rejectFirst, 40_000_000L, 500);
+        Path original = tempDir.resolve(HASH + ".png");
+        ImageIO.write(new BufferedImage(800, 400, BufferedImage.TYPE_INT_RGB), "png", original.toFile());
+        when(photoStorageService.resolveUrl("url")).thenReturn(original);
+        when(photoStorageService.findOriginalsWithoutVariants(anyInt())).thenReturn(List.of(original));
+
+        generator.generateAsync("url");
+        assertFalse(Files.exists(tempDir.resolve(HASH + "_thumb.jpg")));
+
+        generator.sweepMissingVariants();
+
+        assertTrue(Files.exists(tempDir.resolve(HASH + "_thumb.jpg")));
+        assertTrue(Files.exists(tempDir.resolve(HASH + "_full.jpg")));
+    }
+}
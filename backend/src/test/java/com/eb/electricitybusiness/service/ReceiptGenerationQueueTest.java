@@ -0,0 +1,104 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.model.Reservation;
+import com.eb.electricitybusiness.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReceiptGenerationQueueTest {
+
+    @Mock
+    private PdfReceiptService pdfReceiptService;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    private ReceiptGenerationQueue queue;
+    private Reservation reservation;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // Exécution synchrone et sans délai entre les tentatives pour le test
+        queue = new ReceiptGenerationQueue(pdfReceiptService, reservationRepository, Runnable::run, 3, 0, 50);
+
+        reservation = new Reservation();
+        reservation.setNumeroReservation(1L);
+        reservation.setReceiptPath(PdfReceiptService.RECEIPT_PENDING);
+        when(reservationRepository.findWithDetails(1L)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.updateReceiptPath(any(), any(), any())).thenReturn(1);
+    }
+
+    @Test
+    void submit_GeneratesReceiptAndMarksItReady() throws Exception {
+        when(pdfReceiptService.generateReceipt(reservation)).thenReturn("receipts/recu_1.pdf");
+
+        queue.submit(1L);
+
+        verify(reservationRepository).updateReceiptPath(1L, "receipts/recu_1.pdf", PdfReceiptService.RECEIPT_PENDING);
+    }
+
+    @Test
+    void submit_FailingGeneration_RetriesThenSucceeds() throws Exception {
+        when(pdfReceiptService.generateReceipt(reservation))
+                .thenThrow(new IOException("disque plein"))
+                .thenReturn("receipts/recu_1.pdf");
+
+        queue.submit(1L);
+
+        verify(pdfReceiptService, times(2)).generateReceipt(reservation);
+        verify(reservationRepository).updateReceiptPath(1L, "receipts/recu_1.pdf", PdfReceiptService.RECEIPT_PENDING);
+    }
+
+    @Test
+    void submit_AlwaysFailing_StopsAfterMaxAttemptsAndStaysPending() throws Exception {
+        when(pdfReceiptService.generateReceipt(reservation)).thenThrow(new IOException("disque plein"));
+
+        queue.submit(1L);
+
+        verify(pdfReceiptService, times(3)).generateReceipt(reservation);
+        verify(reservationRepository, never()).updateReceiptPath(any(), any(), any());
+    }
+
+    @Test
+    void submit_ReceiptAlreadyReady_DoesNothing() throws Exception {
+        reservation.setReceiptPath("receipts/recu_1.pdf");
+
+        queue.submit(1L);
+
+        verifyNoInteractions(pdfReceiptService);
+    }
+
+    @Test
+    void submit_QueueFull_LeavesReceiptForRecovery() {
+        queue = new ReceiptGenerationQueue(pdfReceiptService, reservationRepository, task -> {
+            throw new RejectedExecutionException();
+        }, 3, 0, 50);
+
+        assertDoesNotThrow(() -> queue.submit(1L));
+        verifyNoInteractions(pdfReceiptService);
+    }
+
+    @Test
+    void recoverPending_ResubmitsPendingReceipts() throws Exception {
+        when(reservationRepository.findIdsByReceiptPath(eq(PdfReceiptService.RECEIPT_PENDING), any()))
+                .thenReturn(List.of(1L));
+        when(pdfReceiptService.generateReceipt(reservation)).thenReturn("receipts/recu_1.pdf");
+
+        queue.recoverPending();
+
+        verify(reservationRepository).updateReceiptPath(1L, "receipts/recu_1.pdf", PdfReceiptService.RECEIPT_PENDING);
+    }
+}
@@ -0,0 +1,77 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.dto.ReceiptPathRow;
+import com.eb.electricitybusiness.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReceiptRetentionServiceTest {
+
+    private static final LocalDateTime AVANT = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private ReceiptStorageService receiptStorageService;
+
+    private ReceiptRetentionService retentionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        retentionService = new ReceiptRetentionService(reservationRepository, receiptStorageService, 365, 2, 24);
+    }
+
+    @Test
+    void archiveBefore_UpdatesPathThenDeletesFileBatchByBatch() throws Exception {
+        when(reservationRepository.findReceiptsToArchive(eq(0L), eq(AVANT), any(), any()))
+                .thenReturn(List.of(row(1L, "aa/bb/recu_reservation_1.pdf"), row(2L, "cc/dd/recu_reservation_2.pdf")));
+        when(reservationRepository.findReceiptsToArchive(eq(2L), eq(AVANT), any(), any()))
+                .thenReturn(List.of(row(5L, "ee/ff/recu_reservation_5.pdf")));
+        when(receiptStorageService.archive(any())).thenAnswer(i -> {
+            Map<Long, String> receipts = i.getArgument(0);
+            return receipts.containsKey(1L)
+                    ? Map.of(1L, "archives/a.zip!aa/bb/recu_reservation_1.pdf",
+                            2L, "archives/a.zip!cc/dd/recu_reservation_2.pdf")
+                    : Map.of(5L, "archives/b.zip!ee/ff/recu_reservation_5.pdf");
+        });
+        when(reservationRepository.updateReceiptPath(anyLong(), any(), any())).thenReturn(1);
+        // La réservation 2 a changé de reçu entre-temps : son fichier est conservé
+        when(reservationRepository.updateReceiptPath(2L, "archives/a.zip!cc/dd/recu_reservation_2.pdf",
+                "cc/dd/recu_reservation_2.pdf")).thenReturn(0);
+
+        assertEquals(2, retentionService.archiveBefore(AVANT));
+
+        verify(receiptStorageService).delete("aa/bb/recu_reservation_1.pdf");
+        verify(receiptStorageService).delete("ee/ff/recu_reservation_5.pdf");
+        verify(receiptStorageService, never()).delete("cc/dd/recu_reservation_2.pdf");
+        verify(reservationRepository, times(2)).findReceiptsToArchive(anyLong(), any(), any(), any());
+    }
+
+    private static ReceiptPathRow row(Long id, String path) {
+        return new ReceiptPathRow() {
+            @Override
+            public Long getNumeroReservation() {
+                return id;
+            }
+
+            @Override
+            public String getReceiptPath() {
+                return path;
+            }
+        };
+    }
+}
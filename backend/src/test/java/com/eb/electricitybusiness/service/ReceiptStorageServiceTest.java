@@ -0,0 +1,86 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.service.impl.ReceiptStorageServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptStorageServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ReceiptStorageService storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new ReceiptStorageServiceImpl(tempDir.toString());
+    }
+
+    @Test
+    void store_ShardsByReservationAndReplacesPreviousReceipt() throws IOException {
+        String first = storage.store(42L, content("v1"));
+        String second = storage.store(42L, content("v2"));
+
+        assertEquals(first, second);
+        assertTrue(first.matches("[0-9a-f]{2}/[0-9a-f]{2}/recu_reservation_42\\.pdf"));
+        assertEquals("v2", Files.readString(storage.resolve(first)));
+        // Aucun fichier temporaire laissé dans le répertoire
+        try (var files = Files.list(tempDir.resolve(first).getParent())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void resolve_LegacyAbsolutePath_ReturnsFile() throws IOException {
+        Path legacy = tempDir.resolve("recu_reservation_7_1700000000000.pdf");
+        Files.writeString(legacy, "ancien");
+
+        assertEquals(legacy, storage.resolve(legacy.toString()));
+        assertThrows(IOException.class, () -> storage.resolve(tempDir.resolve("absent.pdf").toString()));
+    }
+
+    @Test
+    void archive_BundlesReceiptsAndRestoresThemOnDemand() throws IOException {
+        String recent = storage.store(1L, content("reçu 1"));
+        Path legacy = tempDir.resolve("recu_reservation_2_1700000000000.pdf");
+        Files.writeString(legacy, "reçu 2");
+        Map<Long, String> receipts = new LinkedHashMap<>();
+        receipts.put(1L, recent);
+        receipts.put(2L, legacy.toString());
+        receipts.put(3L, "ab/cd/recu_reservation_3.pdf");
+
+        Map<Long, String> archived = storage.archive(receipts);
+
+        assertEquals(2, archived.size());
+        assertFalse(archived.containsKey(3L));
+        assertTrue(storage.isArchived(archived.get(1L)));
+        // Les originaux restent en place jusqu'à la mise à jour de receipt_path
+        assertTrue(Files.exists(tempDir.resolve(recent)));
+
+        storage.delete(recent);
+        storage.delete(legacy.toString());
+        assertEquals("reçu 1", Files.readString(storage.resolve(archived.get(1L))));
+        assertEquals("reçu 2", Files.readString(storage.resolve(archived.get(2L))));
+
+        assertEquals(2, storage.purgeRestored(Duration.ZERO.minusSeconds(1)));
+        // Nouvelle extraction après la purge
+        assertEquals("reçu 1", Files.readString(storage.resolve(archived.get(1L))));
+    }
+
+    private static ByteArrayOutputStream content(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(text.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        return out;
+    }
+}
@@ -21,6 +21,9 @@ class ReservationCleanupServiceTest {
     @Mock
     private ReservationRepository reservationRepository;
 
+    @Mock
+    private DashboardStatsService dashboardStatsService;
+
     @InjectMocks
     private ReservationCleanupService reservationCleanupService;
 
@@ -41,6 +44,7 @@ class ReservationCleanupServiceTest {
         reservationCleanupService.cleanupExpiredPendingReservations();
 
         verify(reservationRepository).saveAll(anyList());
+        verify(dashboardStatsService).onEtatChanged(r1, Reservation.EtatReservation.EN_ATTENTE);
         // Verify state changed
         assert (r1.getEtat() == Reservation.EtatReservation.ANNULEE);
     }
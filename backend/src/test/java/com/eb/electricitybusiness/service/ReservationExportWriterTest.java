@@ -0,0 +1,82 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.dto.ExportFormat;
+import com.eb.electricitybusiness.dto.ReservationExportRow;
+import com.eb.electricitybusiness.model.Reservation;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationExportWriterTest {
+
+    @Test
+    void writeCsv_EscapesValuesAndNeutralisesFormulas() throws IOException {
+        ReservationExportWriter writer = new ReservationExportWriter(100);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = writer.write(ExportFormat.CSV,
+                Stream.of(row(1L, "Borne; \"centre\"", "=HYPERLINK(\"x\")"), row(2L, "Borne 2", "Martin")), out);
+
+        assertEquals(2, count);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("\uFEFFNuméro;Début;Fin;Statut"));
+        assertEquals("1;2025-03-10T08:00:00;2025-03-10T09:30:00;TERMINEE;0.5000;45.00;3;"
+                + "\"Borne; \"\"centre\"\"\";5;Jean;\"'=HYPERLINK(\"\"x\"\")\";jean@test.com", lines[1]);
+    }
+
+    @Test
+    void writeXlsx_StartsNewSheetWhenFull() throws IOException {
+        ReservationExportWriter writer = new ReservationExportWriter(2, 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = writer.write(ExportFormat.XLSX,
+                Stream.of(row(1L, "A", "Nom"), row(2L, "B", "Nom"), row(3L, "C", "Nom")), out);
+
+        assertEquals(3, count);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(2, workbook.getNumberOfSheets());
+            Sheet first = workbook.getSheetAt(0);
+            assertEquals("Numéro", first.getRow(0).getCell(0).getStringCellValue());
+            assertEquals(2, first.getLastRowNum());
+            assertEquals(45.0, first.getRow(1).getCell(5).getNumericCellValue());
+            assertEquals(LocalDateTime.of(2025, 3, 10, 8, 0), first.getRow(1).getCell(1).getLocalDateTimeCellValue());
+            Sheet second = workbook.getSheetAt(1);
+            assertEquals("C", second.getRow(1).getCell(7).getStringCellValue());
+        }
+    }
+
+    @Test
+    void writeXlsx_NoRow_WritesHeaderOnly() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(0, new ReservationExportWriter(100).write(ExportFormat.XLSX, Stream.empty(), out));
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(0, workbook.getSheetAt(0).getLastRowNum());
+        }
+    }
+
+    @Test
+    void parseFormat_Invalid_Throws() {
+        assertEquals(ExportFormat.XLSX, ExportFormat.parse(null));
+        assertEquals(ExportFormat.CSV, ExportFormat.parse(" CSV "));
+        assertThrows(IllegalArgumentException.class, () -> ExportFormat.parse("pdf"));
+    }
+
+    private static ReservationExportRow row(Long id, String nomBorne, String nom) {
+        return new ReservationExportRow(id, LocalDateTime.of(2025, 3, 10, 8, 0), LocalDateTime.of(2025, 3, 10, 9, 30),
+                Reservation.EtatReservation.TERMINEE, new BigDecimal("0.5000"), new BigDecimal("45.00"),
+                3L, nomBorne, 5L, "Jean", nom, "jean@test.com");
+    }
+}
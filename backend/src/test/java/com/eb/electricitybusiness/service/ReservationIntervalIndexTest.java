@@ -0,0 +1,199 @@
+package com.eb.electricitybusiness.service;
+
+import com.eb.electricitybusiness.dto.ReservationSlotRow;
+import com.eb.electricitybusiness.model.Borne;
+import com.eb.electricitybusiness.model.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationIntervalIndexTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    private ReservationIntervalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ReservationIntervalIndex(true, 1);
+        index.beginLoad();
+        index.load(List.of(
+                slot(1L, 10L, 8, 10),
+                slot(2L, 10L, 14, 16),
+                slot(3L, 20L, 8, 10)).iterator(), T0.minusDays(1));
+    }
+
+    @Test
+    void hasConflict_UsesClosedIntervalsLikeTheDatabaseQuery() {
+        assertTrue(index.hasConflict(10L, at(9), at(11), null));
+        assertTrue(index.hasConflict(10L, at(10), at(12), null)); // créneaux qui se touchent
+        assertTrue(index.hasConflict(10L, at(7), at(17), null));
+        assertFalse(index.hasConflict(10L, at(11), at(13), null));
+        assertFalse(index.hasConflict(30L, at(8), at(10), null));
+    }
+
+    @Test
+    void hasConflict_IgnoresExcludedReservation() {
+        assertFalse(index.hasConflict(10L, at(14), at(15), 2L));
+        assertTrue(index.hasConflict(10L, at(9), at(15), 2L));
+    }
+
+    @Test
+    void canAnswer_OnlyAfterLoadAndWithinHorizon() {
+        assertTrue(index.canAnswer(T0));
+        assertFalse(index.canAnswer(T0.minusDays(2)));
+
+        ReservationIntervalIndex notLoaded = new ReservationIntervalIndex(true, 1);
+        assertFalse(notLoaded.canAnswer(T0));
+    }
+
+    @Test
+    void sync_OutsideTransaction_AddsBlockingAndRemovesReleasedSlots() {
+        Reservation reservation = reservation(4L, 20L, Reservation.EtatReservation.CONFIRMEE, 12, 13);
+        index.sync(reservation, Reservation.EtatReservation.EN_ATTENTE);
+        assertTrue(index.hasConflict(20L, at(12), at(12), null));
+
+        reservation.setEtat(Reservation.EtatReservation.ANNULEE);
+        index.sync(reservation, Reservation.EtatReservation.CONFIRMEE);
+        assertFalse(index.hasConflict(20L, at(12), at(12), null));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void sync_RolledBackConfirmation_RemovesNewSlot() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.sync(reservation(4L, 20L, Reservation.EtatReservation.CONFIRMEE, 12, 13),
+                    Reservation.EtatReservation.EN_ATTENTE);
+            assertTrue(index.hasConflict(20L, at(12), at(12), null));
+
+            rollback();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertFalse(index.hasConflict(20L, at(12), at(12), null));
+    }
+
+    @Test
+    void sync_RolledBackCompletion_KeepsSlotThatWasAlreadyBlocking() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.sync(reservation(1L, 10L, Reservation.EtatReservation.TERMINEE, 8, 10),
+                    Reservation.EtatReservation.ACTIVE);
+
+            rollback();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(index.hasConflict(10L, at(8), at(10), null));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void load_ReplaysChangesReceivedDuringLoad() {
+        index.beginLoad();
+        index.sync(reservation(5L, 30L, Reservation.EtatReservation.CONFIRMEE, 8, 9),
+                Reservation.EtatReservation.EN_ATTENTE);
+        index.sync(reservation(1L, 10L, Reservation.EtatReservation.ANNULEE, 8, 10),
+                Reservation.EtatReservation.CONFIRMEE);
+
+        // Le chargement a lu la base avant ces modifications
+        index.load(List.of(slot(1L, 10L, 8, 10)).iterator(), T0.minusDays(1));
+
+        assertTrue(index.hasConflict(30L, at(8), at(9), null));
+        assertFalse(index.hasConflict(10L, at(8), at(10), null));
+    }
+
+    @Test
+    void disabled_NeverAnswersAndIgnoresUpdates() {
+        ReservationIntervalIndex disabled = new ReservationIntervalIndex(false, 1);
+        disabled.sync(reservation(1L, 10L, Reservation.EtatReservation.CONFIRMEE, 8, 10),
+                Reservation.EtatReservation.EN_ATTENTE);
+
+        assertFalse(disabled.canAnswer(T0));
+        assertEquals(0, disabled.size());
+    }
+
+    @Test
+    void tree_MatchesBruteForceAndStaysBalanced() {
+        Random random = new Random(42);
+        ReservationIntervalTree tree = new ReservationIntervalTree();
+        List<long[]> live = new ArrayList<>();
+
+        for (long id = 1; id <= 2000; id++) {
+            long debut = random.nextInt(100_000);
+            long fin = debut + 1 + random.nextInt(300);
+            tree.put(id, T0.plusMinutes(debut), T0.plusMinutes(fin));
+            live.add(new long[] { id, debut, fin });
+            if (random.nextInt(4) == 0) {
+                long[] removed = live.remove(random.nextInt(live.size()));
+                assertTrue(tree.remove(removed[0]));
+            }
+        }
+        assertEquals(live.size(), tree.size());
+        assertTrue(tree.height() <= 1.45 * (Math.log(live.size() + 2) / Math.log(2)));
+
+        for (int i = 0; i < 500; i++) {
+            long debut = random.nextInt(100_000);
+            long fin = debut + random.nextInt(200);
+            Long exclude = live.get(random.nextInt(live.size()))[0];
+            boolean expected = live.stream()
+                    .anyMatch(s -> s[0] != exclude && s[1] <= fin && s[2] >= debut);
+            assertEquals(expected, tree.overlaps(T0.plusMinutes(debut), T0.plusMinutes(fin), exclude));
+        }
+    }
+
+    private static void rollback() {
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    }
+
+    private static LocalDateTime at(int hour) {
+        return T0.plusHours(hour);
+    }
+
+    private static Reservation reservation(Long id, Long borneId, Reservation.EtatReservation etat,
+            int debut, int fin) {
+        Borne borne = new Borne();
+        borne.setIdBorne(borneId);
+        Reservation reservation = new Reservation();
+        reservation.setNumeroReservation(id);
+        reservation.setBorne(borne);
+        reservation.setEtat(etat);
+        reservation.setDateDebut(at(debut));
+        reservation.setDateFin(at(fin));
+        return reservation;
+    }
+
+    private static ReservationSlotRow slot(Long id, Long borneId, int debut, int fin) {
+        return new ReservationSlotRow() {
+            @Override
+            public Long getNumeroReservation() {
+                return id;
+            }
+
+            @Override
+            public Long getIdBorne() {
+                return borneId;
+            }
+
+            @Override
+            public LocalDateTime getDateDebut() {
+                return at(debut);
+            }
+
+            @Override
+            public LocalDateTime getDateFin() {
+                return at(fin);
+            }
+        };
+    }
+}
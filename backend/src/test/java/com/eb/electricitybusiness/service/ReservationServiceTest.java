@@ -1,10 +1,16 @@
 package com.eb.electricitybusiness.service;
 
 import com.eb.electricitybusiness.dto.ReservationDto;
+import com.eb.electricitybusiness.exception.ResourceNotFoundException;
 import com.eb.electricitybusiness.model.Borne;
 import com.eb.electricitybusiness.model.Reservation;
 import com.eb.electricitybusiness.model.Utilisateur;
+import com.eb.electricitybusiness.dto.ReservationBatchResultDto;
+import com.eb.electricitybusiness.dto.ExportFormat;
+import com.eb.electricitybusiness.dto.ReservationExportRow;
 import com.eb.electricitybusiness.repository.BorneRepository;
+import com.eb.electricitybusiness.repository.ReservationBatchRepository;
+import com.eb.electricitybusiness.repository.ReservationExportRepository;
 import com.eb.electricitybusiness.repository.ReservationRepository;
 import com.eb.electricitybusiness.repository.UtilisateurRepository;
 import com.eb.electricitybusiness.service.impl.ReservationServiceImpl;
@@ -18,14 +24,21 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @SuppressWarnings("null")
@@ -41,7 +54,7 @@ class ReservationServiceTest {
     private UtilisateurRepository utilisateurRepository;
 
     @Mock
-    private PdfReceiptService pdfReceiptService;
+    private ReceiptGenerationQueue receiptGenerationQueue;
 
     @Mock
     private ReservationValidator validator;
@@ -52,6 +65,24 @@ class ReservationServiceTest {
     @Mock
     private ReservationMapper mapper;
 
+    @Mock
+    private DashboardStatsService dashboardStatsService;
+
+    @Mock
+    private ReservationIntervalIndex intervalIndex;
+
+    @Mock
+    private DisponibiliteService disponibiliteService;
+
+    @Mock
+    private ReservationBatchRepository reservationBatchRepository;
+
+    @Mock
+    private ReservationExportRepository reservationExportRepository;
+
+    @Mock
+    private ReservationExportWriter reservationExportWriter;
+
     @InjectMocks
     private ReservationServiceImpl reservationService;
 
@@ -101,31 +132,45 @@ class ReservationServiceTest {
         dto.setDateDebut(LocalDateTime.now().plusHours(1));
         dto.setDateFin(LocalDateTime.now().plusHours(2));
 
-        when(borneRepository.findByIdWithLock(1L)).thenReturn(Optional.of(borne));
+        when(borneRepository.findById(1L)).thenReturn(Optional.of(borne));
         when(utilisateurRepository.findById(1L)).thenReturn(Optional.of(utilisateur));
         // when(reservationRepository.findConflictingReservations(any(), any(),
         // any())).thenReturn(Collections.emptyList()); // Removed as it's handled by
         // validator
 
-        // Fix findWithDetails mock to return the saved reservation
         when(reservationRepository.save(any(Reservation.class))).thenAnswer(i -> {
             Reservation saved = i.getArgument(0);
             saved.setNumeroReservation(1L);
             return saved;
         });
-        when(reservationRepository.findWithDetails(1L)).thenAnswer(i -> {
-            Reservation r = new Reservation();
-            r.setNumeroReservation(1L);
-            r.setUtilisateur(utilisateur);
-            r.setBorne(borne);
-            return Optional.of(r);
-        });
 
         ReservationDto result = reservationService.create(dto);
 
         assertNotNull(result);
         assertEquals(1L, result.getId());
+        assertEquals(1L, result.getBorneId());
         verify(reservationRepository).save(any(Reservation.class));
+        verify(dashboardStatsService).onReservationCreated(any(Reservation.class));
+        // La réponse est construite depuis l'entité enregistrée, sans rechargement
+        verify(reservationRepository, never()).findWithDetails(any());
+    }
+
+    @Test
+    void create_LeanMode_ReturnsIdAndStateOnly() {
+        ReservationDto dto = new ReservationDto();
+        dto.setUtilisateurId(1L);
+        dto.setBorneId(1L);
+        dto.setDateDebut(LocalDateTime.now().plusHours(1));
+        dto.setDateFin(LocalDateTime.now().plusHours(2));
+        ReservationDto lean = new ReservationDto();
+
+        when(borneRepository.findById(1L)).thenReturn(Optional.of(borne));
+        when(utilisateurRepository.findById(1L)).thenReturn(Optional.of(utilisateur));
+        when(reservationRepository.save(any(Reservation.class))).thenAnswer(i -> i.getArgument(0));
+        when(mapper.toLeanDto(any(Reservation.class))).thenReturn(lean);
+
+        assertSame(lean, reservationService.create(dto, true));
+        verify(mapper, never()).toDto(any(Reservation.class));
     }
 
     @Test
@@ -136,7 +181,7 @@ class ReservationServiceTest {
         dto.setDateDebut(LocalDateTime.now().plusHours(1));
         dto.setDateFin(LocalDateTime.now().plusHours(2));
 
-        when(borneRepository.findByIdWithLock(1L)).thenReturn(Optional.of(borne));
+        when(borneRepository.findById(1L)).thenReturn(Optional.of(borne));
         when(utilisateurRepository.findById(1L)).thenReturn(Optional.of(utilisateur));
 
         // Mock validator to return error
@@ -145,6 +190,57 @@ class ReservationServiceTest {
 
         assertThrows(IllegalArgumentException.class, () -> reservationService.create(dto));
         verify(reservationRepository, never()).save(any());
+        verifyNoInteractions(dashboardStatsService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createBatch_InsertsValidItemsInOneBatchAndReportsRejected() {
+        ReservationDto ok = batchItem(1L, 1L, 1);
+        ReservationDto borneInconnue = batchItem(1L, 9L, 3);
+        ReservationDto conflit = batchItem(1L, 1L, 5);
+
+        when(borneRepository.findAllById(List.of(1L, 9L))).thenReturn(List.of(borne));
+        when(utilisateurRepository.findAllById(List.of(1L))).thenReturn(List.of(utilisateur));
+        when(validator.validateDates(any())).thenReturn(ValidationResult.success());
+        when(validator.validateStationAvailability(borne)).thenReturn(ValidationResult.success());
+        when(validator.validateStationAvailability(null))
+                .thenReturn(ValidationResult.failure("La borne de recharge n'existe pas"));
+        when(validator.validateBatchNoConflicts(List.of(ok, conflit))).thenReturn(List.of(
+                ValidationResult.success(),
+                ValidationResult.failure("Conflit de réservation : la plage horaire est déjà réservée")));
+        doAnswer(i -> {
+            ((List<Reservation>) i.getArgument(0)).forEach(r -> r.setNumeroReservation(42L));
+            return null;
+        }).when(reservationBatchRepository).insertAll(anyList());
+
+        ReservationBatchResultDto result = reservationService.createBatch(List.of(ok, borneInconnue, conflit));
+
+        assertEquals(1, result.creees());
+        assertEquals(2, result.rejetees());
+        assertTrue(result.resultats().get(0).creee());
+        assertEquals(42L, result.resultats().get(0).reservationId());
+        assertEquals(List.of("La borne de recharge n'existe pas"), result.resultats().get(1).erreurs());
+        assertFalse(result.resultats().get(2).creee());
+        verify(reservationBatchRepository).insertAll(argThat(list -> list.size() == 1));
+        verify(dashboardStatsService).onReservationsCreated(argThat(list -> list.size() == 1));
+        verify(reservationRepository, never()).save(any());
+        verify(reservationRepository, never()).findWithDetails(any());
+    }
+
+    @Test
+    void createBatch_EmptyBatch_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> reservationService.createBatch(List.of()));
+        verifyNoInteractions(reservationBatchRepository);
+    }
+
+    private ReservationDto batchItem(Long utilisateurId, Long borneId, int heure) {
+        ReservationDto dto = new ReservationDto();
+        dto.setUtilisateurId(utilisateurId);
+        dto.setBorneId(borneId);
+        dto.setDateDebut(LocalDateTime.now().plusDays(1).withHour(heure).withMinute(0));
+        dto.setDateFin(LocalDateTime.now().plusDays(1).withHour(heure + 1).withMinute(0));
+        return dto;
     }
 
     @Test
@@ -155,23 +251,26 @@ class ReservationServiceTest {
         reservation.setUtilisateur(utilisateur);
         reservation.setBorne(borne);
 
-        when(reservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.findWithDetails(1L)).thenReturn(Optional.of(reservation));
         when(validator.validateUserAuthorization(any(), any(), any())).thenReturn(ValidationResult.success());
         when(validator.validateCanBeCancelled(any())).thenReturn(ValidationResult.success());
 
         when(reservationRepository.save(any(Reservation.class))).thenAnswer(i -> i.getArgument(0));
-        when(reservationRepository.findWithDetails(1L)).thenReturn(Optional.of(reservation));
 
         ReservationDto result = reservationService.cancel(1L, 1L);
 
         assertNotNull(result);
         assertEquals(Reservation.EtatReservation.ANNULEE.name(), result.getEtat());
         verify(reservationRepository).save(any(Reservation.class));
+        verify(dashboardStatsService).onEtatChanged(reservation, Reservation.EtatReservation.EN_ATTENTE);
+        verify(intervalIndex).sync(reservation, Reservation.EtatReservation.EN_ATTENTE);
+        verify(disponibiliteService).invalidate(borne.getIdBorne());
+        verify(reservationRepository, times(1)).findWithDetails(1L);
     }
 
     @Test
     void cancel_ReservationNotFound_ThrowsException() {
-        when(reservationRepository.findById(1L)).thenReturn(Optional.empty());
+        when(reservationRepository.findWithDetails(1L)).thenReturn(Optional.empty());
 
         // Use a generic Exception class or specific one if known, based on service impl
         // it throws ResourceNotFoundException
@@ -183,7 +282,7 @@ class ReservationServiceTest {
         Reservation reservation = new Reservation();
         reservation.setNumeroReservation(1L);
 
-        when(reservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.findWithDetails(1L)).thenReturn(Optional.of(reservation));
         when(validator.validateUserAuthorization(any(), any(), any()))
                 .thenReturn(ValidationResult.failure("Unauthorized"));
 
@@ -195,7 +294,7 @@ class ReservationServiceTest {
         Reservation reservation = new Reservation();
         reservation.setNumeroReservation(1L);
 
-        when(reservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.findWithDetails(1L)).thenReturn(Optional.of(reservation));
         when(validator.validateUserAuthorization(any(), any(), any())).thenReturn(ValidationResult.success());
         when(validator.validateCanBeCancelled(any()))
                 .thenReturn(ValidationResult.failure("Cannot cancel"));
@@ -210,9 +309,8 @@ class ReservationServiceTest {
         reservation.setUtilisateur(utilisateur);
         reservation.setBorne(borne);
 
-        when(reservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
-        when(reservationRepository.save(any(Reservation.class))).thenAnswer(i -> i.getArgument(0));
         when(reservationRepository.findWithDetails(1L)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.saveAndFlush(any(Reservation.class))).thenAnswer(i -> i.getArgument(0));
 
         ReservationDto result = reservationService.complete(1L);
 
@@ -221,7 +319,7 @@ class ReservationServiceTest {
     }
 
     @Test
-    void accepter_ValidReservation_ReturnsDto() throws Exception {
+    void accepter_ValidReservation_ReturnsDto() {
         Reservation reservation = new Reservation();
         reservation.setNumeroReservation(1L);
         reservation.setUtilisateur(utilisateur);
@@ -234,13 +332,42 @@ class ReservationServiceTest {
         when(validator.validateCanBeAccepted(any())).thenReturn(ValidationResult.success());
         when(validator.validateNoConflicts(any(), any(), any(), any())).thenReturn(ValidationResult.success());
 
-        when(reservationRepository.save(any(Reservation.class))).thenAnswer(i -> i.getArgument(0));
+        when(reservationRepository.saveAndFlush(any(Reservation.class))).thenAnswer(i -> i.getArgument(0));
 
         ReservationDto result = reservationService.accepter(1L, 1L);
 
         assertNotNull(result);
         assertEquals(Reservation.EtatReservation.CONFIRMEE.name(), result.getEtat());
-        verify(pdfReceiptService).generateReceipt(any());
+        // Reçu en attente enregistré avec la confirmation, généré après le commit
+        assertEquals(PdfReceiptService.RECEIPT_PENDING, reservation.getReceiptPath());
+        verify(reservationRepository).saveAndFlush(reservation);
+        verify(reservationRepository, never()).save(any());
+        verify(receiptGenerationQueue).submitAfterCommit(1L);
+        verify(reservationRepository, times(1)).findWithDetails(1L);
+    }
+
+    @Test
+    void accepter_ExclusionConstraintViolated_ThrowsConflict() {
+        Reservation reservation = new Reservation();
+        reservation.setNumeroReservation(1L);
+        reservation.setUtilisateur(utilisateur);
+        reservation.setBorne(borne);
+        reservation.setDateDebut(LocalDateTime.now());
+        reservation.setDateFin(LocalDateTime.now().plusHours(1));
+
+        when(reservationRepository.findWithDetails(1L)).thenReturn(Optional.of(reservation));
+        when(validator.validateOwnerAuthorization(any(), any(), any())).thenReturn(ValidationResult.success());
+        when(validator.validateCanBeAccepted(any())).thenReturn(ValidationResult.success());
+        when(validator.validateNoConflicts(any(), any(), any(), any())).thenReturn(ValidationResult.success());
+        // Une acceptation concurrente a confirmé un créneau qui chevauche entre-temps
+        when(reservationRepository.saveAndFlush(any(Reservation.class))).thenThrow(
+                new DataIntegrityViolationException("excl_reservation_chevauchement",
+                        new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> reservationService.accepter(1L, 1L));
+        assertTrue(ex.getMessage().startsWith("Conflit de réservation"));
+        verifyNoInteractions(receiptGenerationQueue, dashboardStatsService, intervalIndex, disponibiliteService);
     }
 
     @Test
@@ -293,6 +420,22 @@ class ReservationServiceTest {
         assertEquals(1L, result.getId());
     }
 
+    @Test
+    void getReceiptPath_ReadsSingleColumn() {
+        when(reservationRepository.findReceiptPathById(1L)).thenReturn(Optional.of("receipts/recu_1.pdf"));
+
+        assertEquals("receipts/recu_1.pdf", reservationService.getReceiptPath(1L));
+        verify(reservationRepository, never()).findWithDetails(any());
+    }
+
+    @Test
+    void getReceiptPath_UnknownReservation_ThrowsException() {
+        when(reservationRepository.findReceiptPathById(1L)).thenReturn(Optional.empty());
+        when(reservationRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> reservationService.getReceiptPath(1L));
+    }
+
     @Test
     void getById_NotFound_ThrowsException() {
         when(reservationRepository.findWithDetails(1L)).thenReturn(Optional.empty());
@@ -334,4 +477,18 @@ class ReservationServiceTest {
         assertNotNull(result);
         verify(reservationRepository).findAll(any(org.springframework.data.jpa.domain.Specification.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void exporter_WritesFilteredRowsAndClosesStream() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<ReservationExportRow> rows = Stream.<ReservationExportRow>empty().onClose(() -> closed.set(true));
+        when(reservationExportRepository.stream(any())).thenReturn(rows);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        when(reservationExportWriter.write(ExportFormat.CSV, rows, out)).thenReturn(0L);
+
+        assertEquals(0L, reservationService.exporter(ExportFormat.CSV, "terminee", null, null, 1L, null, out));
+
+        verify(reservationExportWriter).write(ExportFormat.CSV, rows, out);
+        assertTrue(closed.get());
+    }
+}
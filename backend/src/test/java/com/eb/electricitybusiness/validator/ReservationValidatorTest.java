@@ -0,0 +1,95 @@
+package com.eb.electricitybusiness.validator;
+
+import com.eb.electricitybusiness.dto.ReservationDto;
+import com.eb.electricitybusiness.dto.ReservationSlotRow;
+import com.eb.electricitybusiness.repository.ReservationRepository;
+import com.eb.electricitybusiness.service.ReservationIntervalIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("null")
+class ReservationValidatorTest {
+
+    private static final LocalDateTime JOUR = LocalDateTime.of(2030, 6, 1, 0, 0);
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private ReservationIntervalIndex intervalIndex;
+
+    private ReservationValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        validator = new ReservationValidator(reservationRepository, intervalIndex);
+    }
+
+    @Test
+    void validateNoConflicts_IndexLoaded_SkipsDatabase() {
+        when(intervalIndex.canAnswer(any())).thenReturn(true);
+        when(intervalIndex.hasConflict(1L, JOUR.withHour(9), JOUR.withHour(10), null)).thenReturn(true);
+
+        assertFalse(validator.validateNoConflicts(1L, JOUR.withHour(9), JOUR.withHour(10)).isValid());
+        verifyNoInteractions(reservationRepository);
+    }
+
+    @Test
+    void validateBatchNoConflicts_ChecksDatabaseOnceAndSlotsAgainstEachOther() {
+        when(reservationRepository.findSlotsForBornes(eq(java.util.Set.of(1L, 2L)), any(), any(), any()))
+                .thenReturn(List.of(slot(7L, 1L, 8, 9)));
+
+        List<ValidationResult> results = validator.validateBatchNoConflicts(List.of(
+                dto(1L, 8, 10),    // chevauche la réservation 7 en base
+                dto(1L, 11, 12),
+                dto(1L, 12, 13),   // touche le créneau précédent du lot
+                dto(2L, 8, 9)));
+
+        assertEquals(List.of(false, true, false, true), results.stream().map(ValidationResult::isValid).toList());
+        assertEquals("Le créneau chevauche un autre créneau du lot", results.get(2).getFirstError());
+        verify(reservationRepository, times(1)).findSlotsForBornes(any(), any(), any(), any());
+    }
+
+    private static ReservationDto dto(Long borneId, int debut, int fin) {
+        ReservationDto dto = new ReservationDto();
+        dto.setBorneId(borneId);
+        dto.setDateDebut(JOUR.withHour(debut));
+        dto.setDateFin(JOUR.withHour(fin));
+        return dto;
+    }
+
+    private static ReservationSlotRow slot(Long id, Long borneId, int debut, int fin) {
+        return new ReservationSlotRow() {
+            @Override
+            public Long getNumeroReservation() {
+                return id;
+            }
+
+            @Override
+            public Long getIdBorne() {
+                return borneId;
+            }
+
+            @Override
+            public LocalDateTime getDateDebut() {
+                return JOUR.withHour(debut);
+            }
+
+            @Override
+            public LocalDateTime getDateFin() {
+                return JOUR.withHour(fin);
+            }
+        };
+    }
+}
@@ -5,6 +5,8 @@
 
 -- Enable PostGIS extension
 CREATE EXTENSION IF NOT EXISTS postgis;
+-- btree_gist : égalité sur borne_id dans la contrainte d'exclusion des réservations
+CREATE EXTENSION IF NOT EXISTS btree_gist;
 
 -- ========================================
 -- DROP ROBUST DES VUES / TABLES / MVIEW QUI PORTENT LES NOMS
@@ -17,6 +19,8 @@ DROP VIEW IF EXISTS v_reservation_complete CASCADE;
 -- ========================================
 -- DROP EVERYTHING ELSE
 -- ========================================
+DROP TABLE IF EXISTS reservation_rollup CASCADE;
+DROP TABLE IF EXISTS dashboard_stats CASCADE;
 DROP TABLE IF EXISTS signalement CASCADE;
 DROP TABLE IF EXISTS avis CASCADE;
 DROP TABLE IF EXISTS reservation CASCADE;
@@ -114,6 +118,8 @@ CREATE TABLE borne_medias (
 -- SELECT AddGeometryColumn('borne', 'geom', 4326, 'POINT', 2);
 ALTER TABLE borne ADD COLUMN geom GEOMETRY(Point, 4326);
 CREATE INDEX idx_borne_geom ON borne USING GIST (geom);
+-- Index geography : les requêtes en mètres (CAST(geom AS geography)) et le tri KNN (<->) l'utilisent
+CREATE INDEX idx_borne_geog ON borne USING GIST (geography(geom));
 
 
 -- ========================================
@@ -131,9 +137,14 @@ CREATE TABLE reservation (
     receipt_path VARCHAR(255),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    -- Créneau fermé, même sémantique que findConflictingReservations
+    periode TSRANGE GENERATED ALWAYS AS (tsrange(date_debut, date_fin, '[]')) STORED,
 
     CONSTRAINT chk_dates CHECK (date_fin > date_debut),
     CONSTRAINT chk_etat_res CHECK (etat IN ('EN_ATTENTE','CONFIRMEE','ACTIVE','TERMINEE','ANNULEE','REFUSEE')),
+    -- Deux réservations confirmées d'une même borne ne peuvent pas se chevaucher
+    CONSTRAINT excl_reservation_chevauchement EXCLUDE USING gist (borne_id WITH =, periode WITH &&)
+        WHERE (etat IN ('CONFIRMEE','ACTIVE','TERMINEE')),
     CONSTRAINT fk_res_user FOREIGN KEY (id_utilisateur) REFERENCES utilisateur(id_utilisateur) ON DELETE CASCADE,
     CONSTRAINT fk_res_borne FOREIGN KEY (borne_id) REFERENCES borne(borne_id) ON DELETE CASCADE
 );
@@ -190,6 +201,50 @@ CREATE TABLE utilisateur_lieu (
     CONSTRAINT chk_type_adresse CHECK (type_adresse IN ('principale','secondaire','travail'))
 );
 
+-- ========================================
+-- Table: dashboard_stats
+-- Agrégats du tableau de bord maintenus à chaque changement d'état
+-- d'une réservation (scope UTILISATEUR, PROPRIETAIRE ou BORNE)
+-- ========================================
+CREATE TABLE dashboard_stats (
+    scope VARCHAR(20) NOT NULL,
+    ref_id BIGINT NOT NULL,
+    total_reservations BIGINT NOT NULL DEFAULT 0,
+    nb_en_attente BIGINT NOT NULL DEFAULT 0,
+    nb_confirmees BIGINT NOT NULL DEFAULT 0,
+    nb_actives BIGINT NOT NULL DEFAULT 0,
+    nb_terminees BIGINT NOT NULL DEFAULT 0,
+    nb_annulees BIGINT NOT NULL DEFAULT 0,
+    nb_refusees BIGINT NOT NULL DEFAULT 0,
+    montant_total DECIMAL(14,2) NOT NULL DEFAULT 0,
+    mois_courant DATE,
+    montant_mois DECIMAL(14,2) NOT NULL DEFAULT 0,
+    reservations_mois BIGINT NOT NULL DEFAULT 0,
+    top_borne_id BIGINT,
+    top_borne_reservations BIGINT,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (scope, ref_id),
+
+    CONSTRAINT chk_scope CHECK (scope IN ('UTILISATEUR','PROPRIETAIRE','BORNE'))
+);
+
+-- ========================================
+-- Table: reservation_rollup
+-- Réservations retenues (CONFIRMEE, ACTIVE, TERMINEE) agrégées par borne
+-- et par jour, pour les séries temporelles des propriétaires : réservation et
+-- montant comptés le jour de début, minutes occupées réparties par jour couvert
+-- ========================================
+CREATE TABLE reservation_rollup (
+    borne_id BIGINT NOT NULL,
+    jour DATE NOT NULL,
+    nb_reservations BIGINT NOT NULL DEFAULT 0,
+    montant DECIMAL(14,2) NOT NULL DEFAULT 0,
+    minutes_occupees BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (borne_id, jour),
+
+    CONSTRAINT fk_rollup_borne FOREIGN KEY (borne_id) REFERENCES borne(borne_id) ON DELETE CASCADE
+);
+
 -- ========================================
 -- Indexes
 -- ========================================
@@ -198,9 +253,19 @@ CREATE INDEX idx_utilisateur_pseudo ON utilisateur(pseudo);
 CREATE INDEX idx_borne_owner ON borne(owner_id);
 CREATE INDEX idx_borne_etat ON borne(etat);
 CREATE INDEX idx_borne_occupee ON borne(occupee);
+-- Recherche avancée : filtres combinés état / puissance / prix
+CREATE INDEX idx_borne_etat_puissance_prix ON borne(etat, puissance, prix_a_la_minute);
+CREATE INDEX idx_borne_prix_puissance ON borne(prix_a_la_minute, puissance);
+-- Pagination par curseur : tri stable (clé, id)
+CREATE INDEX idx_borne_prix_id ON borne(prix_a_la_minute, borne_id);
+CREATE INDEX idx_borne_puissance_id ON borne(puissance, borne_id);
+-- Première photo d'une borne pour les listes (BorneSummary)
+CREATE INDEX idx_borne_medias_borne ON borne_medias(borne_id);
 CREATE INDEX idx_reservation_user ON reservation(id_utilisateur);
 CREATE INDEX idx_reservation_borne ON reservation(borne_id);
 CREATE INDEX idx_reservation_dates ON reservation(date_debut, date_fin);
+CREATE INDEX idx_reservation_borne_debut ON reservation(borne_id, date_debut);
+CREATE INDEX idx_reservation_active_debut ON reservation(date_debut) WHERE etat = 'ACTIVE';
 CREATE INDEX idx_avis_user ON avis(utilisateur_id);
 CREATE INDEX idx_avis_borne ON avis(borne_id);
 CREATE INDEX idx_signalement_user ON signalement(user_id);
@@ -0,0 +1,96 @@
+-- ========================================
+-- Benchmark : recherche de bornes libres sur un créneau (/bornes/libres)
+-- Compare l'ancien parcours (findByDistance puis une requête de conflit par
+-- borne) avec la requête unique de BorneRepository.findLibresByDistance :
+-- filtre ST_DWithin + anti-jointure sur l'index de excl_reservation_chevauchement.
+--
+-- Usage : psql -d electricity -f benchmarks/bornes_libres.sql
+-- Le script travaille dans une transaction annulée à la fin : aucune donnée n'est conservée.
+-- ========================================
+
+\timing on
+
+BEGIN;
+
+-- Jeu de données : 20 000 bornes dans Paris, 10 créneaux confirmés par borne sur la soirée
+INSERT INTO utilisateur (nom, prenom, pseudo, mot_de_passe, role, email)
+VALUES ('Bench', 'Owner', 'bench_owner', 'x', 'proprietaire', 'bench_owner@example.com'),
+       ('Bench', 'Client', 'bench_client', 'x', 'client', 'bench_client@example.com');
+
+INSERT INTO lieu (adresse, nom, code_postal, ville, pays, latitude, longitude)
+VALUES ('1 Rue du Bench', 'Bench', '75000', 'Paris', 'France', 48.8566, 2.3522);
+
+INSERT INTO borne (numero, nom, localisation, latitude, longitude, etat, occupee, puissance,
+                   prix_a_la_minute, owner_id, lieu_id, geom)
+SELECT 'B-' || g, 'Borne bench ' || g, 'Paris', lat, lon,
+       (ARRAY['DISPONIBLE','DISPONIBLE','DISPONIBLE','EN_PANNE'])[1 + (g % 4)],
+       FALSE, 22, round((0.05 + random() * 0.5)::numeric, 4),
+       (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner'),
+       (SELECT id_lieu FROM lieu WHERE nom = 'Bench'),
+       ST_SetSRID(ST_MakePoint(lon, lat), 4326)
+FROM (
+    SELECT g, 48.8566 + (random() - 0.5) * 0.2 AS lat, 2.3522 + (random() - 0.5) * 0.3 AS lon
+    FROM generate_series(1, 20000) AS g
+) s;
+
+INSERT INTO reservation (id_utilisateur, borne_id, date_debut, date_fin, prix_a_la_minute, etat, total_price)
+SELECT (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_client'),
+       b.borne_id,
+       date_trunc('day', now()) + interval '1 day' + ((h * 40 + b.borne_id % 30) * interval '1 minute'),
+       date_trunc('day', now()) + interval '1 day' + ((h * 40 + b.borne_id % 30 + 30) * interval '1 minute'),
+       0.25, 'CONFIRMEE', 7.50
+FROM borne b, generate_series(24, 33) AS h
+WHERE b.owner_id = (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner');
+
+ANALYZE borne;
+ANALYZE reservation;
+
+-- Ancien parcours, étape 1 : toutes les bornes du rayon (10 km) sont chargées
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM borne cs
+WHERE cs.geom IS NOT NULL
+  AND ST_DWithin(CAST(cs.geom AS geography),
+                 CAST(ST_SetSRID(ST_MakePoint(2.3522, 48.8566), 4326) AS geography), 10000);
+
+-- Ancien parcours, étape 2 : requête de conflit répétée pour chaque borne
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT r.* FROM reservation r
+WHERE r.borne_id = (SELECT MIN(borne_id) FROM borne WHERE numero = 'B-1')
+  AND r.etat IN ('CONFIRMEE', 'ACTIVE', 'TERMINEE')
+  AND ((r.date_debut BETWEEN date_trunc('day', now()) + interval '1 day 18 hours'
+                         AND date_trunc('day', now()) + interval '1 day 19 hours')
+    OR (r.date_fin BETWEEN date_trunc('day', now()) + interval '1 day 18 hours'
+                       AND date_trunc('day', now()) + interval '1 day 19 hours')
+    OR (date_trunc('day', now()) + interval '1 day 18 hours' BETWEEN r.date_debut AND r.date_fin));
+
+-- Nouveau parcours : une requête, 20 bornes libres les plus proches
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT cs.borne_id, ST_Distance(CAST(cs.geom AS geography), ref.point) AS distance
+FROM borne cs,
+     (SELECT CAST(ST_SetSRID(ST_MakePoint(2.3522, 48.8566), 4326) AS geography) AS point) ref
+WHERE cs.geom IS NOT NULL
+  AND ST_DWithin(CAST(cs.geom AS geography), ref.point, 10000)
+  AND cs.etat NOT IN ('EN_PANNE', 'EN_MAINTENANCE')
+  AND NOT EXISTS (SELECT 1 FROM reservation r WHERE r.borne_id = cs.borne_id
+                  AND r.etat IN ('CONFIRMEE', 'ACTIVE', 'TERMINEE')
+                  AND r.periode && tsrange(date_trunc('day', now()) + interval '1 day 18 hours',
+                                           date_trunc('day', now()) + interval '1 day 19 hours', '[]'))
+ORDER BY CAST(cs.geom AS geography) <-> ref.point
+LIMIT 20;
+
+-- Nouveau parcours trié par prix
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT cs.borne_id, ST_Distance(CAST(cs.geom AS geography), ref.point) AS distance
+FROM borne cs,
+     (SELECT CAST(ST_SetSRID(ST_MakePoint(2.3522, 48.8566), 4326) AS geography) AS point) ref
+WHERE cs.geom IS NOT NULL
+  AND ST_DWithin(CAST(cs.geom AS geography), ref.point, 10000)
+  AND cs.etat NOT IN ('EN_PANNE', 'EN_MAINTENANCE')
+  AND NOT EXISTS (SELECT 1 FROM reservation r WHERE r.borne_id = cs.borne_id
+                  AND r.etat IN ('CONFIRMEE', 'ACTIVE', 'TERMINEE')
+                  AND r.periode && tsrange(date_trunc('day', now()) + interval '1 day 18 hours',
+                                           date_trunc('day', now()) + interval '1 day 19 hours', '[]'))
+ORDER BY cs.prix_a_la_minute, distance, cs.borne_id
+LIMIT 20;
+
+ROLLBACK;
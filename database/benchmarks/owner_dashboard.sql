@@ -0,0 +1,99 @@
+-- ========================================
+-- Benchmark : statistiques propriétaire du tableau de bord (/dashboard)
+-- Compare l'ancien chemin (une requête fetch-join par borne, comptages en Java)
+-- avec les agrégats GROUP BY de DashboardRepository.
+--
+-- Usage : psql -d electricity -f benchmarks/owner_dashboard.sql
+-- Le script travaille dans une transaction annulée à la fin : aucune donnée n'est conservée.
+-- ========================================
+
+\timing on
+
+BEGIN;
+
+-- Jeu de données : un propriétaire, 200 bornes, 50 réservations par borne
+INSERT INTO utilisateur (nom, prenom, pseudo, mot_de_passe, role, email)
+VALUES ('Bench', 'Owner', 'bench_owner', 'x', 'proprietaire', 'bench_owner@example.com'),
+       ('Bench', 'Client', 'bench_client', 'x', 'client', 'bench_client@example.com');
+
+INSERT INTO lieu (adresse, nom, code_postal, ville, pays, latitude, longitude)
+VALUES ('1 Rue du Bench', 'Bench', '75000', 'Paris', 'France', 48.8566, 2.3522);
+
+INSERT INTO borne (numero, nom, localisation, latitude, longitude, etat, occupee, puissance,
+                   prix_a_la_minute, owner_id, lieu_id)
+SELECT 'B-' || g,
+       'Borne bench ' || g,
+       'Paris',
+       48.8566,
+       2.3522,
+       (ARRAY['DISPONIBLE','OCCUPEE','EN_PANNE','EN_MAINTENANCE'])[1 + (g % 4)],
+       (g % 3 = 0),
+       22,
+       0.25,
+       (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner'),
+       (SELECT id_lieu FROM lieu WHERE nom = 'Bench')
+FROM generate_series(1, 200) AS g;
+
+INSERT INTO borne_medias (borne_id, media_url)
+SELECT b.borne_id, 'https://example.com/' || b.borne_id || '-' || m || '.jpg'
+FROM borne b, generate_series(1, 3) AS m
+WHERE b.owner_id = (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner');
+
+INSERT INTO reservation (id_utilisateur, borne_id, date_debut, date_fin, prix_a_la_minute,
+                         etat, total_price, created_at)
+SELECT (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_client'),
+       b.borne_id,
+       now() + (r - 25) * interval '1 day',
+       now() + (r - 25) * interval '1 day' + interval '1 hour',
+       0.25,
+       (ARRAY['EN_ATTENTE','CONFIRMEE','ACTIVE','TERMINEE','ANNULEE'])[1 + (r % 5)],
+       15.00,
+       now() - r * interval '1 day'
+FROM borne b, generate_series(1, 50) AS r
+WHERE b.owner_id = (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner');
+
+ANALYZE borne;
+ANALYZE borne_medias;
+ANALYZE reservation;
+
+-- Ancien chemin : répété une fois par borne (200 fois pour ce propriétaire)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT r.*, u.*, b.*, o.*, m.*
+FROM reservation r
+JOIN utilisateur u ON u.id_utilisateur = r.id_utilisateur
+JOIN borne b ON b.borne_id = r.borne_id
+LEFT JOIN utilisateur o ON o.id_utilisateur = b.owner_id
+LEFT JOIN borne_medias m ON m.borne_id = b.borne_id
+WHERE r.borne_id = (SELECT min(borne_id) FROM borne
+                    WHERE owner_id = (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner'));
+
+-- Nouveau chemin (1/3) : bornes par état
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT b.etat, count(*)
+FROM borne b
+WHERE b.owner_id = (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner')
+GROUP BY b.etat;
+
+-- Nouveau chemin (2/3) : compteurs et revenus en une seule agrégation
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(r.numero_reservation),
+       coalesce(sum(CASE WHEN r.etat = 'ACTIVE' THEN 1 ELSE 0 END), 0),
+       coalesce(sum(r.total_price), 0),
+       coalesce(sum(CASE WHEN r.created_at > date_trunc('month', now())
+                          AND r.created_at < date_trunc('month', now()) + interval '1 month'
+                         THEN r.total_price END), 0)
+FROM reservation r
+JOIN borne b ON b.borne_id = r.borne_id
+WHERE b.owner_id = (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner');
+
+-- Nouveau chemin (3/3) : borne la plus réservée
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT r.borne_id, count(r.numero_reservation)
+FROM reservation r
+JOIN borne b ON b.borne_id = r.borne_id
+WHERE b.owner_id = (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner')
+GROUP BY r.borne_id
+ORDER BY count(r.numero_reservation) DESC, r.borne_id
+LIMIT 1;
+
+ROLLBACK;
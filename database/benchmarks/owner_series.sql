@@ -0,0 +1,94 @@
+-- ========================================
+-- Benchmark : séries temporelles propriétaire (/dashboard/owner/{id}/series)
+-- Compare l'agrégation directe de la table reservation avec la lecture de
+-- reservation_rollup (une ligne par borne et par jour).
+--
+-- Usage : psql -d electricity -f benchmarks/owner_series.sql
+-- Le script travaille dans une transaction annulée à la fin : aucune donnée n'est conservée.
+-- ========================================
+
+\timing on
+
+BEGIN;
+
+-- Jeu de données : un propriétaire, 200 bornes, 3 ans d'historique (~10 réservations par borne et par jour)
+INSERT INTO utilisateur (nom, prenom, pseudo, mot_de_passe, role, email)
+VALUES ('Bench', 'Owner', 'bench_owner', 'x', 'proprietaire', 'bench_owner@example.com'),
+       ('Bench', 'Client', 'bench_client', 'x', 'client', 'bench_client@example.com');
+
+INSERT INTO lieu (adresse, nom, code_postal, ville, pays, latitude, longitude)
+VALUES ('1 Rue du Bench', 'Bench', '75000', 'Paris', 'France', 48.8566, 2.3522);
+
+INSERT INTO borne (numero, nom, localisation, latitude, longitude, etat, occupee, puissance,
+                   prix_a_la_minute, owner_id, lieu_id)
+SELECT 'B-' || g, 'Borne bench ' || g, 'Paris', 48.8566, 2.3522, 'DISPONIBLE', FALSE, 22, 0.25,
+       (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner'),
+       (SELECT id_lieu FROM lieu WHERE nom = 'Bench')
+FROM generate_series(1, 200) AS g;
+
+INSERT INTO reservation (id_utilisateur, borne_id, date_debut, date_fin, prix_a_la_minute, etat, total_price)
+SELECT (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_client'),
+       b.borne_id,
+       d + (h * interval '2 hours'),
+       d + (h * interval '2 hours') + interval '90 minutes',
+       0.25,
+       (ARRAY['CONFIRMEE','TERMINEE','TERMINEE','ANNULEE'])[1 + ((h + b.borne_id) % 4)],
+       22.50
+FROM borne b,
+     generate_series(date_trunc('day', now()) - interval '3 years', date_trunc('day', now()), interval '1 day') AS d,
+     generate_series(0, 9) AS h
+WHERE b.owner_id = (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner');
+
+-- Remplissage initial, identique à la réconciliation de DashboardStatsService
+INSERT INTO reservation_rollup (borne_id, jour, nb_reservations, montant, minutes_occupees)
+SELECT j.borne_id, j.jour, SUM(j.nb), SUM(j.montant), SUM(j.minutes)
+FROM (
+    SELECT r.borne_id,
+           CAST(d.debut_jour AS date) AS jour,
+           CASE WHEN d.debut_jour <= r.date_debut THEN 1 ELSE 0 END AS nb,
+           CASE WHEN d.debut_jour <= r.date_debut THEN COALESCE(r.total_price, 0) ELSE 0 END AS montant,
+           CAST(FLOOR(EXTRACT(EPOCH FROM (LEAST(r.date_fin, d.debut_jour + INTERVAL '1 day')
+                                          - GREATEST(r.date_debut, d.debut_jour))) / 60) AS BIGINT) AS minutes
+    FROM reservation r
+    CROSS JOIN LATERAL generate_series(date_trunc('day', r.date_debut), r.date_fin,
+                                       INTERVAL '1 day') AS d(debut_jour)
+    WHERE r.borne_id IS NOT NULL AND r.etat IN ('CONFIRMEE', 'ACTIVE', 'TERMINEE')
+      AND (d.debut_jour < r.date_fin OR d.debut_jour <= r.date_debut)
+) j
+GROUP BY j.borne_id, j.jour;
+
+ANALYZE borne;
+ANALYZE reservation;
+ANALYZE reservation_rollup;
+
+-- Sans pré-agrégation : 12 mois par mois, directement sur reservation
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT date_trunc('month', r.date_debut), r.borne_id, COUNT(*), SUM(r.total_price),
+       SUM(EXTRACT(EPOCH FROM (r.date_fin - r.date_debut))) / 60
+FROM reservation r
+JOIN borne b ON b.borne_id = r.borne_id
+WHERE b.owner_id = (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner')
+  AND r.etat IN ('CONFIRMEE', 'ACTIVE', 'TERMINEE')
+  AND r.date_debut >= date_trunc('month', now()) - interval '11 months'
+GROUP BY 1, 2;
+
+-- Nouveau chemin : 12 mois par mois sur reservation_rollup
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT CAST(date_trunc('month', CAST(r.jour AS timestamp)) AS date) - DATE '1970-01-01',
+       r.borne_id, SUM(r.nb_reservations), SUM(r.montant), SUM(r.minutes_occupees)
+FROM reservation_rollup r
+JOIN borne b ON b.borne_id = r.borne_id
+WHERE b.owner_id = (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner')
+  AND r.jour >= CAST(date_trunc('month', now()) - interval '11 months' AS date)
+  AND r.jour < CAST(now() + interval '1 day' AS date)
+GROUP BY 1, 2 ORDER BY 1, 2;
+
+-- Nouveau chemin : 30 jours pour une seule borne
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT r.jour, SUM(r.nb_reservations), SUM(r.montant), SUM(r.minutes_occupees)
+FROM reservation_rollup r
+WHERE r.borne_id = (SELECT min(borne_id) FROM borne)
+  AND r.jour >= CAST(now() - interval '30 days' AS date)
+GROUP BY 1 ORDER BY 1;
+
+ROLLBACK;
@@ -0,0 +1,75 @@
+-- ========================================
+-- Benchmark : détection des chevauchements de réservations
+-- Compare la requête findConflictingReservations (trois BETWEEN combinés par OR)
+-- avec le test de chevauchement servi par l'index GiST de la contrainte
+-- excl_reservation_chevauchement, puis vérifie que la contrainte rejette un
+-- créneau confirmé qui chevauche un créneau existant.
+--
+-- Usage : psql -d electricity -f benchmarks/reservation_exclusion.sql
+-- Le script travaille dans une transaction annulée à la fin : aucune donnée n'est conservée.
+-- ========================================
+
+\timing on
+
+BEGIN;
+
+-- Jeu de données : 50 bornes, 2 ans de créneaux de 90 minutes toutes les 2 heures
+INSERT INTO utilisateur (nom, prenom, pseudo, mot_de_passe, role, email)
+VALUES ('Bench', 'Owner', 'bench_owner', 'x', 'proprietaire', 'bench_owner@example.com'),
+       ('Bench', 'Client', 'bench_client', 'x', 'client', 'bench_client@example.com');
+
+INSERT INTO lieu (adresse, nom, code_postal, ville, pays, latitude, longitude)
+VALUES ('1 Rue du Bench', 'Bench', '75000', 'Paris', 'France', 48.8566, 2.3522);
+
+INSERT INTO borne (numero, nom, localisation, latitude, longitude, etat, occupee, puissance,
+                   prix_a_la_minute, owner_id, lieu_id)
+SELECT 'B-' || g, 'Borne bench ' || g, 'Paris', 48.8566, 2.3522, 'DISPONIBLE', FALSE, 150, 0.25,
+       (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner'),
+       (SELECT id_lieu FROM lieu WHERE nom = 'Bench')
+FROM generate_series(1, 50) AS g;
+
+INSERT INTO reservation (id_utilisateur, borne_id, date_debut, date_fin, prix_a_la_minute, etat, total_price)
+SELECT (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_client'),
+       b.borne_id,
+       d + (h * interval '2 hours'),
+       d + (h * interval '2 hours') + interval '90 minutes',
+       0.25,
+       (ARRAY['CONFIRMEE','TERMINEE','ACTIVE','ANNULEE'])[1 + ((h + b.borne_id) % 4)],
+       22.50
+FROM borne b,
+     generate_series(date_trunc('day', now()) - interval '1 year', date_trunc('day', now()) + interval '1 year', interval '1 day') AS d,
+     generate_series(0, 11) AS h
+WHERE b.owner_id = (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner');
+
+ANALYZE reservation;
+
+-- Ancien chemin : requête de conflit exécutée sous le verrou de la borne
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT r.* FROM reservation r
+WHERE r.borne_id = (SELECT MIN(borne_id) FROM borne WHERE numero = 'B-1')
+  AND r.etat IN ('CONFIRMEE', 'ACTIVE', 'TERMINEE')
+  AND ((r.date_debut BETWEEN date_trunc('day', now()) + interval '18 hours'
+                         AND date_trunc('day', now()) + interval '19 hours')
+    OR (r.date_fin BETWEEN date_trunc('day', now()) + interval '18 hours'
+                       AND date_trunc('day', now()) + interval '19 hours')
+    OR (date_trunc('day', now()) + interval '18 hours' BETWEEN r.date_debut AND r.date_fin));
+
+-- Nouveau chemin : test de chevauchement servi par l'index de la contrainte d'exclusion
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT r.* FROM reservation r
+WHERE r.borne_id = (SELECT MIN(borne_id) FROM borne WHERE numero = 'B-1')
+  AND r.etat IN ('CONFIRMEE', 'ACTIVE', 'TERMINEE')
+  AND r.periode && tsrange(date_trunc('day', now()) + interval '18 hours',
+                           date_trunc('day', now()) + interval '19 hours', '[]');
+
+-- Acceptation d'un créneau qui chevauche : rejet attendu (SQLSTATE 23P01)
+SAVEPOINT chevauchement;
+INSERT INTO reservation (id_utilisateur, borne_id, date_debut, date_fin, prix_a_la_minute, etat, total_price)
+SELECT (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_client'),
+       r.borne_id, r.date_debut + interval '30 minutes', r.date_fin + interval '30 minutes', 0.25, 'CONFIRMEE', 22.50
+FROM reservation r
+WHERE r.etat = 'CONFIRMEE'
+LIMIT 1;
+ROLLBACK TO SAVEPOINT chevauchement;
+
+ROLLBACK;
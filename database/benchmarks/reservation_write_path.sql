@@ -0,0 +1,93 @@
+-- ========================================
+-- Benchmark : chemin d'écriture des réservations (création, annulation, acceptation)
+-- Compare l'ancien chemin (écriture puis rechargement findWithDetails : jointure
+-- utilisateur / borne / propriétaire / médias) avec le nouveau chemin où la
+-- réponse est construite depuis les entités déjà chargées.
+--
+-- Usage : psql -d electricity -f benchmarks/reservation_write_path.sql
+-- Le script travaille dans une transaction annulée à la fin : aucune donnée n'est conservée.
+-- ========================================
+
+\timing on
+
+BEGIN;
+
+-- Jeu de données : 200 bornes avec 5 médias chacune, 20 000 réservations en attente
+INSERT INTO utilisateur (nom, prenom, pseudo, mot_de_passe, role, email)
+VALUES ('Bench', 'Owner', 'bench_owner', 'x', 'proprietaire', 'bench_owner@example.com'),
+       ('Bench', 'Client', 'bench_client', 'x', 'client', 'bench_client@example.com');
+
+INSERT INTO lieu (adresse, nom, code_postal, ville, pays, latitude, longitude)
+VALUES ('1 Rue du Bench', 'Bench', '75000', 'Paris', 'France', 48.8566, 2.3522);
+
+INSERT INTO borne (numero, nom, localisation, latitude, longitude, etat, occupee, puissance,
+                   prix_a_la_minute, owner_id, lieu_id)
+SELECT 'B-' || g, 'Borne bench ' || g, 'Paris', 48.8566, 2.3522, 'DISPONIBLE', FALSE, 150, 0.25,
+       (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner'),
+       (SELECT id_lieu FROM lieu WHERE nom = 'Bench')
+FROM generate_series(1, 200) AS g;
+
+INSERT INTO borne_medias (borne_id, media_url)
+SELECT b.borne_id, 'https://cdn.example.com/bornes/' || b.borne_id || '/' || m || '.jpg'
+FROM borne b, generate_series(1, 5) AS m
+WHERE b.owner_id = (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner');
+
+INSERT INTO reservation (id_utilisateur, borne_id, date_debut, date_fin, prix_a_la_minute, etat, total_price)
+SELECT (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_client'),
+       b.borne_id,
+       date_trunc('day', now()) + (n * interval '2 hours'),
+       date_trunc('day', now()) + (n * interval '2 hours') + interval '90 minutes',
+       0.25, 'EN_ATTENTE', 22.50
+FROM borne b, generate_series(1, 100) AS n
+WHERE b.owner_id = (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner');
+
+ANALYZE borne;
+ANALYZE borne_medias;
+ANALYZE reservation;
+
+-- Ancien chemin : 5 000 refus, chacun suivi du rechargement de la réservation avec ses détails
+DO $$
+DECLARE
+    r RECORD;
+    detail RECORD;
+BEGIN
+    FOR r IN SELECT numero_reservation FROM reservation WHERE etat = 'EN_ATTENTE'
+             ORDER BY numero_reservation LIMIT 5000 LOOP
+        UPDATE reservation SET etat = 'REFUSEE', updated_at = now()
+        WHERE numero_reservation = r.numero_reservation;
+        FOR detail IN
+            SELECT res.*, u.*, b.*, o.*, m.*
+            FROM reservation res
+            JOIN utilisateur u ON u.id_utilisateur = res.id_utilisateur
+            JOIN borne b ON b.borne_id = res.borne_id
+            LEFT JOIN utilisateur o ON o.id_utilisateur = b.owner_id
+            LEFT JOIN borne_medias m ON m.borne_id = b.borne_id
+            WHERE res.numero_reservation = r.numero_reservation
+        LOOP
+        END LOOP;
+    END LOOP;
+END $$;
+
+-- Nouveau chemin : 5 000 refus, la réponse est construite sans relire la base
+DO $$
+DECLARE
+    r RECORD;
+BEGIN
+    FOR r IN SELECT numero_reservation FROM reservation WHERE etat = 'EN_ATTENTE'
+             ORDER BY numero_reservation LIMIT 5000 LOOP
+        UPDATE reservation SET etat = 'REFUSEE', updated_at = now()
+        WHERE numero_reservation = r.numero_reservation;
+    END LOOP;
+END $$;
+
+-- Coût unitaire de la requête de rechargement supprimée
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT res.*, u.*, b.*, o.*, m.*
+FROM reservation res
+JOIN utilisateur u ON u.id_utilisateur = res.id_utilisateur
+JOIN borne b ON b.borne_id = res.borne_id
+LEFT JOIN utilisateur o ON o.id_utilisateur = b.owner_id
+LEFT JOIN borne_medias m ON m.borne_id = b.borne_id
+WHERE res.numero_reservation = (SELECT MAX(numero_reservation) FROM reservation);
+
+ROLLBACK;
@@ -0,0 +1,76 @@
+-- ========================================
+-- Benchmark : recherche avancée des bornes (/bornes/search, /bornes/disponibles)
+-- Compare l'ancien chemin (chargement de toutes les bornes puis filtrage en Java)
+-- avec la requête unique générée par BorneServiceImpl.searchAdvanced.
+--
+-- Usage : psql -d electricity -f benchmarks/search_advanced.sql
+-- Le script travaille dans une transaction annulée à la fin : aucune donnée n'est conservée.
+-- ========================================
+
+\timing on
+
+BEGIN;
+
+-- Jeu de données : 100 000 bornes réparties autour de Paris
+INSERT INTO utilisateur (nom, prenom, pseudo, mot_de_passe, role, email)
+VALUES ('Bench', 'Owner', 'bench_owner', 'x', 'proprietaire', 'bench_owner@example.com');
+
+INSERT INTO lieu (adresse, nom, code_postal, ville, pays, latitude, longitude)
+VALUES ('1 Rue du Bench', 'Bench', '75000', 'Paris', 'France', 48.8566, 2.3522);
+
+INSERT INTO borne (numero, nom, localisation, latitude, longitude, etat, occupee, puissance,
+                   prix_a_la_minute, owner_id, lieu_id, geom)
+SELECT 'B-' || g,
+       'Borne bench ' || g,
+       'Paris',
+       lat,
+       lon,
+       (ARRAY['DISPONIBLE','OCCUPEE','EN_PANNE','EN_MAINTENANCE'])[1 + (g % 4)],
+       (g % 3 = 0),
+       (ARRAY[7, 11, 22, 50, 150])[1 + (g % 5)],
+       round((0.05 + random() * 0.95)::numeric, 4),
+       (SELECT id_utilisateur FROM utilisateur WHERE pseudo = 'bench_owner'),
+       (SELECT id_lieu FROM lieu WHERE nom = 'Bench'),
+       ST_SetSRID(ST_MakePoint(lon, lat), 4326)
+FROM (
+    SELECT g,
+           48.8566 + (random() - 0.5) AS lat,
+           2.3522 + (random() - 0.5) AS lon
+    FROM generate_series(1, 100000) AS g
+) s;
+
+ANALYZE borne;
+
+-- Ancien chemin : toutes les lignes sont transférées vers la JVM
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM borne;
+
+-- Ancien chemin avec distance : ST_DWithin seul, filtres appliqués ensuite en Java
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM borne cs
+WHERE cs.geom IS NOT NULL
+  AND ST_DWithin(CAST(cs.geom AS geography),
+                 CAST(ST_SetSRID(ST_MakePoint(2.3522, 48.8566), 4326) AS geography),
+                 5000);
+
+-- Nouveau chemin : prix horaire 20-40 €, puissance >= 22 kW, disponible, non occupée
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM borne b
+WHERE b.prix_a_la_minute >= 0.3334
+  AND b.prix_a_la_minute <= 0.6666
+  AND b.puissance >= 22
+  AND b.etat = 'DISPONIBLE'
+  AND (b.occupee IS NULL OR b.occupee = FALSE);
+
+-- Nouveau chemin avec distance (5 km)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM borne b
+WHERE b.geom IS NOT NULL
+  AND ST_DWithin(geography(b.geom),
+                 geography(ST_SetSRID(ST_MakePoint(2.3522, 48.8566), 4326)),
+                 5000)
+  AND b.prix_a_la_minute >= 0.3334
+  AND b.puissance >= 22
+  AND b.etat = 'DISPONIBLE';
+
+ROLLBACK;
@@ -0,0 +1,54 @@
+-- ========================================
+-- Migration : contrainte d'exclusion des réservations
+-- À exécuter sur une base existante (créée avant cette contrainte ou tenue à
+-- jour par spring.jpa.hibernate.ddl-auto=update, qui ne crée ni la colonne
+-- générée, ni la contrainte, ni l'extension).
+-- IMPORTANT: Script idempotent et ré-exécutable
+--
+--   psql -U postgres -d electricity -f migrations/reservation_exclusion.sql
+-- ========================================
+
+-- btree_gist : égalité sur borne_id dans la contrainte d'exclusion des réservations
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Créneau fermé, même sémantique que findConflictingReservations
+-- (lu par la recherche des bornes libres : BorneRepository, r.periode)
+ALTER TABLE reservation
+    ADD COLUMN IF NOT EXISTS periode TSRANGE
+    GENERATED ALWAYS AS (tsrange(date_debut, date_fin, '[]')) STORED;
+
+-- Deux réservations confirmées d'une même borne ne peuvent pas se chevaucher
+DO $$
+DECLARE
+    conflits BIGINT;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_constraint
+               WHERE conname = 'excl_reservation_chevauchement'
+                 AND conrelid = 'reservation'::regclass) THEN
+        RAISE NOTICE 'Contrainte excl_reservation_chevauchement déjà présente';
+        RETURN;
+    END IF;
+
+    -- Les chevauchements déjà enregistrés empêcheraient la création de la
+    -- contrainte : ils sont listés pour être résolus avant de relancer le script
+    SELECT COUNT(*) INTO conflits
+    FROM reservation a
+    JOIN reservation b ON b.borne_id = a.borne_id
+                      AND b.numero_reservation > a.numero_reservation
+                      AND b.periode && a.periode
+    WHERE a.etat IN ('CONFIRMEE','ACTIVE','TERMINEE')
+      AND b.etat IN ('CONFIRMEE','ACTIVE','TERMINEE');
+    IF conflits > 0 THEN
+        RAISE EXCEPTION '% paire(s) de réservations confirmées se chevauchent déjà', conflits
+            USING HINT = 'SELECT a.numero_reservation, b.numero_reservation FROM reservation a '
+                || 'JOIN reservation b ON b.borne_id = a.borne_id '
+                || 'AND b.numero_reservation > a.numero_reservation AND b.periode && a.periode '
+                || 'WHERE a.etat IN (''CONFIRMEE'',''ACTIVE'',''TERMINEE'') '
+                || 'AND b.etat IN (''CONFIRMEE'',''ACTIVE'',''TERMINEE'')';
+    END IF;
+
+    ALTER TABLE reservation
+        ADD CONSTRAINT excl_reservation_chevauchement EXCLUDE USING gist (borne_id WITH =, periode WITH &&)
+        WHERE (etat IN ('CONFIRMEE','ACTIVE','TERMINEE'));
+    RAISE NOTICE 'Contrainte excl_reservation_chevauchement créée';
+END $$;
@@ -17,6 +17,7 @@ export interface Borne {
   dateCreation?: Date;
   dateModification?: Date;
   medias?: string[];
+  thumbnail?: string; // Miniature renvoyée par les listes de bornes
   instructionSurPied?: string;
   instruction?: string; // Instructions d'accès
   surPied?: boolean; // Si la borne est sur pied
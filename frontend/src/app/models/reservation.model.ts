@@ -14,6 +14,7 @@ export interface ReservationBackend {
   prixALaMinute: number;
   totalPrice: number;
   receiptPath?: string;
+  receiptStatus?: 'EN_COURS' | 'DISPONIBLE'; // Absent sans reçu
   borne?: Borne;
   utilisateur?: Utilisateur;
 }
@@ -32,6 +33,7 @@ export interface Reservation {
   notificationEnvoyee?: boolean;
   motifRefus?: string;
   receiptPath?: string;
+  receiptStatus?: 'EN_COURS' | 'DISPONIBLE'; // Absent sans reçu
 }
 
 export interface ReservationFiltre {
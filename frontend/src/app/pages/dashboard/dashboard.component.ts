@@ -362,6 +362,10 @@ export class DashboardComponent implements OnInit {
   downloadReceipt(idReservation: number): void {
     this.reservationService.downloadReceipt(idReservation).subscribe({
       next: (blob) => {
+        if (!blob) {
+          alert('Reçu en cours de génération, réessayez dans quelques instants');
+          return;
+        }
         const url = window.URL.createObjectURL(blob);
         const link = document.createElement('a');
         link.href = url;
@@ -166,6 +166,17 @@ export class HomeComponent implements OnInit, AfterViewInit, OnDestroy {
   openBorneDetails(borne: Borne): void {
     this.selectedBorne = borne;
     this.isModalOpen = true;
+    // La liste ne contient qu'un résumé : les photos viennent du détail de la borne
+    const borneId = borne.idBorne ?? borne.id;
+    if (borneId == null) return;
+    this.borneService.getBorneById(borneId).subscribe({
+      next: (response: ApiResponse<Borne>) => {
+        if (response.data && this.selectedBorne === borne) {
+          this.selectedBorne = { ...borne, medias: response.data.medias || [] };
+        }
+      },
+      error: (error: any) => console.error('Erreur lors du chargement du détail de la borne', error)
+    });
   }
 
   closeBorneDetails(): void {
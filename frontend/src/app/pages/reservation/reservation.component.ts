@@ -86,9 +86,24 @@ export class ReservationComponent implements OnInit {
     setTimeout(() => {
       this.selectedBorne = this.bornesDisponibles.find(b => b.idBorne === borneId) || null;
       this.currentPhotoIndex = 0; // Réinitialiser l'index photo
+      this.chargerPhotosBorne(borneId);
     }, 500);
   }
 
+  // Les listes ne renvoient qu'un résumé des bornes : les photos sont lues
+  // dans le détail de la borne sélectionnée
+  chargerPhotosBorne(borneId: number): void {
+    if (isNaN(borneId)) return;
+    this.borneService.getBorneById(borneId).subscribe({
+      next: (response: ApiResponse<Borne>) => {
+        if (response.data && this.selectedBorne?.idBorne === borneId) {
+          this.selectedBorne = { ...this.selectedBorne, medias: response.data.medias || [] };
+        }
+      },
+      error: (err: any) => this.toastService.showError('Erreur lors du chargement des photos de la borne')
+    });
+  }
+
   loadBornes(): void {
     this.isLoading = true;
     // Charger toutes les bornes pour les filtres
@@ -249,7 +264,11 @@ export class ReservationComponent implements OnInit {
   // Télécharger le reçu PDF
   telechargerRecu(reservationId: number): void {
     this.reservationService.downloadReceipt(reservationId).subscribe({
-      next: (blob: Blob) => {
+      next: (blob: Blob | null) => {
+        if (!blob) {
+          this.toastService.showInfo('Reçu en cours de génération, réessayez dans quelques instants');
+          return;
+        }
         const fileName = `recu_reservation_${reservationId}.pdf`;
         saveAs(blob, fileName);
         this.toastService.showSuccess('Reçu téléchargé avec succès');
@@ -413,6 +432,7 @@ export class ReservationComponent implements OnInit {
     const borneId = parseInt(event.target.value);
     this.selectedBorne = this.bornesDisponibles.find(b => b.idBorne === borneId) || null;
     this.currentPhotoIndex = 0; // Réinitialiser l'index photo
+    this.chargerPhotosBorne(borneId);
   }
 
   // Utilitaires
@@ -20,7 +20,8 @@ export class ReservationMapperService {
       dateFin: new Date(backend.dateFin),
       statut: this.mapEtatToStatut(backend.etat),
       montantTotal: backend.totalPrice,
-      receiptPath: backend.receiptPath
+      receiptPath: backend.receiptPath,
+      receiptStatus: backend.receiptStatus
     };
   }
 
@@ -184,6 +184,30 @@ describe('ReservationService', () => {
     });
   });
 
+  describe('downloadReceipt', () => {
+    it('should return the PDF once generated', () => {
+      const pdf = new Blob(['%PDF-1.4'], { type: 'application/pdf' });
+
+      service.downloadReceipt(1).subscribe(blob => {
+        expect(blob).toEqual(pdf);
+      });
+
+      const req = httpMock.expectOne(`${environment.apiUrl}/reservations/1/receipt`);
+      expect(req.request.method).toBe('GET');
+      req.flush(pdf);
+    });
+
+    it('should return null while the receipt is being generated', () => {
+      service.downloadReceipt(1).subscribe(blob => {
+        expect(blob).toBeNull();
+      });
+
+      const req = httpMock.expectOne(`${environment.apiUrl}/reservations/1/receipt`);
+      req.flush(new Blob(['{"result":"SUCCESS"}'], { type: 'application/json' }),
+        { status: 202, statusText: 'Accepted' });
+    });
+  });
+
   describe('getReservationsByUser', () => {
     it('should return reservations for a user', () => {
       const mockResponse: ApiResponse<Reservation[]> = {
@@ -166,8 +166,11 @@ export class ReservationService {
     return this.http.get(`${this.apiUrl}/${id}/recu-pdf`, { responseType: 'blob' });
   }
 
-  downloadReceipt(id: number): Observable<Blob> {
-    return this.http.get(`${this.apiUrl}/${id}/receipt`, { responseType: 'blob' });
+  // null : reçu en cours de génération (202), à redemander plus tard
+  downloadReceipt(id: number): Observable<Blob | null> {
+    return this.http.get(`${this.apiUrl}/${id}/receipt`, { responseType: 'blob', observe: 'response' }).pipe(
+      map(response => response.status === 202 ? null : response.body)
+    );
   }
 
   envoyerNotification(reservationId: number): Observable<ApiResponse<void>> {